@@ -2,10 +2,14 @@ package app;
 
 import java.awt.BorderLayout;
 import java.awt.Color;
+import java.awt.Component;
 import java.awt.EventQueue;
 import java.awt.Font;
 import java.awt.GridLayout;
-import java.io.IOException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
 
 import javax.swing.BorderFactory;
 import javax.swing.BoxLayout;
@@ -14,14 +18,20 @@ import javax.swing.JComboBox;
 import javax.swing.JDialog;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
+import javax.swing.JOptionPane;
 import javax.swing.JPanel;
+import javax.swing.JProgressBar;
 import javax.swing.JTextField;
+import javax.swing.SwingWorker;
+import javax.swing.WindowConstants;
 import javax.swing.border.EmptyBorder;
 
 import app.model.Major;
 import app.model.Student;
 import app.model.StudentManager;
 import app.view.Dialog;
+import app.view.EdtWatchdog;
+import app.view.EdtWatchdogPanel;
 import app.view.MainScrollPane;
 
 /**
@@ -36,6 +46,7 @@ import app.view.MainScrollPane;
  * @see app.model.StudentManager
  * @see app.view.Dialog
  * @see app.view.MainScrollPane
+ * @see app.view.EdtWatchdog
  */
 public class Main extends JFrame {
 
@@ -43,8 +54,30 @@ public class Main extends JFrame {
 	private JPanel contentPane;
 	private Dialog dialog;
 	private MainScrollPane mainScrollPane;
+	private JButton btnAddStudent;
+	private JPanel panelLoading;
+	private JProgressBar progressLoading;
+	private JButton btnCancelLoading;
+	private JButton btnRetryLoading;
+	private SwingWorker<?, ?> studentLoader;
 
+	/**
+	 * Starts the application.
+	 * <p>
+	 * Started with {@code -Dapp.edtWatchdog=true}, an {@link EdtWatchdog} is
+	 * installed first, recording events that block the event dispatch thread for
+	 * longer than {@code -Dapp.edtWatchdog.thresholdMillis} (100 ms by default),
+	 * and a "Debug" button shows its report.
+	 *
+	 * @param args unused
+	 */
 	public static void main(String[] args) {
+		if (Boolean.getBoolean("app.edtWatchdog")) {
+			long thresholdMillis = Long.getLong("app.edtWatchdog.thresholdMillis",
+					EdtWatchdog.DEFAULT_THRESHOLD_MILLIS);
+			EdtWatchdog.install(thresholdMillis);
+		}
+
 		EventQueue.invokeLater(new Runnable() {
 			public void run() {
 				try {
@@ -61,7 +94,11 @@ public class Main extends JFrame {
 	 * Constructs the main application frame.
 	 * <p>
 	 * The frame is initialized with a scrollable {@link MainScrollPane} in the
-	 * center to display student information.
+	 * center to display student information, which is subscribed to the
+	 * {@link StudentManager}'s change events. The roster is loaded in the
+	 * background, so the frame can be shown right away, with a progress bar at
+	 * the bottom until loading is done. Students can only be added once the
+	 * roster is loaded, so that new IDs follow the ones already in use.
 	 */
 	public Main() {
 		this.setTitle("Student Management System");
@@ -86,12 +123,21 @@ public class Main extends JFrame {
 		lblTitle.setBorder(new EmptyBorder(0, 0, 10, 0));
 		panelLayoutNorth.add(lblTitle);
 
-		JButton btnAddStudent = new JButton("Add student");
+		btnAddStudent = new JButton("Add student");
+		btnAddStudent.setEnabled(false);
 		btnAddStudent.addActionListener(e -> {
 			dialog.init("Add Student", createPanelAddStudent(), 600, 300);
 		});
 		panelLayoutNorth.add(btnAddStudent);
 
+		EdtWatchdog watchdog = EdtWatchdog.getInstance();
+
+		if (watchdog != null) {
+			JButton btnDebug = new JButton("Debug");
+			btnDebug.addActionListener(e -> showWatchdogReport(watchdog));
+			panelLayoutNorth.add(btnDebug);
+		}
+
 		contentPane.add(panelLayoutNorth, BorderLayout.NORTH);
 
 		// CENTER: Main panel with student information
@@ -99,14 +145,183 @@ public class Main extends JFrame {
 		mainScrollPane.setBorder(BorderFactory.createLineBorder(new Color(200, 200, 200), 1));
 		contentPane.add(mainScrollPane, BorderLayout.CENTER);
 
+		// Rows follow roster changes, delivered in coalesced batches on the EDT
+		StudentManager.addChangeListener(mainScrollPane::studentsChanged, EventQueue::invokeLater);
+
+		// SOUTH: Loading progress, shown until the roster is loaded
+		contentPane.add(createPanelLoading(), BorderLayout.SOUTH);
+		loadStudents();
+	}
+
+	/**
+	 * Shows the report of the given watchdog in a separate, non-modal window.
+	 *
+	 * @param watchdog the installed {@link EdtWatchdog}
+	 */
+	private void showWatchdogReport(EdtWatchdog watchdog) {
+		JDialog dialogDebug = new JDialog(this, "EDT Watchdog");
+		dialogDebug.setDefaultCloseOperation(WindowConstants.DISPOSE_ON_CLOSE);
+		dialogDebug.setContentPane(new EdtWatchdogPanel(watchdog));
+		dialogDebug.pack();
+		dialogDebug.setLocationRelativeTo(this);
+		dialogDebug.setVisible(true);
+	}
+
+	/**
+	 * Creates and returns a {@link JPanel} showing the progress of the roster
+	 * load, with a button to cancel it and a button to start it again.
+	 * <p>
+	 * The progress bar counts the students shown so far, since the size of the
+	 * roster is not known until it is read.
+	 *
+	 * @return a {@link JPanel} containing the progress bar and the "Cancel" and
+	 *         "Retry" buttons
+	 */
+	private JPanel createPanelLoading() {
+		panelLoading = new JPanel(new BorderLayout(10, 0));
+		panelLoading.setBorder(new EmptyBorder(15, 0, 0, 0));
+
+		progressLoading = new JProgressBar();
+		progressLoading.setStringPainted(true);
+		panelLoading.add(progressLoading, BorderLayout.CENTER);
+
+		JPanel buttonPanel = new JPanel(new GridLayout(1, 0, 0, 0));
+
+		btnCancelLoading = new JButton("Cancel");
+		btnCancelLoading.addActionListener(e -> studentLoader.cancel(false));
+		buttonPanel.add(btnCancelLoading);
+
+		btnRetryLoading = new JButton("Retry");
+		btnRetryLoading.addActionListener(e -> loadStudents());
+		buttonPanel.add(btnRetryLoading);
+
+		panelLoading.add(buttonPanel, BorderLayout.EAST);
+
+		return panelLoading;
+	}
+
+	/**
+	 * Starts loading the roster into the {@link MainScrollPane} and shows its
+	 * progress.
+	 * <p>
+	 * The "Add student" button stays disabled until the load succeeds, at which
+	 * point the loading panel hides itself. A cancelled or failed load leaves
+	 * the roster unloaded, and the panel offers to retry it.
+	 */
+	private void loadStudents() {
+		SwingWorker<?, ?> loader = mainScrollPane.loadStudents();
+		studentLoader = loader;
+
+		btnAddStudent.setEnabled(false);
+		progressLoading.setIndeterminate(true);
+		progressLoading.setString("Loading students...");
+		btnCancelLoading.setVisible(true);
+		btnRetryLoading.setVisible(false);
+		panelLoading.setVisible(true);
+
+		loader.addPropertyChangeListener(e -> {
+			if (MainScrollPane.LOADED_PROPERTY.equals(e.getPropertyName())) {
+				progressLoading.setString(String.format("Loaded %,d students", e.getNewValue()));
+			} else if ("state".equals(e.getPropertyName()) && e.getNewValue() == SwingWorker.StateValue.DONE) {
+				loadFinished(loader);
+			}
+		});
+	}
+
+	/**
+	 * Enables adding students once the given load has succeeded, or offers to
+	 * retry it if it was cancelled or failed.
+	 *
+	 * @param loader the finished worker
+	 */
+	private void loadFinished(SwingWorker<?, ?> loader) {
+		String message;
+
+		try {
+			loader.get();
+			panelLoading.setVisible(false);
+			btnAddStudent.setEnabled(true);
+			return;
+		} catch (CancellationException ex) {
+			message = "Loading students was cancelled.";
+		} catch (ExecutionException ex) {
+			message = "Error loading students: " + ex.getCause().getMessage();
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			return;
+		}
+
+		progressLoading.setIndeterminate(false);
+		progressLoading.setString(message);
+		btnCancelLoading.setVisible(false);
+		btnRetryLoading.setVisible(true);
+	}
+
+	/**
+	 * Creates and adds a student without blocking the event dispatch thread.
+	 * <p>
+	 * The {@link Student} is created on a background thread, since assigning its
+	 * ID may write the ID file, and then handed to
+	 * {@link StudentManager#addStudentAsync(Student)}, which may first have to
+	 * wait for the roster to load. The {@link StudentManager} adds the student to
+	 * the roster and publishes the change before the change log is written, so
+	 * the new row appears in {@code MainScrollPane} right away. If the write
+	 * fails, the student is removed again and the row disappears with the change
+	 * event for it. Students that are rejected and writes that fail are reported
+	 * in an error message.
+	 *
+	 * @param firstName    the student's first name
+	 * @param lastName     the student's last name
+	 * @param major        the student's {@link Major}
+	 * @param academicYear the student's enrollment year
+	 */
+	private void submitStudent(String firstName, String lastName, Major major, int academicYear) {
+		CompletableFuture<Student> created = CompletableFuture
+				.supplyAsync(() -> new Student(firstName, lastName, major, academicYear));
+
+		created.thenComposeAsync(StudentManager::addStudentAsync)
+				.whenCompleteAsync((result, ex) -> {
+					if (ex != null) {
+						Throwable cause = ex instanceof CompletionException && ex.getCause() != null
+								? ex.getCause()
+								: ex;
+
+						if (cause instanceof IllegalArgumentException)
+							showError(this, "Invalid student data: " + cause.getMessage());
+						else
+							showError(this, "Could not save " + firstName + " " + lastName + ": "
+									+ cause.getMessage());
+						return;
+					}
+
+					Student student = created.join();
+
+					if (result == StudentManager.AddResult.DUPLICATE) {
+						showError(this, "Student S" + student.getStudentId() + " already exists.");
+					} else if (result == StudentManager.AddResult.INVALID) {
+						showError(this, "Invalid student data: " + student + ", " + student.getMajor() + ", "
+								+ student.getYear() + ".");
+					}
+				}, EventQueue::invokeLater);
+	}
+
+	/**
+	 * Shows the given message in an error dialog.
+	 *
+	 * @param parent  the component the dialog is shown over
+	 * @param message the message to show
+	 */
+	private static void showError(Component parent, String message) {
+		JOptionPane.showMessageDialog(parent, message, "Error", JOptionPane.ERROR_MESSAGE);
 	}
 
 	/**
 	 * Creates and returns a {@link JPanel} representing the "Add Student" form.
 	 * <p>
-	 * Upon submission, a new {@link Student} is created and added to the system via
-	 * {@link StudentManager#addStudent(Student)}. The student list in
-	 * {@code MainScrollPane} is updated dynamically.
+	 * Upon submission, the form's values are handed to
+	 * {@link #submitStudent(String, String, Major, int)}, which creates and saves
+	 * the new {@link Student}, and the form closes without waiting for it. An academic year that is not a number is reported right away,
+	 * and the form stays open.
 	 *
 	 * @return a {@link JPanel} containing the "Add Student" form and buttons
 	 */
@@ -151,28 +366,17 @@ public class Main extends JFrame {
 
 		JButton btnConfirmAddStudent = new JButton("Add student");
 		btnConfirmAddStudent.addActionListener(e -> {
+			int academicYear;
+
 			try {
-				String firstName = fieldFirstName.getText();
-				String lastName = fieldLastName.getText();
-				Major major = (Major) selectMajor.getSelectedItem();
-				int academicYear = Integer.valueOf(fieldAcademicYear.getText());
-
-				Student newStudent = new Student(firstName, lastName, major, academicYear);
-
-				StudentManager.addStudent(newStudent);
-				mainScrollPane.addStudentPanel(newStudent);
-				mainScrollPane.getVerticalScrollBar().setValue(
-						mainScrollPane.getVerticalScrollBar().getMaximum());
-			} catch (NumberFormatException | IOException ex) {
-				System.err.println("Error creating student: Student [firstName="
-						+ fieldFirstName.getText() + ", lastName="
-						+ fieldLastName.getText() + ", major="
-						+ selectMajor.getSelectedItem() + ", year="
-						+ fieldAcademicYear.getText() + "]."
-						+ ex.getMessage());
-				ex.printStackTrace();
+				academicYear = Integer.parseInt(fieldAcademicYear.getText().trim());
+			} catch (NumberFormatException ex) {
+				showError(panelAddStudent, "Academic year must be a number: " + fieldAcademicYear.getText());
+				return;
 			}
 
+			submitStudent(fieldFirstName.getText(), fieldLastName.getText(), (Major) selectMajor.getSelectedItem(),
+					academicYear);
 			((JDialog) btnConfirmAddStudent.getTopLevelAncestor()).dispose();
 		});
 		buttonPanel.add(btnConfirmAddStudent);
@@ -0,0 +1,112 @@
+package app.model;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Replaces data files atomically so that a crash or a full disk never leaves a
+ * partially written file behind.
+ * <p>
+ * The new contents are streamed into a sibling temporary file, forced to disk,
+ * and then moved over the original with {@link StandardCopyOption#ATOMIC_MOVE}.
+ * Readers therefore always see either the complete old file or the complete new
+ * one. If the process dies before the move, the temporary file is left behind
+ * and removed by {@link #recover(Path)} on the next startup.
+ *
+ * @author Elli Steck
+ * @see StudentManager
+ * @see StudentSnapshotFile
+ */
+class AtomicFileWriter {
+
+	static final String TEMP_SUFFIX = ".tmp";
+
+	/**
+	 * Writes the contents of a file to an open channel. The channel must not be
+	 * closed by the writer.
+	 */
+	@FunctionalInterface
+	interface ChannelWriter {
+		void write(FileChannel channel) throws IOException;
+	}
+
+	/**
+	 * Atomically replaces the target file with the contents produced by the given
+	 * writer.
+	 * <p>
+	 * If the writer fails, the temporary file is deleted and the target file is
+	 * left untouched.
+	 *
+	 * @param target the file to replace
+	 * @param writer writes the new contents to the temporary file's channel
+	 * @throws IOException if an error occurs while writing, forcing or moving the
+	 *                     file
+	 */
+	static void write(Path target, ChannelWriter writer) throws IOException {
+		Path temp = tempFileFor(target);
+
+		try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			writer.write(channel);
+			channel.force(true);
+		} catch (IOException | RuntimeException ex) {
+			try {
+				Files.deleteIfExists(temp);
+			} catch (IOException deleteEx) {
+				ex.addSuppressed(deleteEx);
+			}
+			throw ex;
+		}
+
+		Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		forceDirectory(target.toAbsolutePath().getParent());
+	}
+
+	/**
+	 * Removes the temporary file left behind by a write to the target file that
+	 * was interrupted before it could be moved into place.
+	 *
+	 * @param target the file whose leftover temporary file should be removed
+	 * @return {@code true} if a leftover temporary file was found and removed
+	 * @throws IOException if an error occurs while deleting the file
+	 */
+	static boolean recover(Path target) throws IOException {
+		Path temp = tempFileFor(target);
+
+		if (!Files.deleteIfExists(temp))
+			return false;
+
+		System.err.println("Removed leftover temporary file: " + temp);
+		return true;
+	}
+
+	/**
+	 * Returns the temporary file used while replacing the target file.
+	 *
+	 * @param target the file being replaced
+	 * @return the sibling temporary file
+	 */
+	static Path tempFileFor(Path target) {
+		return target.resolveSibling(target.getFileName() + TEMP_SUFFIX);
+	}
+
+	/**
+	 * Forces the directory entry for a completed move to disk. Not every platform
+	 * supports opening a directory, so failures are ignored.
+	 */
+	private static void forceDirectory(Path directory) {
+		if (directory == null)
+			return;
+
+		try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+			channel.force(true);
+		} catch (IOException ex) {
+			// Directories cannot be opened for syncing on every platform.
+		}
+	}
+
+}
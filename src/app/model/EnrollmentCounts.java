@@ -0,0 +1,165 @@
+package app.model;
+
+import java.util.Arrays;
+
+/**
+ * A matrix of headcounts by {@link Major} and academic year, kept up to date as
+ * students are added, changed and removed, so that enrollment figures never
+ * need a scan of the roster.
+ * <p>
+ * Counts are held in one {@code int} row per major, covering a window of
+ * consecutive academic years. The window starts at the first year counted and
+ * is widened, copying the rows, when a student outside it is added; years are
+ * stored as {@code short}s, so the window stays small.
+ * <p>
+ * This class is not thread-safe. {@link StudentStore} updates it under its
+ * write lock and takes {@link #snapshot() snapshots} under its read lock.
+ *
+ * @author Elli Steck
+ * @see EnrollmentSnapshot
+ */
+class EnrollmentCounts {
+
+	private static final int INITIAL_YEARS = 16;
+	private static final int MAJOR_COUNT = Major.values().length;
+
+	private int[][] counts = new int[MAJOR_COUNT][0];
+	private int firstYear;
+
+	/**
+	 * Counts one more student with the given major and academic year.
+	 *
+	 * @param major        the student's major
+	 * @param academicYear the student's academic year
+	 */
+	void add(Major major, int academicYear) {
+		ensureYear(academicYear);
+		counts[major.ordinal()][academicYear - firstYear]++;
+	}
+
+	/**
+	 * Counts one less student with the given major and academic year.
+	 *
+	 * @param major        the student's major
+	 * @param academicYear the student's academic year
+	 * @throws IllegalStateException if no such student is counted
+	 */
+	void remove(Major major, int academicYear) {
+		int offset = academicYear - firstYear;
+		int[] byYear = counts[major.ordinal()];
+
+		if (offset < 0 || offset >= byYear.length || byYear[offset] == 0)
+			throw new IllegalStateException("No student counted for " + major.name() + " " + academicYear);
+
+		byYear[offset]--;
+	}
+
+	/**
+	 * Resets every count to zero.
+	 */
+	void clear() {
+		for (int[] byYear : counts)
+			Arrays.fill(byYear, 0);
+	}
+
+	/**
+	 * Returns the number of students counted with the given major and academic
+	 * year.
+	 *
+	 * @param major        the major
+	 * @param academicYear the academic year
+	 * @return the headcount
+	 */
+	int get(Major major, int academicYear) {
+		int offset = academicYear - firstYear;
+		int[] byYear = counts[major.ordinal()];
+		return offset < 0 || offset >= byYear.length ? 0 : byYear[offset];
+	}
+
+	/**
+	 * Returns an immutable copy of the counts, trimmed to the years that have at
+	 * least one student.
+	 *
+	 * @param version the store version the counts reflect
+	 * @return a new snapshot
+	 */
+	EnrollmentSnapshot snapshot(long version) {
+		int width = counts[0].length;
+		int low = width;
+		int high = -1;
+
+		for (int[] byYear : counts) {
+			for (int offset = 0; offset < width; offset++) {
+				if (byYear[offset] != 0) {
+					low = Math.min(low, offset);
+					high = Math.max(high, offset);
+				}
+			}
+		}
+
+		int[][] copy = new int[MAJOR_COUNT][];
+
+		for (int major = 0; major < MAJOR_COUNT; major++)
+			copy[major] = high < low ? new int[0] : Arrays.copyOfRange(counts[major], low, high + 1);
+
+		return new EnrollmentSnapshot(copy, high < low ? 0 : firstYear + low, version);
+	}
+
+	/**
+	 * Returns whether the given counts hold the same headcount as these for every
+	 * major and year, whatever their windows.
+	 *
+	 * @param other the counts to compare
+	 * @return {@code true} if every headcount matches
+	 */
+	boolean sameCounts(EnrollmentCounts other) {
+		int low = Math.min(firstYear, other.firstYear);
+		int high = Math.max(firstYear + counts[0].length, other.firstYear + other.counts[0].length);
+
+		for (Major major : Major.values()) {
+			for (int year = low; year < high; year++) {
+				if (get(major, year) != other.get(major, year))
+					return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Widens the window, if needed, so that it covers the given year.
+	 */
+	private void ensureYear(int academicYear) {
+		int width = counts[0].length;
+
+		if (width == 0) {
+			firstYear = academicYear;
+			resize(0, INITIAL_YEARS);
+			return;
+		}
+
+		if (academicYear >= firstYear && academicYear < firstYear + width)
+			return;
+
+		int low = Math.min(firstYear, academicYear);
+		int high = Math.max(firstYear + width, academicYear + 1);
+		// Leaves room to grow on the side that overflowed.
+		int newWidth = Math.max(high - low, 2 * width);
+		int newFirst = academicYear < firstYear ? high - newWidth : low;
+		resize(firstYear - newFirst, newWidth);
+		firstYear = newFirst;
+	}
+
+	/**
+	 * Copies every row into a new row of the given width, starting at the given
+	 * offset.
+	 */
+	private void resize(int shift, int width) {
+		for (int major = 0; major < MAJOR_COUNT; major++) {
+			int[] byYear = new int[width];
+			System.arraycopy(counts[major], 0, byYear, shift, counts[major].length);
+			counts[major] = byYear;
+		}
+	}
+
+}
@@ -0,0 +1,131 @@
+package app.model;
+
+/**
+ * An immutable, consistent view of the roster's headcounts by {@link Major}
+ * and academic year, as of one moment.
+ * <p>
+ * Every count in a snapshot reflects the same set of students, so the totals by
+ * major, by year and overall always add up. Snapshots are cheap: the counts are
+ * maintained as students change, and a snapshot copies only a small matrix.
+ * Successive snapshots can be compared by {@link #getVersion() version} to
+ * tell whether the roster changed in between.
+ *
+ * @author Elli Steck
+ * @see StudentManager#getEnrollment()
+ */
+public final class EnrollmentSnapshot {
+
+	private final int[][] counts;
+	private final int firstYear;
+	private final long version;
+	private final int[] majorTotals;
+	private final int[] yearTotals;
+	private final int total;
+
+	/**
+	 * Constructs a new {@code EnrollmentSnapshot} over the given counts, which it
+	 * takes ownership of.
+	 *
+	 * @param counts    the headcounts, one row per major in declaration order and
+	 *                  one column per year
+	 * @param firstYear the academic year of the first column
+	 * @param version   the store version the counts reflect
+	 */
+	EnrollmentSnapshot(int[][] counts, int firstYear, long version) {
+		this.counts = counts;
+		this.firstYear = firstYear;
+		this.version = version;
+		this.majorTotals = new int[counts.length];
+		this.yearTotals = new int[counts.length == 0 ? 0 : counts[0].length];
+
+		int sum = 0;
+
+		for (int major = 0; major < counts.length; major++) {
+			for (int offset = 0; offset < yearTotals.length; offset++) {
+				majorTotals[major] += counts[major][offset];
+				yearTotals[offset] += counts[major][offset];
+			}
+
+			sum += majorTotals[major];
+		}
+
+		this.total = sum;
+	}
+
+	/**
+	 * Returns the number of students with the given major and academic year.
+	 *
+	 * @param major        the major
+	 * @param academicYear the academic year
+	 * @return the headcount
+	 */
+	public int getCount(Major major, int academicYear) {
+		int offset = academicYear - firstYear;
+		return offset < 0 || offset >= yearTotals.length ? 0 : counts[major.ordinal()][offset];
+	}
+
+	/**
+	 * Returns the number of students with the given major, in any year.
+	 *
+	 * @param major the major
+	 * @return the headcount
+	 */
+	public int getCount(Major major) {
+		return majorTotals[major.ordinal()];
+	}
+
+	/**
+	 * Returns the number of students in the given academic year, in any major.
+	 *
+	 * @param academicYear the academic year
+	 * @return the headcount
+	 */
+	public int getCount(int academicYear) {
+		int offset = academicYear - firstYear;
+		return offset < 0 || offset >= yearTotals.length ? 0 : yearTotals[offset];
+	}
+
+	/**
+	 * Returns the number of students.
+	 *
+	 * @return the total headcount
+	 */
+	public int getTotal() {
+		return total;
+	}
+
+	/**
+	 * Returns the earliest academic year with at least one student.
+	 *
+	 * @return the first year, or {@code 0} if there are no students
+	 */
+	public int getFirstYear() {
+		return firstYear;
+	}
+
+	/**
+	 * Returns the latest academic year with at least one student.
+	 *
+	 * @return the last year, or {@code -1} if there are no students
+	 */
+	public int getLastYear() {
+		return yearTotals.length == 0 ? -1 : firstYear + yearTotals.length - 1;
+	}
+
+	/**
+	 * Returns the version of the roster the counts reflect. The version grows
+	 * each time students are added, changed or removed.
+	 *
+	 * @return the roster version
+	 */
+	public long getVersion() {
+		return version;
+	}
+
+	@Override
+	public String toString() {
+		return "EnrollmentSnapshot [total=" + total + ", firstYear=" + firstYear + ", lastYear=" + getLastYear()
+				+ ", version=" + version + "]";
+	}
+
+}
@@ -0,0 +1,224 @@
+package app.model;
+
+/**
+ * An open-addressing hash map from {@code int} keys to non-negative
+ * {@code int} slots, with no boxing and no allocation per operation.
+ * <p>
+ * Keys and values are interleaved in a single {@code int[]} table, each key
+ * followed by its slot, and collisions are resolved by linear probing. A
+ * negative value marks an empty entry, so every {@code int} is a valid key.
+ * Removal shifts the following entries of the probe run back instead of
+ * leaving tombstones, so lookups never slow down as entries come and go.
+ * <p>
+ * This class is not thread-safe. It is written so that a lookup racing with a
+ * writer may return a wrong answer but never fails or loops forever, which lets
+ * {@link StudentStore} read it under an optimistic
+ * {@link java.util.concurrent.locks.StampedLock StampedLock} stamp and discard
+ * the answer if the stamp turns out to be invalid.
+ *
+ * @author Elli Steck
+ * @see StudentStore
+ */
+class IntSlotIndex {
+
+	/** The value returned for a key that is not in the index. */
+	static final int NO_SLOT = -1;
+
+	private static final int MIN_CAPACITY = 16;
+
+	private int[] table;
+	private int size;
+
+	/**
+	 * Constructs a new {@code IntSlotIndex} that can hold the given number of keys
+	 * without resizing.
+	 *
+	 * @param expectedSize the expected number of keys
+	 */
+	IntSlotIndex(int expectedSize) {
+		table = newTable(capacityFor(expectedSize));
+	}
+
+	/**
+	 * Returns the slot mapped to the given key.
+	 *
+	 * @param key the key to look up
+	 * @return the key's slot, or {@link #NO_SLOT} if the key is not in the index
+	 */
+	int get(int key) {
+		int[] current = table;
+		int mask = (current.length >> 1) - 1;
+		int index = hash(key) & mask;
+
+		// Bounded by the capacity so that a racing writer can never cause an endless loop.
+		for (int probes = 0; probes <= mask; probes++) {
+			int value = current[2 * index + 1];
+
+			if (value < 0)
+				return NO_SLOT;
+			if (current[2 * index] == key)
+				return value;
+
+			index = (index + 1) & mask;
+		}
+
+		return NO_SLOT;
+	}
+
+	/**
+	 * Maps the given key to the given slot, replacing any previous slot.
+	 *
+	 * @param key  the key
+	 * @param slot the slot, which must not be negative
+	 * @return the key's previous slot, or {@link #NO_SLOT} if it had none
+	 */
+	int put(int key, int slot) {
+		if (slot < 0)
+			throw new IllegalArgumentException("Slot must not be negative: " + slot);
+
+		if ((size + 1) * 4 > (table.length >> 1) * 3)
+			resize(table.length);
+
+		int mask = (table.length >> 1) - 1;
+		int index = hash(key) & mask;
+
+		while (table[2 * index + 1] >= 0) {
+			if (table[2 * index] == key) {
+				int previous = table[2 * index + 1];
+				table[2 * index + 1] = slot;
+				return previous;
+			}
+
+			index = (index + 1) & mask;
+		}
+
+		table[2 * index] = key;
+		table[2 * index + 1] = slot;
+		size++;
+		return NO_SLOT;
+	}
+
+	/**
+	 * Removes the given key from the index.
+	 *
+	 * @param key the key to remove
+	 * @return the key's slot, or {@link #NO_SLOT} if it was not in the index
+	 */
+	int remove(int key) {
+		int mask = (table.length >> 1) - 1;
+		int index = hash(key) & mask;
+
+		while (table[2 * index + 1] >= 0) {
+			if (table[2 * index] == key) {
+				int previous = table[2 * index + 1];
+				shiftBack(index, mask);
+				size--;
+				return previous;
+			}
+
+			index = (index + 1) & mask;
+		}
+
+		return NO_SLOT;
+	}
+
+	/**
+	 * Returns the number of keys in the index.
+	 *
+	 * @return the number of keys
+	 */
+	int size() {
+		return size;
+	}
+
+	/**
+	 * Removes every key from the index, keeping its capacity.
+	 */
+	void clear() {
+		table = newTable(table.length >> 1);
+		size = 0;
+	}
+
+	/**
+	 * Empties the entry at the given position and moves back every later entry of
+	 * the same probe run that would no longer be reachable.
+	 */
+	private void shiftBack(int gap, int mask) {
+		int index = gap;
+
+		while (true) {
+			index = (index + 1) & mask;
+			int value = table[2 * index + 1];
+
+			if (value < 0)
+				break;
+
+			int home = hash(table[2 * index]) & mask;
+
+			// Move the entry into the gap unless its home lies cyclically in (gap, index].
+			if (gap <= index ? (home <= gap || home > index) : (home <= gap && home > index)) {
+				table[2 * gap] = table[2 * index];
+				table[2 * gap + 1] = value;
+				gap = index;
+			}
+		}
+
+		table[2 * gap + 1] = NO_SLOT;
+	}
+
+	/**
+	 * Rehashes every entry into a table with the given capacity.
+	 */
+	private void resize(int capacity) {
+		int[] previous = table;
+		int[] resized = newTable(capacity);
+		int mask = capacity - 1;
+
+		for (int i = 0; i < previous.length; i += 2) {
+			if (previous[i + 1] < 0)
+				continue;
+
+			int index = hash(previous[i]) & mask;
+
+			while (resized[2 * index + 1] >= 0)
+				index = (index + 1) & mask;
+
+			resized[2 * index] = previous[i];
+			resized[2 * index + 1] = previous[i + 1];
+		}
+
+		// Published last, so that a racing lookup sees either table whole.
+		table = resized;
+	}
+
+	private static int[] newTable(int capacity) {
+		int[] table = new int[capacity * 2];
+
+		for (int i = 1; i < table.length; i += 2)
+			table[i] = NO_SLOT;
+
+		return table;
+	}
+
+	/**
+	 * Returns the smallest power-of-two capacity that holds the given number of
+	 * keys below the maximum load factor of 3/4.
+	 */
+	private static int capacityFor(int expectedSize) {
+		int capacity = MIN_CAPACITY;
+
+		while (capacity * 3 / 4 < expectedSize)
+			capacity <<= 1;
+
+		return capacity;
+	}
+
+	/**
+	 * Spreads sequential student IDs across the table.
+	 */
+	private static int hash(int key) {
+		int h = key * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+
+}
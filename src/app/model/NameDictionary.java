@@ -0,0 +1,88 @@
+package app.model;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Assigns each distinct name a dense {@code int} code, so that name columns can
+ * store codes instead of {@link String} references.
+ * <p>
+ * Names are only added, never removed, so a code stays valid for the lifetime
+ * of the dictionary. Codes are assigned by a single writer at a time, while the
+ * owner's lock is held. {@link #decode(int)} may be called without that lock: it
+ * reads the current table once and returns {@code null} for a code it does not
+ * hold yet instead of failing.
+ *
+ * @author Elli Steck
+ * @see StudentStore
+ */
+class NameDictionary {
+
+	/** The value returned by {@link #codeOf(String)} for a name without a code. */
+	static final int NO_CODE = -1;
+
+	private static final int INITIAL_CAPACITY = 64;
+
+	private final Map<String, Integer> codes = new HashMap<>();
+	private volatile String[] names = new String[INITIAL_CAPACITY];
+	private int size;
+
+	/**
+	 * Returns the code of the given name, assigning the next code if the name is
+	 * new. Must only be called by one thread at a time.
+	 *
+	 * @param name the name to encode
+	 * @return the name's code
+	 */
+	int encode(String name) {
+		Integer code = codes.get(name);
+
+		if (code != null)
+			return code;
+
+		String[] current = names;
+
+		if (size == current.length)
+			current = Arrays.copyOf(current, current.length * 2);
+
+		current[size] = name;
+		// Published after the name is stored, so a reader that sees the code sees the name.
+		names = current;
+		codes.put(name, size);
+		return size++;
+	}
+
+	/**
+	 * Returns the code of the given name without assigning one. Must only be
+	 * called while no code is being assigned.
+	 *
+	 * @param name the name to look up
+	 * @return the name's code, or {@link #NO_CODE} if the name has none
+	 */
+	int codeOf(String name) {
+		Integer code = codes.get(name);
+		return code == null ? NO_CODE : code;
+	}
+
+	/**
+	 * Returns the name with the given code.
+	 *
+	 * @param code the code to decode
+	 * @return the name, or {@code null} if no name has that code
+	 */
+	String decode(int code) {
+		String[] current = names;
+		return code >= 0 && code < current.length ? current[code] : null;
+	}
+
+	/**
+	 * Returns the number of distinct names in the dictionary.
+	 *
+	 * @return the number of names
+	 */
+	int size() {
+		return size;
+	}
+
+}
@@ -0,0 +1,354 @@
+package app.model;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A bounded intern table that makes identical names read while loading the
+ * roster share one {@link String} instance.
+ * <p>
+ * Names can be looked up straight from their UTF-8 bytes in a file buffer, so a
+ * name that has been seen before costs no allocation at all, or as a
+ * {@code String}, for the text paths that have already built one. Each interned
+ * name gets a dense ID, in the order names were first seen, which
+ * {@link StudentStore} reuses as the codes of its name columns.
+ * <p>
+ * The table holds at most {@code maxNames} names. Once it is full, new names
+ * are returned as they are, without being interned, so a roster with an
+ * unusually large number of distinct names cannot make the table grow without
+ * bound. Lookups are counted, and {@link #getStats()} reports how many were
+ * answered from the table and roughly how much heap that saved.
+ * <p>
+ * All methods are synchronized, so one table can be shared by the tasks of a
+ * parallel parse.
+ *
+ * @author Elli Steck
+ * @see StudentCsvParser
+ * @see StudentManager#getLoadStats()
+ */
+class NameInterner {
+
+	/** The default largest number of distinct names interned. */
+	static final int DEFAULT_MAX_NAMES = 1 << 20;
+
+	/** The value returned by {@link #idOf(String)} for a name that is not interned. */
+	static final int NO_ID = -1;
+
+	/**
+	 * The approximate heap cost of a separate {@code String} beyond its
+	 * characters: the object itself and the header of its backing array.
+	 */
+	private static final int STRING_OVERHEAD_BYTES = 40;
+
+	/**
+	 * A point-in-time view of an intern table's counters.
+	 */
+	static final class Stats {
+
+		private final long lookups;
+		private final long hits;
+		private final int names;
+		private final long overflows;
+		private final long bytesSaved;
+
+		private Stats(long lookups, long hits, int names, long overflows, long bytesSaved) {
+			this.lookups = lookups;
+			this.hits = hits;
+			this.names = names;
+			this.overflows = overflows;
+			this.bytesSaved = bytesSaved;
+		}
+
+		/**
+		 * Returns the number of names looked up.
+		 *
+		 * @return the number of lookups
+		 */
+		long getLookups() {
+			return lookups;
+		}
+
+		/**
+		 * Returns the number of lookups answered with an instance already in the
+		 * table.
+		 *
+		 * @return the number of hits
+		 */
+		long getHits() {
+			return hits;
+		}
+
+		/**
+		 * Returns the number of distinct names in the table.
+		 *
+		 * @return the number of interned names
+		 */
+		int getNames() {
+			return names;
+		}
+
+		/**
+		 * Returns the number of new names that were not interned because the table
+		 * was full.
+		 *
+		 * @return the number of overflows
+		 */
+		long getOverflows() {
+			return overflows;
+		}
+
+		/**
+		 * Returns an estimate of the heap saved by sharing instances, counting a
+		 * {@code String} object, its array header and two bytes per character for
+		 * every hit.
+		 *
+		 * @return the estimated number of bytes saved
+		 */
+		long getEstimatedBytesSaved() {
+			return bytesSaved;
+		}
+
+		@Override
+		public String toString() {
+			return "Stats [lookups=" + lookups + ", hits=" + hits + ", names=" + names + ", overflows="
+					+ overflows + ", estimatedBytesSaved=" + bytesSaved + "]";
+		}
+
+	}
+
+	private final int maxNames;
+	private final Map<String, Integer> ids = new HashMap<>();
+	private String[] names = new String[64];
+	private byte[][] encodedNames = new byte[64][];
+	private int[] byteTable = newTable(128);
+	private int size;
+	private byte[] scratch = new byte[64];
+	private long lookups;
+	private long hits;
+	private long overflows;
+	private long bytesSaved;
+
+	/**
+	 * Constructs a new {@code NameInterner} that holds at most
+	 * {@value #DEFAULT_MAX_NAMES} names.
+	 */
+	NameInterner() {
+		this(DEFAULT_MAX_NAMES);
+	}
+
+	/**
+	 * Constructs a new {@code NameInterner} that holds at most the given number of
+	 * names.
+	 *
+	 * @param maxNames the largest number of distinct names to intern
+	 */
+	NameInterner(int maxNames) {
+		this.maxNames = maxNames;
+	}
+
+	/**
+	 * Returns the shared instance of the name encoded as UTF-8 between the given
+	 * offsets of the buffer. No object is allocated if the name has been seen
+	 * before.
+	 *
+	 * @param buffer the buffer holding the name
+	 * @param start  the offset of the first byte of the name
+	 * @param end    the offset just past the last byte of the name
+	 * @return the interned name, or a new {@code String} if the table is full
+	 */
+	synchronized String intern(ByteBuffer buffer, int start, int end) {
+		lookups++;
+		int length = end - start;
+		int hash = hash(buffer, start, end);
+		int mask = byteTable.length - 1;
+		int index = hash & mask;
+		int id;
+
+		while ((id = byteTable[index]) >= 0) {
+			if (matches(encodedNames[id], buffer, start, length))
+				return hit(names[id]);
+
+			index = (index + 1) & mask;
+		}
+
+		if (scratch.length < length)
+			scratch = new byte[Math.max(length, scratch.length * 2)];
+
+		for (int i = 0; i < length; i++)
+			scratch[i] = buffer.get(start + i);
+
+		String name = new String(scratch, 0, length, StandardCharsets.UTF_8);
+		Integer existing = ids.get(name);
+
+		// Seen before only as a String, so link its bytes for the next lookup.
+		if (existing != null) {
+			encodedNames[existing] = Arrays.copyOf(scratch, length);
+			byteTable[index] = existing;
+			return hit(names[existing]);
+		}
+
+		return add(name, Arrays.copyOf(scratch, length), hash);
+	}
+
+	/**
+	 * Returns the shared instance of the given name.
+	 *
+	 * @param name the name to intern
+	 * @return the interned name, or {@code name} itself if it is new and the
+	 *         table is full
+	 */
+	synchronized String intern(String name) {
+		lookups++;
+		Integer id = ids.get(name);
+
+		if (id != null)
+			return hit(names[id]);
+
+		byte[] encoded = name.getBytes(StandardCharsets.UTF_8);
+		return add(name, encoded, hash(ByteBuffer.wrap(encoded), 0, encoded.length));
+	}
+
+	/**
+	 * Returns the ID of the given name.
+	 *
+	 * @param name the name to look up
+	 * @return the name's ID, or {@link #NO_ID} if it is not interned
+	 */
+	synchronized int idOf(String name) {
+		Integer id = ids.get(name);
+		return id == null ? NO_ID : id;
+	}
+
+	/**
+	 * Returns the name with the given ID.
+	 *
+	 * @param id the ID of the name
+	 * @return the interned name
+	 * @throws IndexOutOfBoundsException if no name has that ID
+	 */
+	synchronized String nameOf(int id) {
+		if (id < 0 || id >= size)
+			throw new IndexOutOfBoundsException("No interned name with ID " + id);
+
+		return names[id];
+	}
+
+	/**
+	 * Returns the number of distinct names in the table.
+	 *
+	 * @return the number of interned names
+	 */
+	synchronized int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the table's counters.
+	 *
+	 * @return a snapshot of the table's statistics
+	 */
+	synchronized Stats getStats() {
+		return new Stats(lookups, hits, size, overflows, bytesSaved);
+	}
+
+	/**
+	 * Counts a lookup answered from the table.
+	 */
+	private String hit(String name) {
+		hits++;
+		bytesSaved += STRING_OVERHEAD_BYTES + 2L * name.length();
+		return name;
+	}
+
+	/**
+	 * Adds a new name to the table, if there is room.
+	 */
+	private String add(String name, byte[] encoded, int hash) {
+		if (size == maxNames) {
+			overflows++;
+			return name;
+		}
+
+		if (size == names.length) {
+			names = Arrays.copyOf(names, size * 2);
+			encodedNames = Arrays.copyOf(encodedNames, size * 2);
+		}
+
+		if ((size + 1) * 2 > byteTable.length)
+			rehash(byteTable.length * 2);
+
+		int mask = byteTable.length - 1;
+		int index = hash & mask;
+
+		while (byteTable[index] >= 0)
+			index = (index + 1) & mask;
+
+		names[size] = name;
+		encodedNames[size] = encoded;
+		byteTable[index] = size;
+		ids.put(name, size);
+		size++;
+		return name;
+	}
+
+	/**
+	 * Rebuilds the byte lookup table with the given capacity.
+	 */
+	private void rehash(int capacity) {
+		int[] table = newTable(capacity);
+		int mask = capacity - 1;
+
+		for (int id = 0; id < size; id++) {
+			if (encodedNames[id] == null)
+				continue;
+
+			byte[] encoded = encodedNames[id];
+			int index = hash(ByteBuffer.wrap(encoded), 0, encoded.length) & mask;
+
+			while (table[index] >= 0)
+				index = (index + 1) & mask;
+
+			table[index] = id;
+		}
+
+		byteTable = table;
+	}
+
+	/**
+	 * Returns whether the given bytes equal the bytes of the buffer starting at
+	 * the given offset.
+	 */
+	private static boolean matches(byte[] encoded, ByteBuffer buffer, int start, int length) {
+		if (encoded.length != length)
+			return false;
+
+		for (int i = 0; i < length; i++) {
+			if (encoded[i] != buffer.get(start + i))
+				return false;
+		}
+
+		return true;
+	}
+
+	/**
+	 * Returns a well-spread hash of the bytes between the given offsets.
+	 */
+	private static int hash(ByteBuffer buffer, int start, int end) {
+		int h = 0x811C9DC5;
+
+		for (int i = start; i < end; i++)
+			h = (h ^ buffer.get(i)) * 0x01000193;
+
+		return h ^ (h >>> 16);
+	}
+
+	private static int[] newTable(int capacity) {
+		int[] table = new int[capacity];
+		Arrays.fill(table, -1);
+		return table;
+	}
+
+}
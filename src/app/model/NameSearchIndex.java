@@ -0,0 +1,451 @@
+package app.model;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.IntPredicate;
+
+/**
+ * A search index over names, keyed by their {@link NameDictionary} codes, that
+ * finds names by prefix for type-ahead and by trigram similarity for
+ * misspelled queries, and maps each name to the rows that hold it.
+ * <p>
+ * Names are compared case-insensitively. Each distinct name is inserted once,
+ * when its first row is added, into two structures:
+ * <ul>
+ * <li>a prefix trie, stored as parallel primitive arrays of labels, first
+ * children and next siblings, with siblings kept in character order, so that a
+ * depth-first walk below a prefix visits names in alphabetical order and can
+ * stop as soon as enough names are found;</li>
+ * <li>a trigram index, from each three-character window of the name, padded at
+ * both ends, to the sorted codes of the names that contain it. A query is scored
+ * against a name by the Dice coefficient of their trigram sets, so a name with a
+ * typo still shares most of its trigrams with the intended one.</li>
+ * </ul>
+ * Each name also keeps the list of rows that hold it. Names whose rows have all
+ * been removed stay in the trie and the trigram index but are skipped by
+ * searches.
+ * <p>
+ * This class is not thread-safe for writers. Searches may run concurrently
+ * with each other, while no writer is active, since the scratch space used to
+ * score similarity is guarded by its own lock.
+ *
+ * @author Elli Steck
+ * @see StudentStore
+ */
+class NameSearchIndex {
+
+	/**
+	 * The smallest trigram similarity, from {@code 0} to {@code 1}, for a name to
+	 * be returned by {@link #search(String, int)}.
+	 */
+	static final double MIN_SIMILARITY = 0.5;
+
+	private static final int NO_NODE = -1;
+	private static final char PAD = '\u0000';
+	private static final int[] NO_ROWS = new int[0];
+
+	// The trie, one entry per node; node 0 is the root.
+	private char[] labels = new char[64];
+	private int[] firstChildren = newFilledArray(64);
+	private int[] nextSiblings = newFilledArray(64);
+	private int[] terminalCodes = newFilledArray(64);
+	private int nodeCount = 1;
+
+	// Per name code.
+	private String[] foldedNames = new String[64];
+	private int[] nextSameName = newFilledArray(64);
+	private int[] trigramCounts = new int[64];
+	private int[][] rows = new int[64][];
+	private int[] rowCounts = new int[64];
+
+	/** Maps each packed trigram to its codes, with the number of codes in slot 0. */
+	private final Map<Long, int[]> trigrams = new HashMap<>();
+
+	private final Object scratchLock = new Object();
+	private int[] sharedTrigrams = new int[64];
+	private int[] visitedStamps = new int[64];
+	private int[] touchedCodes = new int[64];
+	private int searchStamp;
+
+	/**
+	 * Records that the given row holds the name with the given code, inserting
+	 * the name into the index if it is new.
+	 *
+	 * @param code the name's dictionary code
+	 * @param name the name
+	 * @param row  the row that holds the name
+	 */
+	void addRow(int code, String name, int row) {
+		ensureCodeCapacity(code + 1);
+
+		if (foldedNames[code] == null)
+			insertName(code, name.toLowerCase(Locale.ROOT));
+
+		int[] codeRows = rows[code];
+
+		if (codeRows == null)
+			codeRows = rows[code] = new int[2];
+		else if (rowCounts[code] == codeRows.length)
+			codeRows = rows[code] = Arrays.copyOf(codeRows, codeRows.length * 2);
+
+		codeRows[rowCounts[code]++] = row;
+	}
+
+	/**
+	 * Records that the given row no longer holds the name with the given code.
+	 *
+	 * @param code the name's dictionary code
+	 * @param row  the row that held the name
+	 */
+	void removeRow(int code, int row) {
+		if (code >= rowCounts.length)
+			return;
+
+		int[] codeRows = rows[code];
+
+		for (int i = 0; i < rowCounts[code]; i++) {
+			if (codeRows[i] == row) {
+				codeRows[i] = codeRows[--rowCounts[code]];
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Forgets every row, keeping the names, so that the rows can be added again
+	 * after they have been renumbered.
+	 */
+	void clearRows() {
+		Arrays.fill(rowCounts, 0);
+	}
+
+	/**
+	 * Returns the rows that hold the name with the given code, in ascending order.
+	 *
+	 * @param code the name's dictionary code
+	 * @return a new array of the rows
+	 */
+	int[] rowsOf(int code) {
+		if (code < 0 || code >= rowCounts.length || rowCounts[code] == 0)
+			return NO_ROWS;
+
+		int[] codeRows = Arrays.copyOf(rows[code], rowCounts[code]);
+		Arrays.sort(codeRows);
+		return codeRows;
+	}
+
+	/**
+	 * Passes the code of every name that starts with the given prefix and is held
+	 * by at least one row to the given visitor, in alphabetical order, until the
+	 * visitor returns {@code false}.
+	 *
+	 * @param prefix  the prefix to match, ignoring case
+	 * @param visitor receives each matching code, and returns whether to continue
+	 */
+	void forEachWithPrefix(String prefix, IntPredicate visitor) {
+		String folded = prefix.toLowerCase(Locale.ROOT);
+		int node = 0;
+
+		for (int i = 0; i < folded.length() && node != NO_NODE; i++)
+			node = findChild(node, folded.charAt(i));
+
+		if (node == NO_NODE)
+			return;
+
+		// Depth-first, pre-order, so a name comes before the names it prefixes.
+		int[] stack = new int[16];
+		int depth = 0;
+		stack[depth++] = node;
+
+		while (depth > 0) {
+			int current = stack[--depth];
+
+			for (int code = terminalCodes[current]; code != NO_NODE; code = nextSameName[code]) {
+				if (rowCounts[code] > 0 && !visitor.test(code))
+					return;
+			}
+
+			// Siblings are pushed last to first, so the smallest character is visited next.
+			int childCount = 0;
+
+			for (int child = firstChildren[current]; child != NO_NODE; child = nextSiblings[child])
+				childCount++;
+
+			if (depth + childCount > stack.length)
+				stack = Arrays.copyOf(stack, Math.max(stack.length * 2, depth + childCount));
+
+			int slot = depth + childCount;
+
+			for (int child = firstChildren[current]; child != NO_NODE; child = nextSiblings[child])
+				stack[--slot] = child;
+
+			depth += childCount;
+		}
+	}
+
+	/**
+	 * Returns the codes of the names most similar to the given text, held by at
+	 * least one row, best match first. Names are ranked by the Dice coefficient of
+	 * their trigrams and the text's, then alphabetically. Names less similar than
+	 * {@value #MIN_SIMILARITY} are not returned.
+	 * <p>
+	 * To reach the threshold, a name must share at least {@code m} of the text's
+	 * {@code q} trigrams, so it must appear in at least one of the
+	 * {@code q - m + 1} rarest trigram lists. Only those lists are read in full,
+	 * counting how often each name appears. The remaining, most common lists are
+	 * then only probed, by binary search, for the names whose count could still
+	 * reach the threshold or beat the worst of the best names found so far.
+	 *
+	 * @param text  the text to match, ignoring case
+	 * @param limit the largest number of codes to return
+	 * @return the codes of the best matching names
+	 */
+	int[] search(String text, int limit) {
+		long[] queryTrigrams = trigramsOf(text.toLowerCase(Locale.ROOT));
+		int queryCount = queryTrigrams.length;
+		int[][] lists = new int[queryCount][];
+		int listCount = 0;
+
+		for (long trigram : queryTrigrams) {
+			int[] codes = trigrams.get(trigram);
+
+			if (codes != null)
+				lists[listCount++] = codes;
+		}
+
+		// 2c >= t(q + n) and n >= c give c >= tq / (2 - t).
+		int minShared = Math.max(1, (int) Math.ceil(MIN_SIMILARITY * queryCount / (2 - MIN_SIMILARITY)));
+		int scanned = listCount - minShared + 1;
+
+		if (scanned <= 0 || limit == 0)
+			return new int[0];
+
+		Arrays.sort(lists, 0, listCount, (a, b) -> Integer.compare(a[0], b[0]));
+
+		synchronized (scratchLock) {
+			if (sharedTrigrams.length < foldedNames.length) {
+				sharedTrigrams = new int[foldedNames.length];
+				visitedStamps = new int[foldedNames.length];
+			}
+
+			if (++searchStamp == 0) {
+				Arrays.fill(visitedStamps, 0);
+				searchStamp = 1;
+			}
+
+			int[] shared = sharedTrigrams;
+			int touched = 0;
+
+			for (int k = 0; k < scanned; k++) {
+				int[] codes = lists[k];
+
+				for (int i = 1; i <= codes[0]; i++) {
+					int code = codes[i];
+
+					if (visitedStamps[code] != searchStamp) {
+						visitedStamps[code] = searchStamp;
+						shared[code] = 0;
+
+						if (touched == touchedCodes.length)
+							touchedCodes = Arrays.copyOf(touchedCodes, touched * 2);
+
+						touchedCodes[touched++] = code;
+					}
+
+					shared[code]++;
+				}
+			}
+
+			RowHeap best = new RowHeap(limit, (a, b) -> {
+				// Compares shared[a] / (queryCount + trigramCounts[a]) without dividing.
+				long order = (long) shared[b] * (queryCount + trigramCounts[a])
+						- (long) shared[a] * (queryCount + trigramCounts[b]);
+
+				if (order != 0)
+					return order < 0 ? -1 : 1;
+
+				int byName = foldedNames[a].compareTo(foldedNames[b]);
+				return byName != 0 ? byName : Integer.compare(a, b);
+			});
+			int probed = listCount - scanned;
+			int worst = -1;
+
+			for (int i = 0; i < touched; i++) {
+				int code = touchedCodes[i];
+				int nameCount = trigramCounts[code];
+				int bound = Math.min(shared[code] + probed, nameCount);
+
+				// Skips names that cannot pass the threshold or beat the worst kept name.
+				if (rowCounts[code] == 0 || 2 * bound < MIN_SIMILARITY * (queryCount + nameCount)
+						|| (worst >= 0 && (long) bound * (queryCount + trigramCounts[worst])
+								< (long) shared[worst] * (queryCount + nameCount)))
+					continue;
+
+				for (int k = scanned; k < listCount; k++) {
+					if (contains(lists[k], code))
+						shared[code]++;
+				}
+
+				if (2 * shared[code] >= MIN_SIMILARITY * (queryCount + nameCount)) {
+					best.offer(code);
+
+					if (best.size() == limit)
+						worst = best.peek();
+				}
+			}
+
+			return best.drainSorted();
+		}
+	}
+
+	/**
+	 * Returns whether the given sorted list of codes, with its length in slot 0,
+	 * holds the given code.
+	 */
+	private static boolean contains(int[] codes, int code) {
+		return Arrays.binarySearch(codes, 1, codes[0] + 1, code) >= 0;
+	}
+
+	/**
+	 * Inserts a new name into the trie and the trigram index.
+	 */
+	private void insertName(int code, String folded) {
+		foldedNames[code] = folded;
+		int node = 0;
+
+		for (int i = 0; i < folded.length(); i++)
+			node = findOrAddChild(node, folded.charAt(i));
+
+		nextSameName[code] = terminalCodes[node];
+		terminalCodes[node] = code;
+
+		long[] nameTrigrams = trigramsOf(folded);
+		trigramCounts[code] = nameTrigrams.length;
+
+		for (long trigram : nameTrigrams) {
+			int[] codes = trigrams.get(trigram);
+
+			if (codes == null) {
+				codes = new int[4];
+				trigrams.put(trigram, codes);
+			} else if (codes[0] + 1 == codes.length) {
+				codes = Arrays.copyOf(codes, codes.length * 2);
+				trigrams.put(trigram, codes);
+			}
+
+			// Kept sorted for binary search. Codes are usually added in ascending order.
+			int position = codes[0] + 1;
+
+			while (position > 1 && codes[position - 1] > code)
+				position--;
+
+			System.arraycopy(codes, position, codes, position + 1, codes[0] + 1 - position);
+			codes[position] = code;
+			codes[0]++;
+		}
+	}
+
+	/**
+	 * Returns the child of the given node with the given label, or
+	 * {@link #NO_NODE} if it has none.
+	 */
+	private int findChild(int node, char label) {
+		int child = firstChildren[node];
+
+		while (child != NO_NODE && labels[child] < label)
+			child = nextSiblings[child];
+
+		return child != NO_NODE && labels[child] == label ? child : NO_NODE;
+	}
+
+	/**
+	 * Returns the child of the given node with the given label, adding it in
+	 * character order among its siblings if it does not exist.
+	 */
+	private int findOrAddChild(int node, char label) {
+		int previous = NO_NODE;
+		int child = firstChildren[node];
+
+		while (child != NO_NODE && labels[child] < label) {
+			previous = child;
+			child = nextSiblings[child];
+		}
+
+		if (child != NO_NODE && labels[child] == label)
+			return child;
+
+		if (nodeCount == labels.length) {
+			int capacity = nodeCount * 2;
+			labels = Arrays.copyOf(labels, capacity);
+			firstChildren = grow(firstChildren, capacity);
+			nextSiblings = grow(nextSiblings, capacity);
+			terminalCodes = grow(terminalCodes, capacity);
+		}
+
+		int added = nodeCount++;
+		labels[added] = label;
+		nextSiblings[added] = child;
+
+		if (previous == NO_NODE)
+			firstChildren[node] = added;
+		else
+			nextSiblings[previous] = added;
+
+		return added;
+	}
+
+	/**
+	 * Returns the distinct trigrams of the given name, padded with two marks at
+	 * the start and one at the end, each packed into a {@code long}.
+	 */
+	private static long[] trigramsOf(String folded) {
+		int length = folded.length() + 3;
+		long[] packed = new long[length - 2];
+		int count = 0;
+
+		for (int i = 0; i + 2 < length; i++) {
+			long trigram = (long) charAt(folded, i - 2) << 32 | (long) charAt(folded, i - 1) << 16
+					| charAt(folded, i);
+			boolean seen = false;
+
+			for (int j = 0; j < count && !seen; j++)
+				seen = packed[j] == trigram;
+
+			if (!seen)
+				packed[count++] = trigram;
+		}
+
+		return count == packed.length ? packed : Arrays.copyOf(packed, count);
+	}
+
+	private static char charAt(String folded, int index) {
+		return index < 0 || index >= folded.length() ? PAD : folded.charAt(index);
+	}
+
+	private void ensureCodeCapacity(int capacity) {
+		if (capacity <= foldedNames.length)
+			return;
+
+		int grown = Math.max(capacity, foldedNames.length * 2);
+		foldedNames = Arrays.copyOf(foldedNames, grown);
+		nextSameName = grow(nextSameName, grown);
+		trigramCounts = Arrays.copyOf(trigramCounts, grown);
+		rows = Arrays.copyOf(rows, grown);
+		rowCounts = Arrays.copyOf(rowCounts, grown);
+	}
+
+	private static int[] grow(int[] array, int capacity) {
+		int[] grown = Arrays.copyOf(array, capacity);
+		Arrays.fill(grown, array.length, capacity, NO_NODE);
+		return grown;
+	}
+
+	private static int[] newFilledArray(int capacity) {
+		int[] array = new int[capacity];
+		Arrays.fill(array, NO_NODE);
+		return array;
+	}
+
+}
@@ -0,0 +1,185 @@
+package app.model;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * An immutable version of the roster, pinned so that it can be read without
+ * locks while other threads keep changing the students.
+ * <p>
+ * A snapshot holds the chunks of columns the store had when it was opened.
+ * While it is open, the store does not change those chunks in place: a writer
+ * that updates or removes a student in a pinned chunk first copies the chunk
+ * and changes the copy, and new students are appended past the rows the
+ * snapshot reads. Iterating a snapshot therefore never blocks, never throws
+ * {@link java.util.ConcurrentModificationException}, and always sees every
+ * student exactly as of one {@link #getVersion() version}, however long it
+ * takes.
+ * <p>
+ * Closing the snapshot unpins its chunks, so writers go back to changing them
+ * in place, and the chunks replaced since it was opened can be garbage
+ * collected. A snapshot must not be used after it is closed. Open it in a
+ * try-with-resources statement:
+ *
+ * <pre>
+ * try (RosterSnapshot roster = StudentManager.openSnapshot()) {
+ * 	for (Student student : roster)
+ * 		export(student);
+ * }
+ * </pre>
+ *
+ * @author Elli Steck
+ * @see StudentManager#openSnapshot()
+ */
+public final class RosterSnapshot implements Iterable<Student>, AutoCloseable {
+
+	private static final int CHUNK_MASK = StudentStore.CHUNK_SIZE - 1;
+	private static final Major[] MAJORS = Major.values();
+
+	private final StudentStore.Chunk[] chunks;
+	private final int rowCount;
+	private final int size;
+	private final long version;
+	private final NameDictionary names;
+	private final AtomicBoolean closed = new AtomicBoolean();
+
+	/**
+	 * Constructs a new {@code RosterSnapshot} over the given chunks, which the
+	 * caller has already pinned.
+	 *
+	 * @param chunks   the chunks holding the rows, not to be changed while pinned
+	 * @param rowCount the number of rows to read, including empty ones
+	 * @param size     the number of students in those rows
+	 * @param version  the store version the rows reflect
+	 * @param names    the dictionary the name codes refer to
+	 */
+	RosterSnapshot(StudentStore.Chunk[] chunks, int rowCount, int size, long version, NameDictionary names) {
+		this.chunks = chunks;
+		this.rowCount = rowCount;
+		this.size = size;
+		this.version = version;
+		this.names = names;
+	}
+
+	/**
+	 * Returns the version of the roster this snapshot holds. Versions grow with
+	 * every change, so two snapshots with the same version hold the same
+	 * students.
+	 *
+	 * @return the roster version
+	 */
+	public long getVersion() {
+		return version;
+	}
+
+	/**
+	 * Returns the number of students in this snapshot.
+	 *
+	 * @return the number of students
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns an iterator over the students in this snapshot, in the order they
+	 * were added.
+	 *
+	 * @return an iterator that never reflects later changes
+	 */
+	@Override
+	public Iterator<Student> iterator() {
+		return new Iterator<Student>() {
+
+			private int row = nextRow(0);
+
+			@Override
+			public boolean hasNext() {
+				return row < rowCount;
+			}
+
+			@Override
+			public Student next() {
+				if (row >= rowCount)
+					throw new NoSuchElementException();
+
+				Student student = readRow(row);
+				row = nextRow(row + 1);
+				return student;
+			}
+
+		};
+	}
+
+	/**
+	 * Passes every student in this snapshot that passes the given filter to the
+	 * given action, in the order they were added. The filter is evaluated on the
+	 * ID, major and year columns, so rows that do not match are never turned into
+	 * students.
+	 *
+	 * @param filter decides which students are passed to the action
+	 * @param action receives each matching student
+	 */
+	public void forEach(StudentCursor.Filter filter, Consumer<Student> action) {
+		for (int row = 0; row < rowCount; row++) {
+			StudentStore.Chunk chunk = chunks[row >>> StudentStore.CHUNK_SHIFT];
+			int offset = row & CHUNK_MASK;
+			int major = chunk.majors[offset];
+
+			if (major >= 0 && filter.test(chunk.ids[offset], MAJORS[major], chunk.years[offset]))
+				action.accept(readRow(row));
+		}
+	}
+
+	/**
+	 * Returns a copy of the students in this snapshot, in the order they were
+	 * added.
+	 *
+	 * @return a new list of the students
+	 */
+	public List<Student> toList() {
+		List<Student> students = new ArrayList<>(size);
+		forEach(StudentCursor.Filter.ALL, students::add);
+		return students;
+	}
+
+	/**
+	 * Unpins this snapshot's chunks. Closing a snapshot more than once has no
+	 * further effect.
+	 */
+	@Override
+	public void close() {
+		if (!closed.compareAndSet(false, true))
+			return;
+
+		for (int i = 0; i < chunks.length; i++)
+			chunks[i].unpin();
+	}
+
+	@Override
+	public String toString() {
+		return "RosterSnapshot [version=" + version + ", size=" + size + "]";
+	}
+
+	/**
+	 * Returns the first row at or after the given one that holds a student.
+	 */
+	private int nextRow(int row) {
+		while (row < rowCount && chunks[row >>> StudentStore.CHUNK_SHIFT].majors[row & CHUNK_MASK] < 0)
+			row++;
+
+		return row;
+	}
+
+	private Student readRow(int row) {
+		StudentStore.Chunk chunk = chunks[row >>> StudentStore.CHUNK_SHIFT];
+		int offset = row & CHUNK_MASK;
+		return Student.restore(chunk.ids[offset], names.decode(chunk.firstNames[offset]),
+				names.decode(chunk.lastNames[offset]), MAJORS[chunk.majors[offset]], chunk.years[offset]);
+	}
+
+}
@@ -0,0 +1,162 @@
+package app.model;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * A bounded binary heap of row numbers that keeps the {@code capacity} smallest
+ * rows offered to it, as ordered by a {@link RowComparator}.
+ * <p>
+ * The largest row kept sits at the root, so a new row is either rejected with a
+ * single comparison or replaces the root. Keeping the first {@code k} of
+ * {@code n} matching rows costs {@code O(n log k)} time and {@code O(k)} space,
+ * instead of sorting every match. Rows are plain {@code int}s, so nothing is
+ * boxed.
+ * <p>
+ * This class is not thread-safe.
+ *
+ * @author Elli Steck
+ * @see StudentStore#query(StudentQuery)
+ */
+class RowHeap {
+
+	/**
+	 * Compares two rows.
+	 */
+	@FunctionalInterface
+	interface RowComparator {
+
+		/**
+		 * Compares two rows for order.
+		 *
+		 * @param a the first row
+		 * @param b the second row
+		 * @return a negative number, zero or a positive number as {@code a} sorts
+		 *         before, together with or after {@code b}
+		 */
+		int compare(int a, int b);
+
+	}
+
+	private static final int INITIAL_CAPACITY = 16;
+
+	private final int capacity;
+	private final RowComparator comparator;
+	private int[] heap;
+	private int size;
+
+	/**
+	 * Constructs a new {@code RowHeap} that keeps at most the given number of
+	 * rows.
+	 *
+	 * @param capacity   the largest number of rows to keep
+	 * @param comparator the order of the rows
+	 * @throws IllegalArgumentException if {@code capacity} is negative
+	 */
+	RowHeap(int capacity, RowComparator comparator) {
+		if (capacity < 0)
+			throw new IllegalArgumentException("Capacity must not be negative: " + capacity);
+
+		this.capacity = capacity;
+		this.comparator = comparator;
+		this.heap = new int[Math.min(capacity, INITIAL_CAPACITY)];
+	}
+
+	/**
+	 * Offers the given row to the heap. It is kept if the heap is not full yet or
+	 * if it sorts before the largest row kept, which is then dropped.
+	 *
+	 * @param row the row to offer
+	 */
+	void offer(int row) {
+		if (size < capacity) {
+			if (size == heap.length)
+				heap = Arrays.copyOf(heap, (int) Math.min(capacity, 2L * heap.length));
+
+			heap[size] = row;
+			siftUp(size++);
+		} else if (size > 0 && comparator.compare(row, heap[0]) < 0) {
+			heap[0] = row;
+			siftDown(0);
+		}
+	}
+
+	/**
+	 * Returns the largest row kept, without removing it.
+	 *
+	 * @return the largest row
+	 * @throws NoSuchElementException if the heap is empty
+	 */
+	int peek() {
+		if (size == 0)
+			throw new NoSuchElementException("Heap is empty");
+
+		return heap[0];
+	}
+
+	/**
+	 * Returns the number of rows kept.
+	 *
+	 * @return the number of rows
+	 */
+	int size() {
+		return size;
+	}
+
+	/**
+	 * Removes every row from the heap and returns them in ascending order.
+	 *
+	 * @return the rows kept, smallest first
+	 */
+	int[] drainSorted() {
+		int[] rows = new int[size];
+
+		for (int i = rows.length - 1; i >= 0; i--) {
+			rows[i] = heap[0];
+			heap[0] = heap[--size];
+			siftDown(0);
+		}
+
+		return rows;
+	}
+
+	private void siftUp(int index) {
+		int row = heap[index];
+
+		while (index > 0) {
+			int parent = (index - 1) >>> 1;
+
+			if (comparator.compare(row, heap[parent]) <= 0)
+				break;
+
+			heap[index] = heap[parent];
+			index = parent;
+		}
+
+		heap[index] = row;
+	}
+
+	private void siftDown(int index) {
+		if (size == 0)
+			return;
+
+		int row = heap[index];
+
+		while (true) {
+			int child = 2 * index + 1;
+
+			if (child >= size)
+				break;
+			if (child + 1 < size && comparator.compare(heap[child + 1], heap[child]) > 0)
+				child++;
+			if (comparator.compare(row, heap[child]) >= 0)
+				break;
+
+			heap[index] = heap[child];
+			index = child;
+		}
+
+		heap[index] = row;
+	}
+
+}
@@ -1,7 +1,6 @@
 package app.model;
 
 import java.time.Year;
-import java.util.Objects;
 
 /**
  * Represents a student with a unique ID, name, major, and starting year.
@@ -10,7 +9,7 @@ import java.util.Objects;
  */
 public class Student {
 
-	private static int uuid;
+	private static final StudentIdAllocator uuid = new StudentIdAllocator();
 	private final int studentId;
 	private String firstName;
 	private String lastName;
@@ -19,7 +18,9 @@ public class Student {
 
 	/**
 	 * Public constructor for creating a new {@link Student} with the given details.
-	 * Automatically generates a unique student ID using the internal {@code uuid}.
+	 * Automatically generates a unique student ID using the internal {@code uuid},
+	 * a {@link StudentIdAllocator} that is safe to use from many threads at once
+	 * and hands each thread its own block of IDs.
 	 * <p>
 	 * This constructor is intended for dynamically creating new students during
 	 * runtime. For creating students from existing stored data, use the
@@ -31,8 +32,7 @@ public class Student {
 	 * @param academicYear the year the student started
 	 */
 	public Student(String firstName, String lastName, Major major, int academicYear) {
-		this(uuid, firstName, lastName, major, academicYear);
-		uuid++;
+		this(uuid.nextId(), firstName, lastName, major, academicYear);
 	}
 
 	/**
@@ -52,9 +52,18 @@ public class Student {
 	 * @see StudentManager
 	 */
 	Student(int studentId, String firstName, String lastName, Major major, int academicYear) {
-		if (academicYear < Year.now().getValue() - 10)
+		this(studentId, firstName, lastName, major, academicYear, true);
+	}
+
+	/**
+	 * Private constructor shared by the other constructors and
+	 * {@link #restore(int, String, String, Major, int)}, which skips validation.
+	 */
+	private Student(int studentId, String firstName, String lastName, Major major, int academicYear,
+			boolean validate) {
+		if (validate && academicYear < Year.now().getValue() - 10)
 			throw new IllegalArgumentException("Enrollment date must be positive and within 10 years.");
-		if (firstName == null || lastName == null || major == null)
+		if (validate && (firstName == null || lastName == null || major == null))
 			throw new IllegalArgumentException("First name, last name, and major cannot be null.");
 
 		this.studentId = studentId;
@@ -65,13 +74,44 @@ public class Student {
 	}
 
 	/**
-	 * Resets the static UUID. Package-private to restrict access to methods within
-	 * the same package.
+	 * Creates a {@code Student} from data that was validated when it was stored,
+	 * without validating it again.
+	 * <p>
+	 * Used by {@link StudentStore} to materialize students from its columns on
+	 * demand. Skipping validation keeps that cheap, and keeps students whose
+	 * academic year has since fallen out of the enrollment window readable.
+	 * 
+	 * @param studentId    the student's unique identifier
+	 * @param firstName    the student's first name
+	 * @param lastName     the student's last name
+	 * @param major        the student's major
+	 * @param academicYear the year the student started
+	 * @return a new {@code Student} with the given data
+	 */
+	static Student restore(int studentId, String firstName, String lastName, Major major, int academicYear) {
+		return new Student(studentId, firstName, lastName, major, academicYear, false);
+	}
+
+	/**
+	 * Resets the static UUID, without keeping a high-water mark. Every thread's
+	 * block of IDs is discarded, so the next ID on any thread is {@code value}.
+	 * Package-private to restrict access to methods within the same package.
 	 *
 	 * @param value the value to replace the UUID
 	 */
 	static void resetUuid(int value) {
-		uuid = value;
+		uuid.reset(value, null);
+	}
+
+	/**
+	 * Returns the allocator that generates new student IDs. Package-private so
+	 * that {@link StudentManager} can persist its high-water mark and bulk imports
+	 * can reserve ranges of IDs.
+	 *
+	 * @return the shared ID allocator
+	 */
+	static StudentIdAllocator getIdAllocator() {
+		return uuid;
 	}
 
 	/**
@@ -160,13 +200,14 @@ public class Student {
 	 * <p>
 	 * The hash code is based solely on the {@code studentId}, ensuring that two
 	 * {@code Student} objects with the same {@code studentId} will have the same
-	 * hash code.
+	 * hash code. It is computed without boxing or allocating, since students are
+	 * hashed on every lookup in a hash-based collection.
 	 * 
 	 * @return the hash code for this {@code Student} object
 	 */
 	@Override
 	public int hashCode() {
-		return Objects.hash(studentId);
+		return Integer.hashCode(studentId);
 	}
 
 	/**
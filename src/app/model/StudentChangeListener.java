@@ -0,0 +1,24 @@
+package app.model;
+
+import java.util.List;
+
+/**
+ * Receives batches of changes to the roster from {@link StudentManager}.
+ *
+ * @author Elli Steck
+ * @see StudentEvent
+ * @see StudentManager#addChangeListener(StudentChangeListener, java.util.concurrent.Executor)
+ */
+@FunctionalInterface
+public interface StudentChangeListener {
+
+	/**
+	 * Called with a batch of changes, in the order they were made. The batch holds
+	 * at most one event per student, describing the student's net change since
+	 * the previous batch delivered to this listener.
+	 *
+	 * @param events the changes, never empty
+	 */
+	void studentsChanged(List<StudentEvent> events);
+
+}
@@ -0,0 +1,637 @@
+package app.model;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+
+/**
+ * Parses the student CSV file directly from its bytes, read region by region
+ * into a reused buffer.
+ * <p>
+ * Rows are scanned byte by byte in place: student IDs and academic years are
+ * parsed straight from their digits, and the four-letter {@link Major} code is
+ * resolved from its packed bytes without building a {@code String}. The only
+ * objects allocated for a valid row are its two name strings and the resulting
+ * {@link Student}. When the parser is given a {@link NameInterner}, names are
+ * looked up by their bytes instead, and a name seen before is not allocated
+ * again.
+ * <p>
+ * Large files can be parsed with {@link #parseParallel(Path, Consumer)}, which
+ * splits the file into line-aligned chunks and parses them on a
+ * {@link ForkJoinPool} while still delivering students in file order.
+ * <p>
+ * Blank rows are skipped. Rows that cannot be parsed are logged and skipped,
+ * matching the behavior of {@link StudentManager#createStudent(String)}.
+ *
+ * @author Elli Steck
+ * @see StudentManager
+ */
+class StudentCsvParser {
+
+	/**
+	 * The largest region of the file read at once. Regions are cut at the last
+	 * line break that fits, so no row ever spans two regions.
+	 * <p>
+	 * Regions are read into a heap buffer rather than memory-mapped: a mapping
+	 * cannot be released on demand, and while it is held Windows refuses to move
+	 * a new CSV file over the old one.
+	 */
+	static final int MAX_REGION_SIZE = 1 << 24;
+
+	/**
+	 * The smallest number of bytes parsed by a single task when parsing in
+	 * parallel. Smaller chunks cost more in scheduling than they save.
+	 */
+	static final int MIN_CHUNK_SIZE = 1 << 20;
+
+	private static final int CHUNKS_PER_THREAD = 4;
+
+	private static final int COLUMN_COUNT = 5;
+	private static final int[] MAJOR_CODES;
+	private static final Major[] MAJORS_BY_CODE;
+
+	static {
+		Major[] majors = Major.values();
+		long[] sortable = new long[majors.length];
+
+		for (int i = 0; i < majors.length; i++) {
+			String name = majors[i].name();
+			int code = 0;
+
+			for (int j = 0; j < name.length(); j++)
+				code = (code << 8) | name.charAt(j);
+
+			sortable[i] = ((long) code << 32) | i;
+		}
+
+		Arrays.sort(sortable);
+		MAJOR_CODES = new int[majors.length];
+		MAJORS_BY_CODE = new Major[majors.length];
+
+		for (int i = 0; i < sortable.length; i++) {
+			MAJOR_CODES[i] = (int) (sortable[i] >>> 32);
+			MAJORS_BY_CODE[i] = majors[(int) sortable[i]];
+		}
+	}
+
+	private final Consumer<Student> consumer;
+	private final StudentCursor.Filter filter;
+	private final NameInterner names;
+	private final int[] columnEnds = new int[COLUMN_COUNT];
+	private byte[] scratch = new byte[64];
+
+	/**
+	 * Constructs a new {@code StudentCsvParser} that passes every valid row to
+	 * the given consumer, in file order.
+	 *
+	 * @param consumer receives each {@link Student} parsed from the file
+	 */
+	StudentCsvParser(Consumer<Student> consumer) {
+		this(consumer, StudentCursor.Filter.ALL);
+	}
+
+	/**
+	 * Constructs a new {@code StudentCsvParser} that passes every valid row
+	 * accepted by the given filter to the given consumer, in file order. The
+	 * filter is applied before the row's names are decoded.
+	 *
+	 * @param consumer receives each matching {@link Student} parsed from the file
+	 * @param filter   decides which rows are turned into students
+	 */
+	StudentCsvParser(Consumer<Student> consumer, StudentCursor.Filter filter) {
+		this(consumer, filter, null);
+	}
+
+	/**
+	 * Constructs a new {@code StudentCsvParser} that passes every valid row
+	 * accepted by the given filter to the given consumer, in file order, with its
+	 * names interned in the given table.
+	 *
+	 * @param consumer receives each matching {@link Student} parsed from the file
+	 * @param filter   decides which rows are turned into students
+	 * @param names    the table the names are interned in, or {@code null} to
+	 *                 decode every name separately
+	 */
+	StudentCsvParser(Consumer<Student> consumer, StudentCursor.Filter filter, NameInterner names) {
+		this.consumer = consumer;
+		this.filter = filter;
+		this.names = names;
+	}
+
+	/**
+	 * Parses every row in the given CSV file.
+	 *
+	 * @param file     the CSV file to parse
+	 * @param consumer receives each {@link Student} parsed from the file, in file
+	 *                 order
+	 * @throws IOException if an error occurs while reading the file
+	 */
+	static void parse(Path file, Consumer<Student> consumer) throws IOException {
+		parse(file, consumer, null);
+	}
+
+	/**
+	 * Parses every row in the given CSV file, interning the names in the given
+	 * table.
+	 *
+	 * @param file     the CSV file to parse
+	 * @param consumer receives each {@link Student} parsed from the file, in file
+	 *                 order
+	 * @param names    the table the names are interned in, or {@code null} to
+	 *                 decode every name separately
+	 * @throws IOException if an error occurs while reading the file
+	 */
+	static void parse(Path file, Consumer<Student> consumer, NameInterner names) throws IOException {
+		new StudentCsvParser(consumer, StudentCursor.Filter.ALL, names).parseFile(file, MAX_REGION_SIZE);
+	}
+
+	/**
+	 * Parses every row in the given CSV file on a {@link ForkJoinPool}.
+	 * <p>
+	 * Each region is split into byte ranges that end on a line break, and
+	 * every range is parsed as a separate task. The results are passed to the
+	 * consumer on the calling thread, in file order, so callers observe exactly
+	 * the same sequence of students as with {@link #parse(Path, Consumer)}.
+	 *
+	 * @param file     the CSV file to parse
+	 * @param consumer receives each {@link Student} parsed from the file, in file
+	 *                 order
+	 * @throws IOException if an error occurs while reading the file
+	 */
+	static void parseParallel(Path file, Consumer<Student> consumer) throws IOException {
+		parseParallel(file, consumer, null);
+	}
+
+	/**
+	 * Parses every row in the given CSV file on a {@link ForkJoinPool}, interning
+	 * the names in the given table, which is shared by every task.
+	 *
+	 * @param file     the CSV file to parse
+	 * @param consumer receives each {@link Student} parsed from the file, in file
+	 *                 order
+	 * @param names    the table the names are interned in, or {@code null} to
+	 *                 decode every name separately
+	 * @throws IOException if an error occurs while reading the file
+	 * @see #parseParallel(Path, Consumer)
+	 */
+	static void parseParallel(Path file, Consumer<Student> consumer, NameInterner names) throws IOException {
+		parseFileParallel(file, MAX_REGION_SIZE, MIN_CHUNK_SIZE, ForkJoinPool.commonPool(), consumer, names);
+	}
+
+	/**
+	 * Opens a {@link StudentCursor.Source} that parses the given CSV file lazily,
+	 * one row at a time, holding a single region of the file at once.
+	 *
+	 * @param file   the CSV file to read
+	 * @param filter decides which rows are turned into students
+	 * @return a source of the matching students, in file order
+	 * @throws IOException if an error occurs while opening the file
+	 */
+	static StudentCursor.Source openSource(Path file, StudentCursor.Filter filter) throws IOException {
+		return new CsvSource(FileChannel.open(file, StandardOpenOption.READ), MAX_REGION_SIZE, filter);
+	}
+
+	/**
+	 * Reads the given file region by region and parses every row in it.
+	 *
+	 * @param file       the CSV file to parse
+	 * @param regionSize the largest number of bytes to read at once
+	 * @throws IOException if an error occurs while reading the file, or if a
+	 *                     single row is longer than {@code regionSize}
+	 */
+	void parseFile(Path file, int regionSize) throws IOException {
+		forEachRegion(file, regionSize, (buffer, end) -> parseRange(buffer, 0, end));
+	}
+
+	/**
+	 * Reads the given file region by region and parses the rows of each region in
+	 * parallel on the given pool.
+	 *
+	 * @param file         the CSV file to parse
+	 * @param regionSize   the largest number of bytes to read at once
+	 * @param minChunkSize the smallest number of bytes parsed by a single task
+	 * @param pool         the pool that parses the chunks
+	 * @param consumer     receives each {@link Student} parsed from the file, in
+	 *                     file order
+	 * @param names        the table the names are interned in, or {@code null}
+	 *                     to decode every name separately
+	 * @throws IOException if an error occurs while reading the file, or if a
+	 *                     single row is longer than {@code regionSize}
+	 */
+	static void parseFileParallel(Path file, int regionSize, int minChunkSize, ForkJoinPool pool,
+			Consumer<Student> consumer, NameInterner names) throws IOException {
+		forEachRegion(file, regionSize, (buffer, end) -> {
+			int chunkSize = Math.max(minChunkSize, end / (pool.getParallelism() * CHUNKS_PER_THREAD));
+			List<ForkJoinTask<List<Student>>> chunks = new ArrayList<>();
+			int chunkStart = 0;
+
+			while (chunkStart < end) {
+				int chunkEnd = end - chunkStart <= chunkSize
+						? end
+						: nextRow(buffer, lineEnd(buffer, chunkStart + chunkSize - 1, end), end);
+				int start = chunkStart;
+
+				chunks.add(pool.submit(() -> {
+					List<Student> students = new ArrayList<>();
+					new StudentCsvParser(students::add, StudentCursor.Filter.ALL, names)
+							.parseRange(buffer, start, chunkEnd);
+					return students;
+				}));
+				chunkStart = chunkEnd;
+			}
+
+			for (ForkJoinTask<List<Student>> chunk : chunks) {
+				for (Student student : chunk.join())
+					consumer.accept(student);
+			}
+		});
+	}
+
+	/**
+	 * Receives each region of a file, trimmed to end on a line break.
+	 */
+	@FunctionalInterface
+	private interface RegionHandler {
+		void handle(ByteBuffer buffer, int end);
+	}
+
+	/**
+	 * Reads the given file region by region, cutting each region at the last line
+	 * break that fits, and passes every region to the given handler.
+	 *
+	 * @param file       the CSV file to read
+	 * @param regionSize the largest number of bytes to read at once
+	 * @param handler    receives each region and the offset just past its last
+	 *                   complete row
+	 * @throws IOException if an error occurs while reading the file, or if a
+	 *                     single row is longer than {@code regionSize}
+	 */
+	private static void forEachRegion(Path file, int regionSize, RegionHandler handler) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long size = channel.size();
+			long position = 0;
+			ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(regionSize, size));
+
+			while (position < size) {
+				int length = (int) Math.min(regionSize, size - position);
+				readRegion(channel, buffer, position, length);
+				int end = regionEnd(buffer, position, length, size);
+
+				handler.handle(buffer, end);
+				position += end;
+			}
+		}
+	}
+
+	/**
+	 * Reads the given number of bytes of a file, starting at the given file
+	 * offset, into the start of the buffer. The buffer's limit is set to the
+	 * number of bytes read.
+	 *
+	 * @param channel  the channel to read from
+	 * @param buffer   the buffer to read into
+	 * @param position the file offset of the first byte to read
+	 * @param length   the number of bytes to read
+	 * @throws IOException if an error occurs while reading, or if the file ends
+	 *                     before {@code length} bytes could be read
+	 */
+	static void readRegion(FileChannel channel, ByteBuffer buffer, long position, int length) throws IOException {
+		buffer.clear();
+		buffer.limit(length);
+
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, position + buffer.position()) < 0)
+				throw new EOFException("File ended at byte " + (position + buffer.position()) + " while reading.");
+		}
+	}
+
+	/**
+	 * Returns the offset just past the last complete row of a region.
+	 *
+	 * @param buffer   the region
+	 * @param position the file offset at which the region starts
+	 * @param length   the length of the region
+	 * @param size     the size of the whole file
+	 * @return the offset just past the region's last line break, or
+	 *         {@code length} if the region reaches the end of the file
+	 * @throws IOException if the region holds no line break at all
+	 */
+	private static int regionEnd(ByteBuffer buffer, long position, int length, long size) throws IOException {
+		if (position + length == size)
+			return length;
+
+		int end = lastLineBreak(buffer, length) + 1;
+
+		if (end == 0)
+			throw new IOException("Row starting at byte " + position + " is too long to parse.");
+
+		return end;
+	}
+
+	/**
+	 * Reads a CSV file one row at a time for a {@link StudentCursor}.
+	 */
+	private static final class CsvSource implements StudentCursor.Source {
+
+		private final FileChannel channel;
+		private final int regionSize;
+		private final StudentCsvParser parser;
+		private final long size;
+		private long position;
+		private ByteBuffer buffer;
+		private int end;
+		private int rowStart;
+		private Student parsed;
+
+		CsvSource(FileChannel channel, int regionSize, StudentCursor.Filter filter) throws IOException {
+			this.channel = channel;
+			this.regionSize = regionSize;
+			this.parser = new StudentCsvParser(student -> parsed = student, filter);
+			this.size = channel.size();
+		}
+
+		@Override
+		public Student next() throws IOException {
+			while (true) {
+				if (rowStart >= end) {
+					if (position >= size)
+						return null;
+
+					int length = (int) Math.min(regionSize, size - position);
+
+					if (buffer == null)
+						buffer = ByteBuffer.allocate((int) Math.min(regionSize, size));
+
+					readRegion(channel, buffer, position, length);
+					end = regionEnd(buffer, position, length, size);
+					position += end;
+					rowStart = 0;
+				}
+
+				int rowEnd = lineEnd(buffer, rowStart, end);
+				parser.parseRow(buffer, rowStart, rowEnd);
+				rowStart = nextRow(buffer, rowEnd, end);
+
+				if (parsed != null) {
+					Student student = parsed;
+					parsed = null;
+					return student;
+				}
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			buffer = null;
+			channel.close();
+		}
+
+	}
+
+	/**
+	 * Parses every row between the given offsets of the buffer. The range must
+	 * start at the beginning of a row and end just after a line break or at the
+	 * end of the file.
+	 *
+	 * @param buffer the buffer holding the CSV data
+	 * @param start  the offset of the first byte to parse
+	 * @param end    the offset just past the last byte to parse
+	 */
+	void parseRange(ByteBuffer buffer, int start, int end) {
+		int rowStart = start;
+
+		while (rowStart < end) {
+			int rowEnd = lineEnd(buffer, rowStart, end);
+			parseRow(buffer, rowStart, rowEnd);
+			rowStart = nextRow(buffer, rowEnd, end);
+		}
+	}
+
+	/**
+	 * Parses a single row, without its line break, and passes the resulting
+	 * {@link Student} to the consumer if it passes the filter. Blank rows are
+	 * skipped, and invalid rows are logged and skipped.
+	 *
+	 * @param buffer the buffer holding the CSV data
+	 * @param start  the offset of the first byte of the row
+	 * @param end    the offset just past the last byte of the row
+	 */
+	private void parseRow(ByteBuffer buffer, int start, int end) {
+		if (isBlank(buffer, start, end))
+			return;
+
+		int columns = 0;
+		int columnStart = start;
+
+		while (columns < COLUMN_COUNT) {
+			int columnEnd = indexOf(buffer, (byte) ',', columnStart, end);
+			columnEnds[columns++] = columnEnd;
+
+			if (columnEnd == end)
+				break;
+
+			columnStart = columnEnd + 1;
+		}
+
+		if (columns < COLUMN_COUNT) {
+			System.err.println("Row has insufficient data: " + decode(buffer, start, end) + ".");
+			return;
+		}
+
+		try {
+			int studentId = parseInt(buffer, start, columnEnds[0]);
+			Major major = parseMajor(buffer, columnEnds[2] + 1, columnEnds[3]);
+			int academicYear = parseInt(buffer, columnEnds[3] + 1, columnEnds[4]);
+
+			if (!filter.test(studentId, major, academicYear))
+				return;
+
+			String firstName = name(buffer, columnEnds[0] + 1, columnEnds[1]);
+			String lastName = name(buffer, columnEnds[1] + 1, columnEnds[2]);
+
+			consumer.accept(new Student(studentId, firstName, lastName, major, academicYear));
+		} catch (IllegalArgumentException ex) {
+			System.err.println(
+					"Invalid student data: " + decode(buffer, start, end) + ". " + ex.getMessage());
+		}
+	}
+
+	/**
+	 * Parses a base-10 integer, with an optional leading sign, directly from the
+	 * bytes between the given offsets.
+	 *
+	 * @param buffer the buffer holding the CSV data
+	 * @param start  the offset of the first byte of the number
+	 * @param end    the offset just past the last byte of the number
+	 * @return the parsed integer
+	 * @throws NumberFormatException if the bytes do not form a valid {@code int}
+	 */
+	private int parseInt(ByteBuffer buffer, int start, int end) {
+		int index = start;
+		boolean negative = false;
+
+		if (index < end && (buffer.get(index) == '-' || buffer.get(index) == '+')) {
+			negative = buffer.get(index) == '-';
+			index++;
+		}
+
+		if (index == end)
+			throw new NumberFormatException("For input string: \"" + decode(buffer, start, end) + "\"");
+
+		long value = 0;
+
+		for (; index < end; index++) {
+			int digit = buffer.get(index) - '0';
+
+			if (digit < 0 || digit > 9)
+				throw new NumberFormatException("For input string: \"" + decode(buffer, start, end) + "\"");
+
+			value = value * 10 + digit;
+
+			if (value > (long) Integer.MAX_VALUE + 1)
+				throw new NumberFormatException("For input string: \"" + decode(buffer, start, end) + "\"");
+		}
+
+		value = negative ? -value : value;
+
+		if (value > Integer.MAX_VALUE)
+			throw new NumberFormatException("For input string: \"" + decode(buffer, start, end) + "\"");
+
+		return (int) value;
+	}
+
+	/**
+	 * Resolves a {@link Major} from its four-letter code without creating a
+	 * {@code String}.
+	 *
+	 * @param buffer the buffer holding the CSV data
+	 * @param start  the offset of the first byte of the code
+	 * @param end    the offset just past the last byte of the code
+	 * @return the matching {@link Major}
+	 * @throws IllegalArgumentException if the bytes do not name a {@link Major}
+	 */
+	private Major parseMajor(ByteBuffer buffer, int start, int end) {
+		if (end - start == 4) {
+			int code = (buffer.get(start) & 0xFF) << 24
+					| (buffer.get(start + 1) & 0xFF) << 16
+					| (buffer.get(start + 2) & 0xFF) << 8
+					| (buffer.get(start + 3) & 0xFF);
+			int index = Arrays.binarySearch(MAJOR_CODES, code);
+
+			if (index >= 0)
+				return MAJORS_BY_CODE[index];
+		}
+
+		throw new IllegalArgumentException(
+				"No enum constant " + Major.class.getCanonicalName() + "." + decode(buffer, start, end));
+	}
+
+	/**
+	 * Returns the name encoded between the given offsets, interned if the parser
+	 * has a {@link NameInterner}.
+	 */
+	private String name(ByteBuffer buffer, int start, int end) {
+		return names == null ? decode(buffer, start, end) : names.intern(buffer, start, end);
+	}
+
+	/**
+	 * Decodes the UTF-8 bytes between the given offsets into a {@code String}.
+	 *
+	 * @param buffer the buffer holding the CSV data
+	 * @param start  the offset of the first byte
+	 * @param end    the offset just past the last byte
+	 * @return the decoded {@code String}
+	 */
+	private String decode(ByteBuffer buffer, int start, int end) {
+		int length = end - start;
+
+		if (scratch.length < length)
+			scratch = new byte[Math.max(length, scratch.length * 2)];
+
+		for (int i = 0; i < length; i++)
+			scratch[i] = buffer.get(start + i);
+
+		return new String(scratch, 0, length, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Returns whether every byte between the given offsets is whitespace, in the
+	 * sense of {@link String#trim()}. Bytes are compared unsigned, so the bytes of
+	 * a multi-byte UTF-8 character are never taken for whitespace.
+	 */
+	private static boolean isBlank(ByteBuffer buffer, int start, int end) {
+		for (int i = start; i < end; i++) {
+			if ((buffer.get(i) & 0xFF) > ' ')
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the offset of the first occurrence of {@code value} between the
+	 * given offsets, or {@code end} if there is none.
+	 */
+	static int indexOf(ByteBuffer buffer, byte value, int start, int end) {
+		for (int i = start; i < end; i++) {
+			if (buffer.get(i) == value)
+				return i;
+		}
+		return end;
+	}
+
+	/**
+	 * Returns the offset of the first line break between the given offsets, or
+	 * {@code end} if there is none. As with {@link java.io.BufferedReader}, a line
+	 * ends at {@code \n}, {@code \r} or {@code \r\n}.
+	 */
+	static int lineEnd(ByteBuffer buffer, int start, int end) {
+		for (int i = start; i < end; i++) {
+			byte value = buffer.get(i);
+
+			if (value == '\n' || value == '\r')
+				return i;
+		}
+		return end;
+	}
+
+	/**
+	 * Returns the offset just past the line break at {@code lineEnd}, taking
+	 * {@code \r\n} as a single break, or {@code end} if there is no break.
+	 */
+	static int nextRow(ByteBuffer buffer, int lineEnd, int end) {
+		if (lineEnd >= end)
+			return end;
+
+		if (buffer.get(lineEnd) == '\r' && lineEnd + 1 < end && buffer.get(lineEnd + 1) == '\n')
+			return lineEnd + 2;
+
+		return lineEnd + 1;
+	}
+
+	/**
+	 * Returns the offset of the last line break before {@code end}, or
+	 * {@code -1} if there is none. A region cut between the two bytes of a
+	 * {@code \r\n} leaves a blank row at the start of the next one, which is
+	 * skipped.
+	 */
+	static int lastLineBreak(ByteBuffer buffer, int end) {
+		for (int i = end - 1; i >= 0; i--) {
+			byte value = buffer.get(i);
+
+			if (value == '\n' || value == '\r')
+				return i;
+		}
+		return -1;
+	}
+
+}
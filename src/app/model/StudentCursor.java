@@ -0,0 +1,320 @@
+package app.model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A forward-only cursor that streams students from disk with bounded memory.
+ * <p>
+ * The cursor reads the binary snapshot or the CSV file lazily, one row at a
+ * time, and merges the change log on top of it. Only the change log, which
+ * compaction keeps small, is held in memory. A {@link Filter} is evaluated on
+ * each row's ID, major and academic year before its names are decoded, so rows
+ * that do not match never become {@link Student} objects.
+ * <p>
+ * The cursor must be {@link #close() closed} to release the underlying file,
+ * either directly or by closing the {@link #stream() stream} built on it.
+ * Unlike the in-memory roster, rows with repeated student IDs in the CSV file
+ * are not collapsed.
+ *
+ * @author Elli Steck
+ * @see StudentManager#openCursor(Filter)
+ */
+public class StudentCursor implements Iterator<Student>, AutoCloseable {
+
+	/**
+	 * A predicate on the fixed-width fields of a student row, evaluated before
+	 * the row is turned into a {@link Student}.
+	 */
+	@FunctionalInterface
+	public interface Filter {
+
+		/** A filter that accepts every row. */
+		Filter ALL = (studentId, major, academicYear) -> true;
+
+		/**
+		 * Returns whether the row with the given fields should be returned.
+		 *
+		 * @param studentId    the student's ID
+		 * @param major        the student's major
+		 * @param academicYear the year the student started
+		 * @return {@code true} to return the row
+		 */
+		boolean test(int studentId, Major major, int academicYear);
+
+		/**
+		 * Returns whether the given {@link Student} passes this filter.
+		 *
+		 * @param student the student to test
+		 * @return {@code true} if the student should be returned
+		 */
+		default boolean test(Student student) {
+			return test(student.getStudentId(), student.getMajor(), student.getYear());
+		}
+
+	}
+
+	/**
+	 * A lazily read sequence of students from a single data file.
+	 */
+	interface Source extends Closeable {
+
+		/**
+		 * Returns the next student that passes the source's filter.
+		 *
+		 * @return the next student, or {@code null} at the end of the file
+		 * @throws IOException if an error occurs while reading the file
+		 */
+		Student next() throws IOException;
+
+	}
+
+	/**
+	 * The effect of the change log on a single student ID.
+	 * <p>
+	 * Because the log is read before the data file, whether the ID exists in the
+	 * data file is not known yet. The log entries are therefore applied to two
+	 * states at once: one assuming the ID is in the data file and one assuming it
+	 * is not. The right state is chosen once the data file has been scanned.
+	 */
+	static final class Change {
+
+		final State ifInBase = new State(true);
+		final State ifNotInBase = new State(false);
+		boolean seenInBase;
+
+		/**
+		 * Applies a log entry to both states.
+		 *
+		 * @param operation the kind of mutation
+		 * @param student   the logged student, or {@code null} for a deletion
+		 * @param sequence  the position of the entry in the log
+		 */
+		void apply(StudentLog.Operation operation, Student student, long sequence) {
+			ifInBase.apply(operation, student, sequence);
+			ifNotInBase.apply(operation, student, sequence);
+		}
+
+	}
+
+	/**
+	 * Where a student ID ends up after replaying the change log, mirroring how
+	 * {@link StudentLog#replay(Map)} updates an insertion-ordered map.
+	 */
+	static final class State {
+
+		boolean present;
+		Student value;
+		long appendedAt = -1;
+
+		State(boolean present) {
+			this.present = present;
+		}
+
+		void apply(StudentLog.Operation operation, Student student, long sequence) {
+			switch (operation) {
+			case ADD:
+				if (!present)
+					append(student, sequence);
+				break;
+			case UPDATE:
+				if (present)
+					value = student;
+				else
+					append(student, sequence);
+				break;
+			case DELETE:
+				present = false;
+				value = null;
+				appendedAt = -1;
+				break;
+			}
+		}
+
+		private void append(Student student, long sequence) {
+			present = true;
+			value = student;
+			appendedAt = sequence;
+		}
+
+	}
+
+	private final Source base;
+	private final Map<Integer, Change> changes;
+	private final int[] changedIds;
+	private final Filter filter;
+	private Iterator<Student> appended;
+	private Student next;
+	private boolean closed;
+
+	/**
+	 * Constructs a new {@code StudentCursor} over the given data file source and
+	 * change log entries.
+	 *
+	 * @param base    opens the data file, with the filter it should apply
+	 * @param changes the change log entries, keyed by student ID
+	 * @param filter  the filter every returned student must pass
+	 * @throws IOException if an error occurs while opening the data file
+	 */
+	StudentCursor(SourceOpener base, Map<Integer, Change> changes, Filter filter) throws IOException {
+		this.changes = changes;
+		this.changedIds = new int[changes.size()];
+		this.filter = filter;
+
+		int index = 0;
+		for (int studentId : changes.keySet())
+			changedIds[index++] = studentId;
+		Arrays.sort(changedIds);
+
+		// Changed rows must reach the merge even if their stored data does not
+		// match, since the log may change them into a match.
+		this.base = base.open((studentId, major, academicYear) ->
+				Arrays.binarySearch(changedIds, studentId) >= 0 || filter.test(studentId, major, academicYear));
+	}
+
+	/**
+	 * Opens a {@link Source} that applies the given filter.
+	 */
+	@FunctionalInterface
+	interface SourceOpener {
+		Source open(Filter filter) throws IOException;
+	}
+
+	/**
+	 * Reads the change log into the per-ID changes used to construct a cursor.
+	 *
+	 * @param log the change log to read
+	 * @return the changes, keyed by student ID
+	 * @throws IOException if an error occurs while reading the log
+	 */
+	static Map<Integer, Change> readChanges(StudentLog log) throws IOException {
+		Map<Integer, Change> changes = new HashMap<>();
+		long[] sequence = { 0 };
+
+		log.read((operation, studentId, student) ->
+				changes.computeIfAbsent(studentId, id -> new Change()).apply(operation, student, sequence[0]++));
+
+		return changes;
+	}
+
+	@Override
+	public boolean hasNext() {
+		if (next == null && !closed)
+			next = advance();
+
+		return next != null;
+	}
+
+	@Override
+	public Student next() {
+		if (!hasNext())
+			throw new NoSuchElementException();
+
+		Student student = next;
+		next = null;
+		return student;
+	}
+
+	/**
+	 * Returns a sequential, ordered {@link Stream} over the remaining students.
+	 * Closing the stream closes this cursor.
+	 *
+	 * @return a stream of the remaining students
+	 */
+	public Stream<Student> stream() {
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this,
+				Spliterator.ORDERED | Spliterator.NONNULL), false).onClose(this::close);
+	}
+
+	/**
+	 * Closes the underlying data file. Further calls to {@link #hasNext()} return
+	 * {@code false}.
+	 *
+	 * @throws UncheckedIOException if an error occurs while closing the file
+	 */
+	@Override
+	public void close() {
+		if (closed)
+			return;
+
+		closed = true;
+		next = null;
+
+		try {
+			base.close();
+		} catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+	}
+
+	/**
+	 * Finds the next student to return: first the rows of the data file, with
+	 * the change log applied in place, then the students the log appended.
+	 */
+	private Student advance() {
+		try {
+			if (appended == null) {
+				Student student;
+
+				while ((student = base.next()) != null) {
+					Change change = changedIds.length == 0 ? null : changes.get(student.getStudentId());
+
+					if (change == null)
+						return student;
+
+					change.seenInBase = true;
+					State state = change.ifInBase;
+
+					if (state.present && state.appendedAt < 0) {
+						Student current = state.value != null ? state.value : student;
+
+						if (filter.test(current))
+							return current;
+					}
+				}
+
+				appended = appendedStudents().iterator();
+			}
+
+			return appended.hasNext() ? appended.next() : null;
+		} catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+	}
+
+	/**
+	 * Returns the students that the change log appended after the data file's
+	 * rows, in log order.
+	 */
+	private List<Student> appendedStudents() {
+		List<State> states = new ArrayList<>();
+
+		for (Change change : changes.values()) {
+			State state = change.seenInBase ? change.ifInBase : change.ifNotInBase;
+
+			if (state.present && state.appendedAt >= 0 && filter.test(state.value))
+				states.add(state);
+		}
+
+		states.sort((a, b) -> Long.compare(a.appendedAt, b.appendedAt));
+		List<Student> students = new ArrayList<>(states.size());
+
+		for (State state : states)
+			students.add(state.value);
+
+		return students;
+	}
+
+}
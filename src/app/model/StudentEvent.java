@@ -0,0 +1,77 @@
+package app.model;
+
+/**
+ * A change to the roster published by {@link StudentManager}: a student was
+ * added, updated or removed.
+ * <p>
+ * Events are delivered to {@link StudentChangeListener listeners} in batches,
+ * and the events for one student in a batch are coalesced, so a batch holds at
+ * most one event per student ID, describing the net change.
+ *
+ * @author Elli Steck
+ * @see StudentChangeListener
+ * @see StudentManager#addChangeListener(StudentChangeListener)
+ */
+public final class StudentEvent {
+
+	/**
+	 * The kinds of changes.
+	 */
+	public enum Type {
+		/** The student was added to the roster. */
+		ADDED,
+		/** The student's data was changed. */
+		UPDATED,
+		/** The student was removed from the roster. */
+		REMOVED
+	}
+
+	private final Type type;
+	private final Student student;
+
+	/**
+	 * Constructs a new {@code StudentEvent}.
+	 *
+	 * @param type    the kind of change
+	 * @param student the student after the change, or as it was before it was
+	 *                removed
+	 */
+	public StudentEvent(Type type, Student student) {
+		this.type = type;
+		this.student = student;
+	}
+
+	/**
+	 * Returns the kind of change.
+	 *
+	 * @return the event type
+	 */
+	public Type getType() {
+		return type;
+	}
+
+	/**
+	 * Returns the affected student: its new data for an addition or update, or
+	 * its last data for a removal.
+	 *
+	 * @return the affected {@link Student}
+	 */
+	public Student getStudent() {
+		return student;
+	}
+
+	/**
+	 * Returns the ID of the affected student.
+	 *
+	 * @return the student ID
+	 */
+	public int getStudentId() {
+		return student.getStudentId();
+	}
+
+	@Override
+	public String toString() {
+		return "StudentEvent [type=" + type + ", student=" + student.getStudentId() + "]";
+	}
+
+}
@@ -0,0 +1,209 @@
+package app.model;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Delivers {@link StudentEvent}s published by {@link StudentManager} to its
+ * {@link StudentChangeListener listeners}, in batches.
+ * <p>
+ * Each change to the roster is published once, with every student it affected,
+ * so an import of 10,000 students is a single batch. How the batch reaches a
+ * listener depends on how the listener subscribed:
+ * <ul>
+ * <li>Synchronous listeners are called on the publishing thread, with each
+ * published batch as it is. They must be quick and must not wait for other
+ * threads that change the roster, since changes are held back until they
+ * return.</li>
+ * <li>Listeners with an {@link java.util.concurrent.Executor Executor} are
+ * called on it. Events published while a delivery is queued or running are
+ * coalesced into the next batch, keeping one event per student that describes
+ * its net change: an addition followed by an update is delivered as one
+ * addition, and an addition followed by a removal is not delivered at all. A
+ * listener whose executor falls behind therefore receives fewer, larger
+ * batches, and never more than one delivery is queued or running for it at a
+ * time.</li>
+ * </ul>
+ * A listener that throws is logged and keeps receiving later batches.
+ *
+ * @author Elli Steck
+ * @see StudentManager#addChangeListener(StudentChangeListener, Executor)
+ */
+class StudentEventBus {
+
+	private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+
+	/**
+	 * Subscribes the given listener to every batch published from now on.
+	 *
+	 * @param listener the listener to call
+	 * @param executor runs the listener's deliveries, or {@code null} to call it
+	 *                 synchronously on the publishing thread
+	 */
+	void subscribe(StudentChangeListener listener, Executor executor) {
+		subscriptions.add(new Subscription(listener, executor));
+	}
+
+	/**
+	 * Stops delivering batches to the given listener. A delivery already queued
+	 * on its executor may still run.
+	 *
+	 * @param listener the listener to remove
+	 * @return {@code true} if the listener was subscribed
+	 */
+	boolean unsubscribe(StudentChangeListener listener) {
+		for (Subscription subscription : subscriptions) {
+			if (subscription.listener == listener)
+				return subscriptions.remove(subscription);
+		}
+
+		return false;
+	}
+
+	/**
+	 * Publishes the same kind of change for each of the given students as one
+	 * batch.
+	 *
+	 * @param type     the kind of change
+	 * @param students the affected students, in the order they were changed
+	 */
+	void publish(StudentEvent.Type type, Collection<Student> students) {
+		if (students.isEmpty() || subscriptions.isEmpty())
+			return;
+
+		List<StudentEvent> events = new ArrayList<>(students.size());
+
+		for (Student student : students)
+			events.add(new StudentEvent(type, student));
+
+		List<StudentEvent> batch = Collections.unmodifiableList(events);
+
+		for (Subscription subscription : subscriptions)
+			subscription.offer(batch);
+	}
+
+	/**
+	 * Merges the given event into the pending events of a subscription, keeping
+	 * one event per student that describes its net change.
+	 */
+	private static void coalesce(Map<Integer, StudentEvent> pending, StudentEvent event) {
+		StudentEvent previous = pending.get(event.getStudentId());
+
+		if (previous == null) {
+			pending.put(event.getStudentId(), event);
+			return;
+		}
+
+		switch (previous.getType()) {
+		case ADDED:
+			if (event.getType() == StudentEvent.Type.REMOVED)
+				pending.remove(event.getStudentId());
+			else
+				pending.put(event.getStudentId(), new StudentEvent(StudentEvent.Type.ADDED, event.getStudent()));
+			break;
+		case UPDATED:
+			pending.put(event.getStudentId(), event.getType() == StudentEvent.Type.REMOVED ? event
+					: new StudentEvent(StudentEvent.Type.UPDATED, event.getStudent()));
+			break;
+		default:
+			// A removal the listener has not seen yet, so it still shows the student.
+			pending.put(event.getStudentId(), event.getType() == StudentEvent.Type.REMOVED ? event
+					: new StudentEvent(StudentEvent.Type.UPDATED, event.getStudent()));
+			break;
+		}
+	}
+
+	/**
+	 * A listener and how its batches are delivered.
+	 */
+	private static final class Subscription {
+
+		final StudentChangeListener listener;
+		final Executor executor;
+		private final Map<Integer, StudentEvent> pending = new LinkedHashMap<>();
+		private boolean scheduled;
+
+		Subscription(StudentChangeListener listener, Executor executor) {
+			this.listener = listener;
+			this.executor = executor;
+		}
+
+		/**
+		 * Delivers the given batch now, or merges it into the pending events and
+		 * queues a delivery if none is queued or running.
+		 */
+		void offer(List<StudentEvent> batch) {
+			if (executor == null) {
+				deliver(batch);
+				return;
+			}
+
+			synchronized (this) {
+				for (StudentEvent event : batch)
+					coalesce(pending, event);
+
+				if (scheduled || pending.isEmpty())
+					return;
+
+				scheduled = true;
+			}
+
+			schedule();
+		}
+
+		private void schedule() {
+			try {
+				executor.execute(this::flush);
+			} catch (RejectedExecutionException ex) {
+				synchronized (this) {
+					scheduled = false;
+				}
+				System.err.println("Error scheduling student events: " + ex.getMessage());
+				ex.printStackTrace();
+			}
+		}
+
+		/**
+		 * Delivers the pending events, then queues another delivery if more events
+		 * arrived meanwhile.
+		 */
+		private void flush() {
+			List<StudentEvent> batch;
+
+			synchronized (this) {
+				batch = new ArrayList<>(pending.values());
+				pending.clear();
+			}
+
+			if (!batch.isEmpty())
+				deliver(Collections.unmodifiableList(batch));
+
+			synchronized (this) {
+				if (pending.isEmpty()) {
+					scheduled = false;
+					return;
+				}
+			}
+
+			schedule();
+		}
+
+		private void deliver(List<StudentEvent> batch) {
+			try {
+				listener.studentsChanged(batch);
+			} catch (RuntimeException ex) {
+				System.err.println("Error delivering student events: " + ex.getMessage());
+				ex.printStackTrace();
+			}
+		}
+
+	}
+
+}
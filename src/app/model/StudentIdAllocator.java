@@ -0,0 +1,215 @@
+package app.model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands out unique student IDs to many threads at once without making them
+ * contend on a single counter.
+ * <p>
+ * Each thread takes a block of {@code blockSize} consecutive IDs from the shared
+ * counter with a single compare-and-set, and then hands them out from a
+ * thread-local range without any synchronization. A thread therefore touches
+ * shared state once per block, and IDs from one thread are consecutive within
+ * a block. {@link #reserveRange(int)} takes a whole range in one step, for bulk
+ * imports such as {@link StudentManager#importStudents(Path)}.
+ * <p>
+ * If a file is given to {@link #reset(long, Path)}, a high-water mark is kept
+ * in it: no ID at or above the mark has been handed out, so starting again from
+ * the mark after a restart never reuses an ID, even one whose student was
+ * removed since. The mark is written ahead of the counter in steps of
+ * {@value #RESERVE_AHEAD} IDs, so the file is only rewritten once every few
+ * blocks. The IDs skipped after a restart are never used.
+ * <p>
+ * {@link #reset(long, Path)} discards every thread's block, so IDs handed out
+ * after it start from the new value on every thread.
+ *
+ * @author Elli Steck
+ * @see Student
+ * @see StudentManager
+ */
+class StudentIdAllocator {
+
+	/** The default number of IDs a thread takes at a time. */
+	static final int DEFAULT_BLOCK_SIZE = 64;
+
+	/** The number of IDs the persisted high-water mark is kept ahead by. */
+	static final int RESERVE_AHEAD = 4096;
+
+	private static final long MAX_ID = Integer.MAX_VALUE;
+
+	/**
+	 * A thread's range of IDs, valid while the allocator's generation is
+	 * unchanged.
+	 */
+	private static final class Block {
+
+		int generation = -1;
+		long next;
+		long end;
+
+	}
+
+	private final int blockSize;
+	private final AtomicLong next = new AtomicLong();
+	private final ThreadLocal<Block> blocks = ThreadLocal.withInitial(Block::new);
+	private volatile int generation;
+	private volatile long reservedUpTo = MAX_ID + 1;
+	private Path markFile;
+
+	/**
+	 * Constructs a new {@code StudentIdAllocator} that hands out blocks of
+	 * {@value #DEFAULT_BLOCK_SIZE} IDs, starting from zero.
+	 */
+	StudentIdAllocator() {
+		this(DEFAULT_BLOCK_SIZE);
+	}
+
+	/**
+	 * Constructs a new {@code StudentIdAllocator} that hands out blocks of the
+	 * given size, starting from zero.
+	 *
+	 * @param blockSize the number of IDs a thread takes at a time
+	 * @throws IllegalArgumentException if {@code blockSize} is not positive
+	 */
+	StudentIdAllocator(int blockSize) {
+		if (blockSize <= 0)
+			throw new IllegalArgumentException("Block size must be positive: " + blockSize);
+
+		this.blockSize = blockSize;
+	}
+
+	/**
+	 * Returns a new unique ID from the calling thread's block, taking a new block
+	 * if it is used up.
+	 *
+	 * @return the ID
+	 * @throws IllegalStateException if every ID has been handed out
+	 */
+	int nextId() {
+		Block block = blocks.get();
+
+		if (block.generation != generation || block.next == block.end) {
+			// Read before claiming, so a reset during the claim discards this block.
+			int current = generation;
+			block.next = claim(blockSize, 1);
+			block.end = Math.min(block.next + blockSize, MAX_ID + 1);
+			block.generation = current;
+		}
+
+		return (int) block.next++;
+	}
+
+	/**
+	 * Reserves the given number of consecutive IDs in one step. The range is
+	 * taken from the shared counter, so it never overlaps a thread's block.
+	 *
+	 * @param count the number of IDs to reserve
+	 * @return the first ID of the range
+	 * @throws IllegalArgumentException if {@code count} is not positive
+	 * @throws IllegalStateException    if fewer than {@code count} IDs are left
+	 */
+	int reserveRange(int count) {
+		if (count <= 0)
+			throw new IllegalArgumentException("Count must be positive: " + count);
+
+		return (int) claim(count, count);
+	}
+
+	/**
+	 * Restarts the IDs from the given value, discarding every thread's block.
+	 *
+	 * @param value    the next ID to hand out
+	 * @param markFile the file to keep the high-water mark in, or {@code null} to
+	 *                 keep none
+	 */
+	synchronized void reset(long value, Path markFile) {
+		this.markFile = markFile;
+		next.set(value);
+		// Forces the mark to be written before the first ID is handed out.
+		reservedUpTo = markFile == null ? MAX_ID + 1 : value;
+		generation++;
+	}
+
+	/**
+	 * Returns the next ID the shared counter will hand out. IDs below it may
+	 * still be waiting in a thread's block.
+	 *
+	 * @return the start of the next block
+	 */
+	long getNext() {
+		return next.get();
+	}
+
+	/**
+	 * Reads the high-water mark from the given file.
+	 *
+	 * @param markFile the file holding the mark
+	 * @return the mark, or {@code 0} if the file does not exist or holds no valid
+	 *         mark
+	 * @throws IOException if an error occurs while reading the file
+	 */
+	static long readMark(Path markFile) throws IOException {
+		if (!Files.exists(markFile))
+			return 0;
+
+		String text = new String(Files.readAllBytes(markFile), StandardCharsets.UTF_8).trim();
+
+		try {
+			return Long.parseLong(text);
+		} catch (NumberFormatException ex) {
+			System.err.println("Invalid student ID mark in " + markFile + ": " + text);
+			return 0;
+		}
+	}
+
+	/**
+	 * Takes a range of the given size from the shared counter, advancing the
+	 * persisted mark first if the range would cross it. A block at the very end of
+	 * the ID space may be shorter, but never below {@code minimum}.
+	 */
+	private long claim(int count, int minimum) {
+		while (true) {
+			long start = next.get();
+
+			if (start + minimum > MAX_ID + 1)
+				throw new IllegalStateException("Student IDs exhausted");
+
+			long end = Math.min(start + count, MAX_ID + 1);
+
+			if (end > reservedUpTo)
+				advanceMark(end);
+			else if (next.compareAndSet(start, end))
+				return start;
+		}
+	}
+
+	/**
+	 * Moves the persisted mark past the given ID. If the mark cannot be written,
+	 * the failure is logged and IDs are still handed out, since the roster itself
+	 * still keeps every stored ID from being reused.
+	 */
+	private synchronized void advanceMark(long end) {
+		if (end <= reservedUpTo)
+			return;
+
+		long mark = Math.min(end + RESERVE_AHEAD, MAX_ID + 1);
+
+		if (markFile != null) {
+			try {
+				byte[] text = Long.toString(mark).getBytes(StandardCharsets.UTF_8);
+				AtomicFileWriter.write(markFile, channel -> channel.write(ByteBuffer.wrap(text)));
+			} catch (IOException ex) {
+				System.err.println("Error saving student ID mark: " + ex.getMessage());
+				ex.printStackTrace();
+			}
+		}
+
+		reservedUpTo = mark;
+	}
+
+}
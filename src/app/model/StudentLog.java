@@ -0,0 +1,250 @@
+package app.model;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Append-only change log for the student roster.
+ * <p>
+ * Each mutation is recorded as a single line consisting of an operation code
+ * followed by the affected student's data in the same comma-separated format
+ * used by the CSV file, e.g. {@code A,101014,John,Doe,CSIS,2023}. Deletions only
+ * record the student ID, e.g. {@code D,101014}.
+ * <p>
+ * Entries are appended asynchronously by a {@link StudentLogWriter}. The log
+ * lives next to the CSV file and is replayed on top of it when the roster is
+ * loaded. Once it grows large enough, {@link StudentManager} compacts it back
+ * into the CSV file and {@link #truncate(int) truncates} it.
+ *
+ * @author Elli Steck
+ * @see StudentManager
+ * @see StudentLogWriter
+ */
+class StudentLog {
+
+	/**
+	 * The kinds of mutations that can be recorded in the log, each with the
+	 * single-character code written at the start of its line.
+	 */
+	enum Operation {
+		ADD('A'),
+		UPDATE('U'),
+		DELETE('D');
+
+		private final char code;
+
+		Operation(char code) {
+			this.code = code;
+		}
+
+		/**
+		 * Returns the {@link Operation} for the given code, or {@code null} if the
+		 * code is unknown.
+		 *
+		 * @param code the operation code read from the log
+		 * @return the matching {@link Operation}, or {@code null}
+		 */
+		static Operation fromCode(char code) {
+			for (Operation operation : values()) {
+				if (operation.code == code)
+					return operation;
+			}
+			return null;
+		}
+	}
+
+	private final Path file;
+	private final StudentLogWriter writer;
+	private final AtomicInteger entryCount = new AtomicInteger();
+
+	/**
+	 * Constructs a new {@code StudentLog} backed by the given file. The file is
+	 * created on the first append if it does not exist.
+	 *
+	 * @param file the path of the log file
+	 */
+	StudentLog(Path file) {
+		this.file = file;
+		this.writer = new StudentLogWriter(file);
+	}
+
+	/**
+	 * Returns the {@link StudentLogWriter} that appends to this log.
+	 *
+	 * @return the log's writer
+	 */
+	StudentLogWriter getWriter() {
+		return writer;
+	}
+
+	/**
+	 * Queues a single mutation to be appended to the end of the log.
+	 *
+	 * @param operation the kind of mutation
+	 * @param student   the affected {@link Student}
+	 * @return a future that completes once the entry has been written
+	 */
+	CompletableFuture<Void> append(Operation operation, Student student) {
+		return appendAll(operation, Collections.singletonList(student));
+	}
+
+	/**
+	 * Queues the same mutation for each of the given students to be appended to
+	 * the end of the log as a single write.
+	 *
+	 * @param operation the kind of mutation
+	 * @param students  the affected students, in the order they are logged
+	 * @return a future that completes once every entry has been written
+	 */
+	CompletableFuture<Void> appendAll(Operation operation, Collection<Student> students) {
+		StringBuilder rows = new StringBuilder();
+
+		for (Student student : students)
+			rows.append(toLogRow(operation, student)).append(System.lineSeparator());
+
+		entryCount.addAndGet(students.size());
+		return writer.write(rows.toString().getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Receives each valid entry read from the log.
+	 */
+	@FunctionalInterface
+	interface EntryHandler {
+
+		/**
+		 * Handles a single log entry.
+		 *
+		 * @param operation the kind of mutation
+		 * @param studentId the affected student's ID
+		 * @param student   the logged student, or {@code null} for a deletion
+		 */
+		void accept(Operation operation, int studentId, Student student);
+
+	}
+
+	/**
+	 * Replays every entry in the log on top of the given students, keyed by
+	 * student ID.
+	 * <p>
+	 * Entries that cannot be parsed, such as a line cut short by a crash, are
+	 * logged and skipped.
+	 *
+	 * @param students the students loaded from the CSV file, in file order
+	 * @throws IOException if an error occurs while reading the log file
+	 */
+	void replay(Map<Integer, Student> students) throws IOException {
+		entryCount.set(read((operation, studentId, student) -> {
+			if (operation == Operation.DELETE)
+				students.remove(studentId);
+			else if (operation == Operation.UPDATE || !students.containsKey(studentId))
+				students.put(studentId, student);
+		}));
+	}
+
+	/**
+	 * Reads every entry in the log, in order, and passes the valid ones to the
+	 * given handler. Entries that cannot be parsed are logged and skipped.
+	 *
+	 * @param handler receives each valid entry
+	 * @return the number of entries in the log, including invalid ones
+	 * @throws IOException if an error occurs while reading the log file
+	 */
+	int read(EntryHandler handler) throws IOException {
+		int entries = 0;
+
+		if (!Files.exists(file))
+			return entries;
+
+		try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+			String row;
+
+			while ((row = reader.readLine()) != null) {
+				if (row.trim().isEmpty())
+					continue;
+
+				entries++;
+				Operation operation = row.length() > 2 && row.charAt(1) == ','
+						? Operation.fromCode(row.charAt(0))
+						: null;
+
+				if (operation == null) {
+					System.err.println("Invalid log entry: " + row);
+					continue;
+				}
+
+				String data = row.substring(2);
+
+				if (operation == Operation.DELETE) {
+					try {
+						handler.accept(operation, Integer.parseInt(data.trim()), null);
+					} catch (NumberFormatException ex) {
+						System.err.println("Invalid log entry: " + row + ". " + ex.getMessage());
+					}
+					continue;
+				}
+
+				Student student = StudentManager.createStudent(data);
+
+				if (student == null)
+					System.err.println("Invalid log entry: " + row);
+				else
+					handler.accept(operation, student.getStudentId(), student);
+			}
+		}
+
+		return entries;
+	}
+
+	/**
+	 * Discards every entry in the log. Called once its entries have been
+	 * compacted into the CSV file. Must run on the writer thread, as a
+	 * {@link StudentLogWriter.Task}, so that it is ordered with the appends.
+	 *
+	 * @param compactedEntries the number of entries that were compacted; entries
+	 *                         queued after the compaction began are still
+	 *                         counted
+	 * @return the size of the discarded log file, in bytes
+	 * @throws IOException if an error occurs while truncating the log file
+	 */
+	long truncate(int compactedEntries) throws IOException {
+		writer.closeFile();
+		long bytes = Files.exists(file) ? Files.size(file) : 0;
+		Files.deleteIfExists(file);
+		entryCount.addAndGet(-compactedEntries);
+		return bytes;
+	}
+
+	/**
+	 * Returns the number of entries currently in the log, including entries
+	 * that are queued but not yet written.
+	 *
+	 * @return the number of log entries
+	 */
+	int getEntryCount() {
+		return entryCount.get();
+	}
+
+	/**
+	 * Formats a single log line for the given mutation.
+	 *
+	 * @param operation the kind of mutation
+	 * @param student   the affected {@link Student}
+	 * @return the log line, without a line separator
+	 */
+	private static String toLogRow(Operation operation, Student student) {
+		if (operation == Operation.DELETE)
+			return operation.code + "," + student.getStudentId();
+
+		return operation.code + "," + StudentManager.toCsvRow(student);
+	}
+
+}
@@ -0,0 +1,469 @@
+package app.model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes the change log on a dedicated background thread using group commit.
+ * <p>
+ * Callers {@link #write(byte[]) queue} each mutation and receive a
+ * {@link CompletableFuture} that completes once the mutation has been written
+ * with the configured {@link Durability}. The writer thread collects every
+ * mutation that arrives within {@value #GROUP_COMMIT_WINDOW_MICROS}
+ * microseconds of the first one and writes them all at once, followed by at
+ * most one {@link FileChannel#force(boolean) force}.
+ * <p>
+ * Other file work that must be ordered with the log, such as compaction, can be
+ * {@link #submit(Task) submitted} to run on the same thread. Such tasks run
+ * after every mutation queued before them has been written.
+ *
+ * @author Elli Steck
+ * @see StudentLog
+ * @see StudentManager
+ */
+public class StudentLogWriter {
+
+	/**
+	 * How durable a mutation must be before its future completes.
+	 */
+	public enum Durability {
+		/** Every mutation is written and forced to disk on its own. */
+		SYNC_EACH,
+		/** Mutations are written in groups, and each group is forced to disk once. */
+		GROUP_SYNC,
+		/** Mutations are written in groups and left to the operating system to flush. */
+		OS_BUFFERED
+	}
+
+	/**
+	 * A unit of file work run on the writer thread.
+	 */
+	@FunctionalInterface
+	interface Task {
+		void run() throws IOException;
+	}
+
+	/**
+	 * A point-in-time view of the writer's queue depth and commit latency.
+	 */
+	public static final class Metrics {
+
+		private final int queueDepth;
+		private final long commits;
+		private final long mutations;
+		private final long totalLatencyNanos;
+		private final long maxLatencyNanos;
+
+		private Metrics(int queueDepth, long commits, long mutations, long totalLatencyNanos,
+				long maxLatencyNanos) {
+			this.queueDepth = queueDepth;
+			this.commits = commits;
+			this.mutations = mutations;
+			this.totalLatencyNanos = totalLatencyNanos;
+			this.maxLatencyNanos = maxLatencyNanos;
+		}
+
+		/**
+		 * Returns the number of mutations and tasks waiting to be processed.
+		 *
+		 * @return the current queue depth
+		 */
+		public int getQueueDepth() {
+			return queueDepth;
+		}
+
+		/**
+		 * Returns the number of group commits written so far.
+		 *
+		 * @return the number of commits
+		 */
+		public long getCommits() {
+			return commits;
+		}
+
+		/**
+		 * Returns the number of mutations written so far.
+		 *
+		 * @return the number of mutations
+		 */
+		public long getMutations() {
+			return mutations;
+		}
+
+		/**
+		 * Returns the average time from queuing a mutation to completing its
+		 * future, in nanoseconds.
+		 *
+		 * @return the average commit latency, or {@code 0} if nothing was written
+		 */
+		public long getAverageLatencyNanos() {
+			return mutations == 0 ? 0 : totalLatencyNanos / mutations;
+		}
+
+		/**
+		 * Returns the longest time from queuing a mutation to completing its
+		 * future, in nanoseconds.
+		 *
+		 * @return the maximum commit latency
+		 */
+		public long getMaxLatencyNanos() {
+			return maxLatencyNanos;
+		}
+
+		@Override
+		public String toString() {
+			return "Metrics [queueDepth=" + queueDepth + ", commits=" + commits + ", mutations=" + mutations
+					+ ", averageLatencyNanos=" + getAverageLatencyNanos() + ", maxLatencyNanos="
+					+ maxLatencyNanos + "]";
+		}
+
+	}
+
+	/**
+	 * A queued mutation or task.
+	 */
+	private static final class Entry {
+
+		final byte[] data;
+		final Task task;
+		final CompletableFuture<Void> future = new CompletableFuture<>();
+		final long queuedNanos = System.nanoTime();
+
+		Entry(byte[] data, Task task) {
+			this.data = data;
+			this.task = task;
+		}
+
+	}
+
+	static final long GROUP_COMMIT_WINDOW_MICROS = 2000;
+	private static final int MAX_GROUP_BYTES = 1 << 20;
+
+	private final Path file;
+	private final BlockingQueue<Entry> queue = new LinkedBlockingQueue<>();
+	private final Entry closeMarker = new Entry(null, null);
+	private final AtomicLong commits = new AtomicLong();
+	private final AtomicLong mutations = new AtomicLong();
+	private final AtomicLong totalLatencyNanos = new AtomicLong();
+	private final AtomicLong maxLatencyNanos = new AtomicLong();
+	private volatile Durability durability = Durability.GROUP_SYNC;
+	private Thread thread;
+	private boolean closed;
+	private FileChannel channel;
+	private volatile IOException failure;
+
+	/**
+	 * Constructs a new {@code StudentLogWriter} that appends to the given file.
+	 * The writer thread is started when the first mutation or task is queued.
+	 *
+	 * @param file the path of the log file
+	 */
+	StudentLogWriter(Path file) {
+		this.file = file;
+	}
+
+	/**
+	 * Queues a mutation to be appended to the log file.
+	 *
+	 * @param data the encoded mutation
+	 * @return a future that completes once the mutation has been written with the
+	 *         current {@link Durability}, or completes exceptionally with the
+	 *         {@link IOException} that prevented it
+	 */
+	CompletableFuture<Void> write(byte[] data) {
+		return enqueue(new Entry(data, null));
+	}
+
+	/**
+	 * Queues a task to run on the writer thread after every mutation queued
+	 * before it has been written.
+	 *
+	 * @param task the file work to run
+	 * @return a future that completes when the task has run, or completes
+	 *         exceptionally with the exception it threw
+	 */
+	CompletableFuture<Void> submit(Task task) {
+		return enqueue(new Entry(null, task));
+	}
+
+	/**
+	 * Closes the log file so that it can be replaced or deleted. Must only be
+	 * called from a {@link Task} running on the writer thread; the file is
+	 * reopened by the next write.
+	 *
+	 * @throws IOException if an error occurs while closing the file
+	 */
+	void closeFile() throws IOException {
+		if (channel != null) {
+			channel.close();
+			channel = null;
+		}
+	}
+
+	/**
+	 * Sets how durable each mutation must be before its future completes.
+	 *
+	 * @param durability the new durability mode
+	 */
+	void setDurability(Durability durability) {
+		this.durability = durability;
+	}
+
+	/**
+	 * Returns the current durability mode.
+	 *
+	 * @return the durability mode
+	 */
+	Durability getDurability() {
+		return durability;
+	}
+
+	/**
+	 * Returns the writer's current queue depth and commit latency.
+	 *
+	 * @return a snapshot of the writer's metrics
+	 */
+	Metrics getMetrics() {
+		return new Metrics(queue.size(), commits.get(), mutations.get(), totalLatencyNanos.get(),
+				maxLatencyNanos.get());
+	}
+
+	/**
+	 * Writes everything already queued, stops the writer thread and closes the
+	 * log file. Anything queued afterwards fails with an {@link IOException}.
+	 *
+	 * @param timeout the longest time to wait for the queue to drain
+	 * @param unit    the unit of {@code timeout}
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	void close(long timeout, TimeUnit unit) throws InterruptedException {
+		Thread writerThread;
+
+		synchronized (this) {
+			if (closed)
+				return;
+
+			closed = true;
+			writerThread = thread;
+		}
+
+		if (writerThread != null) {
+			queue.add(closeMarker);
+			writerThread.join(unit.toMillis(timeout));
+		}
+	}
+
+	/**
+	 * Adds an entry to the queue, starting the writer thread if needed.
+	 */
+	private synchronized CompletableFuture<Void> enqueue(Entry entry) {
+		if (closed) {
+			entry.future.completeExceptionally(new IOException("Student log writer is closed: " + file));
+			return entry.future;
+		}
+
+		if (entry.data != null && failure != null) {
+			entry.future.completeExceptionally(new IOException("Student log writer has failed: " + file, failure));
+			return entry.future;
+		}
+
+		if (thread == null) {
+			thread = new Thread(this::run, "student-log-writer");
+			thread.setDaemon(true);
+			thread.start();
+		}
+
+		queue.add(entry);
+		return entry.future;
+	}
+
+	/**
+	 * The writer thread's main loop: takes the next entry, runs it if it is a
+	 * task, or collects a group of mutations around it and commits them.
+	 */
+	private void run() {
+		List<Entry> group = new ArrayList<>();
+		Entry carried = null;
+
+		try {
+			while (true) {
+				Entry first = carried != null ? carried : queue.take();
+				carried = null;
+
+				if (first == closeMarker)
+					break;
+
+				if (first.task != null) {
+					runTask(first);
+					continue;
+				}
+
+				Durability mode = durability;
+				group.add(first);
+
+				if (mode != Durability.SYNC_EACH) {
+					long deadline = System.nanoTime() + TimeUnit.MICROSECONDS.toNanos(GROUP_COMMIT_WINDOW_MICROS);
+					int groupBytes = first.data.length;
+
+					while (groupBytes < MAX_GROUP_BYTES) {
+						Entry next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+
+						if (next == null)
+							break;
+
+						if (next.task != null || next == closeMarker) {
+							carried = next;
+							break;
+						}
+
+						group.add(next);
+						groupBytes += next.data.length;
+					}
+				}
+
+				commit(group, mode);
+				group.clear();
+			}
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		} finally {
+			try {
+				closeFile();
+			} catch (IOException ex) {
+				System.err.println("Error closing student log: " + ex.getMessage());
+			}
+
+			IOException closedException = new IOException("Student log writer is closed: " + file);
+			Entry remaining;
+
+			while ((remaining = queue.poll()) != null)
+				remaining.future.completeExceptionally(closedException);
+		}
+	}
+
+	/**
+	 * Writes a group of mutations with a single write, forces them to disk
+	 * unless the mode is {@link Durability#OS_BUFFERED}, and completes their
+	 * futures. If the write or force fails, the log is truncated back to where
+	 * the group started.
+	 */
+	private void commit(List<Entry> group, Durability mode) {
+		int size = 0;
+
+		for (Entry entry : group)
+			size += entry.data.length;
+
+		ByteBuffer buffer = ByteBuffer.allocate(size);
+
+		for (Entry entry : group)
+			buffer.put(entry.data);
+
+		buffer.flip();
+
+		IOException failed = failure;
+
+		if (failed != null) {
+			failAll(group, new IOException("Student log writer has failed: " + file, failed));
+			return;
+		}
+
+		long start = -1;
+
+		try {
+			if (channel == null)
+				channel = openChannel();
+
+			start = channel.position();
+
+			while (buffer.hasRemaining())
+				channel.write(buffer);
+
+			if (mode != Durability.OS_BUFFERED)
+				channel.force(false);
+		} catch (IOException ex) {
+			discardPartialWrite(start, ex);
+			failAll(group, ex);
+			return;
+		}
+
+		long now = System.nanoTime();
+		commits.incrementAndGet();
+
+		for (Entry entry : group) {
+			long latency = now - entry.queuedNanos;
+			mutations.incrementAndGet();
+			totalLatencyNanos.addAndGet(latency);
+			maxLatencyNanos.accumulateAndGet(latency, Math::max);
+			entry.future.complete(null);
+		}
+	}
+
+	/**
+	 * Opens the log file for appending.
+	 *
+	 * @return the open channel
+	 * @throws IOException if the file cannot be opened
+	 */
+	FileChannel openChannel() throws IOException {
+		return FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+	}
+
+	/**
+	 * Truncates the log back to where a failed group started, so that a torn
+	 * record never sits in front of later ones, and closes the file. If the log
+	 * cannot be truncated, the writer is marked as failed and rejects every
+	 * later mutation.
+	 *
+	 * @param start the length of the log before the group, or {@code -1} if the
+	 *              file was never opened
+	 * @param cause the exception that failed the group
+	 */
+	private void discardPartialWrite(long start, IOException cause) {
+		try {
+			if (start >= 0)
+				channel.truncate(start);
+		} catch (IOException truncateEx) {
+			cause.addSuppressed(truncateEx);
+			failure = cause;
+			System.err.println("Error truncating student log, rejecting further writes: " + truncateEx.getMessage());
+			truncateEx.printStackTrace();
+		}
+
+		try {
+			closeFile();
+		} catch (IOException closeEx) {
+			cause.addSuppressed(closeEx);
+		}
+	}
+
+	/**
+	 * Completes the future of every entry in a group exceptionally.
+	 */
+	private static void failAll(List<Entry> group, IOException ex) {
+		for (Entry entry : group)
+			entry.future.completeExceptionally(ex);
+	}
+
+	/**
+	 * Runs a task and completes its future with the outcome.
+	 */
+	private void runTask(Entry entry) {
+		try {
+			entry.task.run();
+			entry.future.complete(null);
+		} catch (Exception ex) {
+			entry.future.completeExceptionally(ex);
+		}
+	}
+
+}
@@ -1,13 +1,32 @@
 package app.model;
 
-import java.io.BufferedReader;
 import java.io.BufferedWriter;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStreamWriter;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
-import java.util.LinkedHashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Manages the storage and retrieval of {@link Student} data.
@@ -15,95 +34,1181 @@ import java.util.Set;
  * Provides methods for reading and writing student records to a CSV file.
  * This class also handles ID management and prevents duplicate records.
  * <p>
- * This class maintains a private in-memory {@link Set} of {@link Student}
- * objects, which is lazily initialized and populated as needed.
+ * New, updated and removed records are appended to a {@link StudentLog} next to
+ * the CSV file rather than rewriting the whole file: an update is logged as the
+ * student's new row and a removal as a tombstone holding only the student ID.
+ * The log is replayed on top of the CSV file when the students are loaded, and
+ * is compacted back into the CSV file in the background once it grows past
+ * {@value #COMPACTION_THRESHOLD} entries. {@link #getCompactionMetrics()}
+ * reports what compaction has cost and reclaimed.
+ * <p>
+ * Every change is published as a batch of {@link StudentEvent}s to the
+ * {@link StudentChangeListener}s registered with
+ * {@link #addChangeListener(StudentChangeListener, Executor)}, so views can
+ * update the affected rows instead of reloading the roster.
+ * <p>
+ * All file writes happen on the log's {@link StudentLogWriter} thread. The
+ * asynchronous methods, such as {@link #addStudentsAsync(Collection)}, update
+ * the in-memory students immediately and return a {@link CompletableFuture}
+ * that completes once the change has been written with the configured
+ * {@link StudentLogWriter.Durability durability}. If the write fails, the
+ * change is rolled back. The synchronous methods wait for that future.
+ * <p>
+ * A binary {@link StudentSnapshotFile} of the CSV file is kept alongside it.
+ * When the snapshot is newer than the CSV file, it is loaded instead of parsing
+ * the CSV text.
+ * <p>
+ * Large rosters can be read without loading them into memory through a
+ * {@link StudentCursor}, opened by {@link #openCursor(StudentCursor.Filter)} or
+ * {@link #streamStudents(StudentCursor.Filter)}.
+ * <p>
+ * This class maintains a private in-memory, columnar {@link StudentStore} of
+ * student data, which is lazily initialized and populated as needed. The
+ * {@link Student} objects it returns are created on demand and are not backed
+ * by the store, so changing one through its setters has no effect on the
+ * stored data.
+ * The store is loaded exactly once and is safe to read and change from many
+ * threads at once; lookups and scans never block each other.
  * 
  * @author Elli Steck
  * @see Student
+ * @see StudentLog
+ * @see StudentLogWriter
+ * @see StudentSnapshotFile
+ * @see StudentCursor
+ * @see StudentStore
  */
 public class StudentManager {
 
-	private static final String STUDENT_DATA_FILE = "data/StudentData.csv";
-	private static Set<Student> students = null;
+	static final int COMPACTION_THRESHOLD = 1000;
+	static final long PARALLEL_LOAD_THRESHOLD = 16L << 20;
+	private static final long SHUTDOWN_TIMEOUT_SECONDS = 5;
+	private static volatile Path studentDataFile = Paths.get("data/StudentData.csv");
+	private static volatile StudentLog studentLog = new StudentLog(Paths.get("data/StudentData.log"));
+	private static volatile StudentSnapshotFile studentSnapshot = new StudentSnapshotFile(Paths.get("data/StudentData.bin"));
+	private static volatile Path studentIdFile = Paths.get("data/StudentData.ids");
+	private static volatile StudentStore students = null;
+	private static volatile StudentLogWriter.Durability durability = StudentLogWriter.Durability.GROUP_SYNC;
+	private static final AtomicBoolean compactionPending = new AtomicBoolean();
+	private static volatile LoadStats loadStats = null;
+	/** Orders changes to the store with their log entries and events. */
+	private static final Object changeLock = new Object();
+	private static final StudentEventBus changeEvents = new StudentEventBus();
+	/** Changes whose log write has neither succeeded nor been rolled back yet. */
+	private static final Set<CompletableFuture<Void>> unsettledChanges = ConcurrentHashMap.newKeySet();
+	/** Rolls back changes whose log write failed, in order, off the log writer thread. */
+	private static final Executor rollbacks = Executors.newSingleThreadExecutor(task -> {
+		Thread thread = new Thread(task, "student-rollback");
+		thread.setDaemon(true);
+		return thread;
+	});
+	// Only written on the log writer thread.
+	private static volatile long logCompactions;
+	private static volatile long compactedEntries;
+	private static volatile long reclaimedLogBytes;
+	private static volatile long logCompactionNanos;
+	/** Run by tests between pinning the roster and queuing a compaction. */
+	static volatile Runnable compactionPinnedHook;
+
+	static {
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> closeLog(studentLog), "student-log-shutdown"));
+	}
 
 	/**
 	 * Retrieves all students from the CSV file.
 	 * <p>
 	 * If the students have not yet been loaded, this method calls
-	 * {@link #loadStudentsFromFile()} to load them into memory. The returned set is
-	 * unmodifiable to prevent external modification.
+	 * {@link #loadStudentsFromFile(Consumer)} to load them into memory. The returned set is
+	 * an unmodifiable, weakly consistent view: it reflects later additions, and
+	 * iterating it while other threads add students never throws
+	 * {@link java.util.ConcurrentModificationException}.
 	 * 
 	 * @return an unmodifiable set of {@link Student} objects
 	 * @throws IOException if an error occurs while reading the CSV file
 	 */
 	public static Set<Student> getStudents() throws IOException {
-		if (students == null)
-			loadStudentsFromFile();
+		return loadedStudents().view();
+	}
+
+	/**
+	 * Retrieves all students, loading them if needed and passing each one to the
+	 * given listener as it is read, so that callers can show the roster while it
+	 * is still loading.
+	 * <p>
+	 * The listener sees the students as read from the snapshot or CSV file,
+	 * in file order and on the calling thread, but before the change log is
+	 * replayed, so only the returned set is the exact roster. If the students are
+	 * already loaded, the listener is not called.
+	 * <p>
+	 * If the listener throws an unchecked exception, loading stops, the exception
+	 * is rethrown and the students stay unloaded; throwing a
+	 * {@link java.util.concurrent.CancellationException} is the way to cancel a
+	 * load.
+	 * 
+	 * @param listener receives each student as it is read
+	 * @return an unmodifiable set of {@link Student} objects, as by
+	 *         {@link #getStudents()}
+	 * @throws IOException if an error occurs while reading the CSV file
+	 */
+	public static Set<Student> getStudents(Consumer<Student> listener) throws IOException {
+		return loadedStudents(listener).view();
+	}
+
+	/**
+	 * Opens an immutable, versioned snapshot of the loaded students.
+	 * <p>
+	 * The snapshot can be iterated for as long as needed, without locks, while
+	 * other threads keep changing the roster: it always holds exactly the
+	 * students as of the moment it was opened. Opening one does not copy the
+	 * students; instead, changes made while it is open copy the parts of the
+	 * roster they touch. Close the snapshot when done so that those copies stop
+	 * and the old version can be reclaimed.
+	 * 
+	 * @return a new {@link RosterSnapshot}, which the caller must close
+	 * @throws IOException if an error occurs while reading the CSV file
+	 */
+	public static RosterSnapshot openSnapshot() throws IOException {
+		return loadedStudents().openSnapshot();
+	}
+
+	/**
+	 * Retrieves the student with the given ID without blocking.
+	 * 
+	 * @param studentId the ID to look up
+	 * @return the matching {@link Student}, or {@code null} if there is none
+	 * @throws IOException if an error occurs while reading the CSV file
+	 */
+	public static Student getStudent(int studentId) throws IOException {
+		return loadedStudents().get(studentId);
+	}
+
+	/**
+	 * Retrieves the students with the given major and academic year, in the order
+	 * they were added. Either criterion may be {@code null} to match any value.
+	 * <p>
+	 * The students are found through per-major and per-year indexes rather than
+	 * by scanning every student.
+	 * 
+	 * @param major        the major to match, or {@code null} for any major
+	 * @param academicYear the academic year to match, or {@code null} for any year
+	 * @return a new list of the matching {@link Student} objects
+	 * @throws IOException if an error occurs while reading the CSV file
+	 */
+	public static List<Student> findStudents(Major major, Integer academicYear) throws IOException {
+		return loadedStudents().find(major, academicYear);
+	}
+
+	/**
+	 * Retrieves the students whose last name starts with the given prefix,
+	 * ignoring case, for type-ahead search. Students are sorted by last name, and
+	 * then in the order they were added.
+	 * 
+	 * @param prefix the beginning of the last name
+	 * @param limit  the largest number of students to return
+	 * @return a new list of at most {@code limit} matching {@link Student} objects
+	 * @throws IOException if an error occurs while reading the CSV file
+	 */
+	public static List<Student> searchByLastNamePrefix(String prefix, int limit) throws IOException {
+		return loadedStudents().searchLastNamePrefix(prefix, limit);
+	}
+
+	/**
+	 * Retrieves the students whose last name best matches the given text,
+	 * tolerating misspellings, best match first.
+	 * <p>
+	 * Names are matched by the three-letter sequences they share with the text,
+	 * through an index kept up to date as students are added, so no stored name
+	 * is compared character by character.
+	 * 
+	 * @param text  the last name to look for, possibly misspelled
+	 * @param limit the largest number of students to return
+	 * @return a new list of at most {@code limit} matching {@link Student} objects
+	 * @throws IOException if an error occurs while reading the CSV file
+	 */
+	public static List<Student> searchByLastName(String text, int limit) throws IOException {
+		return loadedStudents().searchLastName(text, limit);
+	}
+
+	/**
+	 * Answers the given query over the loaded students.
+	 * <p>
+	 * The query is planned against the ID index and the major and year indexes,
+	 * falling back to a scan when no index narrows the search, and a sorted page
+	 * is kept in a bounded heap rather than sorting every match. The result
+	 * reports the plan, the number of students examined and the time taken.
+	 * 
+	 * @param query the criteria, sort order and page to return
+	 * @return the requested page of matching students, with query statistics
+	 * @throws IOException if an error occurs while reading the CSV file
+	 */
+	public static StudentQuery.Result query(StudentQuery query) throws IOException {
+		return loadedStudents().query(query);
+	}
+
+	/**
+	 * Retrieves the headcounts of the loaded students by major and academic year.
+	 * <p>
+	 * The counts are maintained as students are added, changed and removed, so
+	 * no student is scanned. The returned snapshot is immutable and consistent,
+	 * and is shared by every caller until the roster next changes.
+	 *
+	 * @return a snapshot of the enrollment counts
+	 * @throws IOException if an error occurs while reading the CSV file
+	 */
+	public static EnrollmentSnapshot getEnrollment() throws IOException {
+		return loadedStudents().getEnrollment();
+	}
+
+	/**
+	 * Recounts the loaded students by major and academic year and checks the
+	 * maintained enrollment counts against the recount. Counts found to be wrong
+	 * are logged and rebuilt from the recount.
+	 *
+	 * @return {@code true} if the maintained counts were correct
+	 * @throws IOException if an error occurs while reading the CSV file
+	 */
+	public static boolean verifyEnrollment() throws IOException {
+		return loadedStudents().verifyEnrollment();
+	}
+
+	/**
+	 * Returns the loaded students, loading them on first use.
+	 * <p>
+	 * The students are loaded exactly once, however many threads call this method
+	 * at the same time. Once loaded, no lock is taken.
+	 */
+	private static StudentStore loadedStudents() throws IOException {
+		return loadedStudents(null);
+	}
+
+	/**
+	 * Returns the loaded students, loading them on first use and passing each one
+	 * read to the given listener, if any.
+	 */
+	private static StudentStore loadedStudents(Consumer<Student> listener) throws IOException {
+		StudentStore loaded = students;
+
+		if (loaded == null) {
+			synchronized (StudentManager.class) {
+				loaded = students;
+
+				if (loaded == null) {
+					loaded = loadStudentsFromFile(listener);
+					students = loaded;
+					scheduleCompactionIfNeeded(loaded);
+				}
+			}
+		}
+
+		return loaded;
+	}
+
+	/**
+	 * Opens a {@link StudentCursor} over every student on disk.
+	 * 
+	 * @return a cursor over every student, which must be closed
+	 * @throws IOException if an error occurs while opening the student files
+	 * @see #openCursor(StudentCursor.Filter)
+	 */
+	public static StudentCursor openCursor() throws IOException {
+		return openCursor(StudentCursor.Filter.ALL);
+	}
+
+	/**
+	 * Opens a {@link StudentCursor} over the students on disk that pass the given
+	 * filter.
+	 * <p>
+	 * Unlike {@link #getStudents()}, this method does not load the students into
+	 * memory. The cursor reads the snapshot or the CSV file one row at a time and
+	 * applies the change log on top of it. It is opened on the log writer's
+	 * thread, after every change queued before the call has been written, so it
+	 * sees those changes and is never opened halfway through a compaction.
+	 * 
+	 * @param filter decides which students are returned
+	 * @return a cursor over the matching students, which must be closed
+	 * @throws IOException if an error occurs while opening the student files
+	 */
+	public static StudentCursor openCursor(StudentCursor.Filter filter) throws IOException {
+		Path csvFile;
+		StudentLog log;
+		StudentSnapshotFile snapshot;
+
+		synchronized (StudentManager.class) {
+			csvFile = studentDataFile;
+			log = studentLog;
+			snapshot = studentSnapshot;
+		}
+
+		StudentCursor[] cursor = new StudentCursor[1];
+
+		await(log.getWriter().submit(() -> {
+			Map<Integer, StudentCursor.Change> changes = StudentCursor.readChanges(log);
+
+			cursor[0] = new StudentCursor(rowFilter -> {
+				if (snapshot.isNewerThan(csvFile)) {
+					try {
+						return snapshot.openSource(rowFilter);
+					} catch (IOException ex) {
+						System.err.println("Error reading student snapshot, falling back to the CSV file. "
+								+ ex.getMessage());
+					}
+				}
+
+				return StudentCsvParser.openSource(csvFile, rowFilter);
+			}, changes, filter);
+		}));
+
+		return cursor[0];
+	}
+
+	/**
+	 * Returns a lazily read {@link Stream} of every student on disk. The stream
+	 * holds the student files open and must be closed, e.g. with a
+	 * try-with-resources statement.
+	 * 
+	 * @return a stream of every student
+	 * @throws IOException if an error occurs while opening the student files
+	 * @see #openCursor(StudentCursor.Filter)
+	 */
+	public static Stream<Student> streamStudents() throws IOException {
+		return openCursor().stream();
+	}
+
+	/**
+	 * Returns a lazily read {@link Stream} of the students on disk that pass the
+	 * given filter. The stream holds the student files open and must be closed,
+	 * e.g. with a try-with-resources statement.
+	 * 
+	 * @param filter decides which students are returned
+	 * @return a stream of the matching students
+	 * @throws IOException if an error occurs while opening the student files
+	 * @see #openCursor(StudentCursor.Filter)
+	 */
+	public static Stream<Student> streamStudents(StudentCursor.Filter filter) throws IOException {
+		return openCursor(filter).stream();
+	}
+
+	/**
+	 * The outcome of adding a single {@link Student} through
+	 * {@link StudentManager#addStudents(Collection)}.
+	 */
+	public enum AddResult {
+		/** The student was added to the collection. */
+		ADDED,
+		/** A student with the same ID already exists, or appears earlier in the batch. */
+		DUPLICATE,
+		/** The student is {@code null} or its data cannot be stored. */
+		INVALID
+	}
+
+	/**
+	 * How long the last load of the roster took and how much heap sharing name
+	 * instances saved during it.
+	 */
+	public static final class LoadStats {
+
+		private final boolean fromSnapshot;
+		private final int students;
+		private final long loadNanos;
+		private final NameInterner.Stats names;
+
+		private LoadStats(boolean fromSnapshot, int students, long loadNanos, NameInterner.Stats names) {
+			this.fromSnapshot = fromSnapshot;
+			this.students = students;
+			this.loadNanos = loadNanos;
+			this.names = names;
+		}
+
+		/**
+		 * Returns whether the roster was read from the binary snapshot rather than
+		 * parsed from the CSV file.
+		 *
+		 * @return {@code true} if the snapshot was read
+		 */
+		public boolean isFromSnapshot() {
+			return fromSnapshot;
+		}
+
+		/**
+		 * Returns the number of students loaded, after the change log was replayed.
+		 *
+		 * @return the number of students
+		 */
+		public int getStudents() {
+			return students;
+		}
+
+		/**
+		 * Returns the time taken to load the roster, in nanoseconds.
+		 *
+		 * @return the load time
+		 */
+		public long getLoadNanos() {
+			return loadNanos;
+		}
+
+		/**
+		 * Returns the number of names looked up in the intern table while loading.
+		 *
+		 * @return the number of name lookups
+		 */
+		public long getNameLookups() {
+			return names.getLookups();
+		}
+
+		/**
+		 * Returns the number of names that reused an instance already in the intern
+		 * table instead of allocating a new one.
+		 *
+		 * @return the number of shared names
+		 */
+		public long getSharedNames() {
+			return names.getHits();
+		}
+
+		/**
+		 * Returns the number of distinct names in the intern table.
+		 *
+		 * @return the number of distinct names
+		 */
+		public int getDistinctNames() {
+			return names.getNames();
+		}
+
+		/**
+		 * Returns the number of names that were not shared because the intern table
+		 * was full.
+		 *
+		 * @return the number of names left unshared
+		 */
+		public long getNameOverflows() {
+			return names.getOverflows();
+		}
+
+		/**
+		 * Returns an estimate of the heap saved by sharing name instances.
+		 *
+		 * @return the estimated number of bytes saved
+		 */
+		public long getEstimatedBytesSaved() {
+			return names.getEstimatedBytesSaved();
+		}
+
+		@Override
+		public String toString() {
+			return "LoadStats [fromSnapshot=" + fromSnapshot + ", students=" + students + ", loadMillis="
+					+ TimeUnit.NANOSECONDS.toMillis(loadNanos) + ", names=" + names + "]";
+		}
+
+	}
+
+	/**
+	 * What background compaction has cost and reclaimed so far, both for the
+	 * change log, which is folded back into the CSV file, and for the in-memory
+	 * store, whose removed rows are dropped.
+	 */
+	public static final class CompactionMetrics {
+
+		private final long logCompactions;
+		private final long compactedEntries;
+		private final long reclaimedLogBytes;
+		private final long logCompactionNanos;
+		private final int pendingLogEntries;
+		private final StudentStore.CompactionStats store;
+
+		private CompactionMetrics(long logCompactions, long compactedEntries, long reclaimedLogBytes,
+				long logCompactionNanos, int pendingLogEntries, StudentStore.CompactionStats store) {
+			this.logCompactions = logCompactions;
+			this.compactedEntries = compactedEntries;
+			this.reclaimedLogBytes = reclaimedLogBytes;
+			this.logCompactionNanos = logCompactionNanos;
+			this.pendingLogEntries = pendingLogEntries;
+			this.store = store;
+		}
+
+		/**
+		 * Returns the number of times the change log has been compacted into the
+		 * CSV file.
+		 *
+		 * @return the number of log compactions
+		 */
+		public long getLogCompactions() {
+			return logCompactions;
+		}
+
+		/**
+		 * Returns the number of log entries folded into the CSV file.
+		 *
+		 * @return the number of compacted entries
+		 */
+		public long getCompactedEntries() {
+			return compactedEntries;
+		}
+
+		/**
+		 * Returns the number of bytes of change log discarded by compaction.
+		 *
+		 * @return the reclaimed log size
+		 */
+		public long getReclaimedLogBytes() {
+			return reclaimedLogBytes;
+		}
+
+		/**
+		 * Returns the total time spent rewriting the CSV file and snapshot and
+		 * truncating the log, in nanoseconds.
+		 *
+		 * @return the log compaction time
+		 */
+		public long getLogCompactionNanos() {
+			return logCompactionNanos;
+		}
+
+		/**
+		 * Returns the number of entries in the change log waiting to be compacted.
+		 *
+		 * @return the number of pending log entries
+		 */
+		public int getPendingLogEntries() {
+			return pendingLogEntries;
+		}
+
+		/**
+		 * Returns the number of times the in-memory store has compacted its
+		 * removed rows.
+		 *
+		 * @return the number of store compactions
+		 */
+		public long getStoreCompactions() {
+			return store.getCompactions();
+		}
+
+		/**
+		 * Returns the number of removed rows reclaimed from the in-memory store.
+		 *
+		 * @return the number of reclaimed rows
+		 */
+		public long getReclaimedRows() {
+			return store.getReclaimedRows();
+		}
+
+		/**
+		 * Returns the number of removed rows still held by the in-memory store.
+		 *
+		 * @return the number of pending rows
+		 */
+		public int getPendingRows() {
+			return store.getPendingRows();
+		}
+
+		/**
+		 * Returns the total time spent compacting the in-memory store, in
+		 * nanoseconds.
+		 *
+		 * @return the store compaction time
+		 */
+		public long getStoreCompactionNanos() {
+			return store.getCompactionNanos();
+		}
+
+		@Override
+		public String toString() {
+			return "CompactionMetrics [logCompactions=" + logCompactions + ", compactedEntries=" + compactedEntries
+					+ ", reclaimedLogBytes=" + reclaimedLogBytes + ", logCompactionMillis="
+					+ TimeUnit.NANOSECONDS.toMillis(logCompactionNanos) + ", pendingLogEntries="
+					+ pendingLogEntries + ", store=" + store + "]";
+		}
 
-		return Collections.unmodifiableSet(students);
 	}
 
 	/**
-	 * Adds a new {@link Student} to the collection and saves the updated list to
-	 * the data file.
+	 * Adds a new {@link Student} to the collection and records it in the change
+	 * log.
 	 * <p>
 	 * Ensures the collection is loaded and checks for duplicates before adding the
-	 * student. If the student already exists, it is not added, and a message is
-	 * logged.
+	 * student. If the student already exists or is invalid, it is not added, and a
+	 * message is logged.
 	 * 
 	 * @param student the {@link Student} to add
-	 * @throws IOException if an error occurs while saving the updated data to the
-	 *                     CSV file
+	 * @throws IOException if an error occurs while appending the student to the
+	 *                     change log
+	 * @see #addStudentAsync(Student)
 	 */
 	public static void addStudent(Student student) throws IOException {
-		if (students == null)
-			loadStudentsFromFile();
+		AddResult result = addStudents(Collections.singletonList(student)).get(0);
 
-		if (students.contains(student)) {
+		if (result == AddResult.DUPLICATE)
 			System.err.println("Duplicate student detected: " + student);
-			return;
+		else if (result == AddResult.INVALID)
+			System.err.println("Invalid student data: " + student);
+	}
+
+	/**
+	 * Adds a new {@link Student} to the collection without waiting for it to be
+	 * written to the change log.
+	 * 
+	 * @param student the {@link Student} to add
+	 * @return a future that completes with the {@link AddResult} once the student
+	 *         has been written, or completes exceptionally if the write fails
+	 * @see #addStudentsAsync(Collection)
+	 */
+	public static CompletableFuture<AddResult> addStudentAsync(Student student) {
+		return addStudentsAsync(Collections.singletonList(student)).thenApply(results -> results.get(0));
+	}
+
+	/**
+	 * Adds a batch of students to the collection and records them in the change
+	 * log with a single write, waiting for the write to complete.
+	 * 
+	 * @param batch the students to add
+	 * @return the {@link AddResult} for each student, in the iteration order of
+	 *         {@code batch}
+	 * @throws IOException if an error occurs while appending the students to the
+	 *                     change log
+	 * @see #addStudentsAsync(Collection)
+	 */
+	public static List<AddResult> addStudents(Collection<Student> batch) throws IOException {
+		return await(addStudentsAsync(batch));
+	}
+
+	/**
+	 * Adds a batch of students to the collection and queues them to be recorded
+	 * in the change log with a single write.
+	 * <p>
+	 * Every student is validated and checked for duplicates, both against the
+	 * students already loaded and against the students earlier in the batch,
+	 * before anything is written. The accepted students are then added to the
+	 * collection in batch order and queued on the log writer. If the write fails,
+	 * they are removed from the collection again.
+	 * <p>
+	 * This method may be called from many threads at once. Each student ID is
+	 * claimed atomically, so when concurrent batches contain the same ID exactly
+	 * one of them adds it.
+	 * 
+	 * @param batch the students to add
+	 * @return a future that completes with the {@link AddResult} for each
+	 *         student, in the iteration order of {@code batch}, once the accepted
+	 *         students have been written; or completes exceptionally if the
+	 *         students cannot be loaded or written
+	 */
+	public static CompletableFuture<List<AddResult>> addStudentsAsync(Collection<Student> batch) {
+		StudentStore store;
+		StudentLog log;
+
+		try {
+			store = loadedStudents();
+			log = studentLog;
+		} catch (IOException ex) {
+			CompletableFuture<List<AddResult>> failed = new CompletableFuture<>();
+			failed.completeExceptionally(ex);
+			return failed;
+		}
+
+		List<AddResult> results = new ArrayList<>(batch.size());
+		List<Student> valid = new ArrayList<>(batch.size());
+
+		for (Student student : batch) {
+			if (isValid(student)) {
+				valid.add(student);
+				results.add(null);
+			} else {
+				results.add(AddResult.INVALID);
+			}
 		}
 
-		students.add(student);
-		saveStudentsToFile();
+		List<Student> added;
+		CompletableFuture<Void> written = null;
+
+		synchronized (changeLock) {
+			added = store.addAll(valid);
+
+			if (!added.isEmpty()) {
+				written = rollBackOnFailure(log.appendAll(StudentLog.Operation.ADD, added), () -> {
+					store.removeAll(added);
+					changeEvents.publish(StudentEvent.Type.REMOVED, added);
+				});
+				changeEvents.publish(StudentEvent.Type.ADDED, added);
+			}
+		}
+
+		// The store returns the students it added in batch order, so each valid
+		// student was either the next one added or a duplicate.
+		int nextValid = 0;
+		int nextAdded = 0;
+
+		for (int i = 0; i < results.size(); i++) {
+			if (results.get(i) != null)
+				continue;
+
+			Student student = valid.get(nextValid++);
+
+			if (nextAdded < added.size() && added.get(nextAdded) == student) {
+				results.set(i, AddResult.ADDED);
+				nextAdded++;
+			} else {
+				results.set(i, AddResult.DUPLICATE);
+			}
+		}
+
+		if (written == null)
+			return CompletableFuture.completedFuture(results);
+
+		scheduleCompactionIfNeeded(store);
+
+		return written.thenApply(ignored -> results);
+	}
+
+	/**
+	 * Imports new students from a CSV file and adds them as one batch.
+	 * <p>
+	 * Each non-blank row holds a new student's first name, last name, major and
+	 * academic year, without an ID. The students are given consecutive IDs from a
+	 * single range {@linkplain StudentIdAllocator#reserveRange(int) reserved} in
+	 * one step, after the roster is loaded, rather than taking an ID each. Rows
+	 * that cannot be parsed are logged and skipped, leaving their ID unused, as
+	 * in {@link #createStudent(String)}.
+	 * 
+	 * @param file the CSV file of new students
+	 * @return the students imported, in file order, with the {@link AddResult}
+	 *         of each
+	 * @throws IOException if an error occurs while reading the file, or while
+	 *                     appending the students to the change log
+	 * @see #addStudents(Collection)
+	 */
+	public static Map<Student, AddResult> importStudents(Path file) throws IOException {
+		loadedStudents();
+		List<String> rows = new ArrayList<>();
+
+		for (String row : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+			if (!row.trim().isEmpty())
+				rows.add(row);
+		}
+
+		Map<Student, AddResult> imported = new LinkedHashMap<>();
+
+		if (rows.isEmpty())
+			return imported;
+
+		int firstId = Student.getIdAllocator().reserveRange(rows.size());
+		List<Student> batch = new ArrayList<>(rows.size());
+
+		for (int i = 0; i < rows.size(); i++) {
+			Student student = createStudent((firstId + i) + "," + rows.get(i));
+
+			if (student != null)
+				batch.add(student);
+		}
+
+		List<AddResult> results = addStudents(batch);
+
+		for (int i = 0; i < batch.size(); i++)
+			imported.put(batch.get(i), results.get(i));
+
+		return imported;
+	}
+
+	/**
+	 * Replaces the stored data of the student with the same ID as the given
+	 * student and records the change in the change log, waiting for the write to
+	 * complete.
+	 * 
+	 * @param student the new data for the student
+	 * @return {@code true} if the student was updated, {@code false} if no student
+	 *         with that ID exists
+	 * @throws IllegalArgumentException if the student's data cannot be stored
+	 * @throws IOException              if an error occurs while appending the
+	 *                                  change to the change log
+	 * @see #updateStudentAsync(Student)
+	 */
+	public static boolean updateStudent(Student student) throws IOException {
+		return await(updateStudentAsync(student));
+	}
+
+	/**
+	 * Replaces the stored data of the student with the same ID as the given
+	 * student and queues the change to be recorded in the change log.
+	 * <p>
+	 * The student's row is rewritten in place, keeping its position in the
+	 * roster, and only the new row is appended to the log. If the write fails,
+	 * the previous data is restored, unless another update has replaced the data
+	 * since.
+	 * 
+	 * @param student the new data for the student
+	 * @return a future that completes with {@code true} once the change has been
+	 *         written, or with {@code false} if no student with that ID exists;
+	 *         or completes exceptionally if the students cannot be loaded or the
+	 *         change cannot be written
+	 * @throws IllegalArgumentException if the student's data cannot be stored
+	 */
+	public static CompletableFuture<Boolean> updateStudentAsync(Student student) {
+		if (!isValid(student))
+			throw new IllegalArgumentException("Invalid student data: " + student);
+
+		StudentStore store;
+		StudentLog log;
+
+		try {
+			store = loadedStudents();
+			log = studentLog;
+		} catch (IOException ex) {
+			CompletableFuture<Boolean> failed = new CompletableFuture<>();
+			failed.completeExceptionally(ex);
+			return failed;
+		}
+
+		Student previous;
+		CompletableFuture<Void> written;
+
+		synchronized (changeLock) {
+			previous = store.replace(student);
+
+			if (previous == null)
+				return CompletableFuture.completedFuture(false);
+
+			// The caller may still change its student, so compare against the stored copy.
+			Student updated = store.get(student.getStudentId());
+			written = rollBackOnFailure(log.append(StudentLog.Operation.UPDATE, student), () -> {
+				// A later update may have succeeded since; it must not be undone.
+				if (store.replaceIf(updated, previous))
+					changeEvents.publish(StudentEvent.Type.UPDATED, Collections.singletonList(previous));
+			});
+			changeEvents.publish(StudentEvent.Type.UPDATED, Collections.singletonList(student));
+		}
+
+		scheduleCompactionIfNeeded(store);
+
+		return written.thenApply(ignored -> true);
+	}
+
+	/**
+	 * Removes the student with the given ID and records a tombstone for it in the
+	 * change log, waiting for the write to complete.
+	 * 
+	 * @param studentId the ID of the student to remove
+	 * @return {@code true} if the student was removed, {@code false} if no student
+	 *         with that ID exists
+	 * @throws IOException if an error occurs while appending the tombstone to the
+	 *                     change log
+	 * @see #removeStudentAsync(int)
+	 */
+	public static boolean removeStudent(int studentId) throws IOException {
+		return await(removeStudentAsync(studentId));
+	}
+
+	/**
+	 * Removes the student with the given ID and queues a tombstone for it to be
+	 * recorded in the change log.
+	 * <p>
+	 * The student's row is only marked empty; the store reclaims empty rows once
+	 * enough of them accumulate. If the write fails, the student is added back,
+	 * at the end of the roster.
+	 * 
+	 * @param studentId the ID of the student to remove
+	 * @return a future that completes with {@code true} once the tombstone has
+	 *         been written, or with {@code false} if no student with that ID
+	 *         exists; or completes exceptionally if the students cannot be loaded
+	 *         or the tombstone cannot be written
+	 */
+	public static CompletableFuture<Boolean> removeStudentAsync(int studentId) {
+		StudentStore store;
+		StudentLog log;
+
+		try {
+			store = loadedStudents();
+			log = studentLog;
+		} catch (IOException ex) {
+			CompletableFuture<Boolean> failed = new CompletableFuture<>();
+			failed.completeExceptionally(ex);
+			return failed;
+		}
+
+		Student previous;
+		CompletableFuture<Void> written;
+
+		synchronized (changeLock) {
+			previous = store.remove(studentId);
+
+			if (previous == null)
+				return CompletableFuture.completedFuture(false);
+
+			written = rollBackOnFailure(log.append(StudentLog.Operation.DELETE, previous), () -> {
+				store.addAll(Collections.singletonList(previous));
+				changeEvents.publish(StudentEvent.Type.ADDED, Collections.singletonList(previous));
+			});
+			changeEvents.publish(StudentEvent.Type.REMOVED, Collections.singletonList(previous));
+		}
+
+		scheduleCompactionIfNeeded(store);
+
+		return written.thenApply(ignored -> true);
+	}
+
+	/**
+	 * Registers a listener to be called synchronously, on the thread that made
+	 * the change, with each batch of changes to the roster. A batch holds every
+	 * student affected by one call, such as all the students added by
+	 * {@link #addStudents(Collection)}, and rolled-back changes are published as
+	 * the changes that undo them, on a dedicated rollback thread.
+	 * <p>
+	 * The listener runs while other changes wait, so it must return quickly.
+	 * 
+	 * @param listener the listener to call
+	 * @see #addChangeListener(StudentChangeListener, Executor)
+	 */
+	public static void addChangeListener(StudentChangeListener listener) {
+		changeEvents.subscribe(listener, null);
+	}
+
+	/**
+	 * Registers a listener to be called on the given executor with batches of
+	 * changes to the roster.
+	 * <p>
+	 * Changes made while a delivery is queued or running are coalesced into the
+	 * next batch, with one event per student describing its net change, so a
+	 * burst of changes reaches the listener as a few batches. For a Swing view,
+	 * pass {@code EventQueue::invokeLater}.
+	 * 
+	 * @param listener the listener to call
+	 * @param executor runs the listener's deliveries, one at a time
+	 */
+	public static void addChangeListener(StudentChangeListener listener, Executor executor) {
+		if (executor == null)
+			throw new IllegalArgumentException("Executor must not be null");
+
+		changeEvents.subscribe(listener, executor);
+	}
+
+	/**
+	 * Stops delivering changes to the given listener.
+	 * 
+	 * @param listener the listener to remove
+	 * @return {@code true} if the listener was registered
+	 */
+	public static boolean removeChangeListener(StudentChangeListener listener) {
+		return changeEvents.unsubscribe(listener);
+	}
+
+	/**
+	 * Returns what compacting the change log and the in-memory store has cost and
+	 * reclaimed so far.
+	 * 
+	 * @return a snapshot of the compaction metrics
+	 * @throws IOException if an error occurs while reading the CSV file
+	 */
+	public static CompactionMetrics getCompactionMetrics() throws IOException {
+		StudentStore.CompactionStats storeStats = loadedStudents().getCompactionStats();
+		return new CompactionMetrics(logCompactions, compactedEntries, reclaimedLogBytes, logCompactionNanos,
+				studentLog.getEntryCount(), storeStats);
+	}
+
+	/**
+	 * Sets how durable each change must be before the futures returned by this
+	 * class complete.
+	 * 
+	 * @param durability the new durability mode
+	 */
+	public static synchronized void setDurability(StudentLogWriter.Durability durability) {
+		StudentManager.durability = durability;
+		studentLog.getWriter().setDurability(durability);
+	}
+
+	/**
+	 * Returns the queue depth and commit latency of the change log writer.
+	 * 
+	 * @return a snapshot of the log writer's metrics
+	 */
+	public static StudentLogWriter.Metrics getWriterMetrics() {
+		return studentLog.getWriter().getMetrics();
+	}
+
+	/**
+	 * Returns the load time and name-sharing statistics of the last load of the
+	 * roster.
+	 * 
+	 * @return the statistics of the last load, or {@code null} if the roster has
+	 *         not been loaded yet
+	 */
+	public static LoadStats getLoadStats() {
+		return loadStats;
+	}
+
+	/**
+	 * Undoes a change if its log write fails, and tracks the change until it has
+	 * been written or undone. Must be called while holding {@code changeLock},
+	 * straight after the change is queued, so that a compaction pinned later
+	 * knows whether the change is settled.
+	 * <p>
+	 * A successful write settles the change on the thread that completed it. A
+	 * failed one is undone on the rollback thread rather than the log writer
+	 * thread, so the writer never waits for {@code changeLock} and never runs a
+	 * listener, which could otherwise wait for the writer in turn. The events
+	 * that undo the change are published from there through the
+	 * {@link StudentEventBus} like those of any other change.
+	 *
+	 * @param written  the change's log write
+	 * @param rollback undoes the change; run while holding {@code changeLock}
+	 * @return a future that completes once the change has been written, or
+	 *         completes exceptionally once it has been undone
+	 */
+	private static CompletableFuture<Void> rollBackOnFailure(CompletableFuture<Void> written, Runnable rollback) {
+		CompletableFuture<Void> settled = new CompletableFuture<>();
+
+		written.whenComplete((ignored, ex) -> {
+			if (ex == null) {
+				settled.complete(null);
+				return;
+			}
+
+			rollbacks.execute(() -> {
+				try {
+					synchronized (changeLock) {
+						rollback.run();
+					}
+				} finally {
+					settled.completeExceptionally(ex);
+				}
+			});
+		});
+
+		unsettledChanges.add(settled);
+		settled.whenComplete((ignored, ex) -> unsettledChanges.remove(settled));
+		return settled;
+	}
+
+	/**
+	 * Waits for the given future and rethrows its failure as an
+	 * {@link IOException}.
+	 */
+	private static <T> T await(CompletableFuture<T> future) throws IOException {
+		try {
+			return future.get();
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for the student log");
+		} catch (ExecutionException ex) {
+			if (ex.getCause() instanceof IOException)
+				throw (IOException) ex.getCause();
+
+			throw new IOException(ex.getCause());
+		}
+	}
+
+	/**
+	 * Returns whether the given {@link Student} can be stored.
+	 * <p>
+	 * A student is valid if it is not {@code null}, its names are non-empty and
+	 * contain no commas or line breaks that would corrupt the CSV file, its major
+	 * is set, and its academic year is within the enrollment window and fits in
+	 * the {@link StudentStore}.
+	 * 
+	 * @param student the {@link Student} to validate
+	 * @return {@code true} if the student can be stored
+	 */
+	private static boolean isValid(Student student) {
+		return student != null
+				&& isValidName(student.getFirstName())
+				&& isValidName(student.getLastName())
+				&& student.getMajor() != null
+				&& student.getYear() >= Year.now().getValue() - 10
+				&& StudentStore.canStoreYear(student.getYear());
+	}
+
+	/**
+	 * Returns whether the given name is non-empty and can be written as a single
+	 * CSV column.
+	 */
+	private static boolean isValidName(String name) {
+		if (name == null || name.isEmpty())
+			return false;
+
+		for (int i = 0; i < name.length(); i++) {
+			char c = name.charAt(i);
+
+			if (c == ',' || c == '\n' || c == '\r')
+				return false;
+		}
+
+		return true;
 	}
 
 	/**
 	 * Loads student data from the CSV file into memory.
 	 * <p>
-	 * This method initializes the internal {@code students} set and populates it
-	 * with {@link Student} objects created from the data in the CSV file.
+	 * This method creates a new {@link StudentStore} and populates it
+	 * with {@link Student} objects read from the binary snapshot if it is newer
+	 * than the CSV file, or parsed from the CSV file by a {@link StudentCsvParser}
+	 * otherwise, then replays the change log on top of them. CSV files of at
+	 * least {@value #PARALLEL_LOAD_THRESHOLD} bytes are parsed in parallel.
+	 * <p>
+	 * Before anything is read, temporary files left behind by an interrupted save
+	 * are removed. If the snapshot cannot be read or fails validation, the CSV
+	 * file is used instead. After parsing the CSV file, a fresh snapshot of it is written in
+	 * the background so that the next startup can skip the parsing.
+	 * <p>
+	 * Names read from the snapshot or the CSV file are interned in a
+	 * {@link NameInterner}, so each distinct name is held once, and the store's
+	 * name codes are the table's IDs. The load time and the heap saved are
+	 * recorded for {@link #getLoadStats()}.
 	 * <p>
 	 * The {@code uuid} for generating new student IDs is set to the highest
-	 * existing student ID in the file plus one. If the file is empty or no valid
-	 * IDs are found, the {@code uuid} defaults to {@code 101001}.
+	 * existing student ID in the file plus one, or to the high-water mark saved
+	 * next to the CSV file by the {@link StudentIdAllocator} if that is higher, so
+	 * IDs of removed students are not handed out again. If the file is empty or no
+	 * valid IDs are found, the {@code uuid} defaults to {@code 101001}.
+	 * <p>
+	 * Must be called while holding the {@code StudentManager} lock.
 	 * 
+	 * @param listener receives each student read from the snapshot or the CSV
+	 *                 file, or {@code null}
+	 * @return a new {@link StudentStore} holding the loaded students
 	 * @throws IOException if an error occurs while reading the CSV file
 	 */
-	private static void loadStudentsFromFile() throws IOException {
+	private static StudentStore loadStudentsFromFile(Consumer<Student> listener) throws IOException {
+		long startNanos = System.nanoTime();
+		Map<Integer, Student> loadedStudents = new LinkedHashMap<>();
+		NameInterner names = new NameInterner();
 		int maxId = 0;
 
-		try (BufferedReader reader = new BufferedReader(
-				new FileReader(STUDENT_DATA_FILE))) {
-			students = new LinkedHashSet<>();
-			String row;
-
-			while ((row = reader.readLine()) != null) {
-				if (row.trim().isEmpty())
-					continue;
+		Consumer<Student> collector = student -> loadedStudents.putIfAbsent(student.getStudentId(), student);
+		Consumer<Student> loader = listener == null ? collector : collector.andThen(listener);
+		boolean loadedFromSnapshot = false;
 
-				Student student = createStudent(row);
+		AtomicFileWriter.recover(studentDataFile);
+		AtomicFileWriter.recover(studentSnapshot.getFile());
 
-				if (student instanceof Student) {
-					students.add(student);
-					maxId = Math.max(maxId, student.getStudentId());
-				} else {
-					System.err.println("Invalid student data: " + row);
-				}
+		if (studentSnapshot.isNewerThan(studentDataFile)) {
+			try {
+				studentSnapshot.read(loader, names);
+				loadedFromSnapshot = true;
+			} catch (IOException ex) {
+				System.err.println("Error reading student snapshot, falling back to the CSV file. "
+						+ ex.getMessage());
+				loadedStudents.clear();
 			}
 		}
 
-		Student.resetUuid(maxId == 0 ? 101001 : maxId + 1);
+		if (!loadedFromSnapshot) {
+			FileTime csvModified = Files.getLastModifiedTime(studentDataFile);
+
+			if (Files.size(studentDataFile) >= PARALLEL_LOAD_THRESHOLD)
+				StudentCsvParser.parseParallel(studentDataFile, loader, names);
+			else
+				StudentCsvParser.parse(studentDataFile, loader, names);
+
+			scheduleSnapshot(new ArrayList<>(loadedStudents.values()), csvModified);
+		}
+
+		studentLog.replay(loadedStudents);
+
+		for (int studentId : loadedStudents.keySet())
+			maxId = Math.max(maxId, studentId);
+
+		long nextId = Math.max(maxId == 0 ? 101001 : maxId + 1, StudentIdAllocator.readMark(studentIdFile));
+		Student.getIdAllocator().reset(nextId, studentIdFile);
+		StudentStore store = new StudentStore(loadedStudents.values(), names);
+		loadStats = new LoadStats(loadedFromSnapshot, store.size(), System.nanoTime() - startNanos,
+				names.getStats());
+		return store;
 	}
 
 	/**
@@ -118,7 +1223,7 @@ public class StudentManager {
 	 * @return a {@link Student} object created from the row, or {@code null} if
 	 *         parsing fails
 	 */
-	private static Student createStudent(String row) {
+	static Student createStudent(String row) {
 		String[] columns = row.split(",");
 
 		try {
@@ -151,29 +1256,229 @@ public class StudentManager {
 	}
 
 	/**
-	 * Saves all students to the CSV file.
+	 * Formats a {@link Student} as a comma-separated row, in the same column order
+	 * read by {@link #createStudent(String)}.
+	 * 
+	 * @param student the {@link Student} to format
+	 * @return a comma-separated {@code String} representing the student's data
+	 */
+	static String toCsvRow(Student student) {
+		return String.join(",",
+				String.valueOf(student.getStudentId()),
+				student.getFirstName(),
+				student.getLastName(),
+				student.getMajor().name(),
+				String.valueOf(student.getYear())
+		);
+	}
+
+	/**
+	 * Saves the given students to the CSV file.
 	 * <p>
-	 * Iterates through the current {@link Student} collection and writes each
-	 * student's data to the CSV file specified by {@code STUDENT_DATA_FILE}. The
-	 * file is overwritten with the updated list of students. Each student's data is
-	 * serialized in a comma-separated format.
+	 * Iterates through the given {@link Student} collection and streams each
+	 * student's data to the given CSV file. The file is atomically replaced with
+	 * the updated list of students through an {@link AtomicFileWriter}, so a crash
+	 * mid-write leaves the previous file intact. Each student's data is serialized
+	 * in a comma-separated format.
 	 * 
+	 * @param csvFile  the CSV file to write
+	 * @param students the students to write, in roster order
 	 * @throws IOException if an error occurs while writing to the file
 	 */
-	private static void saveStudentsToFile() throws IOException {
-		try (BufferedWriter writer = new BufferedWriter(
-				new FileWriter(STUDENT_DATA_FILE))) {
+	private static void saveStudentsToFile(Path csvFile, Iterable<Student> students) throws IOException {
+		AtomicFileWriter.write(csvFile, channel -> {
+			BufferedWriter writer = new BufferedWriter(
+					new OutputStreamWriter(Channels.newOutputStream(channel), StandardCharsets.UTF_8));
+
 			for (Student student : students) {
-				writer.write(String.join(",",
-						String.valueOf(student.getStudentId()),
-						student.getFirstName(),
-						student.getLastName(),
-						student.getMajor().name(),
-						String.valueOf(student.getYear())
-				));
+				writer.write(toCsvRow(student));
 				writer.newLine();
 			}
+
+			writer.flush();
+		});
+	}
+
+	/**
+	 * Schedules a write of the binary snapshot for the students just parsed from
+	 * the CSV file on the log writer thread.
+	 * <p>
+	 * The snapshot is skipped if the CSV file has been modified since it was
+	 * parsed, so that a stale roster is never written with a newer timestamp.
+	 *
+	 * @param csvStudents the students parsed from the CSV file, before the change
+	 *                    log was replayed
+	 * @param csvModified the modification time of the CSV file when it was parsed
+	 */
+	private static void scheduleSnapshot(List<Student> csvStudents, FileTime csvModified) {
+		Path csvFile = studentDataFile;
+		StudentSnapshotFile snapshot = studentSnapshot;
+
+		studentLog.getWriter().submit(() -> {
+			try {
+				if (csvModified.equals(Files.getLastModifiedTime(csvFile)))
+					snapshot.write(csvStudents);
+			} catch (IOException ex) {
+				System.err.println("Error writing student snapshot: " + ex.getMessage());
+				ex.printStackTrace();
+			}
+		});
+	}
+
+	/**
+	 * Schedules a compaction of the change log if it has grown past
+	 * {@value #COMPACTION_THRESHOLD} entries and no compaction is already pending.
+	 * <p>
+	 * A {@link RosterSnapshot} of the current students is pinned immediately,
+	 * without copying them, and the compaction is queued on the log writer
+	 * thread, behind every entry already queued. It rewrites the CSV file and the
+	 * binary snapshot from the pinned version, which later changes cannot tear,
+	 * and then truncates the log, so entries queued after it are kept in the
+	 * fresh log.
+	 * <p>
+	 * The entries are counted, the roster pinned and the compaction queued while
+	 * holding {@code changeLock}, the lock that orders each change to the store
+	 * with its log entry. A change is therefore either in the pinned roster,
+	 * counted and queued ahead of the compaction, or none of these, so truncating
+	 * the counted entries never drops a change the roster is missing.
+	 * <p>
+	 * A change in the pinned roster may still have its log write pending, and
+	 * that write may fail and the change be rolled back. The compaction runs only
+	 * after every such write has finished, so if one of them failed it is
+	 * abandoned, and the roster is pinned again once the change has been rolled
+	 * back.
+	 *
+	 * @param store the students to compact into the CSV file
+	 */
+	private static void scheduleCompactionIfNeeded(StudentStore store) {
+		if (studentLog.getEntryCount() < COMPACTION_THRESHOLD || !compactionPending.compareAndSet(false, true))
+			return;
+
+		// Held until the task is queued, so that every change in the pinned roster
+		// is counted and queued before it, and every later change after it.
+		synchronized (changeLock) {
+			submitCompaction(store);
+		}
+	}
+
+	/**
+	 * Pins the roster and queues the task that writes it and truncates the log
+	 * entries it covers. Must be called while holding {@code changeLock}.
+	 */
+	private static void submitCompaction(StudentStore store) {
+		int entries = studentLog.getEntryCount();
+		RosterSnapshot roster = store.openSnapshot();
+		List<CompletableFuture<Void>> unsettled = new ArrayList<>(unsettledChanges);
+		Runnable hook = compactionPinnedHook;
+
+		if (hook != null)
+			hook.run();
+
+		Path csvFile = studentDataFile;
+		StudentSnapshotFile snapshot = studentSnapshot;
+		StudentLog log = studentLog;
+
+		log.getWriter().submit(() -> {
+			// The writes of the unsettled changes were queued ahead of this task, so
+			// each one has now finished, and a successful one has settled its change.
+			for (CompletableFuture<Void> change : unsettled) {
+				if (!change.isDone() || change.isCompletedExceptionally()) {
+					roster.close();
+					CompletableFuture.allOf(unsettled.toArray(new CompletableFuture<?>[0]))
+							.whenCompleteAsync((ignored, ex) -> repinCompaction(store));
+					return;
+				}
+			}
+
+			try {
+				long startNanos = System.nanoTime();
+				saveStudentsToFile(csvFile, roster);
+				snapshot.write(roster);
+				long bytes = log.truncate(entries);
+				logCompactionNanos += System.nanoTime() - startNanos;
+				reclaimedLogBytes += bytes;
+				compactedEntries += entries;
+				logCompactions++;
+			} catch (IOException ex) {
+				System.err.println("Error compacting student log: " + ex.getMessage());
+				ex.printStackTrace();
+			} finally {
+				roster.close();
+				compactionPending.set(false);
+			}
+		});
+	}
+
+	/**
+	 * Pins the roster again for a compaction abandoned because a change in it was
+	 * rolled back. The compaction stays pending meanwhile, unless the manager has
+	 * moved to another data file.
+	 */
+	private static void repinCompaction(StudentStore store) {
+		synchronized (changeLock) {
+			if (students == store)
+				submitCompaction(store);
 		}
 	}
 
+	/**
+	 * Writes everything queued on the given log and stops its writer thread.
+	 */
+	private static void closeLog(StudentLog log) {
+		try {
+			log.getWriter().close(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Points the manager at a different CSV file and discards any students
+	 * already loaded into memory. The change log, binary snapshot and student ID
+	 * high-water mark are kept next to the given file.
+	 * <p>
+	 * Package-private so that tests can work against a temporary data file.
+	 *
+	 * @param csvFile the CSV file to read and write students from
+	 */
+	static void useDataFile(Path csvFile) {
+		String fileName = csvFile.getFileName().toString();
+		String baseName = fileName.endsWith(".csv")
+				? fileName.substring(0, fileName.length() - 4)
+				: fileName;
+		StudentLog previousLog;
+
+		synchronized (StudentManager.class) {
+			previousLog = studentLog;
+			studentDataFile = csvFile;
+			studentLog = new StudentLog(csvFile.resolveSibling(baseName + ".log"));
+			studentLog.getWriter().setDurability(durability);
+			studentSnapshot = new StudentSnapshotFile(csvFile.resolveSibling(baseName + ".bin"));
+			studentIdFile = csvFile.resolveSibling(baseName + ".ids");
+			students = null;
+			compactionPending.set(false);
+		}
+
+		closeLog(previousLog);
+	}
+
+	/**
+	 * Blocks until every write, compaction and snapshot queued so far has
+	 * finished.
+	 * <p>
+	 * Package-private so that tests can observe the result of background work.
+	 */
+	static void awaitPendingWrites() {
+		do {
+			StudentLog log;
+
+			synchronized (StudentManager.class) {
+				log = studentLog;
+			}
+
+			log.getWriter().submit(() -> { }).join();
+			// An abandoned compaction stays pending until it is pinned again.
+		} while (compactionPending.get() || !unsettledChanges.isEmpty());
+	}
+
 }
@@ -0,0 +1,365 @@
+package app.model;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+
+/**
+ * A query over the students managed by {@link StudentManager}: typed criteria
+ * on the student ID, names, major and academic year, an optional sort order,
+ * and a page given by an offset and a limit.
+ * <p>
+ * Criteria are combined, so a student must meet all of them to match, and each
+ * criterion replaces any earlier one on the same field. Queries are built by
+ * chaining:
+ *
+ * <pre>
+ * StudentQuery.Result page = StudentManager.query(new StudentQuery()
+ * 		.major(Major.BIOT, Major.DENT)
+ * 		.yearBetween(2020, 2022)
+ * 		.sortBy(StudentQuery.SortKey.LAST_NAME, true)
+ * 		.limit(20));
+ * </pre>
+ * <p>
+ * Without a sort key, students are returned in the order they were added. Ties
+ * between students with equal sort keys are broken the same way, so paging
+ * through the results with increasing offsets never repeats or skips a
+ * student, as long as the roster does not change in between.
+ *
+ * @author Elli Steck
+ * @see StudentManager#query(StudentQuery)
+ */
+public class StudentQuery {
+
+	/**
+	 * The fields a query can sort by.
+	 */
+	public enum SortKey {
+		/** Sort by student ID. */
+		STUDENT_ID,
+		/** Sort by first name. */
+		FIRST_NAME,
+		/** Sort by last name. */
+		LAST_NAME,
+		/** Sort by major, in the order the majors are declared. */
+		MAJOR,
+		/** Sort by academic year. */
+		YEAR
+	}
+
+	/**
+	 * How a query found its candidate students.
+	 */
+	public enum Plan {
+		/** Each ID in the queried range was looked up in the ID index. */
+		ID_LOOKUP,
+		/** The candidates were read from the major and year indexes. */
+		INDEX,
+		/** Every stored student was examined. */
+		SCAN,
+		/** A criterion names a value no student has, so nothing was examined. */
+		NO_MATCH
+	}
+
+	/**
+	 * The page of students matched by a query, along with how the query was
+	 * answered.
+	 */
+	public static final class Result {
+
+		private final List<Student> students;
+		private final int totalMatches;
+		private final int rowsExamined;
+		private final long elapsedNanos;
+		private final Plan plan;
+
+		Result(List<Student> students, int totalMatches, int rowsExamined, long elapsedNanos, Plan plan) {
+			this.students = Collections.unmodifiableList(students);
+			this.totalMatches = totalMatches;
+			this.rowsExamined = rowsExamined;
+			this.elapsedNanos = elapsedNanos;
+			this.plan = plan;
+		}
+
+		/**
+		 * Returns the students on the requested page, in sort order.
+		 *
+		 * @return an unmodifiable list of the matching {@link Student} objects
+		 */
+		public List<Student> getStudents() {
+			return students;
+		}
+
+		/**
+		 * Returns the number of students matching the criteria, on any page.
+		 *
+		 * @return the total number of matches
+		 */
+		public int getTotalMatches() {
+			return totalMatches;
+		}
+
+		/**
+		 * Returns the number of stored students tested against the criteria.
+		 *
+		 * @return the number of rows examined
+		 */
+		public int getRowsExamined() {
+			return rowsExamined;
+		}
+
+		/**
+		 * Returns the time taken to answer the query, in nanoseconds.
+		 *
+		 * @return the query time
+		 */
+		public long getElapsedNanos() {
+			return elapsedNanos;
+		}
+
+		/**
+		 * Returns how the query found its candidate students.
+		 *
+		 * @return the query plan
+		 */
+		public Plan getPlan() {
+			return plan;
+		}
+
+		@Override
+		public String toString() {
+			return "Result [students=" + students.size() + ", totalMatches=" + totalMatches + ", rowsExamined="
+					+ rowsExamined + ", elapsedNanos=" + elapsedNanos + ", plan=" + plan + "]";
+		}
+
+	}
+
+	private int minStudentId = Integer.MIN_VALUE;
+	private int maxStudentId = Integer.MAX_VALUE;
+	private String firstName;
+	private String lastName;
+	private EnumSet<Major> majors;
+	private int minYear = Integer.MIN_VALUE;
+	private int maxYear = Integer.MAX_VALUE;
+	private SortKey sortKey;
+	private boolean ascending = true;
+	private int offset;
+	private int limit = Integer.MAX_VALUE;
+
+	/**
+	 * Matches only the student with the given ID.
+	 *
+	 * @param studentId the ID to match
+	 * @return this query
+	 */
+	public StudentQuery studentId(int studentId) {
+		return studentIdBetween(studentId, studentId);
+	}
+
+	/**
+	 * Matches students whose ID lies in the given range.
+	 *
+	 * @param min the smallest ID to match
+	 * @param max the largest ID to match
+	 * @return this query
+	 * @throws IllegalArgumentException if {@code min} is greater than {@code max}
+	 */
+	public StudentQuery studentIdBetween(int min, int max) {
+		if (min > max)
+			throw new IllegalArgumentException("Invalid student ID range: " + min + " to " + max);
+
+		minStudentId = min;
+		maxStudentId = max;
+		return this;
+	}
+
+	/**
+	 * Matches students with exactly the given first name.
+	 *
+	 * @param firstName the first name to match
+	 * @return this query
+	 * @throws IllegalArgumentException if {@code firstName} is {@code null}
+	 */
+	public StudentQuery firstName(String firstName) {
+		if (firstName == null)
+			throw new IllegalArgumentException("First name must not be null");
+
+		this.firstName = firstName;
+		return this;
+	}
+
+	/**
+	 * Matches students with exactly the given last name.
+	 *
+	 * @param lastName the last name to match
+	 * @return this query
+	 * @throws IllegalArgumentException if {@code lastName} is {@code null}
+	 */
+	public StudentQuery lastName(String lastName) {
+		if (lastName == null)
+			throw new IllegalArgumentException("Last name must not be null");
+
+		this.lastName = lastName;
+		return this;
+	}
+
+	/**
+	 * Matches students with any of the given majors.
+	 *
+	 * @param majors the majors to match
+	 * @return this query
+	 * @throws IllegalArgumentException if no major is given, or one is
+	 *                                  {@code null}
+	 */
+	public StudentQuery major(Major... majors) {
+		if (majors.length == 0)
+			throw new IllegalArgumentException("At least one major must be given");
+
+		EnumSet<Major> set = EnumSet.noneOf(Major.class);
+
+		for (Major major : majors) {
+			if (major == null)
+				throw new IllegalArgumentException("Major must not be null");
+
+			set.add(major);
+		}
+
+		this.majors = set;
+		return this;
+	}
+
+	/**
+	 * Matches students in the given academic year.
+	 *
+	 * @param academicYear the year to match
+	 * @return this query
+	 */
+	public StudentQuery year(int academicYear) {
+		return yearBetween(academicYear, academicYear);
+	}
+
+	/**
+	 * Matches students whose academic year lies in the given range.
+	 *
+	 * @param min the earliest year to match
+	 * @param max the latest year to match
+	 * @return this query
+	 * @throws IllegalArgumentException if {@code min} is greater than {@code max}
+	 */
+	public StudentQuery yearBetween(int min, int max) {
+		if (min > max)
+			throw new IllegalArgumentException("Invalid academic year range: " + min + " to " + max);
+
+		minYear = min;
+		maxYear = max;
+		return this;
+	}
+
+	/**
+	 * Sorts the matching students by the given field.
+	 *
+	 * @param sortKey   the field to sort by, or {@code null} to keep the order in
+	 *                  which the students were added
+	 * @param ascending {@code true} to sort in ascending order, {@code false} for
+	 *                  descending
+	 * @return this query
+	 */
+	public StudentQuery sortBy(SortKey sortKey, boolean ascending) {
+		this.sortKey = sortKey;
+		this.ascending = ascending;
+		return this;
+	}
+
+	/**
+	 * Skips the given number of matching students.
+	 *
+	 * @param offset the number of students to skip
+	 * @return this query
+	 * @throws IllegalArgumentException if {@code offset} is negative
+	 */
+	public StudentQuery offset(int offset) {
+		if (offset < 0)
+			throw new IllegalArgumentException("Offset must not be negative: " + offset);
+
+		this.offset = offset;
+		return this;
+	}
+
+	/**
+	 * Returns at most the given number of students.
+	 *
+	 * @param limit the largest number of students to return
+	 * @return this query
+	 * @throws IllegalArgumentException if {@code limit} is negative
+	 */
+	public StudentQuery limit(int limit) {
+		if (limit < 0)
+			throw new IllegalArgumentException("Limit must not be negative: " + limit);
+
+		this.limit = limit;
+		return this;
+	}
+
+	int getMinStudentId() {
+		return minStudentId;
+	}
+
+	int getMaxStudentId() {
+		return maxStudentId;
+	}
+
+	String getFirstName() {
+		return firstName;
+	}
+
+	String getLastName() {
+		return lastName;
+	}
+
+	/**
+	 * Returns the majors to match, or {@code null} to match any major.
+	 */
+	EnumSet<Major> getMajors() {
+		return majors;
+	}
+
+	int getMinYear() {
+		return minYear;
+	}
+
+	int getMaxYear() {
+		return maxYear;
+	}
+
+	SortKey getSortKey() {
+		return sortKey;
+	}
+
+	boolean isAscending() {
+		return ascending;
+	}
+
+	int getOffset() {
+		return offset;
+	}
+
+	int getLimit() {
+		return limit;
+	}
+
+	/**
+	 * Returns the number of leading matches needed to fill the requested page.
+	 */
+	int getPageEnd() {
+		return (int) Math.min(Integer.MAX_VALUE, (long) offset + limit);
+	}
+
+	/**
+	 * Returns whether the query restricts the major or the academic year, and can
+	 * therefore use the secondary indexes.
+	 */
+	boolean hasIndexedCriteria() {
+		return majors != null || minYear != Integer.MIN_VALUE || maxYear != Integer.MAX_VALUE;
+	}
+
+}
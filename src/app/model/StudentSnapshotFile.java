@@ -0,0 +1,384 @@
+package app.model;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Reads and writes a versioned binary snapshot of the student roster.
+ * <p>
+ * The snapshot is laid out so that it can be read into a single buffer and
+ * decoded without any text parsing:
+ * <ul>
+ * <li>a {@value #HEADER_SIZE}-byte header holding the magic number, format
+ * version, student count, name count, the offset of the name table and a
+ * {@link CRC32} checksum of everything after the header;</li>
+ * <li>one fixed-width {@value #ROW_SIZE}-byte row per student: the student ID
+ * and academic year as {@code int}s, the indexes of the first and last names
+ * in the name table as {@code int}s, and the {@link Major} ordinal as a
+ * byte;</li>
+ * <li>the name table, holding each distinct name once as a length-prefixed
+ * UTF-8 string.</li>
+ * </ul>
+ * Because majors are stored by ordinal, reordering the constants of
+ * {@link Major} requires bumping {@link #VERSION}.
+ *
+ * @author Elli Steck
+ * @see StudentManager
+ */
+class StudentSnapshotFile {
+
+	static final int MAGIC = 0x534D5353;
+	static final int VERSION = 1;
+	static final int HEADER_SIZE = 32;
+	static final int ROW_SIZE = 17;
+
+	private final Path file;
+
+	/**
+	 * Constructs a new {@code StudentSnapshotFile} backed by the given file.
+	 *
+	 * @param file the path of the snapshot file
+	 */
+	StudentSnapshotFile(Path file) {
+		this.file = file;
+	}
+
+	/**
+	 * Returns the path of the snapshot file.
+	 *
+	 * @return the snapshot file path
+	 */
+	Path getFile() {
+		return file;
+	}
+
+	/**
+	 * Returns whether the snapshot exists and was last modified after the given
+	 * file.
+	 *
+	 * @param other the file to compare against, typically the CSV file
+	 * @return {@code true} if the snapshot is newer than {@code other}
+	 * @throws IOException if an error occurs while reading the modification times
+	 */
+	boolean isNewerThan(Path other) throws IOException {
+		if (!Files.exists(file))
+			return false;
+		if (!Files.exists(other))
+			return true;
+
+		return Files.getLastModifiedTime(file).compareTo(Files.getLastModifiedTime(other)) > 0;
+	}
+
+	/**
+	 * Writes the given students to the snapshot file, atomically replacing its
+	 * contents through an {@link AtomicFileWriter}.
+	 *
+	 * @param students the students to write, in roster order
+	 * @throws IOException if an error occurs while writing the snapshot file
+	 */
+	void write(Iterable<Student> students) throws IOException {
+		Map<String, Integer> nameIndexes = new HashMap<>();
+		List<String> names = new ArrayList<>();
+		CRC32 checksum = new CRC32();
+
+		AtomicFileWriter.write(file, channel -> {
+			int studentCount = 0;
+			channel.position(HEADER_SIZE);
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+					new CheckedOutputStream(Channels.newOutputStream(channel), checksum)));
+
+			for (Student student : students) {
+				out.writeInt(student.getStudentId());
+				out.writeInt(student.getYear());
+				out.writeInt(indexOf(student.getFirstName(), nameIndexes, names));
+				out.writeInt(indexOf(student.getLastName(), nameIndexes, names));
+				out.writeByte(student.getMajor().ordinal());
+				studentCount++;
+			}
+
+			for (String name : names) {
+				byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+				out.writeInt(bytes.length);
+				out.write(bytes);
+			}
+
+			out.flush();
+
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			header.putInt(MAGIC);
+			header.putInt(VERSION);
+			header.putInt(studentCount);
+			header.putInt(names.size());
+			header.putLong(HEADER_SIZE + (long) studentCount * ROW_SIZE);
+			header.putLong(checksum.getValue());
+			header.flip();
+
+			while (header.hasRemaining())
+				channel.write(header, header.position());
+		});
+	}
+
+	/**
+	 * Reads every student from the snapshot file, in roster order.
+	 * <p>
+	 * The whole file is validated against its header and checksum, and every row
+	 * against the name table, before any student is passed to the consumer, so a
+	 * truncated or corrupted snapshot never yields a partial roster. Rows whose data is no longer valid, such as
+	 * an academic year that has fallen out of the enrollment window, are logged
+	 * and skipped.
+	 *
+	 * @param consumer receives each {@link Student} read from the snapshot
+	 * @throws IOException if the snapshot cannot be read, has an unsupported
+	 *                     version, or fails validation
+	 */
+	void read(Consumer<Student> consumer) throws IOException {
+		read(consumer, null);
+	}
+
+	/**
+	 * Reads every student from the snapshot file, in roster order, interning each
+	 * entry of the name table in the given table as it is first used.
+	 *
+	 * @param consumer receives each {@link Student} read from the snapshot
+	 * @param names    the table the names are interned in, or {@code null} to
+	 *                 decode every name separately
+	 * @throws IOException if the snapshot cannot be read, has an unsupported
+	 *                     version, or fails validation
+	 * @see #read(Consumer)
+	 */
+	void read(Consumer<Student> consumer, NameInterner names) throws IOException {
+		try (StudentCursor.Source source = openSource(StudentCursor.Filter.ALL, names)) {
+			Student student;
+
+			while ((student = source.next()) != null)
+				consumer.accept(student);
+		}
+	}
+
+	/**
+	 * Opens a {@link StudentCursor.Source} that reads the snapshot one row at a
+	 * time.
+	 * <p>
+	 * The file is validated exactly as by {@link #read(Consumer)} when the source
+	 * is opened. Afterwards, each row's ID, major and academic year are tested
+	 * against the filter before its names are decoded, so rows that do not match
+	 * cost no allocation.
+	 *
+	 * @param filter decides which rows are turned into students
+	 * @return a source of the matching students, in roster order
+	 * @throws IOException if the snapshot cannot be read, has an unsupported
+	 *                     version, or fails validation
+	 */
+	StudentCursor.Source openSource(StudentCursor.Filter filter) throws IOException {
+		return openSource(filter, null);
+	}
+
+	/**
+	 * Opens a {@link StudentCursor.Source} that reads the snapshot one row at a
+	 * time and interns the names it decodes in the given table.
+	 */
+	private StudentCursor.Source openSource(StudentCursor.Filter filter, NameInterner interner)
+			throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long size = channel.size();
+
+			if (size < HEADER_SIZE || size > Integer.MAX_VALUE)
+				throw new IOException("Invalid snapshot size: " + size);
+
+			// Read rather than mapped, so that no mapping keeps the file open once the
+			// channel is closed and a new snapshot can always be moved over it.
+			ByteBuffer buffer = ByteBuffer.allocate((int) size);
+			StudentCsvParser.readRegion(channel, buffer, 0, (int) size);
+
+			if (buffer.getInt(0) != MAGIC)
+				throw new IOException("Not a student snapshot: " + file);
+			if (buffer.getInt(4) != VERSION)
+				throw new IOException("Unsupported snapshot version: " + buffer.getInt(4));
+
+			int studentCount = buffer.getInt(8);
+			int nameCount = buffer.getInt(12);
+			long namesOffset = buffer.getLong(16);
+			long expectedChecksum = buffer.getLong(24);
+
+			if (studentCount < 0 || nameCount < 0
+					|| namesOffset != HEADER_SIZE + (long) studentCount * ROW_SIZE || namesOffset > size)
+				throw new IOException("Corrupted snapshot header: " + file);
+
+			ByteBuffer body = buffer.duplicate();
+			body.position(HEADER_SIZE);
+			CRC32 checksum = new CRC32();
+			checksum.update(body);
+
+			if (checksum.getValue() != expectedChecksum)
+				throw new IOException("Snapshot checksum mismatch: " + file);
+
+			int[] nameOffsets = readNameOffsets(buffer, (int) namesOffset, nameCount, (int) size);
+			validateRows(buffer, studentCount, nameCount);
+
+			return new SnapshotSource(buffer, studentCount, nameOffsets, filter, interner);
+		}
+	}
+
+	/**
+	 * Reads a validated snapshot one row at a time for a {@link StudentCursor},
+	 * decoding each name from the name table at most once.
+	 */
+	private final class SnapshotSource implements StudentCursor.Source {
+
+		private final ByteBuffer buffer;
+		private final int studentCount;
+		private final int[] nameOffsets;
+		private final String[] names;
+		private final StudentCursor.Filter filter;
+		private final NameInterner interner;
+		private final Major[] majors = Major.values();
+		private byte[] scratch = new byte[64];
+		private int row;
+
+		SnapshotSource(ByteBuffer buffer, int studentCount, int[] nameOffsets, StudentCursor.Filter filter,
+				NameInterner interner) {
+			this.buffer = buffer;
+			this.studentCount = studentCount;
+			this.nameOffsets = nameOffsets;
+			this.names = new String[nameOffsets.length];
+			this.filter = filter;
+			this.interner = interner;
+		}
+
+		@Override
+		public Student next() throws IOException {
+			while (row < studentCount) {
+				int current = row++;
+				int offset = HEADER_SIZE + current * ROW_SIZE;
+				int studentId = buffer.getInt(offset);
+				int academicYear = buffer.getInt(offset + 4);
+				int firstName = buffer.getInt(offset + 8);
+				int lastName = buffer.getInt(offset + 12);
+				int major = buffer.get(offset + 16) & 0xFF;
+
+				if (!filter.test(studentId, majors[major], academicYear))
+					continue;
+
+				try {
+					return new Student(studentId, name(firstName), name(lastName), majors[major], academicYear);
+				} catch (IllegalArgumentException ex) {
+					System.err.println("Invalid student data in snapshot row " + current + ". " + ex.getMessage());
+				}
+			}
+
+			return null;
+		}
+
+		@Override
+		public void close() {
+			row = studentCount;
+		}
+
+		/**
+		 * Returns the name at the given index of the name table, decoding it on
+		 * first use.
+		 */
+		private String name(int index) {
+			String name = names[index];
+
+			if (name == null) {
+				int offset = nameOffsets[index];
+				int length = buffer.getInt(offset);
+
+				if (interner != null) {
+					name = interner.intern(buffer, offset + 4, offset + 4 + length);
+					names[index] = name;
+					return name;
+				}
+
+				if (scratch.length < length)
+					scratch = new byte[Math.max(length, scratch.length * 2)];
+
+				for (int j = 0; j < length; j++)
+					scratch[j] = buffer.get(offset + 4 + j);
+
+				name = new String(scratch, 0, length, StandardCharsets.UTF_8);
+				names[index] = name;
+			}
+
+			return name;
+		}
+
+	}
+
+	/**
+	 * Validates the length-prefixed name table starting at the given offset and
+	 * returns the offset of each entry's length prefix.
+	 */
+	private static int[] readNameOffsets(ByteBuffer buffer, int offset, int nameCount, int size)
+			throws IOException {
+		int[] offsets = new int[nameCount];
+
+		for (int i = 0; i < nameCount; i++) {
+			if (offset + 4 > size)
+				throw new IOException("Corrupted snapshot name table");
+
+			int length = buffer.getInt(offset);
+
+			if (length < 0 || (long) offset + 4 + length > size)
+				throw new IOException("Corrupted snapshot name table");
+
+			offsets[i] = offset;
+			offset += 4 + length;
+		}
+
+		return offsets;
+	}
+
+	/**
+	 * Checks that every row refers to entries of the name table and to a known
+	 * {@link Major}, so that a source never fails after it has returned some of
+	 * the students.
+	 */
+	private void validateRows(ByteBuffer buffer, int studentCount, int nameCount) throws IOException {
+		int majorCount = Major.values().length;
+
+		for (int row = 0; row < studentCount; row++) {
+			int offset = HEADER_SIZE + row * ROW_SIZE;
+			int firstName = buffer.getInt(offset + 8);
+			int lastName = buffer.getInt(offset + 12);
+			int major = buffer.get(offset + 16) & 0xFF;
+
+			if (firstName < 0 || firstName >= nameCount || lastName < 0 || lastName >= nameCount
+					|| major >= majorCount)
+				throw new IOException("Corrupted snapshot row " + row + ": " + file);
+		}
+	}
+
+	/**
+	 * Returns the index of the given name in the name table, adding it if it is
+	 * not there yet.
+	 */
+	private static int indexOf(String name, Map<String, Integer> nameIndexes, List<String> names) {
+		Integer index = nameIndexes.get(name);
+
+		if (index == null) {
+			index = names.size();
+			nameIndexes.put(name, index);
+			names.add(name);
+		}
+
+		return index;
+	}
+
+}
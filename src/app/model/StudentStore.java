@@ -0,0 +1,1226 @@
+package app.model;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+
+/**
+ * A thread-safe, insertion-ordered, columnar collection of students, keyed by
+ * student ID.
+ * <p>
+ * Students are not stored as objects. Each field is kept in its own column, a
+ * primitive array: {@code int} IDs, {@code short} academic years, {@code byte}
+ * {@link Major} ordinals, and {@code int} codes into a {@link NameDictionary}
+ * for the first and last names. A row costs 15 bytes plus its share of the ID
+ * index, and names shared by many students are stored once. The columns are
+ * split into fixed-size {@link Chunk chunks}, so the roster grows without
+ * copying existing rows. {@link Student} objects are created on demand, as
+ * views of a row, whenever a student is returned; changing one through its
+ * setters does not change the store.
+ * <p>
+ * An {@link IntSlotIndex} maps each student ID to its row without boxing. The
+ * columns and the index are guarded by a {@link StampedLock}. Lookups and scans
+ * take an optimistic read and only fall back to a read lock if a writer changed
+ * the store in the meantime, so readers never block each other. Scans read one
+ * chunk at a time and only turn the rows that match their filter into students.
+ * <p>
+ * Writers take the write lock once per batch, check every ID against the index
+ * and append the new rows. A replaced student is rewritten in place. Removed
+ * rows are marked empty, as tombstones, and scans skip them; the rows are
+ * compacted into fresh chunks once more than half of them are empty, so each
+ * removal costs constant amortized time. The work done by compaction is
+ * reported by {@link #getCompactionStats()}.
+ * <p>
+ * Scans and the {@link #view() view} are weakly consistent: they never throw
+ * {@link java.util.ConcurrentModificationException}, and they see every student
+ * added before the scan began and possibly some added during it.
+ * <p>
+ * Readers that need one consistent version of the roster, however long they
+ * take, {@link #openSnapshot() open a snapshot} instead. Opening one only pins
+ * the current chunks. Chunks are copied on write while pinned: a writer that
+ * updates or removes a row in a pinned chunk replaces the chunk with a copy
+ * first. Appends never need a copy, since they write past the rows any
+ * snapshot reads, and compaction always builds fresh chunks.
+ * <p>
+ * The store also keeps secondary indexes on {@link Major} and academic year:
+ * one {@link BitSet} per major and per year, with a bit set for each row that
+ * holds a matching student. They are updated under the write lock, and
+ * {@link #find(Major, Integer)} answers a combined predicate by intersecting
+ * two bitsets under the read lock instead of scanning every student.
+ * <p>
+ * Last names are indexed by a {@link NameSearchIndex}, which finds them by
+ * prefix and by trigram similarity without comparing every stored name.
+ * <p>
+ * Headcounts by major and year are kept in {@link EnrollmentCounts}, updated
+ * with the other indexes. {@link #getEnrollment()} returns an immutable
+ * snapshot of them, which is cached until the next change, and
+ * {@link #verifyEnrollment()} checks them against a recount of the rows.
+ *
+ * @author Elli Steck
+ * @see StudentManager
+ */
+class StudentStore {
+
+	static final int CHUNK_SHIFT = 14;
+	static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+	private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+	private static final byte EMPTY_ROW = -1;
+	private static final Major[] MAJORS = Major.values();
+
+	/**
+	 * The columns of {@value #CHUNK_SIZE} consecutive rows, and the number of open
+	 * {@link RosterSnapshot snapshots} that read them.
+	 */
+	static final class Chunk {
+
+		final int[] ids = new int[CHUNK_SIZE];
+		final short[] years = new short[CHUNK_SIZE];
+		final byte[] majors = new byte[CHUNK_SIZE];
+		final int[] firstNames = new int[CHUNK_SIZE];
+		final int[] lastNames = new int[CHUNK_SIZE];
+		private final AtomicInteger pins = new AtomicInteger();
+
+		/**
+		 * Returns whether an open snapshot reads this chunk, so that its existing
+		 * rows must not be changed.
+		 */
+		boolean isPinned() {
+			return pins.get() > 0;
+		}
+
+		void pin() {
+			pins.incrementAndGet();
+		}
+
+		void unpin() {
+			pins.decrementAndGet();
+		}
+
+		/**
+		 * Returns an unpinned copy of this chunk's columns.
+		 */
+		Chunk copy() {
+			Chunk copy = new Chunk();
+			System.arraycopy(ids, 0, copy.ids, 0, CHUNK_SIZE);
+			System.arraycopy(years, 0, copy.years, 0, CHUNK_SIZE);
+			System.arraycopy(majors, 0, copy.majors, 0, CHUNK_SIZE);
+			System.arraycopy(firstNames, 0, copy.firstNames, 0, CHUNK_SIZE);
+			System.arraycopy(lastNames, 0, copy.lastNames, 0, CHUNK_SIZE);
+			return copy;
+		}
+
+	}
+
+	/**
+	 * A point-in-time view of the store's compaction counters.
+	 */
+	static final class CompactionStats {
+
+		private final int pendingRows;
+		private final long compactions;
+		private final long reclaimedRows;
+		private final long compactionNanos;
+
+		private CompactionStats(int pendingRows, long compactions, long reclaimedRows, long compactionNanos) {
+			this.pendingRows = pendingRows;
+			this.compactions = compactions;
+			this.reclaimedRows = reclaimedRows;
+			this.compactionNanos = compactionNanos;
+		}
+
+		/**
+		 * Returns the number of removed rows not yet compacted away.
+		 *
+		 * @return the number of empty rows
+		 */
+		int getPendingRows() {
+			return pendingRows;
+		}
+
+		/**
+		 * Returns the number of times the rows have been compacted.
+		 *
+		 * @return the number of compactions
+		 */
+		long getCompactions() {
+			return compactions;
+		}
+
+		/**
+		 * Returns the number of empty rows reclaimed by compaction.
+		 *
+		 * @return the number of reclaimed rows
+		 */
+		long getReclaimedRows() {
+			return reclaimedRows;
+		}
+
+		/**
+		 * Returns the total time spent compacting, in nanoseconds.
+		 *
+		 * @return the compaction time
+		 */
+		long getCompactionNanos() {
+			return compactionNanos;
+		}
+
+		@Override
+		public String toString() {
+			return "CompactionStats [pendingRows=" + pendingRows + ", compactions=" + compactions
+					+ ", reclaimedRows=" + reclaimedRows + ", compactionNanos=" + compactionNanos + "]";
+		}
+
+	}
+
+	private final IntSlotIndex rowsById;
+	private final NameDictionary names = new NameDictionary();
+	private final StampedLock lock = new StampedLock();
+	private final EnumMap<Major, BitSet> majorIndex = new EnumMap<>(Major.class);
+	private final NameSearchIndex lastNameIndex = new NameSearchIndex();
+	private final Map<Integer, BitSet> yearIndex = new HashMap<>();
+	private final EnrollmentCounts enrollment = new EnrollmentCounts();
+	private volatile EnrollmentSnapshot enrollmentSnapshot;
+	private long version;
+	private long compactions;
+	private long reclaimedRows;
+	private long compactionNanos;
+	private Chunk[] chunks = new Chunk[1];
+	private int size;
+	private int removed;
+
+	/**
+	 * Constructs a new {@code StudentStore} holding the given students, in
+	 * iteration order. Students with a repeated ID are skipped, and students whose
+	 * academic year cannot be stored are logged and skipped.
+	 *
+	 * @param students the initial students
+	 */
+	StudentStore(Collection<Student> students) {
+		this(students, null);
+	}
+
+	/**
+	 * Constructs a new {@code StudentStore} holding the given students, whose
+	 * names were interned in the given table while they were loaded. The name
+	 * dictionary is seeded with the table's names in ID order, so each loaded
+	 * name's code is its ID in the table and the store keeps the table's shared
+	 * instances.
+	 *
+	 * @param students the initial students
+	 * @param interned the table the students' names were interned in, or
+	 *                 {@code null} if they were not
+	 */
+	StudentStore(Collection<Student> students, NameInterner interned) {
+		this.rowsById = new IntSlotIndex(students.size());
+
+		if (interned != null) {
+			for (int id = 0, count = interned.size(); id < count; id++)
+				names.encode(interned.nameOf(id));
+		}
+
+		for (Student student : students) {
+			if (!canStoreYear(student.getYear()))
+				System.err.println("Academic year cannot be stored: " + student.getYear());
+			else if (rowsById.get(student.getStudentId()) == IntSlotIndex.NO_SLOT)
+				append(student);
+		}
+	}
+
+	/**
+	 * Returns whether the given academic year fits in the store's year column.
+	 *
+	 * @param academicYear the year to check
+	 * @return {@code true} if the year can be stored
+	 */
+	static boolean canStoreYear(int academicYear) {
+		return academicYear >= 0 && academicYear <= Short.MAX_VALUE;
+	}
+
+	/**
+	 * Returns the student with the given ID.
+	 *
+	 * @param studentId the ID to look up
+	 * @return a new view of the matching student, or {@code null} if there is none
+	 */
+	Student get(int studentId) {
+		long stamp = lock.tryOptimisticRead();
+		Student student = lookup(studentId);
+
+		if (lock.validate(stamp))
+			return student;
+
+		stamp = lock.readLock();
+		try {
+			return lookup(studentId);
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	/**
+	 * Returns whether a student with the same ID as the given student is stored.
+	 *
+	 * @param student the student to look for
+	 * @return {@code true} if the student's ID is taken
+	 */
+	boolean contains(Student student) {
+		long stamp = lock.tryOptimisticRead();
+		boolean found = rowsById.get(student.getStudentId()) != IntSlotIndex.NO_SLOT;
+
+		if (lock.validate(stamp))
+			return found;
+
+		stamp = lock.readLock();
+		try {
+			return rowsById.get(student.getStudentId()) != IntSlotIndex.NO_SLOT;
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	/**
+	 * Returns the number of students stored.
+	 *
+	 * @return the number of students
+	 */
+	int size() {
+		long stamp = lock.tryOptimisticRead();
+		int count = rowsById.size();
+
+		if (lock.validate(stamp))
+			return count;
+
+		stamp = lock.readLock();
+		try {
+			return rowsById.size();
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	/**
+	 * Adds each of the given students whose ID is not taken yet. The added
+	 * students are appended to the insertion order together, in iteration order.
+	 *
+	 * @param students the students to add
+	 * @return the students that were added; the others had an ID that was
+	 *         already taken, by a stored student or one earlier in the collection
+	 */
+	List<Student> addAll(Collection<Student> students) {
+		List<Student> added = new ArrayList<>(students.size());
+		long stamp = lock.writeLock();
+		try {
+			for (Student student : students) {
+				if (rowsById.get(student.getStudentId()) == IntSlotIndex.NO_SLOT) {
+					append(student);
+					added.add(student);
+				}
+			}
+
+			if (!added.isEmpty())
+				changed();
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+
+		return added;
+	}
+
+	/**
+	 * Removes the stored students with the same IDs as the given students.
+	 *
+	 * @param students the students to remove
+	 */
+	void removeAll(Collection<Student> students) {
+		long stamp = lock.writeLock();
+		try {
+			for (Student student : students)
+				removeRow(student.getStudentId());
+
+			if (removed > size / 2)
+				compact();
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	/**
+	 * Removes the stored student with the given ID.
+	 *
+	 * @param studentId the ID of the student to remove
+	 * @return a view of the removed student, or {@code null} if no student with
+	 *         that ID is stored
+	 */
+	Student remove(int studentId) {
+		long stamp = lock.writeLock();
+		try {
+			int row = rowsById.get(studentId);
+
+			if (row == IntSlotIndex.NO_SLOT)
+				return null;
+
+			Student previous = readRow(chunks, row);
+			removeRow(studentId);
+
+			if (removed > size / 2)
+				compact();
+
+			return previous;
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	/**
+	 * Replaces the stored student that has the same ID as the given student,
+	 * keeping its position in the insertion order and updating the indexes.
+	 *
+	 * @param student the new data for the student
+	 * @return a view of the replaced student, or {@code null} if no student with
+	 *         that ID is stored, in which case nothing is changed
+	 */
+	Student replace(Student student) {
+		long stamp = lock.writeLock();
+		try {
+			int row = rowsById.get(student.getStudentId());
+
+			if (row == IntSlotIndex.NO_SLOT)
+				return null;
+
+			Student previous = readRow(chunks, row);
+			unindex(row);
+			writableChunk(row);
+			writeRow(row, student);
+			changed();
+			return previous;
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	/**
+	 * Replaces the stored student that has the same ID as the given student, but
+	 * only if every field of the stored student still equals the expected
+	 * student's.
+	 *
+	 * @param expected the data the stored student must still hold
+	 * @param student  the new data for the student
+	 * @return {@code true} if the student was replaced, {@code false} if no
+	 *         student with that ID is stored or its data has changed since
+	 */
+	boolean replaceIf(Student expected, Student student) {
+		long stamp = lock.writeLock();
+		try {
+			int row = rowsById.get(student.getStudentId());
+
+			if (row == IntSlotIndex.NO_SLOT || !sameData(readRow(chunks, row), expected))
+				return false;
+
+			unindex(row);
+			writableChunk(row);
+			writeRow(row, student);
+			changed();
+			return true;
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	/**
+	 * Returns whether two students hold the same data in every field, whereas
+	 * {@link Student#equals(Object)} only compares their IDs.
+	 */
+	private static boolean sameData(Student a, Student b) {
+		return a.getStudentId() == b.getStudentId() && a.getYear() == b.getYear() && a.getMajor() == b.getMajor()
+				&& a.getFirstName().equals(b.getFirstName()) && a.getLastName().equals(b.getLastName());
+	}
+
+	/**
+	 * Returns the stored students with the given major and academic year, in
+	 * insertion order. Either criterion may be {@code null} to match any value.
+	 *
+	 * @param major        the major to match, or {@code null} for any major
+	 * @param academicYear the academic year to match, or {@code null} for any year
+	 * @return a new list of the matching students
+	 */
+	List<Student> find(Major major, Integer academicYear) {
+		if (major == null && academicYear == null)
+			return toList();
+
+		long stamp = lock.readLock();
+		try {
+			BitSet byMajor = major == null ? null : majorIndex.get(major);
+			BitSet byYear = academicYear == null ? null : yearIndex.get(academicYear);
+			BitSet matches;
+
+			if ((major != null && byMajor == null) || (academicYear != null && byYear == null)) {
+				return new ArrayList<>();
+			} else if (byMajor == null || byYear == null) {
+				matches = byMajor != null ? byMajor : byYear;
+			} else {
+				matches = (BitSet) byMajor.clone();
+				matches.and(byYear);
+			}
+
+			List<Student> students = new ArrayList<>(matches.cardinality());
+
+			for (int row = matches.nextSetBit(0); row >= 0; row = matches.nextSetBit(row + 1))
+				students.add(readRow(chunks, row));
+
+			return students;
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	/**
+	 * Answers the given query under the read lock.
+	 * <p>
+	 * The planner estimates how many rows each way of finding candidates would
+	 * examine: one per ID in the queried ID range for {@link StudentQuery.Plan#ID_LOOKUP
+	 * ID_LOOKUP}, the number of rows in the matching major and year bitsets for
+	 * {@link StudentQuery.Plan#INDEX INDEX}, or every row for
+	 * {@link StudentQuery.Plan#SCAN SCAN}, and picks the cheapest. Every
+	 * candidate is then tested against all the criteria on its columns, names
+	 * being compared by their dictionary codes. A name that is not in the
+	 * dictionary cannot match, so such a query examines nothing.
+	 * <p>
+	 * Only as many matching rows as the page needs are kept, in a
+	 * {@link RowHeap}, and only the rows on the page are turned into students.
+	 *
+	 * @param query the query to answer
+	 * @return the requested page of matching students, with query statistics
+	 */
+	StudentQuery.Result query(StudentQuery query) {
+		long startNanos = System.nanoTime();
+		long stamp = lock.readLock();
+		try {
+			int firstName = query.getFirstName() == null ? NameDictionary.NO_CODE
+					: names.codeOf(query.getFirstName());
+			int lastName = query.getLastName() == null ? NameDictionary.NO_CODE
+					: names.codeOf(query.getLastName());
+
+			if ((query.getFirstName() != null && firstName == NameDictionary.NO_CODE)
+					|| (query.getLastName() != null && lastName == NameDictionary.NO_CODE))
+				return new StudentQuery.Result(new ArrayList<>(), 0, 0, System.nanoTime() - startNanos,
+						StudentQuery.Plan.NO_MATCH);
+
+			BitSet candidates = query.hasIndexedCriteria() ? indexCandidates(query) : null;
+			long idCost = (long) query.getMaxStudentId() - query.getMinStudentId() + 1;
+			long indexCost = candidates == null ? Long.MAX_VALUE : candidates.cardinality();
+			StudentQuery.Plan plan = idCost <= Math.min(indexCost, size) ? StudentQuery.Plan.ID_LOOKUP
+					: indexCost <= size ? StudentQuery.Plan.INDEX : StudentQuery.Plan.SCAN;
+
+			Chunk[] current = chunks;
+			RowHeap page = new RowHeap(query.getPageEnd(), comparator(current, query));
+			int examined = 0;
+			int matches = 0;
+
+			if (plan == StudentQuery.Plan.ID_LOOKUP) {
+				for (long id = query.getMinStudentId(); id <= query.getMaxStudentId(); id++) {
+					int row = rowsById.get((int) id);
+
+					if (row == IntSlotIndex.NO_SLOT)
+						continue;
+
+					examined++;
+
+					if (matches(current, row, query, firstName, lastName)) {
+						matches++;
+						page.offer(row);
+					}
+				}
+			} else if (plan == StudentQuery.Plan.INDEX) {
+				for (int row = candidates.nextSetBit(0); row >= 0; row = candidates.nextSetBit(row + 1)) {
+					examined++;
+
+					if (matches(current, row, query, firstName, lastName)) {
+						matches++;
+						page.offer(row);
+					}
+				}
+			} else {
+				for (int row = 0; row < size; row++) {
+					if (current[row >>> CHUNK_SHIFT].majors[row & CHUNK_MASK] == EMPTY_ROW)
+						continue;
+
+					examined++;
+
+					if (matches(current, row, query, firstName, lastName)) {
+						matches++;
+						page.offer(row);
+					}
+				}
+			}
+
+			int[] rows = page.drainSorted();
+			List<Student> students = new ArrayList<>(Math.max(0, rows.length - query.getOffset()));
+
+			for (int i = query.getOffset(); i < rows.length; i++)
+				students.add(readRow(current, rows[i]));
+
+			return new StudentQuery.Result(students, matches, examined, System.nanoTime() - startNanos, plan);
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	/**
+	 * Returns the stored students whose last name starts with the given prefix,
+	 * ignoring case, sorted by last name and then in insertion order.
+	 *
+	 * @param prefix the prefix to match
+	 * @param limit  the largest number of students to return
+	 * @return a new list of at most {@code limit} matching students
+	 * @throws IllegalArgumentException if {@code limit} is negative
+	 */
+	List<Student> searchLastNamePrefix(String prefix, int limit) {
+		if (limit < 0)
+			throw new IllegalArgumentException("Limit must not be negative: " + limit);
+
+		List<Student> students = new ArrayList<>();
+
+		if (limit == 0)
+			return students;
+
+		long stamp = lock.readLock();
+		try {
+			lastNameIndex.forEachWithPrefix(prefix, code -> {
+				for (int row : lastNameIndex.rowsOf(code)) {
+					students.add(readRow(chunks, row));
+
+					if (students.size() == limit)
+						return false;
+				}
+
+				return true;
+			});
+		} finally {
+			lock.unlockRead(stamp);
+		}
+
+		return students;
+	}
+
+	/**
+	 * Returns the stored students whose last name is most similar to the given
+	 * text, tolerating typos, best match first. Students with the same last name
+	 * are returned in insertion order.
+	 *
+	 * @param text  the last name to look for
+	 * @param limit the largest number of students to return
+	 * @return a new list of at most {@code limit} matching students
+	 * @throws IllegalArgumentException if {@code limit} is negative
+	 * @see NameSearchIndex#search(String, int)
+	 */
+	List<Student> searchLastName(String text, int limit) {
+		if (limit < 0)
+			throw new IllegalArgumentException("Limit must not be negative: " + limit);
+
+		List<Student> students = new ArrayList<>();
+		long stamp = lock.readLock();
+		try {
+			for (int code : lastNameIndex.search(text, limit)) {
+				for (int row : lastNameIndex.rowsOf(code)) {
+					if (students.size() == limit)
+						return students;
+
+					students.add(readRow(chunks, row));
+				}
+			}
+		} finally {
+			lock.unlockRead(stamp);
+		}
+
+		return students;
+	}
+
+	/**
+	 * Opens an immutable snapshot of the stored students, as of now, that can be
+	 * read without locks. The read lock is only held to pin the current chunks,
+	 * which takes time proportional to the number of chunks, not rows.
+	 *
+	 * @return a new snapshot, which the caller must close
+	 */
+	RosterSnapshot openSnapshot() {
+		long stamp = lock.readLock();
+		try {
+			Chunk[] pinned = Arrays.copyOf(chunks, (size + CHUNK_SIZE - 1) >>> CHUNK_SHIFT);
+
+			for (Chunk chunk : pinned)
+				chunk.pin();
+
+			return new RosterSnapshot(pinned, size, rowsById.size(), version, names);
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	/**
+	 * Returns a consistent snapshot of the headcounts by major and academic year.
+	 * The snapshot is built under the read lock from the maintained counts, and
+	 * the same snapshot is returned until the store changes.
+	 *
+	 * @return the current enrollment snapshot
+	 */
+	EnrollmentSnapshot getEnrollment() {
+		EnrollmentSnapshot snapshot = enrollmentSnapshot;
+
+		if (snapshot != null)
+			return snapshot;
+
+		long stamp = lock.readLock();
+		try {
+			// Writers are shut out, so the snapshot cannot be cached after it is stale.
+			snapshot = enrollment.snapshot(version);
+			enrollmentSnapshot = snapshot;
+			return snapshot;
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	/**
+	 * Recounts the stored students by major and academic year and compares the
+	 * result with the maintained counts. If they differ, the difference is logged
+	 * and the maintained counts are replaced by the recount.
+	 *
+	 * @return {@code true} if the maintained counts were correct
+	 */
+	boolean verifyEnrollment() {
+		long stamp = lock.writeLock();
+		try {
+			EnrollmentCounts recount = new EnrollmentCounts();
+
+			countRows(recount);
+
+			if (enrollment.sameCounts(recount))
+				return true;
+
+			System.err.println("Enrollment counts were out of date: " + enrollment.snapshot(version)
+					+ ", recounted " + recount.snapshot(version));
+			enrollment.clear();
+
+			countRows(enrollment);
+
+			changed();
+			return false;
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	/**
+	 * Returns how many removed rows are waiting to be compacted and how much work
+	 * compaction has done so far.
+	 *
+	 * @return a snapshot of the compaction statistics
+	 */
+	CompactionStats getCompactionStats() {
+		long stamp = lock.readLock();
+		try {
+			return new CompactionStats(removed, compactions, reclaimedRows, compactionNanos);
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	/**
+	 * Returns the maintained counts, so tests can corrupt them. Must only be
+	 * changed while no other thread uses the store.
+	 */
+	EnrollmentCounts getEnrollmentCounts() {
+		return enrollment;
+	}
+
+	/**
+	 * Passes every stored student to the given action, in insertion order.
+	 *
+	 * @param action receives each student
+	 */
+	void forEach(Consumer<Student> action) {
+		forEach(StudentCursor.Filter.ALL, action);
+	}
+
+	/**
+	 * Passes every stored student that passes the given filter to the given
+	 * action, in insertion order. The filter is evaluated on the ID, major and
+	 * year columns, so rows that do not match are never turned into students.
+	 * The filter may be called more than once for a row, possibly while the read
+	 * lock is held, so it must not modify the store.
+	 *
+	 * @param filter decides which students are passed to the action
+	 * @param action receives each matching student
+	 */
+	void forEach(StudentCursor.Filter filter, Consumer<Student> action) {
+		new ChunkIterator(filter).forEachRemaining(action);
+	}
+
+	/**
+	 * Returns a copy of the stored students, in insertion order.
+	 *
+	 * @return a new list of the students
+	 */
+	List<Student> toList() {
+		List<Student> students = new ArrayList<>(size());
+		forEach(students::add);
+		return students;
+	}
+
+	/**
+	 * Returns the number of distinct first and last names stored, including names
+	 * of students that have since been removed.
+	 *
+	 * @return the size of the name dictionary
+	 */
+	int getNameCount() {
+		long stamp = lock.readLock();
+		try {
+			return names.size();
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	/**
+	 * Returns an unmodifiable, weakly consistent {@link Set} view of the
+	 * stored students, in insertion order.
+	 *
+	 * @return a live view of the students
+	 */
+	Set<Student> view() {
+		return new AbstractSet<Student>() {
+
+			@Override
+			public boolean contains(Object o) {
+				return o instanceof Student && StudentStore.this.contains((Student) o);
+			}
+
+			@Override
+			public int size() {
+				return StudentStore.this.size();
+			}
+
+			@Override
+			public Iterator<Student> iterator() {
+				return new ChunkIterator(StudentCursor.Filter.ALL);
+			}
+
+		};
+	}
+
+	/**
+	 * Moves the remaining rows into fresh chunks without empty rows. Must be
+	 * called while holding the write lock.
+	 */
+	private void compact() {
+		long startNanos = System.nanoTime();
+		// Readers may still be scanning the old chunks, so they are left untouched.
+		Chunk[] previous = chunks;
+		int previousSize = size;
+		int previousRemoved = removed;
+		chunks = new Chunk[1];
+		size = 0;
+		removed = 0;
+
+		for (BitSet rowsWithMajor : majorIndex.values())
+			rowsWithMajor.clear();
+		for (BitSet rowsWithYear : yearIndex.values())
+			rowsWithYear.clear();
+		lastNameIndex.clearRows();
+		enrollment.clear();
+
+		for (int row = 0; row < previousSize; row++) {
+			Chunk chunk = previous[row >>> CHUNK_SHIFT];
+			int offset = row & CHUNK_MASK;
+
+			if (chunk.majors[offset] == EMPTY_ROW)
+				continue;
+
+			int target = nextRow();
+			Chunk targetChunk = chunks[target >>> CHUNK_SHIFT];
+			int targetOffset = target & CHUNK_MASK;
+			targetChunk.ids[targetOffset] = chunk.ids[offset];
+			targetChunk.years[targetOffset] = chunk.years[offset];
+			targetChunk.majors[targetOffset] = chunk.majors[offset];
+			targetChunk.firstNames[targetOffset] = chunk.firstNames[offset];
+			targetChunk.lastNames[targetOffset] = chunk.lastNames[offset];
+			rowsById.put(chunk.ids[offset], target);
+			index(target, MAJORS[chunk.majors[offset]], chunk.years[offset], chunk.lastNames[offset]);
+		}
+
+		compactions++;
+		reclaimedRows += previousRemoved;
+		compactionNanos += System.nanoTime() - startNanos;
+	}
+
+	/**
+	 * Marks the row of the student with the given ID as empty and removes it from
+	 * the indexes, if the student is stored. Must be called while holding the
+	 * write lock.
+	 */
+	private void removeRow(int studentId) {
+		int row = rowsById.remove(studentId);
+
+		if (row == IntSlotIndex.NO_SLOT)
+			return;
+
+		unindex(row);
+		writableChunk(row).majors[row & CHUNK_MASK] = EMPTY_ROW;
+		removed++;
+		changed();
+	}
+
+	/**
+	 * Returns the student with the given ID. May be called under an optimistic
+	 * stamp, so it tolerates a row that is out of range of the chunks it reads.
+	 */
+	private Student lookup(int studentId) {
+		int row = rowsById.get(studentId);
+		Chunk[] current = chunks;
+
+		if (row == IntSlotIndex.NO_SLOT || (row >>> CHUNK_SHIFT) >= current.length)
+			return null;
+
+		return readRow(current, row);
+	}
+
+	/**
+	 * Returns a view of the given row, or {@code null} if the row is empty. May
+	 * be called under an optimistic stamp, so it tolerates torn data, which the
+	 * caller discards when the stamp fails validation.
+	 */
+	private Student readRow(Chunk[] current, int row) {
+		Chunk chunk = current[row >>> CHUNK_SHIFT];
+		int offset = row & CHUNK_MASK;
+
+		if (chunk == null)
+			return null;
+
+		int major = chunk.majors[offset];
+
+		if (major < 0 || major >= MAJORS.length)
+			return null;
+
+		return Student.restore(chunk.ids[offset], names.decode(chunk.firstNames[offset]),
+				names.decode(chunk.lastNames[offset]), MAJORS[major], chunk.years[offset]);
+	}
+
+	/**
+	 * Appends the given student as a new row and indexes it. Must be called while
+	 * holding the write lock, or from the constructor.
+	 */
+	private void append(Student student) {
+		if (!canStoreYear(student.getYear()))
+			throw new IllegalArgumentException("Academic year cannot be stored: " + student.getYear());
+
+		int row = nextRow();
+		rowsById.put(student.getStudentId(), row);
+		writeRow(row, student);
+	}
+
+	/**
+	 * Reserves the next row, adding a chunk if the last one is full. Must be called
+	 * while holding the write lock, or from the constructor.
+	 */
+	private int nextRow() {
+		int chunkIndex = size >>> CHUNK_SHIFT;
+
+		if (chunkIndex == chunks.length)
+			chunks = Arrays.copyOf(chunks, chunks.length * 2);
+		if (chunks[chunkIndex] == null)
+			chunks[chunkIndex] = new Chunk();
+
+		return size++;
+	}
+
+	/**
+	 * Writes the given student's data to its row and indexes it. Must be called
+	 * while holding the write lock, or from the constructor.
+	 */
+	private void writeRow(int row, Student student) {
+		if (!canStoreYear(student.getYear()))
+			throw new IllegalArgumentException("Academic year cannot be stored: " + student.getYear());
+
+		Chunk chunk = chunks[row >>> CHUNK_SHIFT];
+		int offset = row & CHUNK_MASK;
+		chunk.ids[offset] = student.getStudentId();
+		chunk.years[offset] = (short) student.getYear();
+		chunk.firstNames[offset] = names.encode(student.getFirstName());
+		chunk.lastNames[offset] = names.encode(student.getLastName());
+		chunk.majors[offset] = (byte) student.getMajor().ordinal();
+		index(row, student.getMajor(), student.getYear(), chunk.lastNames[offset]);
+	}
+
+	/**
+	 * Returns the rows whose major and year meet the query's criteria, as a new
+	 * bitset built from the secondary indexes. Must be called while holding the
+	 * read lock.
+	 */
+	private BitSet indexCandidates(StudentQuery query) {
+		BitSet byMajor = null;
+		BitSet byYear = null;
+
+		if (query.getMajors() != null) {
+			byMajor = new BitSet();
+
+			for (Major major : query.getMajors()) {
+				BitSet rows = majorIndex.get(major);
+
+				if (rows != null)
+					byMajor.or(rows);
+			}
+		}
+
+		if (query.getMinYear() != Integer.MIN_VALUE || query.getMaxYear() != Integer.MAX_VALUE) {
+			byYear = new BitSet();
+
+			for (Map.Entry<Integer, BitSet> entry : yearIndex.entrySet()) {
+				if (entry.getKey() >= query.getMinYear() && entry.getKey() <= query.getMaxYear())
+					byYear.or(entry.getValue());
+			}
+		}
+
+		if (byMajor == null)
+			return byYear;
+		if (byYear != null)
+			byMajor.and(byYear);
+
+		return byMajor;
+	}
+
+	/**
+	 * Returns whether the given row meets every criterion of the query. Must be
+	 * called while holding the read lock.
+	 */
+	private static boolean matches(Chunk[] current, int row, StudentQuery query, int firstName, int lastName) {
+		Chunk chunk = current[row >>> CHUNK_SHIFT];
+		int offset = row & CHUNK_MASK;
+		int studentId = chunk.ids[offset];
+		int academicYear = chunk.years[offset];
+
+		return studentId >= query.getMinStudentId() && studentId <= query.getMaxStudentId()
+				&& academicYear >= query.getMinYear() && academicYear <= query.getMaxYear()
+				&& (query.getMajors() == null || query.getMajors().contains(MAJORS[chunk.majors[offset]]))
+				&& (firstName == NameDictionary.NO_CODE || chunk.firstNames[offset] == firstName)
+				&& (lastName == NameDictionary.NO_CODE || chunk.lastNames[offset] == lastName);
+	}
+
+	/**
+	 * Returns the order of rows requested by the query, with ties broken by
+	 * insertion order. Must be used while holding the read lock.
+	 */
+	private RowHeap.RowComparator comparator(Chunk[] current, StudentQuery query) {
+		StudentQuery.SortKey sortKey = query.getSortKey();
+
+		if (sortKey == null)
+			return Integer::compare;
+
+		int direction = query.isAscending() ? 1 : -1;
+
+		return (a, b) -> {
+			Chunk chunkA = current[a >>> CHUNK_SHIFT];
+			Chunk chunkB = current[b >>> CHUNK_SHIFT];
+			int offsetA = a & CHUNK_MASK;
+			int offsetB = b & CHUNK_MASK;
+			int order;
+
+			switch (sortKey) {
+			case STUDENT_ID:
+				order = Integer.compare(chunkA.ids[offsetA], chunkB.ids[offsetB]);
+				break;
+			case FIRST_NAME:
+				order = compareNames(chunkA.firstNames[offsetA], chunkB.firstNames[offsetB]);
+				break;
+			case LAST_NAME:
+				order = compareNames(chunkA.lastNames[offsetA], chunkB.lastNames[offsetB]);
+				break;
+			case MAJOR:
+				order = Integer.compare(chunkA.majors[offsetA], chunkB.majors[offsetB]);
+				break;
+			default:
+				order = Integer.compare(chunkA.years[offsetA], chunkB.years[offsetB]);
+				break;
+			}
+
+			return order != 0 ? direction * order : Integer.compare(a, b);
+		};
+	}
+
+	private int compareNames(int codeA, int codeB) {
+		return codeA == codeB ? 0 : names.decode(codeA).compareTo(names.decode(codeB));
+	}
+
+	/**
+	 * Counts every stored row in the given counts. Must be called while holding
+	 * a lock.
+	 */
+	private void countRows(EnrollmentCounts counts) {
+		for (int row = 0; row < size; row++) {
+			Chunk chunk = chunks[row >>> CHUNK_SHIFT];
+			int offset = row & CHUNK_MASK;
+
+			if (chunk.majors[offset] != EMPTY_ROW)
+				counts.add(MAJORS[chunk.majors[offset]], chunk.years[offset]);
+		}
+	}
+
+	/**
+	 * Returns the chunk holding the given row, first replacing it with a copy if
+	 * an open snapshot reads it. Must be called while holding the write lock,
+	 * before changing an existing row.
+	 */
+	private Chunk writableChunk(int row) {
+		int chunkIndex = row >>> CHUNK_SHIFT;
+		Chunk chunk = chunks[chunkIndex];
+
+		if (chunk.isPinned()) {
+			chunk = chunk.copy();
+			chunks[chunkIndex] = chunk;
+		}
+
+		return chunk;
+	}
+
+	/**
+	 * Records a change to the stored students: advances the version and drops
+	 * the cached enrollment snapshot. Must be called while holding the write lock.
+	 */
+	private void changed() {
+		version++;
+		enrollmentSnapshot = null;
+	}
+
+	/**
+	 * Adds the given row to the indexes for its major, year and last name, and
+	 * counts it in the enrollment. Must be called while holding the write lock,
+	 * or from the constructor.
+	 */
+	private void index(int row, Major major, int academicYear, int lastName) {
+		majorIndex.computeIfAbsent(major, key -> new BitSet()).set(row);
+		yearIndex.computeIfAbsent(academicYear, key -> new BitSet()).set(row);
+		lastNameIndex.addRow(lastName, names.decode(lastName), row);
+		enrollment.add(major, academicYear);
+	}
+
+	/**
+	 * Removes the given row from the indexes for its stored major, year and last
+	 * name, and from the enrollment counts. Must be called while holding the
+	 * write lock.
+	 */
+	private void unindex(int row) {
+		Chunk chunk = chunks[row >>> CHUNK_SHIFT];
+		int offset = row & CHUNK_MASK;
+		majorIndex.get(MAJORS[chunk.majors[offset]]).clear(row);
+		yearIndex.get((int) chunk.years[offset]).clear(row);
+		lastNameIndex.removeRow(chunk.lastNames[offset], row);
+		enrollment.remove(MAJORS[chunk.majors[offset]], chunk.years[offset]);
+	}
+
+	/**
+	 * Iterates over the rows captured when the iterator was created, one chunk at
+	 * a time. Each chunk is scanned under an optimistic stamp, and scanned again
+	 * under the read lock if a writer changed the store during the scan.
+	 */
+	private final class ChunkIterator implements Iterator<Student> {
+
+		private final StudentCursor.Filter filter;
+		private final Chunk[] current;
+		private final int count;
+		private final List<Student> buffer = new ArrayList<>();
+		private int nextChunk;
+		private int index;
+
+		ChunkIterator(StudentCursor.Filter filter) {
+			this.filter = filter;
+
+			long stamp = lock.tryOptimisticRead();
+			Chunk[] capturedChunks = chunks;
+			int capturedSize = size;
+
+			if (!lock.validate(stamp)) {
+				stamp = lock.readLock();
+				try {
+					capturedChunks = chunks;
+					capturedSize = size;
+				} finally {
+					lock.unlockRead(stamp);
+				}
+			}
+
+			this.current = capturedChunks;
+			this.count = capturedSize;
+		}
+
+		@Override
+		public boolean hasNext() {
+			while (index == buffer.size()) {
+				if (nextChunk << CHUNK_SHIFT >= count)
+					return false;
+
+				buffer.clear();
+				index = 0;
+				long stamp = lock.tryOptimisticRead();
+				scan(nextChunk);
+
+				if (!lock.validate(stamp)) {
+					buffer.clear();
+					stamp = lock.readLock();
+					try {
+						scan(nextChunk);
+					} finally {
+						lock.unlockRead(stamp);
+					}
+				}
+
+				nextChunk++;
+			}
+
+			return true;
+		}
+
+		@Override
+		public Student next() {
+			if (!hasNext())
+				throw new NoSuchElementException();
+
+			return buffer.get(index++);
+		}
+
+		/**
+		 * Adds the matching rows of the given chunk to the buffer, reading the ID,
+		 * major and year columns first and the names only for matching rows.
+		 */
+		private void scan(int chunkIndex) {
+			Chunk chunk = current[chunkIndex];
+			int end = Math.min(CHUNK_SIZE, count - (chunkIndex << CHUNK_SHIFT));
+			int[] ids = chunk.ids;
+			short[] years = chunk.years;
+			byte[] majors = chunk.majors;
+
+			for (int offset = 0; offset < end; offset++) {
+				int major = majors[offset];
+
+				if (major < 0 || major >= MAJORS.length || !filter.test(ids[offset], MAJORS[major], years[offset]))
+					continue;
+
+				buffer.add(Student.restore(ids[offset], names.decode(chunk.firstNames[offset]),
+						names.decode(chunk.lastNames[offset]), MAJORS[major], years[offset]));
+			}
+		}
+
+	}
+
+}
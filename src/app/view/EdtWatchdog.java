@@ -0,0 +1,538 @@
+package app.view;
+
+import java.awt.AWTEvent;
+import java.awt.Component;
+import java.awt.EventQueue;
+import java.awt.Toolkit;
+import java.awt.event.InputEvent;
+import java.awt.event.InvocationEvent;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.swing.JComponent;
+import javax.swing.RepaintManager;
+
+/**
+ * An opt-in watchdog that measures how long the event dispatch thread spends on
+ * each event and catches the ones that block it.
+ * <p>
+ * Once {@link #install(long) installed}, the watchdog replaces the system
+ * {@link EventQueue} with one that times every event it dispatches, and the
+ * {@link RepaintManager} with one that times every paint pass. A daemon thread
+ * samples the event dispatch thread every half threshold; when an event has
+ * been running for longer than the threshold, it records the event together
+ * with the thread's stack at that moment as a {@link Stall}, so the code that
+ * blocked the thread can be found. Events that finish over the threshold
+ * before they are sampled are recorded without a stack.
+ * <p>
+ * The watchdog keeps a {@link LatencyHistogram} of dispatch times per event
+ * type, one of how long events waited in the queue, and one of the time taken
+ * by each paint pass. A paint pass covers every component that was dirty at the
+ * time and is timed once, as a whole; the watchdog counts how many passes each
+ * component was repainted in, so that the components behind frequent or slow
+ * passes can be found. The numbers can be viewed in an
+ * {@link EdtWatchdogPanel}, or written to a file by {@link #dump(Path)}.
+ * <p>
+ * While a modal dialog or other secondary loop runs inside an event, the events
+ * it dispatches are timed on their own and the enclosing event is not counted,
+ * since the time it spends waiting for the loop is not blocking.
+ * <p>
+ * The watchdog is not installed by default. {@link app.Main} installs it when
+ * started with {@code -Dapp.edtWatchdog=true}.
+ *
+ * @author Elli Steck
+ * @see LatencyHistogram
+ * @see EdtWatchdogPanel
+ */
+public final class EdtWatchdog {
+
+	/** The default time an event may run before it is recorded as a stall. */
+	public static final long DEFAULT_THRESHOLD_MILLIS = 100;
+
+	private static final int MAX_STALLS = 100;
+	private static volatile EdtWatchdog instance;
+
+	private volatile long thresholdNanos;
+	private final Map<String, LatencyHistogram> dispatchTimes = new ConcurrentHashMap<>();
+	private final LatencyHistogram paintPasses = new LatencyHistogram();
+	private final Map<String, AtomicLong> repaintCounts = new ConcurrentHashMap<>();
+	private final LatencyHistogram queueDelays = new LatencyHistogram();
+	private final Deque<Stall> stalls = new ArrayDeque<>();
+
+	// The innermost event being dispatched, read by the sampler
+	private volatile Thread dispatchThread;
+	private volatile long dispatchStart;
+	private volatile long dispatchSequence;
+	private volatile AWTEvent dispatchEvent;
+	private volatile Stall sampledStall;
+
+	/**
+	 * Constructs a new {@code EdtWatchdog} with the given threshold.
+	 */
+	private EdtWatchdog(long thresholdMillis) {
+		setThresholdMillis(thresholdMillis);
+	}
+
+	/**
+	 * Installs the watchdog, or changes the threshold of the one installed.
+	 * <p>
+	 * The event queue is replaced at once; the repaint manager is replaced on the
+	 * event dispatch thread. The watchdog stays installed until the application
+	 * exits.
+	 *
+	 * @param thresholdMillis the time an event may run before it is recorded as a
+	 *                        stall
+	 * @return the installed watchdog
+	 * @throws IllegalArgumentException if {@code thresholdMillis} is not positive
+	 */
+	public static synchronized EdtWatchdog install(long thresholdMillis) {
+		if (instance != null) {
+			instance.setThresholdMillis(thresholdMillis);
+			return instance;
+		}
+
+		EdtWatchdog watchdog = new EdtWatchdog(thresholdMillis);
+		Toolkit.getDefaultToolkit().getSystemEventQueue().push(watchdog.new TimingEventQueue());
+		EventQueue.invokeLater(() -> RepaintManager.setCurrentManager(watchdog.new TimingRepaintManager()));
+
+		Thread sampler = new Thread(watchdog::sample, "edt-watchdog");
+		sampler.setDaemon(true);
+		sampler.start();
+
+		instance = watchdog;
+		return watchdog;
+	}
+
+	/**
+	 * Returns the installed watchdog.
+	 *
+	 * @return the watchdog, or {@code null} if none is installed
+	 */
+	public static EdtWatchdog getInstance() {
+		return instance;
+	}
+
+	/**
+	 * Returns the time an event may run before it is recorded as a stall.
+	 *
+	 * @return the threshold in milliseconds
+	 */
+	public long getThresholdMillis() {
+		return TimeUnit.NANOSECONDS.toMillis(thresholdNanos);
+	}
+
+	/**
+	 * Sets the time an event may run before it is recorded as a stall.
+	 *
+	 * @param thresholdMillis the threshold in milliseconds
+	 * @throws IllegalArgumentException if {@code thresholdMillis} is not positive
+	 */
+	public void setThresholdMillis(long thresholdMillis) {
+		if (thresholdMillis <= 0)
+			throw new IllegalArgumentException("Threshold must be positive: " + thresholdMillis);
+
+		thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+	}
+
+	/**
+	 * Returns the stalls recorded, oldest first. Only the most recent
+	 * {@value #MAX_STALLS} are kept.
+	 *
+	 * @return a new list of the stalls
+	 */
+	public List<Stall> getStalls() {
+		synchronized (stalls) {
+			return new ArrayList<>(stalls);
+		}
+	}
+
+	/**
+	 * Returns the dispatch times recorded, by event type.
+	 *
+	 * @return a sorted map from the event's class name to its histogram
+	 */
+	public Map<String, LatencyHistogram> getDispatchTimes() {
+		return new TreeMap<>(dispatchTimes);
+	}
+
+	/**
+	 * Returns the times taken by the paint passes recorded, each covering every
+	 * component that was dirty when it started.
+	 *
+	 * @return the histogram of paint pass times
+	 */
+	public LatencyHistogram getPaintPasses() {
+		return paintPasses;
+	}
+
+	/**
+	 * Returns the number of paint passes each component was repainted in.
+	 *
+	 * @return a sorted map from the component's name to its number of passes
+	 */
+	public Map<String, Long> getRepaintCounts() {
+		Map<String, Long> counts = new TreeMap<>();
+
+		for (Map.Entry<String, AtomicLong> entry : repaintCounts.entrySet())
+			counts.put(entry.getKey(), entry.getValue().get());
+
+		return counts;
+	}
+
+	/**
+	 * Returns the times that input and invocation events waited in the queue
+	 * before they were dispatched, to the millisecond.
+	 *
+	 * @return the histogram of queue delays
+	 */
+	public LatencyHistogram getQueueDelays() {
+		return queueDelays;
+	}
+
+	/**
+	 * Returns a readable report of every histogram and stall.
+	 *
+	 * @return the report
+	 */
+	public String report() {
+		StringBuilder report = new StringBuilder();
+		report.append("EDT watchdog report, ").append(Instant.now()).append('\n');
+		report.append("Stall threshold: ").append(getThresholdMillis()).append(" ms\n\n");
+
+		report.append("Dispatch time by event:\n");
+		appendHistograms(report, getDispatchTimes());
+		report.append("\nQueue delay:\n  ").append(queueDelays).append("\n\n");
+		report.append("Paint time per pass:\n  ").append(paintPasses).append("\n\n");
+		report.append("Paint passes by component:\n");
+		Map<String, Long> counts = getRepaintCounts();
+
+		if (counts.isEmpty())
+			report.append("  (none)\n");
+
+		for (Map.Entry<String, Long> entry : counts.entrySet())
+			report.append("  ").append(entry.getKey()).append(": ").append(entry.getValue()).append('\n');
+
+		List<Stall> recorded = getStalls();
+		report.append("\nStalls (").append(recorded.size()).append("):\n");
+
+		for (Stall stall : recorded) {
+			report.append("  ").append(stall).append('\n');
+
+			for (StackTraceElement element : stall.getStack())
+				report.append("      at ").append(element).append('\n');
+		}
+
+		return report.toString();
+	}
+
+	/**
+	 * Writes the {@link #report() report} to the given file, replacing it.
+	 *
+	 * @param file the file to write
+	 * @throws IOException if an error occurs while writing the file
+	 */
+	public void dump(Path file) throws IOException {
+		Files.write(file, report().getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Appends one line per histogram to the report.
+	 */
+	private static void appendHistograms(StringBuilder report, Map<String, LatencyHistogram> histograms) {
+		if (histograms.isEmpty())
+			report.append("  (none)\n");
+
+		for (Map.Entry<String, LatencyHistogram> entry : histograms.entrySet())
+			report.append("  ").append(entry.getKey()).append(": ").append(entry.getValue()).append('\n');
+	}
+
+	/**
+	 * Checks the event being dispatched every half threshold, and records it as
+	 * a stall with the dispatch thread's stack once it passes the threshold.
+	 */
+	private void sample() {
+		while (true) {
+			try {
+				Thread.sleep(Math.max(1, TimeUnit.NANOSECONDS.toMillis(thresholdNanos) / 2));
+			} catch (InterruptedException ex) {
+				return;
+			}
+
+			long sequence = dispatchSequence;
+			long start = dispatchStart;
+			AWTEvent event = dispatchEvent;
+			Thread thread = dispatchThread;
+			Stall sampled = sampledStall;
+
+			if (start == 0 || event == null || thread == null || System.nanoTime() - start < thresholdNanos)
+				continue;
+
+			if (sampled != null && sampled.sequence == sequence)
+				continue;
+
+			StackTraceElement[] stack = thread.getStackTrace();
+
+			// The event may have finished while the stack was taken
+			if (dispatchSequence != sequence)
+				continue;
+
+			Stall stall = new Stall(sequence, describe(event), start, stack);
+			sampledStall = stall;
+			addStall(stall);
+		}
+	}
+
+	/**
+	 * Keeps the given stall, dropping the oldest if there are too many.
+	 */
+	private void addStall(Stall stall) {
+		synchronized (stalls) {
+			if (stalls.size() == MAX_STALLS)
+				stalls.removeFirst();
+
+			stalls.addLast(stall);
+		}
+	}
+
+	/**
+	 * Returns the name an event's times are recorded under.
+	 */
+	private static String describe(AWTEvent event) {
+		return event.getClass().getSimpleName().isEmpty() ? event.getClass().getName()
+				: event.getClass().getSimpleName();
+	}
+
+	/**
+	 * Returns the name a component's paint times are recorded under.
+	 */
+	private static String describe(Component component) {
+		if (component.getName() != null)
+			return component.getName();
+
+		Class<?> type = component.getClass();
+
+		// Anonymous subclasses are named after the class they extend
+		while (type.getSimpleName().isEmpty())
+			type = type.getSuperclass();
+
+		return type.getSimpleName();
+	}
+
+	/**
+	 * A single event that ran on the event dispatch thread for longer than the
+	 * threshold.
+	 */
+	public static final class Stall {
+
+		private final long sequence;
+		private final String event;
+		private final long startNanos;
+		private final Instant started;
+		private final StackTraceElement[] stack;
+		private volatile long durationNanos = -1;
+
+		/**
+		 * Constructs a new {@code Stall} for the event that started at the given
+		 * {@link System#nanoTime()}.
+		 */
+		Stall(long sequence, String event, long startNanos, StackTraceElement[] stack) {
+			this.sequence = sequence;
+			this.event = event;
+			this.startNanos = startNanos;
+			this.started = Instant.now().minusNanos(System.nanoTime() - startNanos);
+			this.stack = stack;
+		}
+
+		/**
+		 * Returns the type of the event.
+		 *
+		 * @return the event's class name
+		 */
+		public String getEvent() {
+			return event;
+		}
+
+		/**
+		 * Returns when the event started.
+		 *
+		 * @return the start time
+		 */
+		public Instant getStarted() {
+			return started;
+		}
+
+		/**
+		 * Returns the stack of the event dispatch thread when the stall was
+		 * sampled.
+		 *
+		 * @return the stack, innermost frame first, or an empty array if the event
+		 *         finished before it was sampled
+		 */
+		public StackTraceElement[] getStack() {
+			return stack.clone();
+		}
+
+		/**
+		 * Returns how long the event ran.
+		 *
+		 * @return the duration in nanoseconds, or {@code -1} if the event is still
+		 *         running
+		 */
+		public long getDurationNanos() {
+			return durationNanos;
+		}
+
+		@Override
+		public String toString() {
+			long duration = durationNanos;
+			String length = duration < 0
+					? "still running after " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos) + " ms"
+					: "took " + TimeUnit.NANOSECONDS.toMillis(duration) + " ms";
+			return started + " " + event + " " + length;
+		}
+
+	}
+
+	/**
+	 * An event queue that times every event it dispatches and publishes the one
+	 * being dispatched to the sampler.
+	 */
+	private final class TimingEventQueue extends EventQueue {
+
+		private long nextSequence;
+		// Start times of the events being dispatched, innermost last; an event
+		// that runs a secondary loop is marked with a negative start
+		private final Deque<long[]> running = new ArrayDeque<>();
+
+		@Override
+		protected void dispatchEvent(AWTEvent event) {
+			long[] outer = running.peekLast();
+
+			if (outer != null)
+				outer[0] = -1;
+
+			long sequence = ++nextSequence;
+			long start = System.nanoTime();
+			long[] frame = { start, sequence };
+			running.addLast(frame);
+			recordQueueDelay(event);
+
+			dispatchThread = Thread.currentThread();
+			dispatchEvent = event;
+			dispatchStart = start;
+			dispatchSequence = sequence;
+
+			try {
+				super.dispatchEvent(event);
+			} finally {
+				long duration = System.nanoTime() - start;
+				running.removeLast();
+
+				// The enclosing event, if any, now only waits for the secondary loop
+				dispatchStart = 0;
+				dispatchEvent = null;
+				dispatchSequence = ++nextSequence;
+
+				if (frame[0] >= 0)
+					finished(event, sequence, start, duration);
+			}
+		}
+
+		/**
+		 * Records the time the given event spent in the queue, if it carries the
+		 * time it was posted.
+		 */
+		private void recordQueueDelay(AWTEvent event) {
+			long when;
+
+			if (event instanceof InvocationEvent)
+				when = ((InvocationEvent) event).getWhen();
+			else if (event instanceof InputEvent)
+				when = ((InputEvent) event).getWhen();
+			else
+				return;
+
+			queueDelays.record(TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis() - when));
+		}
+
+		/**
+		 * Records the dispatch time of a finished event, and completes or records
+		 * its stall if it passed the threshold.
+		 */
+		private void finished(AWTEvent event, long sequence, long start, long duration) {
+			dispatchTimes.computeIfAbsent(describe(event), key -> new LatencyHistogram()).record(duration);
+
+			if (duration < thresholdNanos)
+				return;
+
+			Stall stall = sampledStall;
+
+			if (stall != null && stall.sequence == sequence) {
+				stall.durationNanos = duration;
+			} else {
+				stall = new Stall(sequence, describe(event), start, new StackTraceElement[0]);
+				stall.durationNanos = duration;
+				addStall(stall);
+			}
+		}
+
+	}
+
+	/**
+	 * A repaint manager that times every paint pass as a whole, and counts it
+	 * once for each kind of component that was dirty when it started.
+	 */
+	private final class TimingRepaintManager extends RepaintManager {
+
+		private final Set<JComponent> dirty = new HashSet<>();
+
+		@Override
+		public void addDirtyRegion(JComponent component, int x, int y, int width, int height) {
+			super.addDirtyRegion(component, x, y, width, height);
+
+			synchronized (dirty) {
+				dirty.add(component);
+			}
+		}
+
+		@Override
+		public void paintDirtyRegions() {
+			List<String> painted = new ArrayList<>();
+
+			synchronized (dirty) {
+				for (JComponent component : dirty)
+					painted.add(describe(component));
+
+				dirty.clear();
+			}
+
+			long start = System.nanoTime();
+			super.paintDirtyRegions();
+			long duration = System.nanoTime() - start;
+
+			if (painted.isEmpty())
+				return;
+
+			paintPasses.record(duration);
+
+			for (String name : new HashSet<>(painted))
+				repaintCounts.computeIfAbsent(name, key -> new AtomicLong()).incrementAndGet();
+		}
+
+	}
+
+}
@@ -0,0 +1,115 @@
+package app.view;
+
+import java.awt.BorderLayout;
+import java.awt.FlowLayout;
+import java.awt.Font;
+import java.io.File;
+import java.io.IOException;
+
+import javax.swing.JButton;
+import javax.swing.JFileChooser;
+import javax.swing.JOptionPane;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTextArea;
+import javax.swing.Timer;
+import javax.swing.border.EmptyBorder;
+
+/**
+ * A debug panel showing the report of an {@link EdtWatchdog}: the histograms
+ * of event dispatch, queue and paint times, and the stalls recorded with their
+ * stacks.
+ * <p>
+ * The report is refreshed every {@value #REFRESH_MILLIS} ms while the panel is
+ * displayed, and a "Dump to file" button writes it to a file of the user's
+ * choice.
+ *
+ * @author Elli Steck
+ * @see EdtWatchdog
+ */
+public class EdtWatchdogPanel extends JPanel {
+
+	private static final long serialVersionUID = -6240993187254035316L;
+	private static final int REFRESH_MILLIS = 1000;
+	private final EdtWatchdog watchdog;
+	private final JTextArea textReport = new JTextArea(30, 100);
+	private final Timer refreshTimer = new Timer(REFRESH_MILLIS, e -> refresh());
+
+	/**
+	 * Constructs a new {@code EdtWatchdogPanel} showing the report of the given
+	 * watchdog.
+	 *
+	 * @param watchdog the {@link EdtWatchdog} to report on
+	 */
+	public EdtWatchdogPanel(EdtWatchdog watchdog) {
+		this.watchdog = watchdog;
+
+		this.setLayout(new BorderLayout());
+		this.setBorder(new EmptyBorder(10, 10, 10, 10));
+
+		textReport.setEditable(false);
+		textReport.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+		this.add(new JScrollPane(textReport), BorderLayout.CENTER);
+
+		JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+
+		JButton btnRefresh = new JButton("Refresh");
+		btnRefresh.addActionListener(e -> refresh());
+		buttonPanel.add(btnRefresh);
+
+		JButton btnDump = new JButton("Dump to file");
+		btnDump.addActionListener(e -> dump());
+		buttonPanel.add(btnDump);
+
+		this.add(buttonPanel, BorderLayout.SOUTH);
+		refresh();
+	}
+
+	/**
+	 * Starts refreshing the report when the panel is displayed.
+	 */
+	@Override
+	public void addNotify() {
+		super.addNotify();
+		refreshTimer.start();
+	}
+
+	/**
+	 * Stops refreshing the report when the panel is no longer displayed.
+	 */
+	@Override
+	public void removeNotify() {
+		refreshTimer.stop();
+		super.removeNotify();
+	}
+
+	/**
+	 * Replaces the text with a new report, keeping the scroll position.
+	 */
+	private void refresh() {
+		int caret = textReport.getCaretPosition();
+		String report = watchdog.report();
+		textReport.setText(report);
+		textReport.setCaretPosition(Math.min(caret, report.length()));
+	}
+
+	/**
+	 * Asks for a file and writes the report to it, showing any error in a
+	 * message dialog.
+	 */
+	private void dump() {
+		JFileChooser chooser = new JFileChooser();
+		chooser.setSelectedFile(new File("edt-watchdog.txt"));
+
+		if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION)
+			return;
+
+		try {
+			watchdog.dump(chooser.getSelectedFile().toPath());
+		} catch (IOException ex) {
+			JOptionPane.showMessageDialog(this, "Error writing report: " + ex.getMessage(), "Error",
+					JOptionPane.ERROR_MESSAGE);
+		}
+	}
+
+}
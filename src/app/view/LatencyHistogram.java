@@ -0,0 +1,143 @@
+package app.view;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of durations, recorded in nanoseconds, with fixed memory and
+ * constant-time recording.
+ * <p>
+ * Durations are counted in buckets that split every power of two into
+ * {@value #SUB_BUCKETS} equal parts, so a percentile read from the histogram
+ * is at most an eighth above the true value, however wide the range of
+ * durations. Durations below {@value #SUB_BUCKETS} ns are counted exactly. The
+ * count, total and maximum are kept exactly.
+ * <p>
+ * This class is thread-safe: durations can be recorded on one thread while the
+ * histogram is read on another.
+ *
+ * @author Elli Steck
+ * @see EdtWatchdog
+ */
+public final class LatencyHistogram {
+
+	private static final int SUB_BUCKETS = 8;
+	private static final int SUB_BITS = 3;
+	private static final int BUCKET_COUNT = (64 - SUB_BITS) * SUB_BUCKETS;
+
+	private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+	private final AtomicLong count = new AtomicLong();
+	private final AtomicLong totalNanos = new AtomicLong();
+	private final AtomicLong maxNanos = new AtomicLong();
+
+	/**
+	 * Records a duration. Negative durations are recorded as zero.
+	 *
+	 * @param nanos the duration in nanoseconds
+	 */
+	public void record(long nanos) {
+		long value = Math.max(nanos, 0);
+		buckets.incrementAndGet(bucketOf(value));
+		count.incrementAndGet();
+		totalNanos.addAndGet(value);
+		maxNanos.accumulateAndGet(value, Math::max);
+	}
+
+	/**
+	 * Returns the number of durations recorded.
+	 *
+	 * @return the count
+	 */
+	public long getCount() {
+		return count.get();
+	}
+
+	/**
+	 * Returns the mean of the durations recorded.
+	 *
+	 * @return the mean in nanoseconds, or {@code 0} if none were recorded
+	 */
+	public long getMeanNanos() {
+		long recorded = count.get();
+		return recorded == 0 ? 0 : totalNanos.get() / recorded;
+	}
+
+	/**
+	 * Returns the longest duration recorded.
+	 *
+	 * @return the maximum in nanoseconds, or {@code 0} if none were recorded
+	 */
+	public long getMaxNanos() {
+		return maxNanos.get();
+	}
+
+	/**
+	 * Returns the duration that the given percentage of the recorded durations
+	 * do not exceed, rounded up to the end of its bucket.
+	 *
+	 * @param percentile the percentage, from {@code 0} to {@code 100}
+	 * @return the percentile in nanoseconds, or {@code 0} if none were recorded
+	 * @throws IllegalArgumentException if {@code percentile} is out of range
+	 */
+	public long getPercentileNanos(double percentile) {
+		if (percentile < 0 || percentile > 100)
+			throw new IllegalArgumentException("Percentile must be between 0 and 100: " + percentile);
+
+		long recorded = count.get();
+
+		if (recorded == 0)
+			return 0;
+
+		long rank = Math.max(1, (long) Math.ceil(percentile / 100 * recorded));
+		long seen = 0;
+
+		for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+			seen += buckets.get(bucket);
+
+			if (seen >= rank)
+				return Math.min(upperBound(bucket), maxNanos.get());
+		}
+
+		return maxNanos.get();
+	}
+
+	/**
+	 * Returns the bucket the given non-negative duration is counted in.
+	 */
+	static int bucketOf(long nanos) {
+		if (nanos < SUB_BUCKETS)
+			return (int) nanos;
+
+		int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+		int sub = (int) (nanos >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+		return (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+	}
+
+	/**
+	 * Returns the longest duration counted in the given bucket.
+	 */
+	static long upperBound(int bucket) {
+		if (bucket < SUB_BUCKETS)
+			return bucket;
+
+		int exponent = bucket / SUB_BUCKETS + SUB_BITS - 1;
+		long sub = bucket % SUB_BUCKETS;
+		return ((SUB_BUCKETS + sub + 1) << (exponent - SUB_BITS)) - 1;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("count=%d, mean=%.2f ms, p50=%.2f ms, p90=%.2f ms, p99=%.2f ms, max=%.2f ms",
+				getCount(), millis(getMeanNanos()), millis(getPercentileNanos(50)), millis(getPercentileNanos(90)),
+				millis(getPercentileNanos(99)), millis(getMaxNanos()));
+	}
+
+	/**
+	 * Converts nanoseconds to fractional milliseconds.
+	 */
+	private static double millis(long nanos) {
+		return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+	}
+
+}
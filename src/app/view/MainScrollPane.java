@@ -1,168 +1,528 @@
 package app.view;
 
+import java.awt.BorderLayout;
 import java.awt.Color;
-import java.awt.Dimension;
+import java.awt.Component;
 import java.awt.Font;
-import java.awt.GridBagConstraints;
-import java.awt.GridBagLayout;
-import java.awt.GridLayout;
-import java.awt.Insets;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
+import javax.swing.BorderFactory;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
 import javax.swing.JScrollPane;
+import javax.swing.JTable;
+import javax.swing.JTextField;
+import javax.swing.ListSelectionModel;
 import javax.swing.ScrollPaneConstants;
 import javax.swing.SwingConstants;
+import javax.swing.SwingWorker;
+import javax.swing.Timer;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.table.DefaultTableCellRenderer;
+import javax.swing.table.TableColumn;
 
 import app.model.Student;
+import app.model.StudentEvent;
 import app.model.StudentManager;
 
 /**
  * Represents the main scrollable area of the student management application.
  * <p>
- * This class extends {@link JScrollPane} and displays a header row with a
- * scrollable list of student panels, where each student panel represents a
- * single student's information.
+ * This class extends {@link JScrollPane} and displays a {@link JTable} of
+ * students, with a header row and one row per student's information. The
+ * table is backed by a {@link StudentTableModel} and draws every cell with a
+ * single shared renderer, so only the visible rows are laid out and painted
+ * however large the roster grows.
+ * <p>
+ * The roster is loaded in the background by {@link #loadStudents()}, and rows
+ * appear in batches as they are read.
+ * <p>
+ * A search box above the column headers filters the rows by last name prefix,
+ * or by student ID. Searches run against the roster's name index off the event
+ * dispatch thread once typing pauses for {@value #SEARCH_DELAY_MILLIS} ms, and
+ * a search still running when the text changes again is cancelled. Clicking a
+ * column header sorts by that column, and clicking it again reverses the
+ * order; the sort permutations are computed in the background once per
+ * roster, so later clicks only reorder the rows shown.
  * 
  * @author Elli Steck
- * @see app.view.StudentPanel
+ * @see app.view.StudentTableModel
  * @see app.model.Student
  * @see app.model.StudentManager
  */
 public class MainScrollPane extends JScrollPane {
 
 	private static final long serialVersionUID = 8079487866761426457L;
-	private static final int LABEL_HEIGHT = 20;
-	private JPanel panelScrollViewport;
+	private static final int ROW_HEIGHT = 40;
+	private static final Color STRIPE_COLOR = new Color(220, 220, 220);
+	private static final Color HEADER_COLOR = new Color(200, 200, 200);
+	private static final int[] COLUMN_WIDTHS = { 200, 125, 125, 200 };
+	private static final int SEARCH_DELAY_MILLIS = 150;
+	private static final int MISSPELLED_SEARCH_LIMIT = 50;
+	private static final Pattern STUDENT_ID = Pattern.compile("[Ss]?(\\d{1,9})");
+	private final StudentTableModel tableModel = new StudentTableModel();
+	private final JTable table;
+	private final JPanel panelHeader;
+	private final JTextField fieldSearch = new JTextField();
+	private final Timer searchTimer = new Timer(SEARCH_DELAY_MILLIS, e -> search());
+	private StudentLoader studentLoader;
+	private StudentSearch studentSearch;
+	private SortOrderWorker sortOrderWorker;
+
+	/**
+	 * The bound property fired with the number of students shown so far while
+	 * the roster is loading.
+	 */
+	public static final String LOADED_PROPERTY = "loadedStudents";
 
 	/**
-	 * Constructs a new {@link MainScrollPane}, initializing the header and viewport
-	 * with student information.
+	 * Constructs a new {@link MainScrollPane}, initializing the header and a
+	 * viewport that shows a loading message until {@link #loadStudents()} is
+	 * called and rows arrive.
 	 * <p>
 	 * Horizontal scrolling is disabled to maintain a clean layout.
 	 */
 	public MainScrollPane() {
 		this.setHorizontalScrollBarPolicy(ScrollPaneConstants.HORIZONTAL_SCROLLBAR_NEVER);
 
-		JPanel panelScrollHeader = createPanelScrollHeader();
-		this.setColumnHeaderView(panelScrollHeader);
+		table = createTable();
+		panelHeader = createPanelHeader();
+		showMessage("Loading students...");
+	}
 
-		panelScrollViewport = new JPanel(new GridLayout(0, 1));
-		populatePanelScrollViewport();
-		this.setViewportView(panelScrollViewport);
+	/**
+	 * Starts loading the roster on a background {@link SwingWorker}.
+	 * <p>
+	 * Students are passed to the event dispatch thread as they are read and
+	 * appended to the table in batches, so the first rows appear as soon as they
+	 * are parsed, however large the roster. The worker fires
+	 * {@link #LOADED_PROPERTY} with the number of rows shown after each batch.
+	 * When loading finishes, the table is replaced with the exact roster, which
+	 * includes the changes replayed from the log. If the worker is cancelled,
+	 * loading stops and a message takes the place of the table; the roster stays
+	 * unloaded, so this method can be called again to retry. Must be called on
+	 * the event dispatch thread.
+	 * 
+	 * @return the started worker, which can be cancelled
+	 */
+	public SwingWorker<Set<Student>, Student> loadStudents() {
+		tableModel.setStudents(Collections.<Student>emptyList());
+		showMessage("Loading students...");
+		studentLoader = new StudentLoader();
+		studentLoader.execute();
+		return studentLoader;
 	}
 
 	/**
-	 * Creates the header row for the scroll pane, displaying column labels.
+	 * Returns the model of the student table.
 	 * 
-	 * @return a {@link JPanel} containing the column header labels
-	 */
-	private JPanel createPanelScrollHeader() {
-		JPanel panelScrollHeader = new JPanel();
-		panelScrollHeader.setLayout(new GridBagLayout());
-		panelScrollHeader.setBackground(new Color(200, 200, 200));
-
-		GridBagConstraints gbc = new GridBagConstraints();
-		gbc.fill = GridBagConstraints.HORIZONTAL;
-		gbc.insets = new Insets(5, 5, 5, 5);
-		gbc.gridy = 0;
-
-		JLabel lblLastFirstName = new JLabel("Name");
-		lblLastFirstName.setFont(lblLastFirstName.getFont().deriveFont(Font.BOLD));
-		lblLastFirstName.setPreferredSize(new Dimension(200, LABEL_HEIGHT));
-		gbc.gridx = 0;
-		gbc.weightx = 0.5;
-		panelScrollHeader.add(lblLastFirstName, gbc);
-
-		JLabel lblStudentId = new JLabel("Student ID");
-		lblStudentId.setFont(lblLastFirstName.getFont().deriveFont(Font.BOLD));
-		lblStudentId.setPreferredSize(new Dimension(125, LABEL_HEIGHT));
-		gbc.gridx = 1;
-		gbc.weightx = 0.0;
-		panelScrollHeader.add(lblStudentId, gbc);
-
-		JLabel lblAcademicYear = new JLabel("Academic year");
-		lblAcademicYear.setFont(lblLastFirstName.getFont().deriveFont(Font.BOLD));
-		lblAcademicYear.setPreferredSize(new Dimension(125, LABEL_HEIGHT));
-		gbc.gridx = 2;
-		panelScrollHeader.add(lblAcademicYear, gbc);
-
-		JLabel lblMajor = new JLabel("Major");
-		lblMajor.setFont(lblLastFirstName.getFont().deriveFont(Font.BOLD));
-		lblMajor.setPreferredSize(new Dimension(200, LABEL_HEIGHT));
-		gbc.gridx = 3;
-		gbc.weightx = 0.5;
-		panelScrollHeader.add(lblMajor, gbc);
-
-		return panelScrollHeader;
-	}
-
-	/**
-	 * Populates the scrollable list of student rows, with each row represented by a
-	 * {@link StudentPanel}.
+	 * @return the {@link StudentTableModel} shown in this scroll pane
+	 */
+	public StudentTableModel getTableModel() {
+		return tableModel;
+	}
+
+	/**
+	 * Updates the student rows for a batch of changes published by
+	 * {@link StudentManager}.
 	 * <p>
-	 * If an error occurs while loading the students, the panel will display an
-	 * error message instead of student rows.
+	 * The changes are applied to the table model, which repaints only the rows
+	 * they touch. If students were added, the viewport is scrolled to the last
+	 * one. If a search is shown, it is run again so that its results include the
+	 * changes. Must be called on the event dispatch thread.
+	 * 
+	 * @param events the changes to show
+	 */
+	public void studentsChanged(List<StudentEvent> events) {
+		int lastAdded = -1;
+
+		for (StudentEvent event : events) {
+			if (event.getType() == StudentEvent.Type.ADDED)
+				lastAdded = event.getStudentId();
+		}
+
+		tableModel.studentsChanged(events);
+		showTableOrMessage("No students were found.");
+		computeSortOrders();
+
+		if (tableModel.isFiltered())
+			searchTimer.restart();
+
+		int row = lastAdded < 0 ? -1 : tableModel.getRowOf(lastAdded);
+
+		if (row >= 0)
+			table.scrollRectToVisible(table.getCellRect(row, 0, true));
+	}
+
+	/**
+	 * Creates the student table, with fixed-height rows, striped backgrounds and
+	 * the column widths of the original header.
+	 * 
+	 * @return a {@link JTable} over the table model
+	 */
+	private JTable createTable() {
+		JTable studentTable = new JTable(tableModel);
+		studentTable.setRowHeight(ROW_HEIGHT);
+		studentTable.setShowGrid(false);
+		studentTable.setFillsViewportHeight(true);
+		studentTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+		studentTable.getTableHeader().setReorderingAllowed(false);
+		studentTable.getTableHeader().setBackground(HEADER_COLOR);
+		studentTable.getTableHeader().setFont(studentTable.getTableHeader().getFont().deriveFont(Font.BOLD));
+
+		StudentCellRenderer renderer = new StudentCellRenderer();
+
+		for (int column = 0; column < COLUMN_WIDTHS.length; column++) {
+			TableColumn tableColumn = studentTable.getColumnModel().getColumn(column);
+			tableColumn.setPreferredWidth(COLUMN_WIDTHS[column]);
+			tableColumn.setCellRenderer(renderer);
+		}
+
+		studentTable.getTableHeader().addMouseListener(new MouseAdapter() {
+			@Override
+			public void mouseClicked(MouseEvent e) {
+				int column = studentTable.columnAtPoint(e.getPoint());
+
+				if (column >= 0)
+					sortBy(studentTable.convertColumnIndexToModel(column));
+			}
+		});
+
+		return studentTable;
+	}
+
+	/**
+	 * Creates the header shown above the table, holding the search box and the
+	 * column headers.
 	 * 
-	 * @return a {@link JPanel} containing a vertical list of {@link StudentPanel}
-	 *         objects or an error message
-	 */
-	private void populatePanelScrollViewport() {
-		try {
-			Set<Student> students = StudentManager.getStudents();
-
-			if (students.isEmpty()) {
-				JLabel lblNoStudents = new JLabel("No students were found.");
-				lblNoStudents.setHorizontalAlignment(SwingConstants.CENTER);
-				panelScrollViewport.add(lblNoStudents);
-			} else {
-				int index = 0;
-				for (Student student : students) {
-					addStudentPanel(student, index);
-					index++;
-				}
+	 * @return a {@link JPanel} containing the search box and the table header
+	 */
+	private JPanel createPanelHeader() {
+		JPanel panel = new JPanel(new BorderLayout());
+		panel.setBackground(HEADER_COLOR);
+
+		fieldSearch.setToolTipText("Search by last name or student ID");
+		fieldSearch.setBorder(BorderFactory.createCompoundBorder(
+				BorderFactory.createMatteBorder(5, 5, 5, 5, HEADER_COLOR), fieldSearch.getBorder()));
+		fieldSearch.getDocument().addDocumentListener(new DocumentListener() {
+			@Override
+			public void insertUpdate(DocumentEvent e) {
+				searchTimer.restart();
+			}
+
+			@Override
+			public void removeUpdate(DocumentEvent e) {
+				searchTimer.restart();
+			}
+
+			@Override
+			public void changedUpdate(DocumentEvent e) {
+				searchTimer.restart();
 			}
-		} catch (IOException e) {
-			JLabel lblErrorLoading = new JLabel("Error loading students: " + e.getMessage());
-			lblErrorLoading.setHorizontalAlignment(SwingConstants.CENTER);
-			panelScrollViewport.add(lblErrorLoading);
-			e.printStackTrace();
+		});
+		searchTimer.setRepeats(false);
+
+		panel.add(fieldSearch, BorderLayout.NORTH);
+		panel.add(table.getTableHeader(), BorderLayout.CENTER);
+		return panel;
+	}
+
+	/**
+	 * Sorts the table by the given column, or reverses the order if it is
+	 * already sorted by it, and marks the column header with the direction.
+	 * 
+	 * @param column the model column to sort by
+	 */
+	private void sortBy(int column) {
+		boolean ascending = column != tableModel.getSortColumn() || !tableModel.isAscending();
+		tableModel.sortBy(column, ascending);
+
+		for (int i = 0; i < table.getColumnCount(); i++) {
+			TableColumn tableColumn = table.getColumnModel().getColumn(i);
+			String name = tableModel.getColumnName(tableColumn.getModelIndex());
+
+			if (tableColumn.getModelIndex() == column)
+				name += ascending ? " \u25B2" : " \u25BC";
+
+			tableColumn.setHeaderValue(name);
 		}
+
+		table.getTableHeader().repaint();
+		computeSortOrders();
 	}
 
 	/**
-	 * Adds a new {@link StudentPanel} for the given {@link Student} to the
-	 * viewport.
-	 * <p>
-	 * This method dynamically inserts a new panel at the end of the viewport's list
-	 * of student panels.
+	 * Starts computing the missing sort permutations in the background, unless
+	 * they are already being computed or the roster is still loading.
+	 */
+	private void computeSortOrders() {
+		if (sortOrderWorker != null || studentLoader != null || tableModel.getStudentCount() == 0)
+			return;
+
+		List<Integer> columns = new ArrayList<>();
+		int sortColumn = tableModel.getSortColumn();
+
+		// The column shown first, so that its rows are reordered soonest
+		if (sortColumn >= 0 && !tableModel.hasSortOrder(sortColumn))
+			columns.add(sortColumn);
+
+		for (int column = 0; column < StudentTableModel.COLUMN_COUNT; column++) {
+			if (column != sortColumn && !tableModel.hasSortOrder(column))
+				columns.add(column);
+		}
+
+		if (columns.isEmpty())
+			return;
+
+		sortOrderWorker = new SortOrderWorker(columns);
+		sortOrderWorker.execute();
+	}
+
+	/**
+	 * Runs the text in the search box as a new search, cancelling the one
+	 * running, or shows every student if the box is empty.
+	 */
+	private void search() {
+		if (studentSearch != null) {
+			studentSearch.cancel(false);
+			studentSearch = null;
+		}
+
+		String query = fieldSearch.getText().trim();
+
+		if (query.isEmpty()) {
+			if (tableModel.isFiltered())
+				tableModel.setFilter(null);
+
+			return;
+		}
+
+		studentSearch = new StudentSearch(query);
+		studentSearch.execute();
+	}
+
+	/**
+	 * Returns the students matching the given search text: the student with
+	 * that ID if it is a student ID, otherwise the students whose last name
+	 * starts with it or, if there are none, those whose last name is closest to
+	 * it.
 	 * 
-	 * @param student the {@link Student} to be represented by the new panel
+	 * @param query the search text
+	 * @return the matching students
+	 * @throws IOException if an error occurs while reading the CSV file
 	 */
-	public void addStudentPanel(Student student) {
-		int currentIndex = panelScrollViewport.getComponentCount();
-		addStudentPanel(student, currentIndex);
-		panelScrollViewport.revalidate();
-		panelScrollViewport.repaint();
+	private static List<Student> findStudents(String query) throws IOException {
+		Matcher id = STUDENT_ID.matcher(query);
+
+		if (id.matches()) {
+			Student student = StudentManager.getStudent(Integer.parseInt(id.group(1)));
+			return student == null ? Collections.<Student>emptyList() : Collections.singletonList(student);
+		}
+
+		List<Student> students = StudentManager.searchByLastNamePrefix(query, Integer.MAX_VALUE);
+
+		if (students.isEmpty())
+			students = StudentManager.searchByLastName(query, MISSPELLED_SEARCH_LIMIT);
+
+		return students;
 	}
 
 	/**
-	 * Creates and adds a {@link StudentPanel} for the given {@link Student} at the
-	 * specified index.
-	 * <p>
-	 * The panel is added to the viewport but does not trigger revalidation or
-	 * repainting.
+	 * Shows the table if it has any rows, or the given message in its place.
 	 * 
-	 * @param student the {@link Student} to be displayed in the panel
-	 * @param index   the index at which the panel is added
-	 */
-	private void addStudentPanel(Student student, int index) {
-		JPanel studentPanel = new StudentPanel(student);
-		if (index % 2 == 0)
-			studentPanel.setBackground(new Color(220, 220, 220));
-		panelScrollViewport.add(studentPanel);
+	 * @param message the message to show if there are no students
+	 */
+	private void showTableOrMessage(String message) {
+		if (tableModel.getStudentCount() == 0) {
+			showMessage(message);
+		} else if (this.getViewport().getView() != table) {
+			this.setViewportView(table);
+			this.setColumnHeaderView(panelHeader);
+		}
+	}
+
+	/**
+	 * Replaces the table with a centered message.
+	 * 
+	 * @param message the message to show
+	 */
+	private void showMessage(String message) {
+		JLabel lblMessage = new JLabel(message);
+		lblMessage.setHorizontalAlignment(SwingConstants.CENTER);
+		this.setColumnHeaderView(null);
+		this.setViewportView(lblMessage);
+	}
+
+	/**
+	 * Loads the roster off the event dispatch thread, publishing each student as
+	 * it is read.
+	 */
+	private final class StudentLoader extends SwingWorker<Set<Student>, Student> {
+
+		@Override
+		protected Set<Student> doInBackground() throws Exception {
+			return StudentManager.getStudents(student -> {
+				if (isCancelled())
+					throw new CancellationException("Loading students was cancelled");
+
+				publish(student);
+			});
+		}
+
+		@Override
+		protected void process(List<Student> students) {
+			if (isCancelled())
+				return;
+
+			tableModel.addStudents(students);
+			showTableOrMessage("Loading students...");
+			firePropertyChange(LOADED_PROPERTY, null, tableModel.getStudentCount());
+		}
+
+		@Override
+		protected void done() {
+			if (studentLoader == this)
+				studentLoader = null;
+
+			if (isCancelled()) {
+				tableModel.setStudents(Collections.<Student>emptyList());
+				showMessage("Loading students was cancelled.");
+				return;
+			}
+
+			try {
+				tableModel.setStudents(get());
+				showTableOrMessage("No students were found.");
+				firePropertyChange(LOADED_PROPERTY, null, tableModel.getStudentCount());
+				computeSortOrders();
+
+				if (!fieldSearch.getText().trim().isEmpty())
+					search();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} catch (ExecutionException e) {
+				tableModel.setStudents(Collections.<Student>emptyList());
+				showMessage("Error loading students: " + e.getCause().getMessage());
+				e.getCause().printStackTrace();
+			}
+		}
+
+	}
+
+	/**
+	 * Runs a search off the event dispatch thread and filters the table to its
+	 * results, unless a newer search has replaced it.
+	 */
+	private final class StudentSearch extends SwingWorker<List<Student>, Void> {
+
+		private final String query;
+
+		StudentSearch(String query) {
+			this.query = query;
+		}
+
+		@Override
+		protected List<Student> doInBackground() throws IOException {
+			return findStudents(query);
+		}
+
+		@Override
+		protected void done() {
+			if (isCancelled() || studentSearch != this)
+				return;
+
+			studentSearch = null;
+
+			try {
+				tableModel.setFilter(get());
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} catch (ExecutionException e) {
+				System.err.println("Error searching students: " + e.getCause().getMessage());
+				e.getCause().printStackTrace();
+			}
+		}
+
+	}
+
+	/**
+	 * Computes sort permutations off the event dispatch thread from a copy of
+	 * the rows, and installs them unless the rows have changed in the meantime,
+	 * in which case they are computed again.
+	 */
+	private final class SortOrderWorker extends SwingWorker<int[][], Void> {
+
+		private final List<Integer> columns;
+		private final List<Student> rows = tableModel.copyRows();
+		private final long generation = tableModel.getGeneration();
+
+		SortOrderWorker(List<Integer> columns) {
+			this.columns = columns;
+		}
+
+		@Override
+		protected int[][] doInBackground() {
+			int[][] orders = new int[columns.size()][];
+
+			for (int i = 0; i < orders.length; i++)
+				orders[i] = StudentTableModel.computeSortOrder(rows, columns.get(i));
+
+			return orders;
+		}
+
+		@Override
+		protected void done() {
+			sortOrderWorker = null;
+
+			try {
+				int[][] orders = get();
+
+				for (int i = 0; i < orders.length; i++)
+					tableModel.putSortOrder(columns.get(i), orders[i], generation);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} catch (ExecutionException e) {
+				System.err.println("Error sorting students: " + e.getCause().getMessage());
+				e.getCause().printStackTrace();
+			}
+
+			computeSortOrders();
+		}
+
+	}
+
+	/**
+	 * Renders every cell of the student table with one reused label, striping
+	 * alternate rows and showing student IDs with their {@code S} prefix.
+	 */
+	private static final class StudentCellRenderer extends DefaultTableCellRenderer {
+
+		private static final long serialVersionUID = 6203458190736671385L;
+
+		@Override
+		public Component getTableCellRendererComponent(
+				JTable table, Object value, boolean isSelected, boolean hasFocus, int row, int column) {
+			boolean isId = table.convertColumnIndexToModel(column) == StudentTableModel.ID_COLUMN;
+			Object text = isId ? "S" + value : value;
+			super.getTableCellRendererComponent(table, text, isSelected, hasFocus, row, column);
+
+			if (!isSelected)
+				setBackground(row % 2 == 0 ? STRIPE_COLOR : table.getBackground());
+
+			return this;
+		}
+
 	}
 
 }
@@ -0,0 +1,282 @@
+package app.view;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+import app.model.Major;
+import app.model.Student;
+
+/**
+ * Holds a sort permutation of the rows of a {@link StudentTableModel} for each
+ * of its columns, so that re-sorting the table reuses an order computed once
+ * instead of sorting the roster again on every click.
+ * <p>
+ * Each permutation lists the row indexes in ascending order of one column,
+ * with ties broken by row index, so a descending sort is the same permutation
+ * read backwards. Permutations are computed off the event dispatch thread by
+ * {@link #sort(List, int)}, installed with {@link #put(int, int[])}, and then
+ * kept in step as rows are appended, updated and removed, at a cost linear in
+ * the number of rows rather than a new sort.
+ * <p>
+ * This class is not thread-safe; apart from {@link #sort(List, int)}, it is
+ * only used on the event dispatch thread.
+ *
+ * @author Elli Steck
+ * @see StudentTableModel
+ */
+class StudentSortIndex {
+
+	private static final int[] MAJOR_RANKS = majorRanks();
+
+	private final int[][] orders = new int[StudentTableModel.COLUMN_COUNT][];
+
+	/**
+	 * Returns the permutation for the given column.
+	 *
+	 * @param column the model column
+	 * @return the row indexes in ascending order of the column, or {@code null}
+	 *         if none has been installed
+	 */
+	int[] get(int column) {
+		return orders[column];
+	}
+
+	/**
+	 * Installs the permutation for the given column, which must cover exactly
+	 * the current rows.
+	 *
+	 * @param column the model column
+	 * @param order  the row indexes in ascending order of the column
+	 */
+	void put(int column, int[] order) {
+		orders[column] = order;
+	}
+
+	/**
+	 * Discards every permutation.
+	 */
+	void clear() {
+		Arrays.fill(orders, null);
+	}
+
+	/**
+	 * Merges the rows appended from {@code firstRow} on into every permutation.
+	 * The new rows are sorted among themselves and then merged in a single pass.
+	 *
+	 * @param rows     the rows, including the appended ones
+	 * @param firstRow the index of the first appended row
+	 */
+	void appended(List<Student> rows, int firstRow) {
+		int count = rows.size() - firstRow;
+
+		if (count <= 0)
+			return;
+
+		for (int column = 0; column < orders.length; column++) {
+			int[] order = orders[column];
+
+			if (order == null)
+				continue;
+
+			int[] added = sort(rows.subList(firstRow, rows.size()), column);
+
+			for (int i = 0; i < count; i++)
+				added[i] += firstRow;
+
+			int[] merged = new int[order.length + count];
+			int i = 0;
+			int j = 0;
+			int k = 0;
+
+			while (i < order.length && j < count)
+				merged[k++] = compare(rows, column, order[i], added[j]) <= 0 ? order[i++] : added[j++];
+
+			while (i < order.length)
+				merged[k++] = order[i++];
+
+			while (j < count)
+				merged[k++] = added[j++];
+
+			orders[column] = merged;
+		}
+	}
+
+	/**
+	 * Moves the given rows to their new places in every permutation after their
+	 * students have changed. The changed rows are taken out, sorted among
+	 * themselves and merged back in a single pass, so a batch of updates costs
+	 * one pass over each permutation rather than one per row.
+	 *
+	 * @param rows    the rows, with the changed ones already replaced
+	 * @param changed the indexes of the changed rows
+	 */
+	void updated(List<Student> rows, BitSet changed) {
+		int count = changed.cardinality();
+
+		if (count == 0)
+			return;
+
+		int[] changedRows = new int[count];
+		List<Student> changedStudents = new ArrayList<>(count);
+		int k = 0;
+
+		for (int row = changed.nextSetBit(0); row >= 0; row = changed.nextSetBit(row + 1)) {
+			changedRows[k++] = row;
+			changedStudents.add(rows.get(row));
+		}
+
+		for (int column = 0; column < orders.length; column++) {
+			int[] order = orders[column];
+
+			if (order == null)
+				continue;
+
+			int[] moved = sort(changedStudents, column);
+
+			for (int i = 0; i < count; i++)
+				moved[i] = changedRows[moved[i]];
+
+			// The other rows have not changed, so they are still in order
+			int[] merged = new int[order.length];
+			int i = 0;
+			int j = 0;
+			k = 0;
+
+			while (i < order.length) {
+				if (changed.get(order[i]))
+					i++;
+				else if (j < count && compare(rows, column, moved[j], order[i]) < 0)
+					merged[k++] = moved[j++];
+				else
+					merged[k++] = order[i++];
+			}
+
+			while (j < count)
+				merged[k++] = moved[j++];
+
+			orders[column] = merged;
+		}
+	}
+
+	/**
+	 * Drops removed rows from every permutation and renumbers the rest.
+	 *
+	 * @param newIndexes the new index of each old row, or {@code -1} if it was
+	 *                   removed; kept rows must keep their relative order
+	 * @param newCount   the number of rows left
+	 */
+	void removed(int[] newIndexes, int newCount) {
+		for (int column = 0; column < orders.length; column++) {
+			int[] order = orders[column];
+
+			if (order == null)
+				continue;
+
+			int[] remapped = new int[newCount];
+			int k = 0;
+
+			for (int row : order) {
+				if (newIndexes[row] >= 0)
+					remapped[k++] = newIndexes[row];
+			}
+
+			orders[column] = remapped;
+		}
+	}
+
+	/**
+	 * Returns the indexes of the given rows in ascending order of the given
+	 * column, with ties in row order.
+	 * <p>
+	 * The numeric columns are sorted as packed {@code long} keys, without
+	 * boxing; names are compared by last name and then first name.
+	 *
+	 * @param rows   the rows to sort
+	 * @param column the model column to sort by
+	 * @return the sort permutation
+	 */
+	static int[] sort(List<Student> rows, int column) {
+		int size = rows.size();
+		int[] order = new int[size];
+
+		if (column == StudentTableModel.NAME_COLUMN) {
+			Integer[] boxed = new Integer[size];
+
+			for (int row = 0; row < size; row++)
+				boxed[row] = row;
+
+			Arrays.sort(boxed, (a, b) -> compare(rows, column, a, b));
+
+			for (int i = 0; i < size; i++)
+				order[i] = boxed[i];
+
+			return order;
+		}
+
+		long[] keys = new long[size];
+
+		for (int row = 0; row < size; row++)
+			keys[row] = (long) key(rows.get(row), column) << 32 | row;
+
+		Arrays.sort(keys);
+
+		for (int i = 0; i < size; i++)
+			order[i] = (int) keys[i];
+
+		return order;
+	}
+
+	/**
+	 * Compares two rows by the given column, breaking ties by row index.
+	 */
+	private static int compare(List<Student> rows, int column, int a, int b) {
+		int result;
+
+		if (column == StudentTableModel.NAME_COLUMN) {
+			Student first = rows.get(a);
+			Student second = rows.get(b);
+			result = first.getLastName().compareToIgnoreCase(second.getLastName());
+
+			if (result == 0)
+				result = first.getFirstName().compareToIgnoreCase(second.getFirstName());
+		} else {
+			result = Integer.compare(key(rows.get(a), column), key(rows.get(b), column));
+		}
+
+		return result != 0 ? result : Integer.compare(a, b);
+	}
+
+	/**
+	 * Returns the non-negative sort key of a numeric column. Majors sort by the
+	 * display name shown in the table.
+	 */
+	private static int key(Student student, int column) {
+		switch (column) {
+		case StudentTableModel.ID_COLUMN:
+			return student.getStudentId();
+		case StudentTableModel.YEAR_COLUMN:
+			return student.getYear();
+		case StudentTableModel.MAJOR_COLUMN:
+			return MAJOR_RANKS[student.getMajor().ordinal()];
+		default:
+			throw new IllegalArgumentException("Column has no numeric key: " + column);
+		}
+	}
+
+	/**
+	 * Ranks every major by its display name.
+	 */
+	private static int[] majorRanks() {
+		Major[] majors = Major.values().clone();
+		Arrays.sort(majors, (a, b) -> a.toString().compareTo(b.toString()));
+		int[] ranks = new int[majors.length];
+
+		for (int rank = 0; rank < majors.length; rank++)
+			ranks[majors[rank].ordinal()] = rank;
+
+		return ranks;
+	}
+
+}
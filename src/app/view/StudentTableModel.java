@@ -0,0 +1,506 @@
+package app.view;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.swing.table.AbstractTableModel;
+
+import app.model.Major;
+import app.model.Student;
+import app.model.StudentEvent;
+
+/**
+ * A table model holding one row per student, for display in the
+ * {@link javax.swing.JTable} of {@link MainScrollPane}.
+ * <p>
+ * The model keeps only the students themselves, in roster order, and an index
+ * from student ID to row. A {@code JTable} asks it for the values of the rows it
+ * paints, so the cost of showing the roster no longer grows with the number of
+ * students the way one panel of labels per student did.
+ * <p>
+ * Changes published by {@link app.model.StudentManager} are applied with
+ * {@link #studentsChanged(List)}, which fires the narrowest table event that
+ * covers them. This class is not thread-safe and must only be used on the event
+ * dispatch thread.
+ * <p>
+ * The table can be sorted by any column and filtered to a set of students.
+ * Sorting reads a permutation of the rows from a {@link StudentSortIndex},
+ * which is computed once per column in the background and then kept in step
+ * with changes, and filtering keeps a bit per row. Either way, the rows shown
+ * are rebuilt in a single pass over the permutation, without sorting. Row
+ * indexes taken and returned by the public methods are those of the rows
+ * shown.
+ *
+ * @author Elli Steck
+ * @see MainScrollPane
+ * @see app.model.StudentEvent
+ */
+public class StudentTableModel extends AbstractTableModel {
+
+	private static final long serialVersionUID = -2978457034810573112L;
+
+	/** The column holding the student's name, as {@code lastName, firstName}. */
+	public static final int NAME_COLUMN = 0;
+
+	/** The column holding the student ID. */
+	public static final int ID_COLUMN = 1;
+
+	/** The column holding the academic year. */
+	public static final int YEAR_COLUMN = 2;
+
+	/** The column holding the major. */
+	public static final int MAJOR_COLUMN = 3;
+
+	/** The number of columns. */
+	public static final int COLUMN_COUNT = 4;
+
+	private static final String[] COLUMN_NAMES = { "Name", "Student ID", "Academic year", "Major" };
+	private static final Class<?>[] COLUMN_CLASSES = { String.class, Integer.class, Integer.class, Major.class };
+
+	private final List<Student> rows = new ArrayList<>();
+	private final Map<Integer, Integer> rowsById = new HashMap<>();
+	private final StudentSortIndex sortIndex = new StudentSortIndex();
+	private long generation;
+	private int sortColumn = -1;
+	private boolean ascending = true;
+	private BitSet matches;
+	// The rows shown, in order, or null to show every row in roster order
+	private int[] viewRows;
+
+	/**
+	 * Replaces every row with the given students, in iteration order.
+	 * <p>
+	 * The sort column is kept, but the sort permutations and any filter are
+	 * discarded, since they refer to the old rows.
+	 *
+	 * @param students the students to show
+	 */
+	public void setStudents(Collection<Student> students) {
+		rows.clear();
+		rowsById.clear();
+		sortIndex.clear();
+		matches = null;
+		generation++;
+
+		for (Student student : students)
+			append(student);
+
+		rebuildView();
+		fireTableDataChanged();
+	}
+
+	/**
+	 * Appends rows for the given students, firing a single insert event.
+	 *
+	 * @param students the students to add, in order
+	 */
+	public void addStudents(List<Student> students) {
+		if (students.isEmpty())
+			return;
+
+		int firstRow = rows.size();
+
+		for (Student student : students)
+			append(student);
+
+		appended(firstRow);
+	}
+
+	/**
+	 * Applies a batch of changes published by
+	 * {@link app.model.StudentManager}.
+	 * <p>
+	 * Added students are appended and updated students replaced in place, and the
+	 * sort permutations take the whole batch in one merge, so a batch costs a pass
+	 * over the rows rather than one per change. Each batch fires a single event,
+	 * which covers just the rows involved when only students were added or only
+	 * students were updated while the table is neither sorted nor filtered.
+	 * Removals shift the rows after them, so a batch with any removals is applied
+	 * in one pass over the rows and fires a data-changed event. Added students are
+	 * hidden while a filter is applied, until the next
+	 * {@link #setFilter(Collection)}.
+	 *
+	 * @param events the changes to apply, in order
+	 */
+	public void studentsChanged(List<StudentEvent> events) {
+		boolean removed = false;
+
+		for (StudentEvent event : events) {
+			if (event.getType() == StudentEvent.Type.REMOVED) {
+				removed = true;
+				break;
+			}
+		}
+
+		if (removed) {
+			applyWithRemovals(events);
+			return;
+		}
+
+		int firstRow = rows.size();
+		BitSet changed = new BitSet(firstRow);
+
+		for (StudentEvent event : events) {
+			Integer row = rowsById.get(event.getStudentId());
+
+			if (row == null) {
+				append(event.getStudent());
+			} else {
+				rows.set(row, event.getStudent());
+
+				// Rows added in this batch are sorted when they are merged in
+				if (row < firstRow)
+					changed.set(row);
+			}
+		}
+
+		boolean added = rows.size() > firstRow;
+
+		if (!added && changed.isEmpty())
+			return;
+
+		sortIndex.updated(rows, changed);
+		sortIndex.appended(rows, firstRow);
+		generation++;
+
+		if (viewRows != null) {
+			rebuildView();
+			fireTableDataChanged();
+		} else if (!added) {
+			fireTableRowsUpdated(changed.nextSetBit(0), changed.length() - 1);
+		} else if (changed.isEmpty()) {
+			fireTableRowsInserted(firstRow, rows.size() - 1);
+		} else {
+			fireTableDataChanged();
+		}
+	}
+
+	/**
+	 * Sorts the rows shown by the given column. If the permutation for the column
+	 * has not been installed yet, the rows stay in their current order until
+	 * {@link #putSortOrder(int, int[], long)} installs it.
+	 *
+	 * @param column    the model column to sort by, or {@code -1} for roster
+	 *                  order
+	 * @param ascending whether to sort in ascending order
+	 */
+	public void sortBy(int column, boolean ascending) {
+		this.sortColumn = column;
+		this.ascending = ascending;
+		rebuildView();
+		fireTableDataChanged();
+	}
+
+	/**
+	 * Returns the column the rows are sorted by.
+	 *
+	 * @return the model column, or {@code -1} for roster order
+	 */
+	public int getSortColumn() {
+		return sortColumn;
+	}
+
+	/**
+	 * Returns whether the rows are sorted in ascending order.
+	 *
+	 * @return {@code true} if ascending
+	 */
+	public boolean isAscending() {
+		return ascending;
+	}
+
+	/**
+	 * Returns whether the sort permutation for the given column is installed.
+	 *
+	 * @param column the model column
+	 * @return {@code true} if sorting by the column needs no computation
+	 */
+	public boolean hasSortOrder(int column) {
+		return sortIndex.get(column) != null;
+	}
+
+	/**
+	 * Installs a sort permutation computed off the event dispatch thread by
+	 * {@link #computeSortOrder(List, int)} from the rows returned by
+	 * {@link #copyRows()}.
+	 *
+	 * @param column     the model column the permutation sorts by
+	 * @param order      the permutation
+	 * @param generation the {@link #getGeneration() generation} of the copied
+	 *                   rows
+	 * @return {@code true} if installed, or {@code false} if the rows have
+	 *         changed since they were copied
+	 */
+	public boolean putSortOrder(int column, int[] order, long generation) {
+		if (generation != this.generation)
+			return false;
+
+		sortIndex.put(column, order);
+
+		if (column == sortColumn) {
+			rebuildView();
+			fireTableDataChanged();
+		}
+
+		return true;
+	}
+
+	/**
+	 * Returns the sort permutation of the given rows by the given column. Safe to
+	 * call from any thread, on rows no other thread is changing.
+	 *
+	 * @param rows   the rows, as returned by {@link #copyRows()}
+	 * @param column the model column to sort by
+	 * @return the permutation, for {@link #putSortOrder(int, int[], long)}
+	 */
+	public static int[] computeSortOrder(List<Student> rows, int column) {
+		return StudentSortIndex.sort(rows, column);
+	}
+
+	/**
+	 * Returns a copy of every row, in roster order, for computing sort
+	 * permutations in the background.
+	 *
+	 * @return a new list of the students
+	 */
+	public List<Student> copyRows() {
+		return new ArrayList<>(rows);
+	}
+
+	/**
+	 * Returns a number that changes whenever a row is added, changed or removed.
+	 *
+	 * @return the current generation of the rows
+	 */
+	public long getGeneration() {
+		return generation;
+	}
+
+	/**
+	 * Shows only the given students, or every student if {@code students} is
+	 * {@code null}. Students without a row are ignored.
+	 *
+	 * @param students the students to show, or {@code null} to clear the filter
+	 */
+	public void setFilter(Collection<Student> students) {
+		if (students == null) {
+			matches = null;
+		} else {
+			matches = new BitSet(rows.size());
+
+			for (Student student : students) {
+				Integer row = rowsById.get(student.getStudentId());
+
+				if (row != null)
+					matches.set(row);
+			}
+		}
+
+		rebuildView();
+		fireTableDataChanged();
+	}
+
+	/**
+	 * Returns whether a filter is applied.
+	 *
+	 * @return {@code true} if only some students are shown
+	 */
+	public boolean isFiltered() {
+		return matches != null;
+	}
+
+	/**
+	 * Returns the number of students, whether shown or not.
+	 *
+	 * @return the number of rows before filtering
+	 */
+	public int getStudentCount() {
+		return rows.size();
+	}
+
+	/**
+	 * Returns the student shown in the given row.
+	 *
+	 * @param row the row index
+	 * @return the {@link Student} in that row
+	 * @throws IndexOutOfBoundsException if the row does not exist
+	 */
+	public Student getStudentAt(int row) {
+		return rows.get(viewRows == null ? row : viewRows[row]);
+	}
+
+	/**
+	 * Returns the row showing the student with the given ID.
+	 *
+	 * @param studentId the student ID
+	 * @return the row index, or {@code -1} if the student is not shown
+	 */
+	public int getRowOf(int studentId) {
+		Integer row = rowsById.get(studentId);
+
+		if (row == null || viewRows == null)
+			return row == null ? -1 : row;
+
+		for (int i = 0; i < viewRows.length; i++) {
+			if (viewRows[i] == row)
+				return i;
+		}
+
+		return -1;
+	}
+
+	@Override
+	public int getRowCount() {
+		return viewRows == null ? rows.size() : viewRows.length;
+	}
+
+	@Override
+	public int getColumnCount() {
+		return COLUMN_COUNT;
+	}
+
+	@Override
+	public String getColumnName(int column) {
+		return COLUMN_NAMES[column];
+	}
+
+	@Override
+	public Class<?> getColumnClass(int column) {
+		return COLUMN_CLASSES[column];
+	}
+
+	@Override
+	public Object getValueAt(int row, int column) {
+		Student student = getStudentAt(row);
+
+		switch (column) {
+		case NAME_COLUMN:
+			return student.toString();
+		case ID_COLUMN:
+			return student.getStudentId();
+		case YEAR_COLUMN:
+			return student.getYear();
+		case MAJOR_COLUMN:
+			return student.getMajor();
+		default:
+			throw new IndexOutOfBoundsException("No column " + column);
+		}
+	}
+
+	/**
+	 * Adds a row for the given student at the end, without firing an event.
+	 */
+	private void append(Student student) {
+		rowsById.put(student.getStudentId(), rows.size());
+		rows.add(student);
+	}
+
+	/**
+	 * Adds the rows appended from {@code firstRow} on to the sort permutations
+	 * and fires the event for them.
+	 */
+	private void appended(int firstRow) {
+		sortIndex.appended(rows, firstRow);
+		generation++;
+
+		if (viewRows == null) {
+			fireTableRowsInserted(firstRow, rows.size() - 1);
+		} else {
+			rebuildView();
+			fireTableDataChanged();
+		}
+	}
+
+	/**
+	 * Rebuilds the rows shown from the sort permutation and the filter, in one
+	 * pass. Until the permutation for the sort column is installed, the rows are
+	 * shown in roster order.
+	 */
+	private void rebuildView() {
+		int[] order = sortColumn < 0 ? null : sortIndex.get(sortColumn);
+
+		if (order == null && matches == null) {
+			viewRows = null;
+			return;
+		}
+
+		int size = rows.size();
+		int[] shown = new int[matches == null ? size : matches.cardinality()];
+		int count = 0;
+
+		for (int i = 0; i < size; i++) {
+			int row = order == null ? i : order[ascending ? i : size - 1 - i];
+
+			if (matches == null || matches.get(row))
+				shown[count++] = row;
+		}
+
+		viewRows = shown;
+	}
+
+	/**
+	 * Applies a batch that removes students by rebuilding the rows and the index
+	 * once, rather than shifting them for each removal.
+	 */
+	private void applyWithRemovals(List<StudentEvent> events) {
+		Map<Integer, StudentEvent> changes = new HashMap<>();
+		List<Student> added = new ArrayList<>();
+
+		for (StudentEvent event : events) {
+			if (event.getType() == StudentEvent.Type.ADDED && !rowsById.containsKey(event.getStudentId()))
+				added.add(event.getStudent());
+			else
+				changes.put(event.getStudentId(), event);
+		}
+
+		int[] newIndexes = new int[rows.size()];
+		BitSet kept = matches == null ? null : new BitSet(rows.size());
+		BitSet updated = new BitSet(rows.size());
+		List<Student> keptRows = new ArrayList<>(rows.size() + added.size());
+
+		for (int row = 0; row < rows.size(); row++) {
+			Student student = rows.get(row);
+			StudentEvent change = changes.get(student.getStudentId());
+
+			if (change != null && change.getType() == StudentEvent.Type.REMOVED) {
+				newIndexes[row] = -1;
+				continue;
+			}
+
+			newIndexes[row] = keptRows.size();
+
+			if (kept != null && matches.get(row))
+				kept.set(keptRows.size());
+
+			if (change != null)
+				updated.set(keptRows.size());
+
+			keptRows.add(change == null ? student : change.getStudent());
+		}
+
+		rows.clear();
+		rowsById.clear();
+
+		for (Student student : keptRows)
+			append(student);
+
+		matches = kept;
+		sortIndex.removed(newIndexes, rows.size());
+		sortIndex.updated(rows, updated);
+
+		int firstAdded = rows.size();
+
+		for (Student student : added)
+			append(student);
+
+		sortIndex.appended(rows, firstAdded);
+		generation++;
+		rebuildView();
+		fireTableDataChanged();
+	}
+
+}
@@ -0,0 +1,61 @@
+package app.model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class AtomicFileWriterTest {
+
+	@TempDir
+	Path tempDir;
+
+	private Path target;
+	private Path temp;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		target = tempDir.resolve("StudentData.csv");
+		temp = tempDir.resolve("StudentData.csv.tmp");
+		Files.write(target, Arrays.asList("old"));
+	}
+
+	@Test
+	void write_should_replace_target_and_remove_temp_file() throws IOException {
+		AtomicFileWriter.write(target,
+				channel -> channel.write(ByteBuffer.wrap("new\n".getBytes(StandardCharsets.UTF_8))));
+
+		assertEquals(Arrays.asList("new"), Files.readAllLines(target), "Target should hold the new contents");
+		assertFalse(Files.exists(temp), "Temporary file should be moved into place");
+	}
+
+	@Test
+	void write_should_leave_target_untouched_when_writer_fails() throws IOException {
+		assertThrows(IOException.class, () -> AtomicFileWriter.write(target, channel -> {
+			channel.write(ByteBuffer.wrap("partial".getBytes(StandardCharsets.UTF_8)));
+			throw new IOException("Disk full");
+		}), "Writer failure should be reported");
+
+		assertEquals(Arrays.asList("old"), Files.readAllLines(target), "Target should keep its old contents");
+		assertFalse(Files.exists(temp), "Temporary file should be removed after a failure");
+	}
+
+	@Test
+	void recover_should_remove_leftover_temp_file() throws IOException {
+		Files.write(temp, Arrays.asList("partial"));
+
+		assertTrue(AtomicFileWriter.recover(target), "Leftover temporary file should be reported");
+		assertFalse(Files.exists(temp), "Leftover temporary file should be removed");
+		assertEquals(Arrays.asList("old"), Files.readAllLines(target), "Target should be untouched");
+		assertFalse(AtomicFileWriter.recover(target), "Nothing should be recovered the second time");
+	}
+
+}
@@ -0,0 +1,81 @@
+package app.model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class EnrollmentCountsTest {
+
+	@Test
+	void add_should_widen_window_in_both_directions() {
+		EnrollmentCounts counts = new EnrollmentCounts();
+
+		counts.add(Major.BIOT, 2021);
+		counts.add(Major.BIOT, 1990);
+		counts.add(Major.DENT, 2060);
+
+		assertEquals(1, counts.get(Major.BIOT, 2021), "First year should keep its count");
+		assertEquals(1, counts.get(Major.BIOT, 1990), "Earlier year should be counted");
+		assertEquals(1, counts.get(Major.DENT, 2060), "Later year should be counted");
+		assertEquals(0, counts.get(Major.DENT, 2021), "Other cells should stay empty");
+	}
+
+	@Test
+	void remove_should_reject_student_not_counted() {
+		EnrollmentCounts counts = new EnrollmentCounts();
+		counts.add(Major.BIOT, 2021);
+		counts.remove(Major.BIOT, 2021);
+
+		assertThrows(IllegalStateException.class, () -> counts.remove(Major.BIOT, 2021),
+				"Count should not drop below zero");
+		assertThrows(IllegalStateException.class, () -> counts.remove(Major.BIOT, 1800),
+				"Year outside the window should not be removable");
+	}
+
+	@Test
+	void snapshot_should_trim_to_counted_years_and_total_consistently() {
+		EnrollmentCounts counts = new EnrollmentCounts();
+		counts.add(Major.BIOT, 2020);
+		counts.add(Major.BIOT, 2022);
+		counts.add(Major.INDS, 2022);
+
+		EnrollmentSnapshot snapshot = counts.snapshot(7);
+
+		assertEquals(2020, snapshot.getFirstYear(), "Snapshot should start at the first counted year");
+		assertEquals(2022, snapshot.getLastYear(), "Snapshot should end at the last counted year");
+		assertEquals(2, snapshot.getCount(2022), "Year total should add every major");
+		assertEquals(2, snapshot.getCount(Major.BIOT), "Major total should add every year");
+		assertEquals(3, snapshot.getTotal(), "Total should add every count");
+		assertEquals(7, snapshot.getVersion(), "Snapshot should keep its version");
+
+		counts.add(Major.BIOT, 2020);
+
+		assertEquals(1, snapshot.getCount(Major.BIOT, 2020), "Snapshot should not change with the counts");
+	}
+
+	@Test
+	void snapshot_of_empty_counts_should_have_no_years() {
+		EnrollmentSnapshot snapshot = new EnrollmentCounts().snapshot(0);
+
+		assertEquals(0, snapshot.getTotal(), "Empty counts should total zero");
+		assertEquals(-1, snapshot.getLastYear(), "Empty counts should have no last year");
+		assertEquals(0, snapshot.getCount(Major.BIOT, 2021), "Any cell should be zero");
+	}
+
+	@Test
+	void sameCounts_should_ignore_window_differences() {
+		EnrollmentCounts a = new EnrollmentCounts();
+		EnrollmentCounts b = new EnrollmentCounts();
+		a.add(Major.BIOT, 2000);
+		a.add(Major.BIOT, 2021);
+		a.remove(Major.BIOT, 2000);
+		b.add(Major.BIOT, 2021);
+
+		assertTrue(a.sameCounts(b), "Counts with different windows should compare equal");
+
+		b.add(Major.DENT, 2021);
+
+		assertFalse(a.sameCounts(b), "A differing count should be detected");
+	}
+
+}
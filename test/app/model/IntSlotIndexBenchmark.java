@@ -0,0 +1,89 @@
+package app.model;
+
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Benchmark comparing student ID lookups in a {@link StudentStore}, backed by an
+ * {@link IntSlotIndex}, against the {@link LinkedHashSet} the roster used to be
+ * kept in.
+ * <p>
+ * For each structure, it times duplicate checks, which on the set need a probe
+ * {@link Student} to call {@link Set#contains(Object)} with, and fetches by ID,
+ * which on the set need a scan. Scans are only timed on a small sample, since
+ * each one is linear in the roster size.
+ * <p>
+ * Not run as part of the test suite. Run with {@code java app.model.IntSlotIndexBenchmark
+ * [students]}.
+ *
+ * @author Elli Steck
+ * @see IntSlotIndex
+ * @see StudentStore
+ */
+class IntSlotIndexBenchmark {
+
+	private static final int FIRST_ID = 101001;
+	private static final int LOOKUPS = 2_000_000;
+	private static final int SCANS = 200;
+	private static final int ROUNDS = 5;
+
+	public static void main(String[] args) {
+		int studentCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+		int year = Year.now().getValue();
+		List<Student> students = new ArrayList<>(studentCount);
+
+		for (int i = 0; i < studentCount; i++)
+			students.add(new Student(FIRST_ID + i, "First", "Last", Major.BIOT, year));
+
+		Set<Student> set = new LinkedHashSet<>(students);
+		StudentStore store = new StudentStore(students);
+		int[] ids = new int[LOOKUPS];
+		Random random = new Random(42);
+
+		// Half of the IDs are taken, so that both outcomes of a duplicate check are timed.
+		for (int i = 0; i < ids.length; i++)
+			ids[i] = FIRST_ID + random.nextInt(studentCount * 2);
+
+		System.out.println("students=" + studentCount + ", lookups=" + LOOKUPS);
+
+		for (int round = 1; round <= ROUNDS; round++) {
+			long found = 0;
+			long start = System.nanoTime();
+
+			for (int id : ids) {
+				if (set.contains(new Student(id, "First", "Last", Major.BIOT, year)))
+					found++;
+			}
+
+			long setContains = System.nanoTime() - start;
+			start = System.nanoTime();
+
+			for (int id : ids) {
+				if (store.get(id) != null)
+					found--;
+			}
+
+			long storeGet = System.nanoTime() - start;
+			boolean mismatch = found != 0;
+			start = System.nanoTime();
+
+			for (int i = 0; i < SCANS; i++) {
+				for (Student student : set) {
+					if (student.getStudentId() == ids[i])
+						break;
+				}
+			}
+
+			long setScan = System.nanoTime() - start;
+
+			System.out.printf("round %d: set contains %.1f ns/op, set scan %,.0f ns/op, store get %.1f ns/op%s%n",
+					round, (double) setContains / LOOKUPS, (double) setScan / SCANS,
+					(double) storeGet / LOOKUPS, mismatch ? " (mismatch)" : "");
+		}
+	}
+
+}
@@ -0,0 +1,91 @@
+package app.model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class IntSlotIndexTest {
+
+	private IntSlotIndex index;
+
+	@BeforeEach
+	void setUp() {
+		index = new IntSlotIndex(0);
+	}
+
+	@Test
+	void get_should_return_no_slot_for_missing_key() {
+		index.put(101001, 0);
+
+		assertEquals(IntSlotIndex.NO_SLOT, index.get(101002), "Missing key should have no slot");
+	}
+
+	@Test
+	void put_should_replace_slot_of_existing_key() {
+		assertEquals(IntSlotIndex.NO_SLOT, index.put(101001, 0), "New key should have no previous slot");
+		assertEquals(0, index.put(101001, 5), "Existing key should return its previous slot");
+		assertEquals(5, index.get(101001), "Key should map to its new slot");
+		assertEquals(1, index.size(), "Replacing a slot should not change the size");
+	}
+
+	@Test
+	void index_should_accept_negative_and_zero_keys() {
+		index.put(0, 1);
+		index.put(-1, 2);
+		index.put(Integer.MIN_VALUE, 3);
+
+		assertEquals(1, index.get(0), "Zero should be a valid key");
+		assertEquals(2, index.get(-1), "Negative keys should be valid");
+		assertEquals(3, index.get(Integer.MIN_VALUE), "Minimum int should be a valid key");
+	}
+
+	@Test
+	void put_should_reject_negative_slot() {
+		assertThrows(IllegalArgumentException.class, () -> index.put(101001, -1),
+				"Negative slots are reserved for empty entries");
+	}
+
+	@Test
+	void index_should_match_hash_map_under_random_puts_and_removes() {
+		Map<Integer, Integer> expected = new HashMap<>();
+		Random random = new Random(42);
+
+		for (int i = 0; i < 100_000; i++) {
+			int key = 101001 + random.nextInt(5000);
+
+			if (random.nextInt(3) == 0) {
+				Integer removed = expected.remove(key);
+				assertEquals(removed == null ? IntSlotIndex.NO_SLOT : removed, index.remove(key),
+						"Remove should return the key's slot");
+			} else {
+				Integer previous = expected.put(key, i);
+				assertEquals(previous == null ? IntSlotIndex.NO_SLOT : previous, index.put(key, i),
+						"Put should return the key's previous slot");
+			}
+		}
+
+		assertEquals(expected.size(), index.size(), "Size should match the reference map");
+
+		for (int key = 101001; key < 106001; key++) {
+			Integer slot = expected.get(key);
+			assertEquals(slot == null ? IntSlotIndex.NO_SLOT : slot, index.get(key),
+					"Every key should still be reachable after removals shifted entries back");
+		}
+	}
+
+	@Test
+	void clear_should_remove_every_key() {
+		index.put(101001, 0);
+		index.put(101002, 1);
+		index.clear();
+
+		assertEquals(0, index.size(), "Cleared index should be empty");
+		assertEquals(IntSlotIndex.NO_SLOT, index.get(101001), "Cleared keys should have no slot");
+	}
+
+}
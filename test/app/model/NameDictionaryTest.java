@@ -0,0 +1,39 @@
+package app.model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class NameDictionaryTest {
+
+	private NameDictionary dictionary;
+
+	@BeforeEach
+	void setUp() {
+		dictionary = new NameDictionary();
+	}
+
+	@Test
+	void encode_should_return_same_code_for_same_name() {
+		int code = dictionary.encode("Sylvia");
+
+		assertEquals(code, dictionary.encode(new String("Sylvia")), "Equal names should share a code");
+		assertEquals(1, dictionary.size(), "Name should only be stored once");
+	}
+
+	@Test
+	void decode_should_return_encoded_name() {
+		for (int i = 0; i < 1000; i++)
+			assertEquals(i, dictionary.encode("Name" + i), "Codes should be assigned densely");
+
+		assertEquals("Name999", dictionary.decode(999), "Code should decode to its name after growing");
+	}
+
+	@Test
+	void decode_should_return_null_for_unknown_code() {
+		assertNull(dictionary.decode(5), "Unassigned code should decode to null");
+		assertNull(dictionary.decode(-1), "Negative code should decode to null");
+	}
+
+}
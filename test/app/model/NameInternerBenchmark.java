@@ -0,0 +1,89 @@
+package app.model;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures the load-time and heap impact of interning names while parsing a
+ * generated CSV file with a {@link StudentCsvParser}.
+ * <p>
+ * The file is parsed into a list of students, once with every name decoded
+ * separately and once with the names interned in a {@link NameInterner}, and
+ * the parse time and the heap held by each list are printed along with the
+ * table's own estimate of the bytes saved.
+ * <p>
+ * Not run as part of the test suite. Run with {@code java app.model.NameInternerBenchmark
+ * [students]}.
+ *
+ * @author Elli Steck
+ * @see NameInterner
+ */
+class NameInternerBenchmark {
+
+	private static final int FIRST_ID = 101001;
+	private static final int FIRST_NAMES = 2000;
+	private static final int LAST_NAMES = 8000;
+	private static final int ROUNDS = 5;
+	private static final Major[] MAJORS = Major.values();
+	private static final int YEAR = Year.now().getValue();
+
+	public static void main(String[] args) throws IOException {
+		int studentCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+		Path csvFile = Files.createTempFile("students", ".csv");
+
+		try {
+			writeCsv(csvFile, studentCount);
+			System.out.println("students=" + studentCount + " bytes=" + Files.size(csvFile));
+
+			for (int round = 0; round < ROUNDS; round++) {
+				run("decoded", csvFile, studentCount, null);
+				run("interned", csvFile, studentCount, new NameInterner());
+			}
+		} finally {
+			Files.deleteIfExists(csvFile);
+		}
+	}
+
+	private static void run(String label, Path csvFile, int studentCount, NameInterner names)
+			throws IOException {
+		long before = usedHeap();
+		List<Student> students = new ArrayList<>();
+		long start = System.nanoTime();
+
+		StudentCsvParser.parse(csvFile, students::add, names);
+
+		long elapsed = System.nanoTime() - start;
+		long heap = usedHeap() - before;
+		System.out.printf("%-8s %6.1f ms %,14d bytes held%s%n", label, elapsed / 1e6, heap,
+				names == null ? "" : ", " + names.getStats());
+
+		if (students.size() != studentCount)
+			System.out.println("Size mismatch: " + students.size());
+	}
+
+	private static void writeCsv(Path csvFile, int studentCount) throws IOException {
+		try (BufferedWriter writer = Files.newBufferedWriter(csvFile, StandardCharsets.UTF_8)) {
+			for (int i = 0; i < studentCount; i++) {
+				writer.write((FIRST_ID + i) + ",First" + (i * 31 % FIRST_NAMES) + ",Last" + (i * 17 % LAST_NAMES)
+						+ "," + MAJORS[i % MAJORS.length].name() + "," + YEAR);
+				writer.newLine();
+			}
+		}
+	}
+
+	private static long usedHeap() {
+		Runtime runtime = Runtime.getRuntime();
+
+		for (int i = 0; i < 3; i++)
+			System.gc();
+
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+}
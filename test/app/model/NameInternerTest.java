@@ -0,0 +1,107 @@
+package app.model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class NameInternerTest {
+
+	private NameInterner interner;
+
+	@BeforeEach
+	void setUp() {
+		interner = new NameInterner(3);
+	}
+
+	private static ByteBuffer bytes(String content) {
+		return ByteBuffer.wrap(content.getBytes(StandardCharsets.UTF_8));
+	}
+
+	@Test
+	void intern_should_return_same_instance_for_equal_names() {
+		String first = interner.intern(new String("Sylvia"));
+
+		assertSame(first, interner.intern(new String("Sylvia")), "Equal names should share an instance");
+		assertEquals(1, interner.size(), "Name should only be stored once");
+	}
+
+	@Test
+	void intern_should_share_instances_between_bytes_and_strings() {
+		ByteBuffer buffer = bytes("101001,Sylvia,Ashbaugh");
+		String fromBytes = interner.intern(buffer, 7, 13);
+
+		assertEquals("Sylvia", fromBytes, "Name should be decoded from its bytes");
+		assertSame(fromBytes, interner.intern("Sylvia"), "String lookup should find the name read from bytes");
+
+		String fromString = interner.intern("Ashbaugh");
+		assertSame(fromString, interner.intern(buffer, 14, 22), "Byte lookup should find the name added as a String");
+		assertSame(fromString, interner.intern(buffer, 14, 22), "Repeated byte lookups should share an instance");
+	}
+
+	@Test
+	void intern_should_decode_multibyte_names() {
+		ByteBuffer buffer = bytes("Ren\u00e9e,Ren\u00e9e");
+
+		String name = interner.intern(buffer, 0, 6);
+
+		assertEquals("Ren\u00e9e", name, "UTF-8 name should be decoded");
+		assertSame(name, interner.intern(buffer, 7, 13), "Equal UTF-8 bytes should share an instance");
+	}
+
+	@Test
+	void intern_should_stop_adding_names_when_full() {
+		interner.intern("A");
+		interner.intern("B");
+		interner.intern("C");
+
+		String overflow = new String("D");
+
+		assertSame(overflow, interner.intern(overflow), "A new name past the bound should be returned as is");
+		assertEquals(3, interner.size(), "Table should not grow past its bound");
+		assertEquals(NameInterner.NO_ID, interner.idOf("D"), "Overflowing name should have no ID");
+		assertEquals(1, interner.getStats().getOverflows(), "Overflow should be counted");
+	}
+
+	@Test
+	void idOf_should_assign_ids_in_first_seen_order() {
+		interner.intern("Sylvia");
+		interner.intern(bytes("Louella"), 0, 7);
+
+		assertEquals(0, interner.idOf("Sylvia"), "First name seen should have ID 0");
+		assertEquals(1, interner.idOf("Louella"), "Second name seen should have ID 1");
+		assertEquals("Louella", interner.nameOf(1), "ID should map back to its name");
+		assertThrows(IndexOutOfBoundsException.class, () -> interner.nameOf(2), "Unassigned ID should be rejected");
+	}
+
+	@Test
+	void getStats_should_count_hits_and_estimate_savings() {
+		interner.intern("Sylvia");
+		interner.intern("Sylvia");
+		interner.intern(bytes("Sylvia"), 0, 6);
+
+		NameInterner.Stats stats = interner.getStats();
+
+		assertEquals(3, stats.getLookups(), "Every lookup should be counted");
+		assertEquals(2, stats.getHits(), "Repeated names should be counted as hits");
+		assertEquals(1, stats.getNames(), "One distinct name should be held");
+		assertTrue(stats.getEstimatedBytesSaved() > 2 * 2 * "Sylvia".length(),
+				"Savings should cover at least the characters of each shared name");
+	}
+
+	@Test
+	void intern_should_keep_finding_names_after_growing() {
+		NameInterner large = new NameInterner();
+		ByteBuffer buffer = bytes("Name123");
+
+		for (int i = 0; i < 1000; i++)
+			large.intern("Name" + i);
+
+		assertSame(large.nameOf(123), large.intern(buffer, 0, 7), "Byte lookup should survive rehashing");
+		assertEquals(1000, large.size(), "Byte lookup of a known name should not add it again");
+	}
+
+}
@@ -0,0 +1,130 @@
+package app.model;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Measures the latency of prefix and typo-tolerant searches in a
+ * {@link NameSearchIndex} holding a million distinct names.
+ * <p>
+ * Names are built from random letters, alternating consonants and vowels, so
+ * that their trigrams are spread much like those of real surnames. Prefix
+ * searches use the first two to four letters of a random name, and similarity
+ * searches use a random name with one letter dropped. Both ask for the top
+ * twenty results.
+ * <p>
+ * The first {@value #WARMUP_ROUNDS} rounds warm up the JIT compiler and are
+ * not reported. Each measured round reports the mean and the 50th and 99th
+ * percentile latencies of its queries, so that a slow outlier on a shared
+ * machine can be told apart from a slow search.
+ * <p>
+ * Not run as part of the test suite. Run with {@code java app.model.NameSearchIndexBenchmark
+ * [names]}.
+ *
+ * @author Elli Steck
+ * @see NameSearchIndex
+ */
+class NameSearchIndexBenchmark {
+
+	private static final String CONSONANTS = "bbccddffgghhjkklllmmnnnppqrrrsssstttvwwxyz";
+	private static final String[] CLUSTERS = { "ch", "sh", "th", "st", "br", "cr", "gr", "tr", "ck", "ng", "ll", "nd",
+			"rs", "ss", "tt" };
+	private static final String VOWELS = "aaaeeeeiiioouuy";
+	private static final int LIMIT = 20;
+	private static final int QUERIES = 2000;
+	private static final int WARMUP_ROUNDS = 5;
+	private static final int ROUNDS = 5;
+
+	public static void main(String[] args) {
+		int nameCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+		Random random = new Random(42);
+		String[] names = new String[nameCount];
+		NameSearchIndex index = new NameSearchIndex();
+		Set<String> seen = new HashSet<>();
+
+		long startNanos = System.nanoTime();
+
+		for (int code = 0; code < nameCount; code++) {
+			String name;
+
+			do {
+				name = randomName(random);
+			} while (!seen.add(name));
+
+			names[code] = name;
+			index.addRow(code, name, code);
+		}
+
+		System.out.printf("names=%d build=%,.0f ms%n", nameCount, (System.nanoTime() - startNanos) / 1e6);
+
+		for (int round = 0; round < WARMUP_ROUNDS + ROUNDS; round++) {
+			long[] prefixNanos = new long[QUERIES];
+			long[] searchNanos = new long[QUERIES];
+			long results = 0;
+
+			for (int i = 0; i < QUERIES; i++) {
+				String name = names[random.nextInt(nameCount)];
+				String prefix = name.substring(0, Math.min(name.length(), 2 + random.nextInt(3)));
+				int[] found = new int[1];
+
+				long start = System.nanoTime();
+				index.forEachWithPrefix(prefix, code -> ++found[0] < LIMIT);
+				prefixNanos[i] = System.nanoTime() - start;
+
+				int drop = random.nextInt(name.length());
+				String typo = name.substring(0, drop) + name.substring(drop + 1);
+
+				start = System.nanoTime();
+				results += index.search(typo, LIMIT).length;
+				searchNanos[i] = System.nanoTime() - start;
+			}
+
+			if (round < WARMUP_ROUNDS)
+				continue;
+
+			System.out.printf("prefix %s  similarity %s  avg results=%d%n", summarize(prefixNanos),
+					summarize(searchNanos), results / QUERIES);
+		}
+	}
+
+	/**
+	 * Formats the mean and the 50th and 99th percentiles of the given latencies
+	 * in microseconds. Sorts the array.
+	 */
+	private static String summarize(long[] nanos) {
+		long total = 0;
+
+		for (long value : nanos)
+			total += value;
+
+		Arrays.sort(nanos);
+		return String.format("avg=%,.1f us p50=%,.1f us p99=%,.1f us", total / 1e3 / nanos.length,
+				nanos[nanos.length / 2] / 1e3, nanos[nanos.length * 99 / 100] / 1e3);
+	}
+
+	/**
+	 * Returns a pronounceable name of five to ten letters, alternating random
+	 * consonants or clusters with vowels.
+	 */
+	private static String randomName(Random random) {
+		StringBuilder name = new StringBuilder();
+		int length = 5 + random.nextInt(6);
+		boolean vowel = random.nextInt(3) == 0;
+
+		while (name.length() < length) {
+			if (vowel)
+				name.append(VOWELS.charAt(random.nextInt(VOWELS.length())));
+			else if (random.nextInt(4) == 0)
+				name.append(CLUSTERS[random.nextInt(CLUSTERS.length)]);
+			else
+				name.append(CONSONANTS.charAt(random.nextInt(CONSONANTS.length())));
+
+			vowel = !vowel;
+		}
+
+		return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+	}
+
+}
@@ -0,0 +1,91 @@
+package app.model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class NameSearchIndexTest {
+
+	private static final String[] NAMES = { "Ashbaugh", "Gilroy", "Nassar", "Nash", "ashby", "Blum" };
+
+	private NameSearchIndex index;
+
+	@BeforeEach
+	void setUp() {
+		index = new NameSearchIndex();
+
+		for (int code = 0; code < NAMES.length; code++)
+			index.addRow(code, NAMES[code], code);
+	}
+
+	private List<String> withPrefix(String prefix) {
+		List<String> names = new ArrayList<>();
+		index.forEachWithPrefix(prefix, code -> names.add(NAMES[code]));
+		return names;
+	}
+
+	private List<String> search(String text, int limit) {
+		List<String> names = new ArrayList<>();
+		for (int code : index.search(text, limit))
+			names.add(NAMES[code]);
+		return names;
+	}
+
+	@Test
+	void forEachWithPrefix_should_visit_matches_alphabetically_ignoring_case() {
+		assertEquals(Arrays.asList("Nash", "Nassar"), withPrefix("nas"),
+				"Names with the prefix should be visited in alphabetical order");
+		assertEquals(Arrays.asList("Ashbaugh", "ashby"), withPrefix("ASHB"),
+				"Prefix should match regardless of case");
+		assertTrue(withPrefix("Nx").isEmpty(), "Unknown prefix should match nothing");
+		assertEquals(NAMES.length, withPrefix("").size(), "Empty prefix should match every name");
+	}
+
+	@Test
+	void forEachWithPrefix_should_stop_when_visitor_declines() {
+		List<Integer> visited = new ArrayList<>();
+
+		index.forEachWithPrefix("", code -> visited.add(code) && visited.size() < 2);
+
+		assertEquals(2, visited.size(), "Walk should stop once the visitor returns false");
+	}
+
+	@Test
+	void search_should_rank_misspelled_names() {
+		assertEquals("Ashbaugh", search("Ashbagh", 1).get(0), "A dropped letter should still find the name");
+		assertEquals("Nassar", search("Nasar", 1).get(0), "A missing double letter should still find the name");
+		assertEquals("Gilroy", search("gilroy", 5).get(0), "Exact match should rank first");
+		assertTrue(search("Zyxwv", 5).isEmpty(), "Dissimilar text should match nothing");
+	}
+
+	@Test
+	void searches_should_skip_names_without_rows() {
+		index.removeRow(2, 2);
+
+		assertEquals(Arrays.asList("Nash"), withPrefix("nas"), "Removed name should not be visited");
+		assertFalse(search("Nassar", 5).contains("Nassar"), "Removed name should not be found");
+
+		index.addRow(2, "Nassar", 10);
+
+		assertArrayEquals(new int[] { 10 }, index.rowsOf(2), "Re-added name should map to its new row");
+	}
+
+	@Test
+	void rowsOf_should_return_rows_in_ascending_order() {
+		index.addRow(0, "Ashbaugh", 9);
+		index.addRow(0, "Ashbaugh", 7);
+		index.removeRow(0, 0);
+
+		assertArrayEquals(new int[] { 7, 9 }, index.rowsOf(0), "Rows should be sorted");
+
+		index.clearRows();
+
+		assertEquals(0, index.rowsOf(0).length, "Clearing should forget every row");
+	}
+
+}
@@ -0,0 +1,139 @@
+package app.model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class RosterSnapshotTest {
+
+	private StudentStore store;
+
+	@BeforeEach
+	void setUp() {
+		store = new StudentStore(Arrays.asList(
+				new Student(101001, "Sylvia", "Ashbaugh", Major.BIOT, 2021),
+				new Student(101002, "Louella", "Gilroy", Major.INDS, 2022)));
+	}
+
+	@Test
+	void snapshot_should_not_see_changes_made_after_it_was_opened() {
+		try (RosterSnapshot snapshot = store.openSnapshot()) {
+			store.addAll(Arrays.asList(new Student(101003, "Khaldun", "Nassar", Major.PTAS, 2020)));
+			store.replace(new Student(101001, "Sylvia", "Ashbaugh", Major.DENT, 2021));
+			store.remove(101002);
+
+			List<Student> students = snapshot.toList();
+
+			assertEquals(2, snapshot.size(), "Snapshot should keep its size");
+			assertEquals(Arrays.asList(101001, 101002), ids(students), "Snapshot should keep its students");
+			assertEquals(Major.BIOT, students.get(0).getMajor(), "Snapshot should keep the old data");
+			assertEquals(Major.DENT, store.get(101001).getMajor(), "Store should see the update");
+			assertNull(store.get(101002), "Store should see the removal");
+		}
+	}
+
+	@Test
+	void snapshot_should_survive_compaction_of_the_store() {
+		try (RosterSnapshot snapshot = store.openSnapshot()) {
+			store.remove(101001);
+			store.remove(101002);
+
+			assertEquals(0, store.size(), "Store should be empty");
+			assertEquals(Arrays.asList(101001, 101002), ids(snapshot.toList()),
+					"Snapshot should keep rows the store compacted away");
+		}
+	}
+
+	@Test
+	void snapshots_should_have_increasing_versions() {
+		long first;
+
+		try (RosterSnapshot snapshot = store.openSnapshot()) {
+			first = snapshot.getVersion();
+		}
+
+		store.addAll(Arrays.asList(new Student(101003, "Khaldun", "Nassar", Major.PTAS, 2020)));
+
+		try (RosterSnapshot snapshot = store.openSnapshot()) {
+			assertTrue(snapshot.getVersion() > first, "A change should advance the version");
+			assertEquals(Arrays.asList(101001, 101002, 101003), ids(snapshot.toList()),
+					"New snapshot should see the change");
+		}
+	}
+
+	@Test
+	void forEach_should_only_pass_matching_students() {
+		List<Student> matches = new ArrayList<>();
+
+		try (RosterSnapshot snapshot = store.openSnapshot()) {
+			snapshot.forEach((studentId, major, academicYear) -> major == Major.INDS, matches::add);
+		}
+
+		assertEquals(Arrays.asList(101002), ids(matches), "Only the INDS student should match");
+	}
+
+	@Test
+	void snapshot_should_stay_consistent_while_writer_runs() throws InterruptedException {
+		for (int i = 0; i < 3 * StudentStore.CHUNK_SIZE; i++)
+			store.addAll(Arrays.asList(new Student(200000 + i, "First", "Last", Major.CSIS, 2022)));
+
+		AtomicBoolean running = new AtomicBoolean(true);
+		Thread writer = new Thread(() -> {
+			int round = 0;
+			while (running.get()) {
+				int id = 200000 + (round % (3 * StudentStore.CHUNK_SIZE));
+				store.replace(new Student(id, "First", "Last", (round & 1) == 0 ? Major.DENT : Major.CSIS, 2022));
+				store.addAll(Arrays.asList(new Student(900000 + round, "New", "Student", Major.BIOT, 2022)));
+				round++;
+			}
+		});
+		writer.start();
+
+		try {
+			for (int check = 0; check < 20; check++) {
+				try (RosterSnapshot snapshot = store.openSnapshot()) {
+					List<Student> first = snapshot.toList();
+					int count = 0;
+
+					for (Student student : snapshot) {
+						assertEquals(first.get(count).getMajor(), student.getMajor(),
+								"Repeated scans of one snapshot should agree");
+						count++;
+					}
+
+					assertEquals(snapshot.size(), count, "Scan should return exactly the snapshot's size");
+				}
+			}
+		} finally {
+			running.set(false);
+			writer.join();
+		}
+	}
+
+	@Test
+	void close_should_be_idempotent() {
+		RosterSnapshot snapshot = store.openSnapshot();
+
+		snapshot.close();
+		snapshot.close();
+		store.replace(new Student(101001, "Sylvia", "Ashbaugh", Major.DENT, 2021));
+
+		assertEquals(Major.DENT, store.get(101001).getMajor(), "Store should change after snapshot closed");
+	}
+
+	private static List<Integer> ids(List<Student> students) {
+		List<Integer> ids = new ArrayList<>();
+
+		for (Student student : students)
+			ids.add(student.getStudentId());
+
+		return ids;
+	}
+
+}
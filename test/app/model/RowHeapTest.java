@@ -0,0 +1,55 @@
+package app.model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class RowHeapTest {
+
+	@Test
+	void drainSorted_should_return_smallest_rows_in_order() {
+		RowHeap heap = new RowHeap(3, Integer::compare);
+
+		for (int row : new int[] { 7, 2, 9, 4, 1, 8 })
+			heap.offer(row);
+
+		assertArrayEquals(new int[] { 1, 2, 4 }, heap.drainSorted(), "Only the three smallest rows should be kept");
+		assertEquals(0, heap.size(), "Draining should empty the heap");
+	}
+
+	@Test
+	void drainSorted_should_match_full_sort_for_random_rows() {
+		Random random = new Random(42);
+		int[] rows = new int[10_000];
+		RowHeap heap = new RowHeap(100, (a, b) -> Integer.compare(b % 1000, a % 1000));
+
+		for (int i = 0; i < rows.length; i++) {
+			rows[i] = random.nextInt(1_000_000);
+			heap.offer(rows[i]);
+		}
+
+		int[] expected = Arrays.stream(rows).boxed()
+				.sorted((a, b) -> Integer.compare(b % 1000, a % 1000))
+				.mapToInt(Integer::intValue).toArray();
+		int[] actual = heap.drainSorted();
+
+		assertEquals(100, actual.length, "Heap should keep exactly its capacity");
+		for (int i = 0; i < actual.length; i++)
+			assertEquals(expected[i] % 1000, actual[i] % 1000, "Row " + i + " should sort like a full sort");
+	}
+
+	@Test
+	void offer_should_keep_nothing_with_zero_capacity() {
+		RowHeap heap = new RowHeap(0, Integer::compare);
+
+		heap.offer(1);
+
+		assertEquals(0, heap.drainSorted().length, "A heap without capacity should keep nothing");
+		assertThrows(IllegalArgumentException.class, () -> new RowHeap(-1, Integer::compare),
+				"Negative capacity should be rejected");
+	}
+
+}
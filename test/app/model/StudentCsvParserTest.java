@@ -0,0 +1,224 @@
+package app.model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class StudentCsvParserTest {
+
+	@TempDir
+	Path tempDir;
+
+	private Path csvFile;
+	private List<Student> students;
+
+	@BeforeEach
+	void setUp() {
+		csvFile = tempDir.resolve("StudentData.csv");
+		students = new ArrayList<>();
+	}
+
+	private void write(String content) throws IOException {
+		Files.write(csvFile, content.getBytes(StandardCharsets.UTF_8));
+	}
+
+	@Test
+	void parse_should_read_every_field_of_each_row() throws IOException {
+		write("101001,Sylvia,Ashbaugh,BIOT,2021\n101002,Louella,Gilroy,INDS,2022\n");
+
+		StudentCsvParser.parse(csvFile, students::add);
+
+		assertEquals(2, students.size(), "Both rows should be parsed");
+		Student student = students.get(0);
+		assertEquals(101001, student.getStudentId(), "Student ID should be parsed");
+		assertEquals("Sylvia", student.getFirstName(), "First name should be parsed");
+		assertEquals("Ashbaugh", student.getLastName(), "Last name should be parsed");
+		assertEquals(Major.BIOT, student.getMajor(), "Major should be parsed");
+		assertEquals(2021, student.getYear(), "Year should be parsed");
+	}
+
+	@Test
+	void parse_should_share_repeated_names_through_interner() throws IOException {
+		write("101001,Sylvia,Ashbaugh,BIOT,2021\n101002,Sylvia,Gilroy,INDS,2022\n101003,Louella,Ashbaugh,DENT,2020\n");
+		NameInterner names = new NameInterner();
+
+		StudentCsvParser.parse(csvFile, students::add, names);
+
+		assertSame(students.get(0).getFirstName(), students.get(1).getFirstName(),
+				"Repeated first names should share an instance");
+		assertSame(students.get(0).getLastName(), students.get(2).getLastName(),
+				"Repeated last names should share an instance");
+		assertEquals(4, names.size(), "Each distinct name should be interned once");
+		assertEquals(2, names.getStats().getHits(), "Both repeated names should be counted as hits");
+	}
+
+	@Test
+	void parse_should_resolve_every_major_code() throws IOException {
+		StringBuilder content = new StringBuilder();
+		for (Major major : Major.values())
+			content.append(101001 + major.ordinal()).append(",A,B,").append(major.name()).append(",2022\n");
+		write(content.toString());
+
+		StudentCsvParser.parse(csvFile, students::add);
+
+		assertEquals(Major.values().length, students.size(), "Every major should be parsed");
+		for (Student student : students)
+			assertEquals(Major.values()[student.getStudentId() - 101001], student.getMajor(),
+					"Major code should resolve to its constant");
+	}
+
+	@Test
+	void parse_should_handle_blank_rows_crlf_and_missing_final_newline() throws IOException {
+		write("101001,Sylvia,Ashbaugh,BIOT,2021\r\n\r\n   \n101002,Louella,Gilroy,INDS,2022");
+
+		StudentCsvParser.parse(csvFile, students::add);
+
+		assertEquals(2, students.size(), "Blank rows should be skipped");
+		assertEquals(2021, students.get(0).getYear(), "Carriage return should be stripped");
+		assertEquals("Gilroy", students.get(1).getLastName(), "Final row without newline should be parsed");
+	}
+
+	@Test
+	void parse_should_accept_lone_carriage_return_row_ends() throws IOException {
+		write("101001,Sylvia,Ashbaugh,BIOT,2021\r\r101002,Louella,Gilroy,INDS,2022\r");
+
+		StudentCsvParser.parse(csvFile, students::add);
+
+		assertEquals(2, students.size(), "A lone carriage return should end a row");
+		assertEquals(2021, students.get(0).getYear(), "Carriage return should not be parsed as data");
+		assertEquals(2022, students.get(1).getYear(), "Final carriage return should end the last row");
+	}
+
+	@Test
+	void parseFile_should_accept_mixed_row_ends_across_regions() throws IOException {
+		StringBuilder content = new StringBuilder();
+		String[] rowEnds = { "\r", "\r\n", "\n" };
+		for (int i = 0; i < 100; i++)
+			content.append(101001 + i).append(",First").append(i).append(",Last").append(i).append(",CSIS,2022")
+					.append(rowEnds[i % rowEnds.length]);
+		write(content.toString());
+
+		new StudentCsvParser(students::add).parseFile(csvFile, 64);
+		List<Student> cursorStudents = new ArrayList<>();
+		try (StudentCursor.Source source = StudentCsvParser.openSource(csvFile, StudentCursor.Filter.ALL)) {
+			for (Student student = source.next(); student != null; student = source.next())
+				cursorStudents.add(student);
+		}
+		List<Student> parallelStudents = new ArrayList<>();
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			StudentCsvParser.parseFileParallel(csvFile, 1024, 100, pool, parallelStudents::add, null);
+		} finally {
+			pool.shutdown();
+		}
+
+		assertEquals(100, students.size(), "Every row should be parsed whatever its line ending");
+		assertEquals(100, cursorStudents.size(), "Every row should be read by a cursor whatever its line ending");
+		assertEquals(100, parallelStudents.size(), "Every row should be parsed in parallel whatever its line ending");
+		for (int i = 0; i < 100; i++)
+			assertEquals("Last" + i, students.get(i).getLastName(), "Rows should be parsed in file order");
+	}
+
+	@Test
+	void parse_should_not_take_non_ascii_rows_for_blank() throws IOException {
+		write("101001,Sylvia,Ashbaugh,BIOT,2021\n\u00e9\u00a0\n");
+		ByteArrayOutputStream err = new ByteArrayOutputStream();
+		PrintStream originalErr = System.err;
+
+		try {
+			System.setErr(new PrintStream(err, true, "UTF-8"));
+			StudentCsvParser.parse(csvFile, students::add);
+		} finally {
+			System.setErr(originalErr);
+		}
+
+		assertEquals(1, students.size(), "Only the valid row should be parsed");
+		assertTrue(new String(err.toByteArray(), StandardCharsets.UTF_8).contains("\u00e9\u00a0"),
+				"Row of non-ASCII characters should be logged as invalid rather than skipped as blank");
+	}
+
+	@Test
+	void parse_should_decode_utf8_names() throws IOException {
+		write("101001,Zo\u00eb,\u00d1\u00fa\u00f1ez,BIOT,2021\n");
+
+		StudentCsvParser.parse(csvFile, students::add);
+
+		assertEquals("Zo\u00eb", students.get(0).getFirstName(), "First name should be decoded as UTF-8");
+		assertEquals("\u00d1\u00fa\u00f1ez", students.get(0).getLastName(), "Last name should be decoded as UTF-8");
+	}
+
+	@Test
+	void parse_should_skip_invalid_rows() throws IOException {
+		write("abc,Sylvia,Ashbaugh,BIOT,2021\n"
+				+ "101002,Louella,Gilroy,XXXX,2022\n"
+				+ "101003,Khaldun,Nassar,PTAS\n"
+				+ "99999999999,Katherine,Blum,DENT,2019\n"
+				+ "101005,Andrew,Williams,RELS,1999\n"
+				+ "101006,Andrew,Williams,RELS,2022\n");
+
+		StudentCsvParser.parse(csvFile, students::add);
+
+		assertEquals(1, students.size(), "Only the valid row should be parsed");
+		assertEquals(101006, students.get(0).getStudentId(), "Valid row should be parsed");
+	}
+
+	@Test
+	void parseFile_should_not_split_rows_across_regions() throws IOException {
+		StringBuilder content = new StringBuilder();
+		for (int i = 0; i < 100; i++)
+			content.append(101001 + i).append(",First").append(i).append(",Last").append(i).append(",CSIS,2022\n");
+		write(content.toString());
+
+		new StudentCsvParser(students::add).parseFile(csvFile, 64);
+
+		assertEquals(100, students.size(), "Every row should be parsed across regions");
+		for (int i = 0; i < 100; i++)
+			assertEquals("Last" + i, students.get(i).getLastName(), "Rows should be parsed in file order");
+	}
+
+	@Test
+	void parseFile_should_reject_row_longer_than_region() throws IOException {
+		write("101001,Sylvia,Ashbaugh,BIOT,2021\n101002,Louella,Gilroy,INDS,2022\n");
+
+		assertThrows(IOException.class, () -> new StudentCsvParser(students::add).parseFile(csvFile, 16),
+				"A row longer than a region should be rejected");
+	}
+
+	@Test
+	void parseFileParallel_should_match_sequential_parse_in_file_order() throws IOException {
+		StringBuilder content = new StringBuilder();
+		for (int i = 0; i < 1000; i++)
+			content.append(101001 + i).append(",First").append(i).append(",Last").append(i).append(",CSIS,2022\n");
+		content.append("bad row\n");
+		write(content.toString());
+
+		List<Student> parallelStudents = new ArrayList<>();
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			StudentCsvParser.parseFileParallel(csvFile, 4096, 100, pool, parallelStudents::add, null);
+		} finally {
+			pool.shutdown();
+		}
+		StudentCsvParser.parse(csvFile, students::add);
+
+		assertEquals(1000, parallelStudents.size(), "Every valid row should be parsed in parallel");
+		for (int i = 0; i < students.size(); i++) {
+			assertEquals(students.get(i), parallelStudents.get(i), "Parallel parse should keep file order");
+			assertEquals(students.get(i).getLastName(), parallelStudents.get(i).getLastName(),
+					"Parallel parse should read the same data");
+		}
+	}
+
+}
@@ -0,0 +1,144 @@
+package app.model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class StudentCursorTest {
+
+	@TempDir
+	Path tempDir;
+
+	private Path csvFile;
+	private Path logFile;
+	private StudentLog log;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		csvFile = tempDir.resolve("StudentData.csv");
+		logFile = tempDir.resolve("StudentData.log");
+		log = new StudentLog(logFile);
+		Files.write(csvFile, Arrays.asList(
+				"101001,Sylvia,Ashbaugh,BIOT,2021",
+				"101002,Louella,Gilroy,INDS,2022",
+				"101003,Khaldun,Nassar,PTAS,2020"));
+	}
+
+	@Test
+	void cursor_should_return_csv_rows_in_file_order() throws IOException {
+		assertEquals(Arrays.asList(101001, 101002, 101003), ids(StudentCursor.Filter.ALL),
+				"Cursor should return every row in file order");
+	}
+
+	@Test
+	void cursor_should_apply_log_on_top_of_csv_rows() throws IOException {
+		Files.write(logFile, Arrays.asList(
+				"A,101004,Katherine,Blum,DENT,2019",
+				"U,101001,Sylvia,Blum,DENT,2021",
+				"D,101002"));
+
+		List<Student> students = read(StudentCursor.Filter.ALL);
+
+		assertEquals(Arrays.asList(101001, 101003, 101004), idsOf(students),
+				"Deleted rows should be dropped and added rows returned last");
+		assertEquals("Blum", students.get(0).getLastName(), "Updated row should be returned in place");
+	}
+
+	@Test
+	void cursor_should_return_re_added_student_in_log_order() throws IOException {
+		Files.write(logFile, Arrays.asList(
+				"D,101001",
+				"A,101004,Katherine,Blum,DENT,2019",
+				"A,101001,Sylvia,Ashbaugh,BIOT,2021"));
+
+		assertEquals(Arrays.asList(101002, 101003, 101004, 101001), ids(StudentCursor.Filter.ALL),
+				"Deleted and re-added student should move to the end");
+	}
+
+	@Test
+	void cursor_should_only_return_students_matching_filter() throws IOException {
+		assertEquals(Arrays.asList(101001, 101003),
+				ids((studentId, major, academicYear) -> academicYear <= 2021),
+				"Only rows matching the filter should be returned");
+	}
+
+	@Test
+	void cursor_should_filter_on_logged_data_rather_than_stored_data() throws IOException {
+		Files.write(logFile, Arrays.asList(
+				"U,101002,Louella,Gilroy,BIOT,2022",
+				"U,101001,Sylvia,Ashbaugh,DENT,2021"));
+
+		assertEquals(Arrays.asList(101002), ids((studentId, major, academicYear) -> major == Major.BIOT),
+				"Filter should see the data after the log is applied");
+	}
+
+	@Test
+	void cursor_should_read_snapshot_source() throws IOException {
+		StudentSnapshotFile snapshot = new StudentSnapshotFile(tempDir.resolve("StudentData.bin"));
+		snapshot.write(Arrays.asList(
+				new Student(101001, "Sylvia", "Ashbaugh", Major.BIOT, 2021),
+				new Student(101002, "Louella", "Gilroy", Major.INDS, 2022)));
+		Files.write(logFile, Arrays.asList("D,101001"));
+
+		try (StudentCursor cursor = new StudentCursor(snapshot::openSource, StudentCursor.readChanges(log),
+				StudentCursor.Filter.ALL)) {
+			assertEquals(101002, cursor.next().getStudentId(), "Snapshot row should be returned");
+			assertFalse(cursor.hasNext(), "Deleted snapshot row should be dropped");
+		}
+	}
+
+	@Test
+	void close_should_end_iteration() throws IOException {
+		StudentCursor cursor = open(StudentCursor.Filter.ALL);
+		cursor.next();
+		cursor.close();
+
+		assertFalse(cursor.hasNext(), "Closed cursor should have no more students");
+	}
+
+	@Test
+	void stream_should_close_cursor_when_closed() throws IOException {
+		StudentCursor cursor = open(StudentCursor.Filter.ALL);
+
+		try (Stream<Student> stream = cursor.stream()) {
+			assertEquals(101001, stream.findFirst().get().getStudentId(), "Stream should start at the first row");
+		}
+
+		assertFalse(cursor.hasNext(), "Closing the stream should close the cursor");
+	}
+
+	private StudentCursor open(StudentCursor.Filter filter) throws IOException {
+		return new StudentCursor(rowFilter -> StudentCsvParser.openSource(csvFile, rowFilter),
+				StudentCursor.readChanges(log), filter);
+	}
+
+	private List<Student> read(StudentCursor.Filter filter) throws IOException {
+		List<Student> students = new ArrayList<>();
+
+		try (StudentCursor cursor = open(filter)) {
+			cursor.forEachRemaining(students::add);
+		}
+
+		return students;
+	}
+
+	private List<Integer> ids(StudentCursor.Filter filter) throws IOException {
+		return idsOf(read(filter));
+	}
+
+	private static List<Integer> idsOf(List<Student> students) {
+		return students.stream().map(Student::getStudentId).collect(Collectors.toList());
+	}
+
+}
@@ -0,0 +1,133 @@
+package app.model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+
+import org.junit.jupiter.api.Test;
+
+class StudentEventBusTest {
+
+	private final StudentEventBus bus = new StudentEventBus();
+	private final List<List<StudentEvent>> batches = new ArrayList<>();
+	private final Queue<Runnable> tasks = new ArrayDeque<>();
+	private final Executor queued = tasks::add;
+
+	@Test
+	void publish_should_deliver_each_batch_synchronously() {
+		bus.subscribe(batches::add, null);
+		List<Student> students = students(10_000);
+
+		bus.publish(StudentEvent.Type.ADDED, students);
+
+		assertEquals(1, batches.size(), "A whole import should be one batch");
+		assertEquals(10_000, batches.get(0).size(), "Batch should hold every added student");
+	}
+
+	@Test
+	void publish_should_coalesce_batches_while_delivery_is_queued() {
+		bus.subscribe(batches::add, queued);
+
+		for (Student student : students(100))
+			bus.publish(StudentEvent.Type.ADDED, Collections.singletonList(student));
+
+		assertEquals(1, tasks.size(), "Only one delivery should be queued");
+
+		runTasks();
+
+		assertEquals(1, batches.size(), "Queued changes should arrive as one batch");
+		assertEquals(100, batches.get(0).size(), "Batch should hold every change");
+		assertEquals(101001, batches.get(0).get(0).getStudentId(), "Batch should keep the order of changes");
+	}
+
+	@Test
+	void publish_should_merge_changes_to_the_same_student() {
+		bus.subscribe(batches::add, queued);
+		Student first = new Student(101001, "Sylvia", "Ashbaugh", Major.BIOT, 2021);
+		Student updated = new Student(101001, "Sylvia", "Ashbaugh", Major.DENT, 2021);
+		Student second = new Student(101002, "Louella", "Gilroy", Major.INDS, 2022);
+
+		bus.publish(StudentEvent.Type.ADDED, Arrays.asList(first, second));
+		bus.publish(StudentEvent.Type.UPDATED, Collections.singletonList(updated));
+		bus.publish(StudentEvent.Type.REMOVED, Collections.singletonList(second));
+		runTasks();
+
+		List<StudentEvent> batch = batches.get(0);
+
+		assertEquals(1, batch.size(), "A student added and removed should not be delivered");
+		assertEquals(StudentEvent.Type.ADDED, batch.get(0).getType(), "Add then update should stay an add");
+		assertEquals(Major.DENT, batch.get(0).getStudent().getMajor(), "Add should carry the updated data");
+	}
+
+	@Test
+	void publish_should_turn_removal_and_readd_into_update() {
+		Student student = new Student(101001, "Sylvia", "Ashbaugh", Major.BIOT, 2021);
+		bus.subscribe(batches::add, queued);
+
+		bus.publish(StudentEvent.Type.REMOVED, Collections.singletonList(student));
+		bus.publish(StudentEvent.Type.ADDED, Collections.singletonList(student));
+		runTasks();
+
+		assertEquals(StudentEvent.Type.UPDATED, batches.get(0).get(0).getType(),
+				"A listener that never saw the removal should see an update");
+	}
+
+	@Test
+	void publish_should_queue_next_delivery_for_changes_made_during_one() {
+		bus.subscribe(events -> {
+			batches.add(events);
+			if (batches.size() == 1)
+				bus.publish(StudentEvent.Type.ADDED, students(1));
+		}, queued);
+
+		bus.publish(StudentEvent.Type.ADDED, students(2));
+		runTasks();
+
+		assertEquals(2, batches.size(), "Changes made during a delivery should arrive in the next one");
+	}
+
+	@Test
+	void publish_should_keep_delivering_after_listener_throws() {
+		bus.subscribe(events -> {
+			throw new IllegalStateException("Listener failure");
+		}, null);
+		bus.subscribe(batches::add, null);
+
+		bus.publish(StudentEvent.Type.ADDED, students(1));
+
+		assertEquals(1, batches.size(), "Other listeners should still be called");
+	}
+
+	@Test
+	void unsubscribe_should_stop_delivery() {
+		StudentChangeListener listener = batches::add;
+		bus.subscribe(listener, null);
+
+		assertTrue(bus.unsubscribe(listener), "Subscribed listener should be removed");
+		bus.publish(StudentEvent.Type.ADDED, students(1));
+
+		assertTrue(batches.isEmpty(), "Removed listener should not be called");
+		assertFalse(bus.unsubscribe(listener), "Listener should only be removed once");
+	}
+
+	private void runTasks() {
+		while (!tasks.isEmpty())
+			tasks.poll().run();
+	}
+
+	private static List<Student> students(int count) {
+		List<Student> students = new ArrayList<>(count);
+
+		for (int i = 0; i < count; i++)
+			students.add(new Student(101001 + i, "First" + i, "Last" + i, Major.CSIS, 2022));
+
+		return students;
+	}
+
+}
@@ -0,0 +1,85 @@
+package app.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntSupplier;
+
+/**
+ * Benchmark comparing ID generation through a {@link StudentIdAllocator}
+ * against a single shared {@link AtomicInteger}, which every thread increments.
+ * <p>
+ * For each thread count from one up to twice the number of available
+ * processors, every thread draws the same number of IDs and the combined
+ * throughput is printed. On a machine with several cores, the shared counter's
+ * throughput should fall as threads are added, since every increment contends
+ * for one cache line, while the allocator's should grow.
+ * <p>
+ * Not run as part of the test suite. Run with {@code java app.model.StudentIdAllocatorBenchmark
+ * [idsPerThread]}.
+ *
+ * @author Elli Steck
+ * @see StudentIdAllocator
+ */
+class StudentIdAllocatorBenchmark {
+
+	private static final int ROUNDS = 3;
+
+	public static void main(String[] args) throws InterruptedException {
+		int perThread = args.length > 0 ? Integer.parseInt(args[0]) : 5_000_000;
+		int processors = Runtime.getRuntime().availableProcessors();
+
+		System.out.println("idsPerThread=" + perThread + ", processors=" + processors);
+
+		for (int round = 0; round < ROUNDS; round++) {
+			for (int threads = 1; threads <= processors * 2; threads *= 2) {
+				AtomicInteger counter = new AtomicInteger();
+				StudentIdAllocator allocator = new StudentIdAllocator();
+				allocator.reset(0, null);
+
+				double shared = run(threads, perThread, counter::getAndIncrement);
+				double blocks = run(threads, perThread, allocator::nextId);
+				System.out.printf("threads=%d shared counter=%,.0f ids/s allocator=%,.0f ids/s%n", threads, shared,
+						blocks);
+			}
+		}
+	}
+
+	/**
+	 * Draws IDs from the given source on the given number of threads and returns
+	 * the combined throughput.
+	 */
+	private static double run(int threads, int perThread, IntSupplier ids) throws InterruptedException {
+		CountDownLatch start = new CountDownLatch(1);
+		List<Thread> workers = new ArrayList<>();
+		int[] sinks = new int[threads];
+
+		for (int t = 0; t < threads; t++) {
+			int index = t;
+			workers.add(new Thread(() -> {
+				try {
+					start.await();
+				} catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+
+				int sink = 0;
+				for (int i = 0; i < perThread; i++)
+					sink ^= ids.getAsInt();
+				sinks[index] = sink;
+			}));
+		}
+
+		workers.forEach(Thread::start);
+		long startNanos = System.nanoTime();
+		start.countDown();
+
+		for (Thread worker : workers)
+			worker.join();
+
+		return (double) threads * perThread / ((System.nanoTime() - startNanos) / 1e9);
+	}
+
+}
@@ -0,0 +1,123 @@
+package app.model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class StudentIdAllocatorTest {
+
+	@TempDir
+	Path tempDir;
+
+	@Test
+	void nextId_should_hand_out_consecutive_ids_on_one_thread() {
+		StudentIdAllocator allocator = new StudentIdAllocator(4);
+		allocator.reset(101001, null);
+
+		for (int expected = 101001; expected < 101011; expected++)
+			assertEquals(expected, allocator.nextId(), "IDs should follow each other across blocks");
+	}
+
+	@Test
+	void nextId_should_never_repeat_across_threads() throws InterruptedException {
+		StudentIdAllocator allocator = new StudentIdAllocator(8);
+		allocator.reset(1, null);
+		int threads = 8;
+		int perThread = 10_000;
+		List<int[]> results = new ArrayList<>();
+		List<Thread> workers = new ArrayList<>();
+		CountDownLatch start = new CountDownLatch(1);
+
+		for (int t = 0; t < threads; t++) {
+			int[] ids = new int[perThread];
+			results.add(ids);
+			workers.add(new Thread(() -> {
+				try {
+					start.await();
+				} catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+				}
+				for (int i = 0; i < perThread; i++)
+					ids[i] = allocator.nextId();
+			}));
+		}
+
+		workers.forEach(Thread::start);
+		start.countDown();
+		for (Thread worker : workers)
+			worker.join();
+
+		Set<Integer> seen = new HashSet<>();
+		for (int[] ids : results) {
+			for (int id : ids)
+				assertTrue(seen.add(id), "ID " + id + " should be handed out once");
+		}
+	}
+
+	@Test
+	void reserveRange_should_not_overlap_blocks() {
+		StudentIdAllocator allocator = new StudentIdAllocator(4);
+		allocator.reset(100, null);
+
+		int first = allocator.nextId();
+		int range = allocator.reserveRange(1000);
+		int after = allocator.nextId();
+
+		assertEquals(100, first, "First ID should start the first block");
+		assertEquals(104, range, "Range should start after the thread's block");
+		assertEquals(101, after, "Thread should keep using its block after the range");
+		assertEquals(1104, allocator.getNext(), "Counter should move past the whole range");
+		assertThrows(IllegalArgumentException.class, () -> allocator.reserveRange(0),
+				"An empty range should be rejected");
+	}
+
+	@Test
+	void reset_should_discard_blocks_of_every_thread() {
+		StudentIdAllocator allocator = new StudentIdAllocator();
+		allocator.reset(500, null);
+		allocator.nextId();
+
+		allocator.reset(900, null);
+
+		assertEquals(900, allocator.nextId(), "Reset should take effect on a thread holding a block");
+	}
+
+	@Test
+	void mark_should_stay_ahead_of_handed_out_ids() throws IOException {
+		Path markFile = tempDir.resolve("StudentData.ids");
+		StudentIdAllocator allocator = new StudentIdAllocator(16);
+		allocator.reset(101001, markFile);
+
+		int last = 0;
+		for (int i = 0; i < StudentIdAllocator.RESERVE_AHEAD * 2; i++)
+			last = allocator.nextId();
+
+		long mark = StudentIdAllocator.readMark(markFile);
+
+		assertTrue(mark > last, "Mark should be above every ID handed out");
+		assertTrue(mark <= allocator.getNext() + StudentIdAllocator.RESERVE_AHEAD,
+				"Mark should not run far ahead of the counter");
+	}
+
+	@Test
+	void readMark_should_ignore_missing_or_invalid_file() throws IOException {
+		Path markFile = tempDir.resolve("StudentData.ids");
+
+		assertEquals(0, StudentIdAllocator.readMark(markFile), "Missing file should give no mark");
+
+		Files.write(markFile, "garbage".getBytes());
+
+		assertEquals(0, StudentIdAllocator.readMark(markFile), "Invalid file should give no mark");
+	}
+
+}
@@ -0,0 +1,95 @@
+package app.model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class StudentLogTest {
+
+	@TempDir
+	Path tempDir;
+
+	private Path logFile;
+	private StudentLog log;
+	private Map<Integer, Student> students;
+
+	@BeforeEach
+	void setUp() {
+		logFile = tempDir.resolve("StudentData.log");
+		log = new StudentLog(logFile);
+		students = new LinkedHashMap<>();
+		students.put(101001, new Student(101001, "Sylvia", "Ashbaugh", Major.BIOT, 2021));
+		students.put(101002, new Student(101002, "Louella", "Gilroy", Major.INDS, 2022));
+	}
+
+	@Test
+	void append_should_write_one_line_per_entry() throws IOException {
+		log.append(StudentLog.Operation.ADD, new Student(101003, "Khaldun", "Nassar", Major.PTAS, 2020));
+		log.append(StudentLog.Operation.DELETE, new Student(101001, "Sylvia", "Ashbaugh", Major.BIOT, 2021)).join();
+
+		assertEquals(Arrays.asList("A,101003,Khaldun,Nassar,PTAS,2020", "D,101001"), Files.readAllLines(logFile),
+				"Log should contain one line per entry");
+		assertEquals(2, log.getEntryCount(), "Entry count should match appended entries");
+	}
+
+	@Test
+	void truncate_should_keep_entries_queued_after_compaction_began() throws IOException {
+		log.append(StudentLog.Operation.ADD, new Student(101003, "Khaldun", "Nassar", Major.PTAS, 2020));
+		int compactedEntries = log.getEntryCount();
+		log.getWriter().submit(() -> log.truncate(compactedEntries));
+		log.append(StudentLog.Operation.ADD, new Student(101004, "Katherine", "Blum", Major.DENT, 2019)).join();
+
+		assertEquals(Arrays.asList("A,101004,Katherine,Blum,DENT,2019"), Files.readAllLines(logFile),
+				"Only the entry queued after the truncation should remain");
+		assertEquals(1, log.getEntryCount(), "Entry count should only include the remaining entry");
+	}
+
+	@Test
+	void replay_should_apply_adds_updates_and_deletes_in_order() throws IOException {
+		Files.write(logFile, Arrays.asList(
+				"A,101003,Khaldun,Nassar,PTAS,2020",
+				"U,101001,Sylvia,Blum,DENT,2021",
+				"D,101002"));
+
+		log.replay(students);
+
+		assertEquals(Arrays.asList(101001, 101003), Arrays.asList(students.keySet().toArray()),
+				"Replay should keep insertion order and drop deleted students");
+		assertEquals("Blum", students.get(101001).getLastName(), "Update should replace the student's data");
+		assertEquals(3, log.getEntryCount(), "Entry count should match replayed entries");
+	}
+
+	@Test
+	void replay_should_skip_malformed_entries() throws IOException {
+		Files.write(logFile, Arrays.asList(
+				"A,101003,Khaldun,Nassar,PTAS,2020",
+				"X,101004",
+				"A,101005,Andrew,Will"));
+
+		log.replay(students);
+
+		assertEquals(3, students.size(), "Only the valid entry should be replayed");
+	}
+
+	@Test
+	void truncate_should_remove_all_entries() throws IOException {
+		log.append(StudentLog.Operation.ADD, new Student(101003, "Khaldun", "Nassar", Major.PTAS, 2020)).join();
+
+		log.getWriter().submit(() -> log.truncate(log.getEntryCount())).join();
+		log.replay(students);
+
+		assertFalse(Files.exists(logFile), "Log file should be removed");
+		assertEquals(0, log.getEntryCount(), "Entry count should be reset");
+		assertEquals(2, students.size(), "Nothing should be replayed after truncation");
+	}
+
+}
@@ -0,0 +1,301 @@
+package app.model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class StudentLogWriterTest {
+
+	@TempDir
+	Path tempDir;
+
+	private Path logFile;
+	private StudentLogWriter writer;
+
+	@BeforeEach
+	void setUp() {
+		logFile = tempDir.resolve("StudentData.log");
+		writer = new StudentLogWriter(logFile);
+	}
+
+	private static byte[] bytes(String text) {
+		return text.getBytes(StandardCharsets.UTF_8);
+	}
+
+	@Test
+	void write_should_append_mutations_in_queue_order() throws IOException {
+		for (StudentLogWriter.Durability durability : StudentLogWriter.Durability.values()) {
+			writer.setDurability(durability);
+			writer.write(bytes(durability.name() + "\n")).join();
+		}
+
+		assertEquals("SYNC_EACH\nGROUP_SYNC\nOS_BUFFERED\n", new String(Files.readAllBytes(logFile),
+				StandardCharsets.UTF_8), "Mutations should be appended in order under every durability mode");
+	}
+
+	@Test
+	void write_should_group_mutations_queued_together() throws Exception {
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		writer.submit(() -> {
+			started.countDown();
+			try {
+				release.await();
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		List<CompletableFuture<Void>> futures = new ArrayList<>();
+
+		try {
+			// Queues the writes only once the writer thread is blocked, so they cannot be taken one by one.
+			assertTrue(started.await(5, TimeUnit.SECONDS), "Writer thread should start the blocking task");
+
+			for (int i = 0; i < 100; i++)
+				futures.add(writer.write(bytes(i + "\n")));
+
+			assertEquals(100, writer.getMetrics().getQueueDepth(), "Blocked writer should report its queue depth");
+		} finally {
+			release.countDown();
+		}
+
+		CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+
+		StudentLogWriter.Metrics metrics = writer.getMetrics();
+		assertEquals(100, metrics.getMutations(), "Every mutation should be written");
+		assertEquals(1, metrics.getCommits(), "Queued mutations should be written as one group");
+		assertTrue(metrics.getMaxLatencyNanos() >= metrics.getAverageLatencyNanos(),
+				"Maximum latency should be at least the average");
+		assertEquals(100, Files.readAllLines(logFile).size(), "Every mutation should be in the file");
+	}
+
+	@Test
+	void write_should_commit_each_mutation_separately_with_sync_each() {
+		writer.setDurability(StudentLogWriter.Durability.SYNC_EACH);
+		CountDownLatch release = new CountDownLatch(1);
+		writer.submit(() -> {
+			try {
+				release.await();
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+		});
+
+		CompletableFuture<Void> first = writer.write(bytes("1\n"));
+		CompletableFuture<Void> second = writer.write(bytes("2\n"));
+		release.countDown();
+		CompletableFuture.allOf(first, second).join();
+
+		assertEquals(2, writer.getMetrics().getCommits(), "Each mutation should get its own commit");
+	}
+
+	@Test
+	void submit_should_run_after_mutations_queued_before_it() throws IOException {
+		writer.write(bytes("before\n"));
+		List<String> seen = new ArrayList<>();
+
+		writer.submit(() -> seen.addAll(Files.readAllLines(logFile))).join();
+
+		assertEquals(1, seen.size(), "Task should see the mutation queued before it");
+	}
+
+	@Test
+	void write_should_fail_future_when_file_cannot_be_written() throws IOException {
+		Files.createDirectory(logFile);
+
+		CompletableFuture<Void> future = writer.write(bytes("row\n"));
+
+		CompletionException ex = assertThrows(CompletionException.class, future::join,
+				"Future should fail when the log cannot be written");
+		assertTrue(ex.getCause() instanceof IOException, "Failure should be the underlying IOException");
+	}
+
+	@Test
+	void write_should_truncate_partial_group_when_force_fails() throws Exception {
+		FaultyChannel[] channels = new FaultyChannel[1];
+		writer = new StudentLogWriter(logFile) {
+			@Override
+			FileChannel openChannel() throws IOException {
+				channels[0] = new FaultyChannel(super.openChannel());
+				return channels[0];
+			}
+		};
+
+		writer.write(bytes("first\n")).join();
+		channels[0].failForce = true;
+
+		assertThrows(CompletionException.class, () -> writer.write(bytes("torn\n")).join(),
+				"Future should fail when the log cannot be forced");
+		assertEquals("first\n", new String(Files.readAllBytes(logFile), StandardCharsets.UTF_8),
+				"Failed group should be truncated from the log");
+
+		writer.write(bytes("second\n")).join();
+
+		assertEquals("first\nsecond\n", new String(Files.readAllBytes(logFile), StandardCharsets.UTF_8),
+				"Writes after a recovered failure should append to the truncated log");
+	}
+
+	@Test
+	void write_should_reject_mutations_once_truncate_fails() throws Exception {
+		FaultyChannel[] channels = new FaultyChannel[1];
+		writer = new StudentLogWriter(logFile) {
+			@Override
+			FileChannel openChannel() throws IOException {
+				channels[0] = new FaultyChannel(super.openChannel());
+				return channels[0];
+			}
+		};
+
+		writer.write(bytes("first\n")).join();
+		channels[0].failForce = true;
+		channels[0].failTruncate = true;
+
+		assertThrows(CompletionException.class, () -> writer.write(bytes("torn\n")).join(),
+				"Future should fail when the log cannot be forced");
+
+		CompletionException ex = assertThrows(CompletionException.class,
+				() -> writer.write(bytes("second\n")).join(), "Writer should reject mutations after a failed truncate");
+		assertTrue(ex.getCause() instanceof IOException, "Failure should be an IOException");
+		assertEquals("first\ntorn\n", new String(Files.readAllBytes(logFile), StandardCharsets.UTF_8),
+				"Nothing should be appended after the torn group");
+	}
+
+	@Test
+	void close_should_drain_queue_and_reject_later_writes() throws Exception {
+		CompletableFuture<Void> queued = writer.write(bytes("row\n"));
+
+		writer.close(5, TimeUnit.SECONDS);
+
+		assertTrue(queued.isDone() && !queued.isCompletedExceptionally(), "Queued write should be drained");
+		assertThrows(CompletionException.class, () -> writer.write(bytes("late\n")).join(),
+				"Writes after close should fail");
+	}
+
+	/**
+	 * A file channel that can be made to fail its force and truncate calls.
+	 */
+	private static final class FaultyChannel extends FileChannel {
+
+		private final FileChannel delegate;
+		volatile boolean failForce;
+		volatile boolean failTruncate;
+
+		FaultyChannel(FileChannel delegate) {
+			this.delegate = delegate;
+		}
+
+		@Override
+		public int read(ByteBuffer dst) throws IOException {
+			return delegate.read(dst);
+		}
+
+		@Override
+		public long read(ByteBuffer[] dsts, int offset, int length) throws IOException {
+			return delegate.read(dsts, offset, length);
+		}
+
+		@Override
+		public int write(ByteBuffer src) throws IOException {
+			return delegate.write(src);
+		}
+
+		@Override
+		public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+			return delegate.write(srcs, offset, length);
+		}
+
+		@Override
+		public long position() throws IOException {
+			return delegate.position();
+		}
+
+		@Override
+		public FileChannel position(long newPosition) throws IOException {
+			delegate.position(newPosition);
+			return this;
+		}
+
+		@Override
+		public long size() throws IOException {
+			return delegate.size();
+		}
+
+		@Override
+		public FileChannel truncate(long size) throws IOException {
+			if (failTruncate)
+				throw new IOException("Simulated truncate failure");
+
+			delegate.truncate(size);
+			return this;
+		}
+
+		@Override
+		public void force(boolean metaData) throws IOException {
+			if (failForce)
+				throw new IOException("Simulated force failure");
+
+			delegate.force(metaData);
+		}
+
+		@Override
+		public long transferTo(long position, long count, WritableByteChannel target) throws IOException {
+			return delegate.transferTo(position, count, target);
+		}
+
+		@Override
+		public long transferFrom(ReadableByteChannel src, long position, long count) throws IOException {
+			return delegate.transferFrom(src, position, count);
+		}
+
+		@Override
+		public int read(ByteBuffer dst, long position) throws IOException {
+			return delegate.read(dst, position);
+		}
+
+		@Override
+		public int write(ByteBuffer src, long position) throws IOException {
+			return delegate.write(src, position);
+		}
+
+		@Override
+		public MappedByteBuffer map(MapMode mode, long position, long size) throws IOException {
+			return delegate.map(mode, position, size);
+		}
+
+		@Override
+		public FileLock lock(long position, long size, boolean shared) throws IOException {
+			return delegate.lock(position, size, shared);
+		}
+
+		@Override
+		public FileLock tryLock(long position, long size, boolean shared) throws IOException {
+			return delegate.tryLock(position, size, shared);
+		}
+
+		@Override
+		protected void implCloseChannel() throws IOException {
+			delegate.close();
+		}
+
+	}
+
+}
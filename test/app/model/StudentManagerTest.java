@@ -2,13 +2,538 @@ package app.model;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 class StudentManagerTest {
 
+	@TempDir
+	Path tempDir;
+
+	private Path csvFile;
+	private Path logFile;
+	private Path snapshotFile;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		csvFile = tempDir.resolve("StudentData.csv");
+		logFile = tempDir.resolve("StudentData.log");
+		snapshotFile = tempDir.resolve("StudentData.bin");
+		Files.write(csvFile, Arrays.asList(
+				"101001,Sylvia,Ashbaugh,BIOT,2021",
+				"101002,Louella,Gilroy,INDS,2022"));
+		StudentManager.useDataFile(csvFile);
+	}
+
+	@AfterEach
+	void tearDown() {
+		// Background log, snapshot and compaction writes must finish before the temp dir is deleted
+		StudentManager.awaitPendingWrites();
+	}
+
+	@Test
+	void getStudents_should_load_students_from_csv_file() throws IOException {
+		assertEquals(2, StudentManager.getStudents().size(), "Both students should be loaded");
+		assertTrue(StudentManager.getStudents().contains(new Student(101001, "Sylvia", "Ashbaugh", Major.BIOT, 2021)),
+				"Loaded students should contain 101001");
+	}
+
+	@Test
+	void addStudent_should_append_to_log_without_rewriting_csv() throws IOException {
+		List<String> csvBefore = Files.readAllLines(csvFile);
+
+		StudentManager.addStudent(new Student(101003, "Khaldun", "Nassar", Major.PTAS, 2020));
+
+		assertEquals(csvBefore, Files.readAllLines(csvFile), "CSV file should not be rewritten");
+		assertEquals(Arrays.asList("A,101003,Khaldun,Nassar,PTAS,2020"), Files.readAllLines(logFile),
+				"Added student should be appended to the log");
+	}
+
+	@Test
+	void getStudents_should_replay_log_on_top_of_csv_file() throws IOException {
+		StudentManager.addStudent(new Student(101003, "Khaldun", "Nassar", Major.PTAS, 2020));
+
+		StudentManager.useDataFile(csvFile);
+		Student[] students = StudentManager.getStudents().toArray(new Student[0]);
+
+		assertEquals(3, students.length, "Logged student should be replayed");
+		assertEquals(101003, students[2].getStudentId(), "Logged student should come after CSV students");
+	}
+
+	@Test
+	void addStudent_should_continue_ids_after_replayed_log() throws IOException {
+		StudentManager.addStudent(new Student(101010, "Katherine", "Blum", Major.DENT, 2019));
+
+		StudentManager.useDataFile(csvFile);
+		StudentManager.getStudents();
+
+		assertEquals(101011, new Student("Andrew", "Williams", Major.RELS, 2022).getStudentId(),
+				"Next ID should follow the highest replayed ID");
+	}
+
+	@Test
+	void addStudent_should_compact_log_into_csv_past_threshold() throws IOException {
+		for (int i = 0; i < StudentManager.COMPACTION_THRESHOLD; i++)
+			StudentManager.addStudent(new Student(200000 + i, "First" + i, "Last" + i, Major.CSIS, 2022));
+
+		StudentManager.awaitPendingWrites();
+
+		assertFalse(Files.exists(logFile), "Log should be truncated after compaction");
+		assertEquals(2 + StudentManager.COMPACTION_THRESHOLD, Files.readAllLines(csvFile).size(),
+				"CSV file should contain every student after compaction");
+
+		StudentManager.useDataFile(csvFile);
+		assertEquals(2 + StudentManager.COMPACTION_THRESHOLD, StudentManager.getStudents().size(),
+				"Students should survive a reload after compaction");
+	}
+
+	@Test
+	void getStudents_should_write_snapshot_after_parsing_csv() throws IOException {
+		StudentManager.getStudents();
+		StudentManager.awaitPendingWrites();
+
+		assertTrue(Files.exists(snapshotFile), "Snapshot should be written after parsing the CSV file");
+	}
+
+	@Test
+	void getStudents_should_load_snapshot_when_newer_than_csv() throws IOException {
+		new StudentSnapshotFile(snapshotFile).write(Arrays.asList(
+				new Student(101001, "Sylvia", "Ashbaugh", Major.BIOT, 2021)));
+		Files.setLastModifiedTime(csvFile, FileTime.fromMillis(1000));
+
+		assertEquals(1, StudentManager.getStudents().size(), "Students should be loaded from the snapshot");
+	}
+
+	@Test
+	void getStudents_should_fall_back_to_csv_when_snapshot_is_stale_or_corrupted() throws IOException {
+		new StudentSnapshotFile(snapshotFile).write(Arrays.asList(
+				new Student(101001, "Sylvia", "Ashbaugh", Major.BIOT, 2021)));
+		Files.setLastModifiedTime(snapshotFile, FileTime.fromMillis(1000));
+
+		assertEquals(2, StudentManager.getStudents().size(), "Stale snapshot should be ignored");
+
+		Files.write(snapshotFile, new byte[] { 1, 2, 3 });
+		Files.setLastModifiedTime(csvFile, FileTime.fromMillis(1000));
+		StudentManager.useDataFile(csvFile);
+
+		assertEquals(2, StudentManager.getStudents().size(), "Corrupted snapshot should be ignored");
+	}
+
+	@Test
+	void getStudents_should_pass_each_student_to_listener_once_when_snapshot_is_corrupted() throws IOException {
+		new StudentSnapshotFile(snapshotFile).write(Arrays.asList(
+				new Student(101001, "Sylvia", "Ashbaugh", Major.BIOT, 2021),
+				new Student(101002, "Louella", "Gilroy", Major.INDS, 2022)));
+		StudentSnapshotFileTest.corruptRowKeepingChecksum(snapshotFile, 1);
+		Files.setLastModifiedTime(csvFile, FileTime.fromMillis(1000));
+		List<Integer> seen = new ArrayList<>();
+
+		StudentManager.getStudents(student -> seen.add(student.getStudentId()));
+
+		assertEquals(Arrays.asList(101001, 101002), seen, "Each student should be passed on once, from the CSV file");
+	}
+
+	@Test
+	void addStudents_should_report_result_for_each_student_in_order() throws IOException {
+		Student valid = new Student(101003, "Khaldun", "Nassar", Major.PTAS, 2020);
+		Student existing = new Student(101001, "Sylvia", "Ashbaugh", Major.BIOT, 2021);
+		Student repeated = new Student(101003, "Katherine", "Blum", Major.DENT, 2019);
+		Student invalid = new Student(101004, "Andrew", "Williams", Major.RELS, 2022);
+		invalid.setLastName("Williams,Jr");
+
+		List<StudentManager.AddResult> results = StudentManager.addStudents(
+				Arrays.asList(valid, existing, repeated, invalid, null));
+
+		assertEquals(Arrays.asList(StudentManager.AddResult.ADDED, StudentManager.AddResult.DUPLICATE,
+				StudentManager.AddResult.DUPLICATE, StudentManager.AddResult.INVALID,
+				StudentManager.AddResult.INVALID), results, "Each student should get its own result");
+		assertEquals(3, StudentManager.getStudents().size(), "Only the valid student should be added");
+	}
+
+	@Test
+	void importStudents_should_add_rows_with_ids_from_one_reserved_range() throws IOException {
+		Path importFile = tempDir.resolve("Import.csv");
+		Files.write(importFile, Arrays.asList(
+				"Khaldun,Nassar,PTAS,2020",
+				"",
+				"Katherine,Blum,NOPE,2019",
+				"Andrew,Williams,RELS,2022"));
+		StudentManager.getStudents();
+		// A block taken before the import must not overlap the reserved range
+		int blockId = new Student("Ada", "Lovelace", Major.CSIS, 2023).getStudentId();
+
+		Map<Student, StudentManager.AddResult> imported = StudentManager.importStudents(importFile);
+		List<Student> students = new ArrayList<>(imported.keySet());
+
+		assertEquals(2, students.size(), "Unparseable row should be skipped");
+		assertEquals(blockId + StudentIdAllocator.DEFAULT_BLOCK_SIZE, students.get(0).getStudentId(),
+				"Range should start after the block already taken by this thread");
+		assertEquals(students.get(0).getStudentId() + 2, students.get(1).getStudentId(),
+				"Rows should get consecutive IDs from one range, skipping the bad row's ID");
+		assertEquals(Arrays.asList(StudentManager.AddResult.ADDED, StudentManager.AddResult.ADDED),
+				new ArrayList<>(imported.values()), "Every parsed row should be added");
+
+		StudentManager.useDataFile(csvFile);
+
+		assertEquals(4, StudentManager.getStudents().size(), "Imported students should survive a reload");
+		assertTrue(StudentManager.getStudents().contains(students.get(1)), "Imported student should be reloaded");
+	}
+
+	@Test
+	void addStudents_should_log_whole_batch() throws IOException {
+		StudentManager.addStudents(Arrays.asList(
+				new Student(101003, "Khaldun", "Nassar", Major.PTAS, 2020),
+				new Student(101004, "Katherine", "Blum", Major.DENT, 2019)));
+
+		assertEquals(Arrays.asList("A,101003,Khaldun,Nassar,PTAS,2020", "A,101004,Katherine,Blum,DENT,2019"),
+				Files.readAllLines(logFile), "Every added student should be logged in batch order");
+
+		StudentManager.useDataFile(csvFile);
+		assertEquals(4, StudentManager.getStudents().size(), "Batch should survive a reload");
+	}
+
+	@Test
+	void addStudentAsync_should_complete_once_written() throws IOException {
+		StudentManager.AddResult result = StudentManager.addStudentAsync(
+				new Student(101003, "Khaldun", "Nassar", Major.PTAS, 2020)).join();
+
+		assertEquals(StudentManager.AddResult.ADDED, result, "Student should be added");
+		assertEquals(1, Files.readAllLines(logFile).size(), "Student should be written when the future completes");
+	}
+
+	@Test
+	void addStudentAsync_should_roll_back_when_write_fails() throws IOException {
+		StudentManager.getStudents();
+		Files.createDirectory(logFile);
+		Student student = new Student(101003, "Khaldun", "Nassar", Major.PTAS, 2020);
+
+		assertThrows(IOException.class, () -> StudentManager.addStudent(student),
+				"Failed write should be reported");
+		assertFalse(StudentManager.getStudents().contains(student), "Failed student should be rolled back");
+	}
+
+	@Test
+	void addStudent_should_not_compact_students_whose_write_fails() throws IOException {
+		StudentManager.getStudents();
+		Files.createDirectory(logFile);
+
+		// Every write fails, but is still counted toward the compaction threshold,
+		// so the last add pins the roster while its own write is pending.
+		for (int i = 0; i < StudentManager.COMPACTION_THRESHOLD; i++) {
+			Student student = new Student(200000 + i, "First" + i, "Last" + i, Major.CSIS, 2022);
+			assertThrows(IOException.class, () -> StudentManager.addStudent(student),
+					"Failed write should be reported");
+		}
+
+		StudentManager.awaitPendingWrites();
+
+		assertEquals(2, Files.readAllLines(csvFile).size(), "Rolled-back students should not be compacted");
+		StudentManager.useDataFile(csvFile);
+		assertEquals(2, StudentManager.getStudents().size(), "Rolled-back students should not survive a reload");
+	}
+
+	@Test
+	void getStudents_should_remove_temp_files_left_by_interrupted_save() throws IOException {
+		Path leftover = tempDir.resolve("StudentData.csv.tmp");
+		Files.write(leftover, Arrays.asList("101001,Syl"));
+
+		assertEquals(2, StudentManager.getStudents().size(), "Original CSV file should be loaded");
+		assertFalse(Files.exists(leftover), "Leftover temporary file should be removed");
+	}
+
+	@Test
+	void streamStudents_should_include_changes_not_yet_compacted() throws IOException {
+		StudentManager.addStudent(new Student(101003, "Khaldun", "Nassar", Major.PTAS, 2020));
+
+		try (Stream<Student> stream = StudentManager.streamStudents()) {
+			assertEquals(Arrays.asList(101001, 101002, 101003),
+					stream.map(Student::getStudentId).collect(Collectors.toList()),
+					"Stream should return the CSV rows followed by the logged student");
+		}
+	}
+
+	@Test
+	void streamStudents_should_only_return_students_matching_filter() throws IOException {
+		try (Stream<Student> stream = StudentManager.streamStudents(
+				(studentId, major, academicYear) -> major == Major.INDS)) {
+			assertEquals(Arrays.asList(101002), stream.map(Student::getStudentId).collect(Collectors.toList()),
+					"Only the matching student should be returned");
+		}
+	}
+
+	@Test
+	void findStudents_should_return_added_students_matching_both_criteria() throws IOException {
+		StudentManager.addStudent(new Student(101003, "Khaldun", "Nassar", Major.BIOT, 2022));
+
+		assertEquals(Arrays.asList(new Student(101003, "Khaldun", "Nassar", Major.BIOT, 2022)),
+				StudentManager.findStudents(Major.BIOT, 2022), "Only the added BIOT student from 2022 should match");
+	}
+
+	@Test
+	void getLoadStats_should_report_shared_names_of_last_load() throws IOException {
+		Files.write(csvFile, Arrays.asList(
+				"101001,Sylvia,Ashbaugh,BIOT,2021",
+				"101002,Sylvia,Ashbaugh,INDS,2022"));
+		StudentManager.useDataFile(csvFile);
+
+		StudentManager.getStudents();
+		StudentManager.LoadStats stats = StudentManager.getLoadStats();
+
+		assertFalse(stats.isFromSnapshot(), "Roster should have been parsed from the CSV file");
+		assertEquals(2, stats.getStudents(), "Both students should be counted");
+		assertEquals(2, stats.getDistinctNames(), "Each distinct name should be interned once");
+		assertEquals(2, stats.getSharedNames(), "Repeated names should be shared");
+		assertTrue(stats.getEstimatedBytesSaved() > 0, "Sharing names should save heap");
+		assertTrue(stats.getLoadNanos() > 0, "Load time should be recorded");
+	}
+
+	@Test
+	void query_should_page_added_and_loaded_students() throws IOException {
+		StudentManager.addStudent(new Student(101003, "Khaldun", "Nassar", Major.BIOT, 2022));
+
+		StudentQuery.Result result = StudentManager.query(new StudentQuery()
+				.major(Major.BIOT).sortBy(StudentQuery.SortKey.STUDENT_ID, false).limit(1));
+
+		assertEquals(Arrays.asList(new Student(101003, "Khaldun", "Nassar", Major.BIOT, 2022)), result.getStudents(),
+				"Highest BIOT student ID should come first");
+		assertEquals(2, result.getTotalMatches(), "Both BIOT students should match");
+		assertEquals(StudentQuery.Plan.INDEX, result.getPlan(), "Major criterion should use the index");
+	}
+
+	@Test
+	void searchByLastName_should_find_added_students() throws IOException {
+		StudentManager.addStudent(new Student(101003, "Khaldun", "Nassar", Major.BIOT, 2022));
+
+		assertEquals(Arrays.asList(new Student(101003, "Khaldun", "Nassar", Major.BIOT, 2022)),
+				StudentManager.searchByLastName("Nasar", 5), "Misspelled last name should find the added student");
+		assertEquals(Arrays.asList(new Student(101002, "Louella", "Gilroy", Major.INDS, 2022)),
+				StudentManager.searchByLastNamePrefix("gil", 5), "Prefix should find the loaded student");
+	}
+
+	@Test
+	void getEnrollment_should_count_added_students_without_rescanning() throws IOException {
+		EnrollmentSnapshot before = StudentManager.getEnrollment();
+		StudentManager.addStudent(new Student(101003, "Khaldun", "Nassar", Major.BIOT, 2022));
+		EnrollmentSnapshot after = StudentManager.getEnrollment();
+
+		assertEquals(2, before.getTotal(), "Loaded students should be counted");
+		assertEquals(3, after.getTotal(), "Added student should be counted");
+		assertEquals(2, after.getCount(Major.BIOT), "Both BIOT students should be counted");
+		assertEquals(1, after.getCount(Major.BIOT, 2022), "Added student should be counted under BIOT 2022");
+		assertTrue(after.getVersion() > before.getVersion(), "Version should advance when a student is added");
+		assertTrue(StudentManager.verifyEnrollment(), "Maintained counts should match a recount");
+	}
+
+	@Test
+	void updateStudent_should_log_new_row_and_survive_reload() throws IOException {
+		List<String> csvBefore = Files.readAllLines(csvFile);
+
+		assertTrue(StudentManager.updateStudent(new Student(101001, "Sylvia", "Ashbaugh", Major.DENT, 2022)),
+				"Existing student should be updated");
+		assertFalse(StudentManager.updateStudent(new Student(109999, "Khaldun", "Nassar", Major.DENT, 2022)),
+				"Unknown student should not be updated");
+
+		assertEquals(csvBefore, Files.readAllLines(csvFile), "CSV file should not be rewritten");
+		assertEquals(Arrays.asList("U,101001,Sylvia,Ashbaugh,DENT,2022"), Files.readAllLines(logFile),
+				"Only the updated row should be logged");
+
+		StudentManager.useDataFile(csvFile);
+		Student[] students = StudentManager.getStudents().toArray(new Student[0]);
+
+		assertEquals(Major.DENT, students[0].getMajor(), "Update should be replayed in the student's position");
+	}
+
+	@Test
+	void updateStudent_should_reject_invalid_data() {
+		assertThrows(IllegalArgumentException.class,
+				() -> StudentManager.updateStudent(new Student(101001, "Syl,via", "Ashbaugh", Major.DENT, 2022)),
+				"Names with commas should be rejected");
+	}
+
 	@Test
-	void test() {
-		fail("Not yet implemented");
+	void removeStudent_should_log_tombstone_and_survive_reload() throws IOException {
+		assertTrue(StudentManager.removeStudent(101001), "Existing student should be removed");
+		assertFalse(StudentManager.removeStudent(101001), "Removed student should not be removed again");
+
+		assertNull(StudentManager.getStudent(101001), "Removed student should not be found");
+		assertEquals(Arrays.asList("D,101001"), Files.readAllLines(logFile), "Only a tombstone should be logged");
+
+		StudentManager.useDataFile(csvFile);
+
+		assertEquals(1, StudentManager.getStudents().size(), "Tombstone should be replayed");
+		assertNull(StudentManager.getStudent(101001), "Removed student should stay removed after reload");
+	}
+
+	@Test
+	void getCompactionMetrics_should_report_log_and_store_compaction() throws IOException {
+		StudentManager.CompactionMetrics before = StudentManager.getCompactionMetrics();
+		List<Student> batch = new ArrayList<>();
+
+		for (int i = 0; i < StudentManager.COMPACTION_THRESHOLD / 2; i++)
+			batch.add(new Student(200000 + i, "First" + i, "Last" + i, Major.CSIS, 2022));
+
+		StudentManager.addStudents(batch);
+
+		for (Student student : batch)
+			StudentManager.removeStudent(student.getStudentId());
+
+		StudentManager.awaitPendingWrites();
+		StudentManager.CompactionMetrics after = StudentManager.getCompactionMetrics();
+
+		assertEquals(1, after.getLogCompactions() - before.getLogCompactions(), "Log should be compacted once");
+		assertEquals(StudentManager.COMPACTION_THRESHOLD, after.getCompactedEntries() - before.getCompactedEntries(),
+				"Every add and tombstone should be compacted");
+		assertTrue(after.getReclaimedLogBytes() > before.getReclaimedLogBytes(), "Log bytes should be reclaimed");
+		assertTrue(after.getStoreCompactions() > 0, "Removed rows should be compacted in memory");
+		assertEquals(0, after.getPendingLogEntries(), "No log entries should be left");
+		assertEquals(2, Files.readAllLines(csvFile).size(), "Compacted CSV file should drop the removed students");
+	}
+
+	@Test
+	void removeStudent_should_not_free_id_for_reuse_after_reload() throws IOException {
+		StudentManager.getStudents();
+		Student added = new Student("Khaldun", "Nassar", Major.PTAS, 2020);
+		StudentManager.addStudent(added);
+		StudentManager.removeStudent(added.getStudentId());
+
+		StudentManager.useDataFile(csvFile);
+		StudentManager.getStudents();
+
+		assertTrue(new Student("Katherine", "Blum", Major.DENT, 2019).getStudentId() > added.getStudentId(),
+				"ID of the removed student should not be handed out again");
+	}
+
+	@Test
+	void addChangeListener_should_receive_adds_updates_and_removals() throws IOException {
+		List<StudentEvent> events = new ArrayList<>();
+		StudentChangeListener listener = events::addAll;
+		StudentManager.getStudents();
+		StudentManager.addChangeListener(listener);
+
+		try {
+			StudentManager.addStudents(Arrays.asList(
+					new Student(101003, "Khaldun", "Nassar", Major.PTAS, 2020),
+					new Student(101004, "Katherine", "Blum", Major.DENT, 2019)));
+			StudentManager.updateStudent(new Student(101003, "Khaldun", "Nassar", Major.BIOT, 2020));
+			StudentManager.removeStudent(101001);
+		} finally {
+			StudentManager.removeChangeListener(listener);
+		}
+
+		assertEquals(Arrays.asList(StudentEvent.Type.ADDED, StudentEvent.Type.ADDED, StudentEvent.Type.UPDATED,
+				StudentEvent.Type.REMOVED), events.stream().map(StudentEvent::getType).collect(Collectors.toList()),
+				"Every change should be published in order");
+		assertEquals(Major.BIOT, events.get(2).getStudent().getMajor(), "Update should carry the new data");
+		assertEquals(101001, events.get(3).getStudentId(), "Removal should name the removed student");
+	}
+
+	@Test
+	void updateStudent_should_publish_rollback_off_log_writer_thread() throws IOException {
+		List<String> threads = new ArrayList<>();
+		StudentChangeListener listener = events -> threads.add(Thread.currentThread().getName());
+		StudentManager.getStudents();
+		Files.createDirectory(logFile);
+		StudentManager.addChangeListener(listener);
+
+		try {
+			assertThrows(IOException.class,
+					() -> StudentManager.updateStudent(new Student(101001, "Sylvia", "Ashbaugh", Major.DENT, 2021)),
+					"Failed write should be reported");
+		} finally {
+			StudentManager.removeChangeListener(listener);
+		}
+
+		assertEquals(2, threads.size(), "The update and its rollback should both be published");
+		assertEquals("student-rollback", threads.get(1), "Rollback should not be published on the log writer thread");
+		assertEquals(Major.BIOT, StudentManager.getStudent(101001).getMajor(), "Failed update should be rolled back");
+	}
+
+	@Test
+	void openSnapshot_should_iterate_while_students_are_added() throws IOException {
+		try (RosterSnapshot snapshot = StudentManager.openSnapshot()) {
+			StudentManager.addStudent(new Student(101003, "Khaldun", "Nassar", Major.PTAS, 2020));
+
+			assertEquals(2, snapshot.toList().size(), "Snapshot should not include the student added after it");
+			assertEquals(3, StudentManager.getStudents().size(), "Roster should include the added student");
+		}
+	}
+
+	@Test
+	void getStudents_should_pass_each_student_to_listener_while_loading() throws IOException {
+		List<Integer> seen = new ArrayList<>();
+
+		Set<Student> students = StudentManager.getStudents(student -> seen.add(student.getStudentId()));
+
+		assertEquals(Arrays.asList(101001, 101002), seen, "Listener should see each student in file order");
+		assertEquals(2, students.size(), "Returned set should hold the roster");
+
+		StudentManager.getStudents(student -> fail("Listener should not be called once loaded"));
+	}
+
+	@Test
+	void getStudents_should_stay_unloaded_when_listener_cancels() throws IOException {
+		assertThrows(CancellationException.class, () -> StudentManager.getStudents(student -> {
+			throw new CancellationException();
+		}), "Cancellation should be rethrown");
+
+		List<Integer> seen = new ArrayList<>();
+		StudentManager.getStudents(student -> seen.add(student.getStudentId()));
+
+		assertEquals(2, seen.size(), "Next call should load the students again");
+	}
+
+	@Test
+	void addStudent_should_not_lose_students_added_during_compaction() throws Exception {
+		Student late = new Student(300000, "Ada", "Lovelace", Major.CSIS, 2022);
+		long compactions = StudentManager.getCompactionMetrics().getLogCompactions();
+		Thread[] adder = new Thread[1];
+
+		// Adds a student from another thread while the roster is pinned but the
+		// compaction is not yet queued, giving it a moment to get through.
+		StudentManager.compactionPinnedHook = () -> {
+			StudentManager.compactionPinnedHook = null;
+			adder[0] = new Thread(() -> StudentManager.addStudentAsync(late));
+			adder[0].start();
+
+			try {
+				adder[0].join(200);
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+		};
+
+		try {
+			for (int i = 0; i < StudentManager.COMPACTION_THRESHOLD; i++)
+				StudentManager.addStudent(new Student(200000 + i, "First" + i, "Last" + i, Major.CSIS, 2022));
+
+			adder[0].join();
+			StudentManager.awaitPendingWrites();
+		} finally {
+			StudentManager.compactionPinnedHook = null;
+		}
+
+		assertEquals(compactions + 1, StudentManager.getCompactionMetrics().getLogCompactions(),
+				"Log should have been compacted once");
+
+		StudentManager.useDataFile(csvFile);
+		assertEquals(3 + StudentManager.COMPACTION_THRESHOLD, StudentManager.getStudents().size(),
+				"Every student should survive a reload");
+		assertNotNull(StudentManager.getStudent(300000), "Student added during compaction should survive a reload");
 	}
 
 }
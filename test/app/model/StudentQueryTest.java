@@ -0,0 +1,50 @@
+package app.model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.EnumSet;
+
+import org.junit.jupiter.api.Test;
+
+class StudentQueryTest {
+
+	@Test
+	void new_query_should_match_everything_in_insertion_order() {
+		StudentQuery query = new StudentQuery();
+
+		assertFalse(query.hasIndexedCriteria(), "An empty query should not use the secondary indexes");
+		assertNull(query.getSortKey(), "An empty query should keep insertion order");
+		assertEquals(Integer.MAX_VALUE, query.getPageEnd(), "An empty query should not be paged");
+	}
+
+	@Test
+	void criteria_should_replace_earlier_criteria_on_the_same_field() {
+		StudentQuery query = new StudentQuery().major(Major.BIOT).major(Major.DENT, Major.DENT).year(2021);
+
+		assertEquals(EnumSet.of(Major.DENT), query.getMajors(), "Later major criterion should replace the earlier");
+		assertEquals(2021, query.getMinYear(), "Single year should set the lower bound");
+		assertEquals(2021, query.getMaxYear(), "Single year should set the upper bound");
+		assertTrue(query.hasIndexedCriteria(), "Major and year criteria should use the secondary indexes");
+	}
+
+	@Test
+	void getPageEnd_should_not_overflow() {
+		assertEquals(Integer.MAX_VALUE, new StudentQuery().offset(10).getPageEnd(),
+				"Offset without limit should saturate");
+		assertEquals(30, new StudentQuery().offset(10).limit(20).getPageEnd(), "Page should end after the limit");
+	}
+
+	@Test
+	void invalid_criteria_should_be_rejected() {
+		StudentQuery query = new StudentQuery();
+
+		assertThrows(IllegalArgumentException.class, () -> query.studentIdBetween(2, 1), "Empty ID range");
+		assertThrows(IllegalArgumentException.class, () -> query.yearBetween(2022, 2021), "Empty year range");
+		assertThrows(IllegalArgumentException.class, () -> query.major(), "No majors");
+		assertThrows(IllegalArgumentException.class, () -> query.major(Major.BIOT, null), "Null major");
+		assertThrows(IllegalArgumentException.class, () -> query.firstName(null), "Null first name");
+		assertThrows(IllegalArgumentException.class, () -> query.offset(-1), "Negative offset");
+		assertThrows(IllegalArgumentException.class, () -> query.limit(-1), "Negative limit");
+	}
+
+}
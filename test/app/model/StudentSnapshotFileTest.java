@@ -0,0 +1,155 @@
+package app.model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class StudentSnapshotFileTest {
+
+	@TempDir
+	Path tempDir;
+
+	private Path snapshotPath;
+	private StudentSnapshotFile snapshot;
+	private List<Student> students;
+
+	@BeforeEach
+	void setUp() {
+		snapshotPath = tempDir.resolve("StudentData.bin");
+		snapshot = new StudentSnapshotFile(snapshotPath);
+		students = Arrays.asList(
+				new Student(101001, "Sylvia", "Ashbaugh", Major.BIOT, 2021),
+				new Student(101002, "Louella", "Gilroy", Major.INDS, 2022),
+				new Student(101003, "Sylvia", "Gilroy", Major.WELD, 2020));
+	}
+
+	private void corrupt(long position) throws IOException {
+		try (FileChannel channel = FileChannel.open(snapshotPath, StandardOpenOption.WRITE)) {
+			channel.write(ByteBuffer.wrap(new byte[] { 0x7F }), position);
+		}
+	}
+
+	/**
+	 * Points the given row's first name past the end of the name table, then
+	 * recomputes the checksum so that only the row check can catch it.
+	 */
+	static void corruptRowKeepingChecksum(Path snapshotPath, int row) throws IOException {
+		ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(snapshotPath));
+		buffer.putInt(StudentSnapshotFile.HEADER_SIZE + row * StudentSnapshotFile.ROW_SIZE + 8, 99);
+		CRC32 checksum = new CRC32();
+		checksum.update(buffer.array(), StudentSnapshotFile.HEADER_SIZE,
+				buffer.capacity() - StudentSnapshotFile.HEADER_SIZE);
+		buffer.putLong(24, checksum.getValue());
+		Files.write(snapshotPath, buffer.array());
+	}
+
+	@Test
+	void read_should_return_students_written_in_order() throws IOException {
+		snapshot.write(students);
+		List<Student> read = new ArrayList<>();
+
+		snapshot.read(read::add);
+
+		assertEquals(students, read, "Snapshot should round-trip students in order");
+		for (int i = 0; i < students.size(); i++) {
+			assertEquals(students.get(i).getFirstName(), read.get(i).getFirstName(), "First name should round-trip");
+			assertEquals(students.get(i).getLastName(), read.get(i).getLastName(), "Last name should round-trip");
+			assertEquals(students.get(i).getMajor(), read.get(i).getMajor(), "Major should round-trip");
+			assertEquals(students.get(i).getYear(), read.get(i).getYear(), "Year should round-trip");
+		}
+	}
+
+	@Test
+	void write_should_store_each_distinct_name_once() throws IOException {
+		snapshot.write(students);
+
+		int namesSize = "Sylvia".length() + "Ashbaugh".length() + "Louella".length() + "Gilroy".length() + 4 * 4;
+		assertEquals(StudentSnapshotFile.HEADER_SIZE + 3 * StudentSnapshotFile.ROW_SIZE + namesSize,
+				Files.size(snapshotPath), "Repeated names should share one name table entry");
+	}
+
+	@Test
+	void read_should_reject_checksum_mismatch() throws IOException {
+		snapshot.write(students);
+		corrupt(StudentSnapshotFile.HEADER_SIZE + 2);
+
+		assertThrows(IOException.class, () -> snapshot.read(student -> { }),
+				"Corrupted body should fail the checksum");
+	}
+
+	@Test
+	void read_should_reject_wrong_magic_number() throws IOException {
+		snapshot.write(students);
+		corrupt(0);
+
+		assertThrows(IOException.class, () -> snapshot.read(student -> { }),
+				"Wrong magic number should be rejected");
+	}
+
+	@Test
+	void read_should_reject_truncated_file() throws IOException {
+		snapshot.write(students);
+		try (FileChannel channel = FileChannel.open(snapshotPath, StandardOpenOption.WRITE)) {
+			channel.truncate(Files.size(snapshotPath) - 3);
+		}
+
+		assertThrows(IOException.class, () -> snapshot.read(student -> { }),
+				"Truncated snapshot should be rejected");
+	}
+
+	@Test
+	void read_should_reject_corrupted_row_before_passing_on_any_student() throws IOException {
+		snapshot.write(students);
+		corruptRowKeepingChecksum(snapshotPath, 1);
+		List<Student> read = new ArrayList<>();
+
+		assertThrows(IOException.class, () -> snapshot.read(read::add), "Corrupted row should be rejected");
+		assertTrue(read.isEmpty(), "No student should be passed on from a snapshot that fails validation");
+	}
+
+	@Test
+	void openSource_should_not_depend_on_file_once_opened() throws IOException {
+		snapshot.write(students);
+		List<Student> read = new ArrayList<>();
+
+		try (StudentCursor.Source source = snapshot.openSource(StudentCursor.Filter.ALL)) {
+			try (FileChannel channel = FileChannel.open(snapshotPath, StandardOpenOption.WRITE)) {
+				channel.truncate(0);
+			}
+			for (Student student = source.next(); student != null; student = source.next())
+				read.add(student);
+		}
+
+		assertEquals(students, read, "An open source should keep reading the snapshot it validated");
+	}
+
+	@Test
+	void isNewerThan_should_compare_modification_times() throws IOException {
+		Path csvFile = tempDir.resolve("StudentData.csv");
+		Files.write(csvFile, Arrays.asList("101001,Sylvia,Ashbaugh,BIOT,2021"));
+
+		assertFalse(snapshot.isNewerThan(csvFile), "Missing snapshot should not be newer");
+
+		snapshot.write(students);
+		Files.setLastModifiedTime(csvFile, FileTime.fromMillis(1000));
+		assertTrue(snapshot.isNewerThan(csvFile), "Snapshot written after the CSV file should be newer");
+
+		Files.setLastModifiedTime(csvFile, FileTime.fromMillis(System.currentTimeMillis() + 60000));
+		assertFalse(snapshot.isNewerThan(csvFile), "Snapshot older than the CSV file should not be newer");
+	}
+
+}
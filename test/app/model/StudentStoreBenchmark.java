@@ -0,0 +1,225 @@
+package app.model;
+
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contention benchmark for {@link StudentStore}.
+ * <p>
+ * For each reader thread count from one up to twice the number of available
+ * processors, runs that many readers against a single writer for a fixed time
+ * and prints the combined read throughput. Each read is an ID lookup, and every
+ * thousandth read is a full scan. On a machine with several cores, lookup
+ * throughput should grow roughly linearly up to the core count, since readers
+ * never take a lock.
+ * <p>
+ * Before the contention runs, it also prints the average latency of an indexed
+ * {@link StudentStore#find(Major, Integer) find} by major and year, and of a
+ * {@link StudentStore#query(StudentQuery) query} for the first page of the
+ * roster sorted by last name, next to copying and sorting the whole roster,
+ * and of reading the enrollment counts by major and year after each change,
+ * next to counting a scan of the roster.
+ * <p>
+ * Not run as part of the test suite. Run with {@code java app.model.StudentStoreBenchmark
+ * [students] [seconds]}.
+ *
+ * @author Elli Steck
+ * @see StudentStore
+ */
+class StudentStoreBenchmark {
+
+	private static final int FIRST_ID = 101001;
+
+	public static void main(String[] args) throws InterruptedException {
+		int studentCount = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+		long seconds = args.length > 1 ? Long.parseLong(args[1]) : 2;
+		int processors = Runtime.getRuntime().availableProcessors();
+
+		System.out.println("students=" + studentCount + ", seconds=" + seconds + ", processors=" + processors);
+		runFind(new StudentStore(createStudents(FIRST_ID, studentCount)));
+		runQuery(new StudentStore(createStudents(FIRST_ID, studentCount)));
+		runEnrollment(new StudentStore(createStudents(FIRST_ID, studentCount)), studentCount);
+
+		for (int readers = 1; readers <= processors * 2; readers *= 2) {
+			StudentStore store = new StudentStore(createStudents(FIRST_ID, studentCount));
+			run(store, studentCount, readers, seconds);
+		}
+	}
+
+	/**
+	 * Runs the given number of readers and one writer against the store and
+	 * prints their throughput.
+	 */
+	private static void run(StudentStore store, int studentCount, int readers, long seconds)
+			throws InterruptedException {
+		LongAdder reads = new LongAdder();
+		LongAdder writes = new LongAdder();
+		AtomicBoolean running = new AtomicBoolean(true);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Thread> threads = new ArrayList<>();
+
+		for (int r = 0; r < readers; r++) {
+			threads.add(new Thread(() -> {
+				ThreadLocalRandom random = ThreadLocalRandom.current();
+				long count = 0;
+				int[] scanned = new int[1];
+				awaitQuietly(start);
+
+				while (running.get()) {
+					if (++count % 1000 == 0)
+						store.forEach(student -> scanned[0]++);
+					else if (store.get(FIRST_ID + random.nextInt(studentCount)) == null)
+						throw new AssertionError("Missing student");
+				}
+
+				reads.add(count);
+			}));
+		}
+
+		threads.add(new Thread(() -> {
+			int nextId = FIRST_ID + studentCount;
+			awaitQuietly(start);
+
+			while (running.get()) {
+				store.addAll(createStudents(nextId, 10));
+				nextId += 10;
+				writes.add(10);
+			}
+		}));
+
+		for (Thread thread : threads)
+			thread.start();
+
+		long startNanos = System.nanoTime();
+		start.countDown();
+		TimeUnit.SECONDS.sleep(seconds);
+		running.set(false);
+
+		for (Thread thread : threads)
+			thread.join();
+
+		double elapsed = (System.nanoTime() - startNanos) / 1e9;
+		System.out.printf("readers=%d reads/s=%,.0f writes/s=%,.0f%n", readers, reads.sum() / elapsed,
+				writes.sum() / elapsed);
+	}
+
+	/**
+	 * Runs indexed lookups by every major and year and prints their average
+	 * latency.
+	 */
+	private static void runFind(StudentStore store) {
+		Major[] majors = Major.values();
+		int year = Year.now().getValue();
+		long matches = 0;
+		int queries = 0;
+		long startNanos = System.nanoTime();
+
+		for (int round = 0; round < 20; round++) {
+			for (Major major : majors) {
+				matches += store.find(major, year).size();
+				queries++;
+			}
+		}
+
+		long elapsed = System.nanoTime() - startNanos;
+		System.out.printf("find(major, year): queries=%d avg=%,.1f us avg matches=%d%n", queries,
+				elapsed / 1e3 / queries, matches / queries);
+	}
+
+	/**
+	 * Fetches the first page of the roster sorted by last name, with a query and
+	 * with a full sort, and prints their average latency.
+	 */
+	private static void runQuery(StudentStore store) {
+		StudentQuery query = new StudentQuery().sortBy(StudentQuery.SortKey.LAST_NAME, true).limit(20);
+		Comparator<Student> byLastName = Comparator.comparing(Student::getLastName);
+		int rounds = 20;
+		StudentQuery.Result result = null;
+		long startNanos = System.nanoTime();
+
+		for (int round = 0; round < rounds; round++)
+			result = store.query(query);
+
+		long queryElapsed = System.nanoTime() - startNanos;
+		List<Student> sorted = null;
+		startNanos = System.nanoTime();
+
+		for (int round = 0; round < rounds; round++) {
+			sorted = store.toList();
+			sorted.sort(byLastName);
+			sorted = sorted.subList(0, Math.min(20, sorted.size()));
+		}
+
+		long sortElapsed = System.nanoTime() - startNanos;
+		System.out.printf("query top 20 by last name: avg=%,.1f ms rows examined=%d plan=%s%n",
+				queryElapsed / 1e6 / rounds, result.getRowsExamined(), result.getPlan());
+		System.out.printf("toList + sort top 20: avg=%,.1f ms%n", sortElapsed / 1e6 / rounds);
+
+		if (!sorted.equals(result.getStudents()))
+			System.out.println("Page mismatch");
+	}
+
+	/**
+	 * Adds a student and reads the headcounts by major and year, from the
+	 * maintained counts and from a scan, and prints their average latency.
+	 */
+	private static void runEnrollment(StudentStore store, int studentCount) {
+		Major[] majors = Major.values();
+		int year = Year.now().getValue();
+		int rounds = 20;
+		long snapshotElapsed = 0;
+		long scanElapsed = 0;
+		EnrollmentSnapshot snapshot = null;
+		int[][] scanned = null;
+
+		for (int round = 0; round < rounds; round++) {
+			store.addAll(createStudents(FIRST_ID + studentCount + round, 1));
+
+			long startNanos = System.nanoTime();
+			snapshot = store.getEnrollment();
+			snapshotElapsed += System.nanoTime() - startNanos;
+
+			startNanos = System.nanoTime();
+			int[][] counts = new int[majors.length][2];
+			store.forEach(student -> counts[student.getMajor().ordinal()][student.getYear() == year ? 1 : 0]++);
+			scanElapsed += System.nanoTime() - startNanos;
+			scanned = counts;
+		}
+
+		System.out.printf("enrollment snapshot after a change: avg=%,.1f us%n", snapshotElapsed / 1e3 / rounds);
+		System.out.printf("enrollment by scan: avg=%,.1f ms%n", scanElapsed / 1e6 / rounds);
+
+		for (Major major : majors) {
+			if (snapshot.getCount(major, year) != scanned[major.ordinal()][1])
+				System.out.println("Count mismatch for " + major.name());
+		}
+	}
+
+	private static List<Student> createStudents(int firstId, int count) {
+		int year = Year.now().getValue();
+		List<Student> students = new ArrayList<>(count);
+
+		Major[] majors = Major.values();
+
+		for (int i = 0; i < count; i++)
+			students.add(new Student(firstId + i, "First" + i, "Last" + i, majors[i % majors.length], year));
+
+		return students;
+	}
+
+	private static void awaitQuietly(CountDownLatch latch) {
+		try {
+			latch.await();
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+}
@@ -0,0 +1,84 @@
+package app.model;
+
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Compares the heap used by a roster kept as a {@link LinkedHashSet} of
+ * {@link Student} objects with the same roster in a columnar
+ * {@link StudentStore}.
+ * <p>
+ * The students get names drawn from a few thousand distinct first and last
+ * names, and each name is a fresh {@link String}, as it would be after parsing
+ * a CSV file. The benchmark should be run with a heap large enough for the set,
+ * e.g. {@code -Xmx4g} for the default of ten million students.
+ * <p>
+ * Not run as part of the test suite. Run with {@code java app.model.StudentStoreMemoryBenchmark
+ * [students]}.
+ *
+ * @author Elli Steck
+ * @see StudentStore
+ */
+class StudentStoreMemoryBenchmark {
+
+	private static final int FIRST_ID = 101001;
+	private static final int FIRST_NAMES = 2000;
+	private static final int LAST_NAMES = 8000;
+	private static final Major[] MAJORS = Major.values();
+	private static final int YEAR = Year.now().getValue();
+
+	public static void main(String[] args) {
+		int studentCount = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+		System.out.println("students=" + studentCount);
+
+		long before = usedHeap();
+		Set<Student> set = new LinkedHashSet<>();
+		for (int i = 0; i < studentCount; i++)
+			set.add(createStudent(i));
+		long setBytes = usedHeap() - before;
+		System.out.printf("LinkedHashSet<Student>: %,d bytes (%.1f bytes/student)%n", setBytes,
+				(double) setBytes / studentCount);
+
+		set = null;
+		before = usedHeap();
+		StudentStore store = new StudentStore(Collections.<Student>emptyList());
+		List<Student> batch = new ArrayList<>(StudentStore.CHUNK_SIZE);
+
+		// Added in batches, so that the Student objects do not all live at once.
+		for (int i = 0; i < studentCount; i++) {
+			batch.add(createStudent(i));
+
+			if (batch.size() == StudentStore.CHUNK_SIZE || i == studentCount - 1) {
+				store.addAll(batch);
+				batch.clear();
+			}
+		}
+
+		long storeBytes = usedHeap() - before;
+		System.out.printf("StudentStore: %,d bytes (%.1f bytes/student), %d distinct names%n", storeBytes,
+				(double) storeBytes / studentCount, store.getNameCount());
+
+		if (store.size() != studentCount)
+			System.out.println("Size mismatch: " + store.size());
+	}
+
+	private static Student createStudent(int i) {
+		// new String mimics the per-row strings produced by the CSV parser.
+		return new Student(FIRST_ID + i, new String("First" + (i * 31 % FIRST_NAMES)),
+				new String("Last" + (i * 17 % LAST_NAMES)), MAJORS[i % MAJORS.length], YEAR);
+	}
+
+	private static long usedHeap() {
+		Runtime runtime = Runtime.getRuntime();
+
+		for (int i = 0; i < 3; i++)
+			System.gc();
+
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+}
@@ -0,0 +1,380 @@
+package app.model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class StudentStoreTest {
+
+	private StudentStore store;
+
+	@BeforeEach
+	void setUp() {
+		store = new StudentStore(Arrays.asList(
+				new Student(101001, "Sylvia", "Ashbaugh", Major.BIOT, 2021),
+				new Student(101002, "Louella", "Gilroy", Major.INDS, 2022)));
+	}
+
+	@Test
+	void addAll_should_skip_taken_ids_and_keep_insertion_order() {
+		Student added = new Student(101003, "Khaldun", "Nassar", Major.PTAS, 2020);
+
+		List<Student> result = store.addAll(Arrays.asList(
+				new Student(101001, "Other", "Student", Major.DENT, 2021),
+				added,
+				new Student(101003, "Repeated", "Student", Major.DENT, 2021)));
+
+		assertEquals(Arrays.asList(added), result, "Only the student with a new ID should be added");
+		assertEquals(Arrays.asList(101001, 101002, 101003), ids(), "Students should keep insertion order");
+		assertEquals("Nassar", store.get(101003).getLastName(), "Lookup should return the added student's data");
+	}
+
+	@Test
+	void removeAll_should_drop_students_from_lookups_and_scans() {
+		store.removeAll(Arrays.asList(store.get(101001)));
+
+		assertNull(store.get(101001), "Removed student should not be found");
+		assertEquals(1, store.size(), "Size should exclude the removed student");
+		assertEquals(Arrays.asList(101002), ids(), "Scan should skip the removed student");
+	}
+
+	@Test
+	void view_should_not_fail_when_students_are_added_while_iterating() {
+		Iterator<Student> iterator = store.view().iterator();
+		iterator.next();
+
+		store.addAll(Arrays.asList(new Student(101003, "Khaldun", "Nassar", Major.PTAS, 2020)));
+
+		assertEquals(101002, iterator.next().getStudentId(), "Iteration should continue in order");
+		assertTrue(store.view().contains(new Student(101003, "Khaldun", "Nassar", Major.PTAS, 2020)),
+				"View should reflect the added student");
+	}
+
+	@Test
+	void concurrent_addAll_should_add_each_id_exactly_once() throws InterruptedException {
+		int threadCount = 4;
+		int idsPerThread = 500;
+		AtomicInteger added = new AtomicInteger();
+		CountDownLatch start = new CountDownLatch(1);
+		List<Thread> threads = new ArrayList<>();
+
+		for (int t = 0; t < threadCount; t++) {
+			Thread thread = new Thread(() -> {
+				try {
+					start.await();
+				} catch (InterruptedException ex) {
+					return;
+				}
+
+				for (int i = 0; i < idsPerThread; i++) {
+					added.addAndGet(store.addAll(Arrays.asList(
+							new Student(200000 + i, "First", "Last", Major.BIOT, 2021))).size());
+				}
+			});
+			thread.start();
+			threads.add(thread);
+		}
+
+		start.countDown();
+
+		for (Thread thread : threads)
+			thread.join();
+
+		assertEquals(idsPerThread, added.get(), "Each ID should be added by exactly one thread");
+		assertEquals(2 + idsPerThread, store.size(), "Store should hold every distinct ID");
+		assertEquals(2 + idsPerThread, store.toList().size(), "Scan should return every distinct ID once");
+	}
+
+	@Test
+	void find_should_intersect_major_and_year_indexes() {
+		store.addAll(Arrays.asList(
+				new Student(101003, "Khaldun", "Nassar", Major.BIOT, 2022),
+				new Student(101004, "Katherine", "Blum", Major.BIOT, 2021)));
+
+		assertEquals(Arrays.asList(101001, 101004), idsOf(store.find(Major.BIOT, 2021)),
+				"Only students matching both criteria should be found, in insertion order");
+		assertEquals(Arrays.asList(101002, 101003), idsOf(store.find(null, 2022)),
+				"A null major should match any major");
+		assertTrue(store.find(Major.DENT, null).isEmpty(), "A major without students should match nothing");
+	}
+
+	@Test
+	void find_should_reflect_replaced_and_removed_students() {
+		store.replace(new Student(101001, "Sylvia", "Ashbaugh", Major.DENT, 2021));
+		store.removeAll(Arrays.asList(store.get(101002)));
+
+		assertTrue(store.find(Major.BIOT, null).isEmpty(), "Replaced student should leave its old major");
+		assertEquals(Arrays.asList(101001), idsOf(store.find(Major.DENT, 2021)),
+				"Replaced student should be found under its new major");
+		assertTrue(store.find(Major.INDS, null).isEmpty(), "Removed student should not be found");
+	}
+
+	@Test
+	void replaceIf_should_only_replace_student_still_holding_expected_data() {
+		Student original = store.get(101001);
+		Student failed = new Student(101001, "Sylvia", "Ashbaugh", Major.DENT, 2021);
+		Student newer = new Student(101001, "Sylvia", "Ashbaugh", Major.WELD, 2021);
+
+		store.replace(failed);
+		store.replace(newer);
+
+		assertFalse(store.replaceIf(failed, original), "Student replaced since should not be restored");
+		assertEquals(Major.WELD, store.get(101001).getMajor(), "Newer data should be kept");
+		assertTrue(store.replaceIf(newer, original), "Student still holding expected data should be replaced");
+		assertEquals(Major.BIOT, store.get(101001).getMajor(), "Original data should be restored");
+		assertEquals(Arrays.asList(101001), idsOf(store.find(Major.BIOT, 2021)), "Indexes should follow the restore");
+		assertFalse(store.replaceIf(original, new Student(109999, "No", "One", Major.BIOT, 2021)),
+				"Missing student should not be replaced");
+	}
+
+	@Test
+	void find_should_survive_compaction_of_removed_slots() {
+		store.addAll(Arrays.asList(new Student(101003, "Khaldun", "Nassar", Major.BIOT, 2022)));
+		store.removeAll(Arrays.asList(store.get(101001), store.get(101002)));
+
+		assertEquals(Arrays.asList(101003), idsOf(store.find(Major.BIOT, 2022)),
+				"Indexes should follow the students to their new slots");
+	}
+
+	@Test
+	void forEach_should_only_return_rows_matching_filter() {
+		List<Integer> ids = new ArrayList<>();
+		store.forEach((studentId, major, academicYear) -> major == Major.INDS,
+				student -> ids.add(student.getStudentId()));
+
+		assertEquals(Arrays.asList(101002), ids, "Only the INDS student should be returned");
+	}
+
+	@Test
+	void get_should_return_view_that_does_not_change_store() {
+		store.get(101001).setLastName("Changed");
+
+		assertEquals("Ashbaugh", store.get(101001).getLastName(), "Changing a view should not change the store");
+	}
+
+	@Test
+	void store_should_keep_order_and_indexes_across_chunks_and_compaction() {
+		List<Student> students = new ArrayList<>();
+		for (int i = 0; i < StudentStore.CHUNK_SIZE + 10; i++)
+			students.add(new Student(200000 + i, "First", "Last" + (i % 7), Major.CSIS, 2022));
+		store.addAll(students);
+		store.removeAll(students.subList(0, StudentStore.CHUNK_SIZE));
+
+		assertEquals(12, store.size(), "Only the last ten added and the two initial students should remain");
+		assertEquals(Arrays.asList(101001, 101002), ids().subList(0, 2), "Compaction should keep insertion order");
+		assertEquals(10, store.find(Major.CSIS, 2022).size(), "Indexes should follow the compacted rows");
+		int lastId = 200000 + StudentStore.CHUNK_SIZE + 9;
+		assertEquals("Last" + ((StudentStore.CHUNK_SIZE + 9) % 7), store.get(lastId).getLastName(),
+				"Lookups should follow the compacted rows");
+	}
+
+	@Test
+	void constructor_should_reuse_interned_names_and_ids() {
+		NameInterner interned = new NameInterner();
+		String sylvia = interned.intern("Sylvia");
+		interned.intern("Ashbaugh");
+
+		StudentStore seeded = new StudentStore(Arrays.asList(
+				new Student(101001, new String("Sylvia"), "Ashbaugh", Major.BIOT, 2021)), interned);
+
+		assertSame(sylvia, seeded.get(101001).getFirstName(), "Store should return the interned instance");
+		assertEquals(2, seeded.getNameCount(), "Seeded names should not be stored twice");
+	}
+
+	@Test
+	void query_should_look_up_narrow_id_ranges() {
+		addQueryStudents();
+		store.removeAll(Arrays.asList(store.get(101003)));
+
+		StudentQuery.Result result = store.query(new StudentQuery().studentIdBetween(101002, 101004));
+
+		assertEquals(StudentQuery.Plan.ID_LOOKUP, result.getPlan(), "A narrow ID range should use the ID index");
+		assertEquals(Arrays.asList(101002, 101004), idsOf(result.getStudents()), "Only stored IDs should match");
+		assertEquals(2, result.getRowsExamined(), "Only stored IDs should be examined");
+	}
+
+	@Test
+	void query_should_scan_when_id_range_is_wider_than_roster() {
+		StudentQuery.Result result = store.query(new StudentQuery().studentIdBetween(101002, 101005));
+
+		assertEquals(StudentQuery.Plan.SCAN, result.getPlan(), "Scanning two rows is cheaper than four lookups");
+		assertEquals(Arrays.asList(101002), idsOf(result.getStudents()), "Only the stored ID should match");
+	}
+
+	@Test
+	void query_should_use_indexes_for_major_and_year() {
+		addQueryStudents();
+
+		StudentQuery.Result result = store.query(new StudentQuery().major(Major.BIOT, Major.DENT).yearBetween(2021, 2022));
+
+		assertEquals(StudentQuery.Plan.INDEX, result.getPlan(), "Major and year criteria should use the indexes");
+		assertEquals(Arrays.asList(101001, 101003, 101005), idsOf(result.getStudents()),
+				"Matching students should be returned in insertion order");
+		assertEquals(3, result.getRowsExamined(), "Only indexed candidates should be examined");
+	}
+
+	@Test
+	void query_should_scan_for_name_criteria() {
+		addQueryStudents();
+
+		StudentQuery.Result result = store.query(new StudentQuery().lastName("Nassar"));
+
+		assertEquals(StudentQuery.Plan.SCAN, result.getPlan(), "Names are not indexed, so every row is scanned");
+		assertEquals(Arrays.asList(101003, 101004), idsOf(result.getStudents()), "Both Nassars should match");
+		assertEquals(store.size(), result.getRowsExamined(), "Every stored row should be examined");
+	}
+
+	@Test
+	void query_should_examine_nothing_for_unknown_name() {
+		StudentQuery.Result result = store.query(new StudentQuery().firstName("Nobody"));
+
+		assertEquals(StudentQuery.Plan.NO_MATCH, result.getPlan(), "An unknown name cannot match");
+		assertEquals(0, result.getRowsExamined(), "Nothing should be examined");
+		assertTrue(result.getStudents().isEmpty(), "Nothing should match");
+	}
+
+	@Test
+	void query_should_sort_and_page_matches() {
+		addQueryStudents();
+		StudentQuery query = new StudentQuery().sortBy(StudentQuery.SortKey.LAST_NAME, true).limit(2);
+
+		StudentQuery.Result first = store.query(query);
+		StudentQuery.Result second = store.query(query.offset(2));
+		StudentQuery.Result third = store.query(query.offset(4));
+
+		assertEquals(Arrays.asList(101001, 101005), idsOf(first.getStudents()), "First page should start at Ashbaugh");
+		assertEquals(Arrays.asList(101002, 101003), idsOf(second.getStudents()),
+				"Ties should be broken by insertion order");
+		assertEquals(Arrays.asList(101004), idsOf(third.getStudents()), "Last page should hold the rest");
+		assertEquals(5, third.getTotalMatches(), "Every student should count as a match on every page");
+	}
+
+	@Test
+	void query_should_sort_descending_by_year() {
+		addQueryStudents();
+
+		StudentQuery.Result result = store.query(new StudentQuery()
+				.sortBy(StudentQuery.SortKey.YEAR, false).limit(3));
+
+		assertEquals(Arrays.asList(101002, 101004, 101005), idsOf(result.getStudents()),
+				"Latest years should come first, ties in insertion order");
+	}
+
+	@Test
+	void query_should_skip_removed_students() {
+		addQueryStudents();
+		store.removeAll(Arrays.asList(store.get(101003)));
+
+		StudentQuery.Result result = store.query(new StudentQuery().lastName("Nassar"));
+
+		assertEquals(Arrays.asList(101004), idsOf(result.getStudents()), "Removed student should not match");
+	}
+
+	@Test
+	void searchLastNamePrefix_should_return_students_sorted_by_last_name() {
+		addQueryStudents();
+
+		assertEquals(Arrays.asList(101003, 101004), idsOf(store.searchLastNamePrefix("na", 10)),
+				"Both Nassars should match, in insertion order");
+		assertEquals(Arrays.asList(101001, 101005), idsOf(store.searchLastNamePrefix("", 2)),
+				"Empty prefix should return the first last names alphabetically");
+	}
+
+	@Test
+	void searchLastName_should_tolerate_typos_and_follow_changes() {
+		addQueryStudents();
+
+		assertEquals(Arrays.asList(101003, 101004), idsOf(store.searchLastName("Nasar", 2)),
+				"Misspelled last name should find both Nassars");
+
+		store.replace(new Student(101003, "Khaldun", "Ashbaugh", Major.DENT, 2021));
+		store.removeAll(Arrays.asList(store.get(101004)));
+
+		assertTrue(store.searchLastName("Nasar", 2).isEmpty(), "Renamed and removed students should not match");
+		assertEquals(Arrays.asList(101001, 101003), idsOf(store.searchLastName("Ashbagh", 5)),
+				"Renamed student should be found under the new name");
+	}
+
+	@Test
+	void getEnrollment_should_follow_adds_replacements_and_removals() {
+		store.addAll(Arrays.asList(new Student(101003, "Khaldun", "Nassar", Major.BIOT, 2021)));
+		store.replace(new Student(101002, "Louella", "Gilroy", Major.BIOT, 2019));
+		store.removeAll(Arrays.asList(store.get(101001)));
+
+		EnrollmentSnapshot snapshot = store.getEnrollment();
+
+		assertEquals(2, snapshot.getTotal(), "Two students should remain");
+		assertEquals(1, snapshot.getCount(Major.BIOT, 2021), "Added student should be counted");
+		assertEquals(1, snapshot.getCount(Major.BIOT, 2019), "Replaced student should move to its new year");
+		assertEquals(0, snapshot.getCount(Major.INDS), "Replaced student should leave its old major");
+		assertEquals(2019, snapshot.getFirstYear(), "Window should start at the earliest year");
+		assertTrue(store.verifyEnrollment(), "Maintained counts should match a recount");
+	}
+
+	@Test
+	void getEnrollment_should_return_same_snapshot_until_store_changes() {
+		EnrollmentSnapshot first = store.getEnrollment();
+
+		assertSame(first, store.getEnrollment(), "Unchanged store should return the cached snapshot");
+
+		store.addAll(Arrays.asList(new Student(101003, "Khaldun", "Nassar", Major.PTAS, 2020)));
+
+		assertNotSame(first, store.getEnrollment(), "Change should invalidate the cached snapshot");
+		assertEquals(2, first.getTotal(), "Earlier snapshot should not change");
+	}
+
+	@Test
+	void verifyEnrollment_should_rebuild_counts_that_drifted() {
+		store.getEnrollmentCounts().add(Major.DENT, 2030);
+
+		assertFalse(store.verifyEnrollment(), "Drifted counts should fail verification");
+		assertEquals(0, store.getEnrollment().getCount(Major.DENT), "Rebuilt counts should drop the stray student");
+		assertTrue(store.verifyEnrollment(), "Rebuilt counts should pass verification");
+	}
+
+	@Test
+	void remove_should_return_removed_student_and_compact_empty_rows() {
+		store.addAll(Arrays.asList(new Student(101003, "Khaldun", "Nassar", Major.PTAS, 2020)));
+
+		assertEquals("Ashbaugh", store.remove(101001).getLastName(), "Removed student should be returned");
+		assertNull(store.remove(101001), "Missing student should not be removed");
+		assertEquals(1, store.getCompactionStats().getPendingRows(), "Removed row should wait for compaction");
+
+		store.remove(101002);
+		StudentStore.CompactionStats stats = store.getCompactionStats();
+
+		assertEquals(1, stats.getCompactions(), "Removing most rows should compact the store");
+		assertEquals(2, stats.getReclaimedRows(), "Both removed rows should be reclaimed");
+		assertEquals(0, stats.getPendingRows(), "No removed rows should be left");
+		assertEquals(Arrays.asList(101003), ids(), "Remaining student should survive compaction");
+	}
+
+	private void addQueryStudents() {
+		store.addAll(Arrays.asList(
+				new Student(101003, "Khaldun", "Nassar", Major.DENT, 2021),
+				new Student(101004, "Katherine", "Nassar", Major.PTAS, 2022),
+				new Student(101005, "Miriam", "Bashir", Major.BIOT, 2022)));
+	}
+
+	private List<Integer> ids() {
+		List<Integer> ids = new ArrayList<>();
+		store.forEach(student -> ids.add(student.getStudentId()));
+		return ids;
+	}
+
+	private static List<Integer> idsOf(List<Student> students) {
+		List<Integer> ids = new ArrayList<>();
+		for (Student student : students)
+			ids.add(student.getStudentId());
+		return ids;
+	}
+
+}
@@ -0,0 +1,119 @@
+package app.view;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.EventQueue;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.RepaintManager;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class EdtWatchdogTest {
+
+	private EdtWatchdog watchdog;
+
+	@TempDir
+	Path tempDir;
+
+	@BeforeEach
+	void setUp() {
+		watchdog = EdtWatchdog.install(50);
+	}
+
+	@Test
+	void install_should_return_the_installed_watchdog() {
+		assertSame(watchdog, EdtWatchdog.install(50), "Installing again should reuse the watchdog");
+		assertSame(watchdog, EdtWatchdog.getInstance(), "Installed watchdog should be returned");
+	}
+
+	@Test
+	void blocking_event_should_be_recorded_as_stall_with_its_stack()
+			throws InvocationTargetException, InterruptedException {
+		int before = watchdog.getStalls().size();
+
+		EventQueue.invokeAndWait(EdtWatchdogTest::blockEventThread);
+		// Returns once the blocking event has finished dispatching
+		EventQueue.invokeAndWait(() -> {
+		});
+
+		List<EdtWatchdog.Stall> stalls = watchdog.getStalls();
+		assertEquals(before + 1, stalls.size(), "The blocking event should be recorded once");
+
+		EdtWatchdog.Stall stall = stalls.get(stalls.size() - 1);
+		assertEquals("InvocationEvent", stall.getEvent(), "Stall should name the event type");
+		assertTrue(stall.getDurationNanos() >= 200_000_000L, "Stall should record how long the event ran");
+		assertTrue(Arrays.stream(stall.getStack()).anyMatch(frame -> frame.getMethodName().equals("blockEventThread")),
+				"Stack should show the blocking method");
+	}
+
+	@Test
+	void short_events_should_only_be_counted() throws InvocationTargetException, InterruptedException {
+		int before = watchdog.getStalls().size();
+
+		for (int i = 0; i < 10; i++)
+			EventQueue.invokeAndWait(() -> {
+			});
+
+		assertEquals(before, watchdog.getStalls().size(), "Short events should not be stalls");
+		assertTrue(watchdog.getDispatchTimes().get("InvocationEvent").getCount() >= 10,
+				"Every event should be timed");
+		assertTrue(watchdog.getQueueDelays().getCount() >= 10, "Queue delays should be recorded");
+	}
+
+	@Test
+	void paint_pass_should_be_timed_once_and_counted_per_component()
+			throws InvocationTargetException, InterruptedException {
+		long passesBefore = watchdog.getPaintPasses().getCount();
+		long panelsBefore = watchdog.getRepaintCounts().getOrDefault("JPanel", 0L);
+		long labelsBefore = watchdog.getRepaintCounts().getOrDefault("JLabel", 0L);
+
+		EventQueue.invokeAndWait(() -> {
+			JPanel panel = new JPanel();
+			JLabel label = new JLabel("S101001");
+			RepaintManager manager = RepaintManager.currentManager(panel);
+			manager.addDirtyRegion(panel, 0, 0, 10, 10);
+			manager.addDirtyRegion(label, 0, 0, 10, 10);
+			manager.paintDirtyRegions();
+		});
+
+		assertEquals(passesBefore + 1, watchdog.getPaintPasses().getCount(), "The pass should be timed once");
+		assertEquals(panelsBefore + 1, (long) watchdog.getRepaintCounts().get("JPanel"),
+				"The pass should be counted for the panel");
+		assertEquals(labelsBefore + 1, (long) watchdog.getRepaintCounts().get("JLabel"),
+				"The pass should be counted for the label");
+	}
+
+	@Test
+	void dump_should_write_report_to_file() throws IOException, InvocationTargetException, InterruptedException {
+		EventQueue.invokeAndWait(() -> {
+		});
+		Path file = tempDir.resolve("watchdog.txt");
+
+		watchdog.dump(file);
+
+		String report = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+		assertTrue(report.contains("Stall threshold: 50 ms"), "Report should show the threshold");
+		assertTrue(report.contains("InvocationEvent: count="), "Report should show dispatch times");
+		assertTrue(report.contains("Paint time per pass:"), "Report should show paint pass times");
+	}
+
+	private static void blockEventThread() {
+		try {
+			Thread.sleep(250);
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+}
@@ -0,0 +1,66 @@
+package app.view;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class LatencyHistogramTest {
+
+	private final LatencyHistogram histogram = new LatencyHistogram();
+
+	@Test
+	void empty_histogram_should_report_zeros() {
+		assertEquals(0, histogram.getCount(), "Nothing should be counted");
+		assertEquals(0, histogram.getMeanNanos(), "Mean should be zero");
+		assertEquals(0, histogram.getPercentileNanos(99), "Percentile should be zero");
+	}
+
+	@Test
+	void record_should_keep_count_mean_and_max_exactly() {
+		histogram.record(1_000);
+		histogram.record(3_000);
+		histogram.record(-5);
+
+		assertEquals(3, histogram.getCount(), "Every duration should be counted");
+		assertEquals(4_000 / 3, histogram.getMeanNanos(), "Negative durations should count as zero");
+		assertEquals(3_000, histogram.getMaxNanos(), "Max should be exact");
+	}
+
+	@Test
+	void percentiles_should_be_within_an_eighth_of_the_true_value() {
+		for (long nanos = 1; nanos <= 1_000_000; nanos++)
+			histogram.record(nanos);
+
+		for (double percentile : new double[] { 1, 50, 90, 99, 99.9 }) {
+			long exact = (long) Math.ceil(percentile / 100 * 1_000_000);
+			long estimate = histogram.getPercentileNanos(percentile);
+
+			assertTrue(estimate >= exact, "p" + percentile + " should not be below " + exact + ": " + estimate);
+			assertTrue(estimate <= exact + exact / 8, "p" + percentile + " should be within an eighth of " + exact
+					+ ": " + estimate);
+		}
+
+		assertEquals(1_000_000, histogram.getPercentileNanos(100), "p100 should be the max");
+	}
+
+	@Test
+	void buckets_should_cover_every_duration_contiguously() {
+		for (int bucket = 1; bucket < LatencyHistogram.bucketOf(Long.MAX_VALUE); bucket++) {
+			long first = LatencyHistogram.upperBound(bucket - 1) + 1;
+
+			assertEquals(bucket, LatencyHistogram.bucketOf(first), "Bucket should start after the previous one");
+			assertEquals(bucket, LatencyHistogram.bucketOf(LatencyHistogram.upperBound(bucket)),
+					"Upper bound should fall in its own bucket");
+		}
+
+		assertEquals(Long.MAX_VALUE, LatencyHistogram.upperBound(LatencyHistogram.bucketOf(Long.MAX_VALUE)),
+				"Last bucket should end at the largest duration");
+	}
+
+	@Test
+	void percentile_should_reject_values_out_of_range() {
+		assertThrows(IllegalArgumentException.class, () -> histogram.getPercentileNanos(101),
+				"Percentile above 100 should be rejected");
+	}
+
+}
@@ -1,14 +0,0 @@
-package app.view;
-
-import static org.junit.jupiter.api.Assertions.*;
-
-import org.junit.jupiter.api.Test;
-
-class StudentPanelTest {
-
-	@Test
-	void test() {
-		fail("Not yet implemented");
-	}
-
-}
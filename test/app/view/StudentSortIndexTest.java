@@ -0,0 +1,104 @@
+package app.view;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import app.model.Major;
+import app.model.Student;
+
+class StudentSortIndexTest {
+
+	private final StudentSortIndex index = new StudentSortIndex();
+	private List<Student> rows;
+
+	@BeforeEach
+	void setUp() {
+		rows = new ArrayList<>(Arrays.asList(
+				new Student("Louella", "Gilroy", Major.INDS, 2022),
+				new Student("Sylvia", "ashbaugh", Major.BIOT, 2021),
+				new Student("Khaldun", "Nassar", Major.PTAS, 2020),
+				new Student("Andrew", "Ashbaugh", Major.ACCN, 2021)));
+	}
+
+	@Test
+	void sort_should_order_rows_by_column_breaking_ties_by_row() {
+		assertArrayEquals(new int[] { 3, 1, 0, 2 }, StudentSortIndex.sort(rows, StudentTableModel.NAME_COLUMN),
+				"Names should sort by last then first name, ignoring case");
+		assertArrayEquals(new int[] { 0, 1, 2, 3 }, StudentSortIndex.sort(rows, StudentTableModel.ID_COLUMN),
+				"IDs should sort numerically");
+		assertArrayEquals(new int[] { 2, 1, 3, 0 }, StudentSortIndex.sort(rows, StudentTableModel.YEAR_COLUMN),
+				"Equal years should keep row order");
+		assertArrayEquals(new int[] { 3, 1, 0, 2 }, StudentSortIndex.sort(rows, StudentTableModel.MAJOR_COLUMN),
+				"Majors should sort by display name");
+	}
+
+	@Test
+	void appended_should_merge_new_rows_into_each_permutation() {
+		index.put(StudentTableModel.NAME_COLUMN, StudentSortIndex.sort(rows, StudentTableModel.NAME_COLUMN));
+		index.put(StudentTableModel.YEAR_COLUMN, StudentSortIndex.sort(rows, StudentTableModel.YEAR_COLUMN));
+		rows.add(new Student("Ada", "Lovelace", Major.CSIS, 2019));
+		rows.add(new Student("Zoe", "Abbott", Major.CSIS, 2023));
+
+		index.appended(rows, 4);
+
+		assertArrayEquals(StudentSortIndex.sort(rows, StudentTableModel.NAME_COLUMN),
+				index.get(StudentTableModel.NAME_COLUMN), "Merged name order should match a full sort");
+		assertArrayEquals(StudentSortIndex.sort(rows, StudentTableModel.YEAR_COLUMN),
+				index.get(StudentTableModel.YEAR_COLUMN), "Merged year order should match a full sort");
+		assertNull(index.get(StudentTableModel.ID_COLUMN), "Missing permutations should stay missing");
+	}
+
+	@Test
+	void updated_should_move_changed_row_to_its_new_place() {
+		index.put(StudentTableModel.YEAR_COLUMN, StudentSortIndex.sort(rows, StudentTableModel.YEAR_COLUMN));
+		rows.get(2).setYear(2024);
+
+		index.updated(rows, changed(2));
+
+		assertArrayEquals(new int[] { 1, 3, 0, 2 }, index.get(StudentTableModel.YEAR_COLUMN),
+				"Changed row should move to the end");
+	}
+
+	@Test
+	void updated_should_move_a_batch_of_changed_rows_in_one_pass() {
+		index.put(StudentTableModel.NAME_COLUMN, StudentSortIndex.sort(rows, StudentTableModel.NAME_COLUMN));
+		index.put(StudentTableModel.YEAR_COLUMN, StudentSortIndex.sort(rows, StudentTableModel.YEAR_COLUMN));
+		rows.get(0).setYear(2019);
+		rows.get(1).setLastName("Zamora");
+		rows.get(3).setYear(2024);
+
+		index.updated(rows, changed(0, 1, 3));
+
+		assertArrayEquals(StudentSortIndex.sort(rows, StudentTableModel.NAME_COLUMN),
+				index.get(StudentTableModel.NAME_COLUMN), "Updated name order should match a full sort");
+		assertArrayEquals(StudentSortIndex.sort(rows, StudentTableModel.YEAR_COLUMN),
+				index.get(StudentTableModel.YEAR_COLUMN), "Updated year order should match a full sort");
+	}
+
+	@Test
+	void removed_should_drop_rows_and_renumber_the_rest() {
+		index.put(StudentTableModel.NAME_COLUMN, StudentSortIndex.sort(rows, StudentTableModel.NAME_COLUMN));
+
+		index.removed(new int[] { 0, -1, 1, 2 }, 3);
+
+		assertArrayEquals(new int[] { 2, 0, 1 }, index.get(StudentTableModel.NAME_COLUMN),
+				"Removed row should be dropped and later rows renumbered");
+	}
+
+	private static BitSet changed(int... rows) {
+		BitSet changed = new BitSet();
+
+		for (int row : rows)
+			changed.set(row);
+
+		return changed;
+	}
+
+}
@@ -0,0 +1,83 @@
+package app.view;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import app.model.Major;
+import app.model.Student;
+
+/**
+ * Benchmark measuring how long the event dispatch thread spends re-sorting and
+ * filtering a {@link StudentTableModel} over a large roster.
+ * <p>
+ * The sort permutations are computed once, as the background worker in
+ * {@link MainScrollPane} does, and timed separately. Switching the sort
+ * column, reversing it and applying a filter then only rebuild the rows shown
+ * from a permutation, and should each stay well within one 16 ms frame.
+ * <p>
+ * Not run as part of the test suite. Run with {@code java app.view.StudentTableModelBenchmark
+ * [students]}.
+ *
+ * @author Elli Steck
+ * @see StudentTableModel
+ * @see StudentSortIndex
+ */
+class StudentTableModelBenchmark {
+
+	private static final int ROUNDS = 5;
+	private static final String[] LAST_NAMES = { "Ashbaugh", "Gilroy", "Nassar", "Lovelace", "Williams", "Blum",
+			"Steck", "Garcia", "Nguyen", "Okafor" };
+
+	public static void main(String[] args) {
+		int size = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+		Random random = new Random(42);
+		Major[] majors = Major.values();
+		List<Student> students = new ArrayList<>(size);
+
+		for (int i = 0; i < size; i++) {
+			String lastName = LAST_NAMES[random.nextInt(LAST_NAMES.length)] + (char) ('a' + random.nextInt(26));
+			students.add(new Student("First" + i, lastName, majors[random.nextInt(majors.length)],
+					2018 + random.nextInt(8)));
+		}
+
+		StudentTableModel model = new StudentTableModel();
+		model.setStudents(students);
+
+		long start = System.nanoTime();
+		List<Student> rows = model.copyRows();
+
+		for (int column = 0; column < StudentTableModel.COLUMN_COUNT; column++)
+			model.putSortOrder(column, StudentTableModel.computeSortOrder(rows, column), model.getGeneration());
+
+		System.out.printf("students=%,d permutations computed in %.0f ms (background)%n", size,
+				(System.nanoTime() - start) / 1e6);
+
+		List<Student> matches = new ArrayList<>();
+
+		for (int i = 0; i < size; i += 20)
+			matches.add(students.get(i));
+
+		for (int round = 0; round < ROUNDS; round++) {
+			double[] sorts = new double[StudentTableModel.COLUMN_COUNT];
+
+			for (int column = 0; column < sorts.length; column++) {
+				start = System.nanoTime();
+				model.sortBy(column, round % 2 == 0);
+				sorts[column] = (System.nanoTime() - start) / 1e6;
+			}
+
+			start = System.nanoTime();
+			model.setFilter(matches);
+			double filter = (System.nanoTime() - start) / 1e6;
+
+			start = System.nanoTime();
+			model.setFilter(null);
+			double clear = (System.nanoTime() - start) / 1e6;
+
+			System.out.printf("sort name=%.2f ms id=%.2f ms year=%.2f ms major=%.2f ms filter %,d=%.2f ms clear=%.2f ms%n",
+					sorts[0], sorts[1], sorts[2], sorts[3], matches.size(), filter, clear);
+		}
+	}
+
+}
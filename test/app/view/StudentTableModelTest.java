@@ -0,0 +1,227 @@
+package app.view;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.swing.event.TableModelEvent;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import app.model.Major;
+import app.model.Student;
+import app.model.StudentEvent;
+
+class StudentTableModelTest {
+
+	private final StudentTableModel model = new StudentTableModel();
+	private final List<TableModelEvent> events = new ArrayList<>();
+	private Student sylvia;
+	private Student louella;
+
+	@BeforeEach
+	void setUp() {
+		sylvia = new Student("Sylvia", "Ashbaugh", Major.BIOT, 2021);
+		louella = new Student("Louella", "Gilroy", Major.INDS, 2022);
+		model.setStudents(Arrays.asList(sylvia, louella, new Student("Khaldun", "Nassar", Major.PTAS, 2020)));
+		model.addTableModelListener(events::add);
+	}
+
+	@Test
+	void getValueAt_should_return_each_column_of_the_row() {
+		assertEquals(3, model.getRowCount(), "Model should have a row per student");
+		assertEquals(4, model.getColumnCount(), "Model should have four columns");
+		assertEquals("Gilroy, Louella", model.getValueAt(1, StudentTableModel.NAME_COLUMN), "Name should be last, first");
+		assertEquals(louella.getStudentId(), model.getValueAt(1, StudentTableModel.ID_COLUMN), "ID should be the student's");
+		assertEquals(2022, model.getValueAt(1, StudentTableModel.YEAR_COLUMN), "Year should be the student's");
+		assertEquals(Major.INDS, model.getValueAt(1, StudentTableModel.MAJOR_COLUMN), "Major should be the student's");
+		assertEquals(Integer.class, model.getColumnClass(StudentTableModel.ID_COLUMN), "IDs should sort as numbers");
+	}
+
+	@Test
+	void studentsChanged_should_append_added_students_as_inserted_rows() {
+		Student ada = new Student("Ada", "Lovelace", Major.CSIS, 2023);
+
+		model.studentsChanged(Arrays.asList(new StudentEvent(StudentEvent.Type.ADDED, ada)));
+
+		assertEquals(4, model.getRowCount(), "Added student should get a row");
+		assertEquals(3, model.getRowOf(ada.getStudentId()), "Added student should be last");
+		assertEquals(1, events.size(), "One event should be fired");
+		assertEquals(TableModelEvent.INSERT, events.get(0).getType(), "Event should be an insert");
+		assertEquals(3, events.get(0).getFirstRow(), "Insert should cover only the new row");
+		assertEquals(3, events.get(0).getLastRow(), "Insert should cover only the new row");
+	}
+
+	@Test
+	void studentsChanged_should_update_changed_students_in_place() {
+		louella.setMajor(Major.DENT);
+
+		model.studentsChanged(Arrays.asList(new StudentEvent(StudentEvent.Type.UPDATED, louella)));
+
+		assertEquals(3, model.getRowCount(), "Update should not add a row");
+		assertEquals(Major.DENT, model.getValueAt(1, StudentTableModel.MAJOR_COLUMN), "Row should show the update");
+		assertEquals(TableModelEvent.UPDATE, events.get(0).getType(), "Event should be an update");
+		assertEquals(1, events.get(0).getFirstRow(), "Update should cover only the changed row");
+		assertEquals(1, events.get(0).getLastRow(), "Update should cover only the changed row");
+	}
+
+	@Test
+	void studentsChanged_should_apply_a_batch_with_one_event() {
+		List<StudentEvent> batch = new ArrayList<>();
+
+		for (int i = 0; i < 5; i++)
+			batch.add(new StudentEvent(StudentEvent.Type.ADDED, new Student("Ada" + i, "Lovelace", Major.CSIS, 2023)));
+
+		model.studentsChanged(batch);
+
+		assertEquals(8, model.getRowCount(), "Every added student should get a row");
+		assertEquals(1, events.size(), "An added batch should fire one event");
+		assertEquals(TableModelEvent.INSERT, events.get(0).getType(), "Event should be an insert");
+		assertEquals(3, events.get(0).getFirstRow(), "Insert should start at the first new row");
+		assertEquals(7, events.get(0).getLastRow(), "Insert should end at the last new row");
+
+		sylvia.setYear(2023);
+		louella.setYear(2019);
+		events.clear();
+
+		model.studentsChanged(Arrays.asList(new StudentEvent(StudentEvent.Type.UPDATED, louella),
+				new StudentEvent(StudentEvent.Type.UPDATED, sylvia)));
+
+		assertEquals(1, events.size(), "An updated batch should fire one event");
+		assertEquals(TableModelEvent.UPDATE, events.get(0).getType(), "Event should be an update");
+		assertEquals(0, events.get(0).getFirstRow(), "Update should span the changed rows");
+		assertEquals(1, events.get(0).getLastRow(), "Update should span the changed rows");
+	}
+
+	@Test
+	void sorted_rows_should_follow_a_batch_of_added_and_updated_students() {
+		model.putSortOrder(StudentTableModel.YEAR_COLUMN,
+				StudentTableModel.computeSortOrder(model.copyRows(), StudentTableModel.YEAR_COLUMN),
+				model.getGeneration());
+		model.sortBy(StudentTableModel.YEAR_COLUMN, true);
+		Student ada = new Student("Ada", "Lovelace", Major.CSIS, 2019);
+		Student zoe = new Student("Zoe", "Abbott", Major.CSIS, 2025);
+		sylvia.setYear(2024);
+		events.clear();
+
+		model.studentsChanged(Arrays.asList(new StudentEvent(StudentEvent.Type.ADDED, zoe),
+				new StudentEvent(StudentEvent.Type.UPDATED, sylvia),
+				new StudentEvent(StudentEvent.Type.ADDED, ada)));
+
+		assertEquals(1, events.size(), "A mixed batch should fire one event");
+		assertTrue(model.hasSortOrder(StudentTableModel.YEAR_COLUMN), "Permutation should be kept");
+		assertArrayEquals(StudentTableModel.computeSortOrder(model.copyRows(), StudentTableModel.YEAR_COLUMN),
+				sortedRows(), "Rows should match a full sort");
+		assertEquals(ada, model.getStudentAt(0), "Earliest year should be first");
+		assertEquals(zoe, model.getStudentAt(4), "Latest year should be last");
+	}
+
+	@Test
+	void sorted_rows_should_follow_updates_in_a_batch_with_removals() {
+		model.putSortOrder(StudentTableModel.YEAR_COLUMN,
+				StudentTableModel.computeSortOrder(model.copyRows(), StudentTableModel.YEAR_COLUMN),
+				model.getGeneration());
+		model.sortBy(StudentTableModel.YEAR_COLUMN, true);
+		louella.setYear(2019);
+
+		model.studentsChanged(Arrays.asList(new StudentEvent(StudentEvent.Type.REMOVED, sylvia),
+				new StudentEvent(StudentEvent.Type.UPDATED, louella)));
+
+		assertTrue(model.hasSortOrder(StudentTableModel.YEAR_COLUMN), "Permutation should be kept");
+		assertEquals(louella, model.getStudentAt(0), "Updated student should move to its new place");
+		assertEquals(2, model.getRowCount(), "Removed student should have no row");
+	}
+
+	@Test
+	void studentsChanged_should_remove_rows_and_reindex_the_rest() {
+		Student ada = new Student("Ada", "Lovelace", Major.CSIS, 2023);
+
+		model.studentsChanged(Arrays.asList(
+				new StudentEvent(StudentEvent.Type.REMOVED, sylvia),
+				new StudentEvent(StudentEvent.Type.ADDED, ada)));
+
+		assertEquals(3, model.getRowCount(), "One row should be removed and one added");
+		assertEquals(-1, model.getRowOf(sylvia.getStudentId()), "Removed student should have no row");
+		assertEquals(0, model.getRowOf(louella.getStudentId()), "Later rows should move up");
+		assertEquals(2, model.getRowOf(ada.getStudentId()), "Added student should be last");
+		assertEquals(1, events.size(), "A batch with removals should fire one event");
+	}
+
+	@Test
+	void sortBy_should_reorder_rows_once_permutation_is_installed() {
+		model.sortBy(StudentTableModel.NAME_COLUMN, true);
+
+		assertEquals(sylvia, model.getStudentAt(0), "Rows should keep roster order until sorted");
+
+		assertTrue(model.putSortOrder(StudentTableModel.NAME_COLUMN,
+				StudentTableModel.computeSortOrder(model.copyRows(), StudentTableModel.NAME_COLUMN),
+				model.getGeneration()), "Permutation should be installed");
+		assertEquals("Ashbaugh, Sylvia", model.getValueAt(0, StudentTableModel.NAME_COLUMN), "First row should be A");
+		assertEquals("Nassar, Khaldun", model.getValueAt(2, StudentTableModel.NAME_COLUMN), "Last row should be N");
+
+		model.sortBy(StudentTableModel.NAME_COLUMN, false);
+
+		assertEquals("Nassar, Khaldun", model.getValueAt(0, StudentTableModel.NAME_COLUMN),
+				"Descending order should reuse the permutation backwards");
+	}
+
+	@Test
+	void putSortOrder_should_reject_permutation_of_changed_rows() {
+		List<Student> copy = model.copyRows();
+		long generation = model.getGeneration();
+
+		model.addStudents(Arrays.asList(new Student("Ada", "Lovelace", Major.CSIS, 2023)));
+
+		assertFalse(model.putSortOrder(StudentTableModel.NAME_COLUMN,
+				StudentTableModel.computeSortOrder(copy, StudentTableModel.NAME_COLUMN), generation),
+				"Permutation of old rows should be rejected");
+		assertFalse(model.hasSortOrder(StudentTableModel.NAME_COLUMN), "No permutation should be installed");
+	}
+
+	@Test
+	void sorted_rows_should_follow_added_and_removed_students() {
+		model.putSortOrder(StudentTableModel.NAME_COLUMN,
+				StudentTableModel.computeSortOrder(model.copyRows(), StudentTableModel.NAME_COLUMN),
+				model.getGeneration());
+		model.sortBy(StudentTableModel.NAME_COLUMN, true);
+		Student ada = new Student("Ada", "Lovelace", Major.CSIS, 2023);
+
+		model.studentsChanged(Arrays.asList(new StudentEvent(StudentEvent.Type.ADDED, ada)));
+
+		assertEquals(2, model.getRowOf(ada.getStudentId()), "Added student should be sorted into place");
+
+		model.studentsChanged(Arrays.asList(new StudentEvent(StudentEvent.Type.REMOVED, sylvia)));
+
+		assertEquals(0, model.getRowOf(louella.getStudentId()), "Rows should close up after the removal");
+		assertEquals(1, model.getRowOf(ada.getStudentId()), "Rows should stay sorted after the removal");
+		assertTrue(model.hasSortOrder(StudentTableModel.NAME_COLUMN), "Permutation should be kept");
+	}
+
+	@Test
+	void setFilter_should_show_only_matching_students_until_cleared() {
+		model.setFilter(Arrays.asList(louella));
+
+		assertEquals(1, model.getRowCount(), "Only the match should be shown");
+		assertEquals(3, model.getStudentCount(), "Every student should still be held");
+		assertEquals(louella, model.getStudentAt(0), "Match should be the first row");
+		assertEquals(-1, model.getRowOf(sylvia.getStudentId()), "Hidden student should have no row");
+
+		model.setFilter(null);
+
+		assertEquals(3, model.getRowCount(), "Clearing the filter should show every student");
+	}
+
+	private int[] sortedRows() {
+		List<Student> rows = model.copyRows();
+		int[] shown = new int[model.getRowCount()];
+
+		for (int i = 0; i < shown.length; i++)
+			shown[i] = rows.indexOf(model.getStudentAt(i));
+
+		return shown;
+	}
+
+}